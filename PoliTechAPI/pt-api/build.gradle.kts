@@ -10,6 +10,12 @@ repositories {
     mavenCentral()
 }
 
+// JMH-бенчмарки: src/jmh/java, запуск ./gradlew :pt-api:jmh (без плагина — только mavenCentral)
+val jmh by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+    runtimeClasspath += sourceSets.main.get().output + sourceSets.main.get().runtimeClasspath
+}
+
 dependencies {
     implementation("org.springframework.security:spring-security-core:6.5.6")
     implementation("com.fasterxml.jackson.core:jackson-annotations:2.20")
@@ -24,12 +30,24 @@ dependencies {
     testImplementation(platform("org.junit:junit-bom:5.10.0"))
     testImplementation("org.junit.jupiter:junit-jupiter")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 tasks.test {
     useJUnitPlatform()
 }
 
+tasks.register<JavaExec>("jmh") {
+    group = "verification"
+    description = "Runs JMH benchmarks from src/jmh"
+    classpath = jmh.runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    workingDir = projectDir
+    args((findProperty("jmh.args") as String?)?.split(" ")?.filter { it.isNotBlank() }.orEmpty())
+}
+
 java {
     toolchain {
         languageVersion.set(JavaLanguageVersion.of(21))
@@ -0,0 +1,126 @@
+package ru.pt.domain.model;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.pt.api.dto.product.ProductVersionModel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Материализация контекста переменных: JsonPath.read на каждую переменную против плана извлечения.
+ * <p>
+ * Продукт по умолчанию — копия products/ACC/product_НС.json (249 переменных) в product-acc.json, договор — policy-acc.json.
+ * Запуск: {@code ./gradlew :pt-api:jmh -Pjmh.args="-p product=../../products/ACC/NS_CLASSIC/product_NS_CLASSIC.json"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VariableContextBenchmark {
+
+    @Param({"src/jmh/resources/product-acc.json"})
+    public String product;
+
+    private ProductVersionModel productVersion;
+    private String policyJson;
+
+    @Setup
+    public void setup() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        productVersion = objectMapper.readValue(Files.readString(Path.of(product)), ProductVersionModel.class);
+        try (InputStream in = VariableContextBenchmark.class.getResourceAsStream("/policy-acc.json")) {
+            policyJson = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        productVersion.getExtractionPlan();
+    }
+
+    /** Прежний Builder.build(): определения из PvVar и JsonPath.read(document, path) на каждую переменную. */
+    @Benchmark
+    public void perVarJsonPath(Blackhole bh) {
+        Object document = JsonPath.parse(policyJson).json();
+        List<PvVarDefinition> defs = productVersion.getVars().stream()
+                .filter(v -> !v.getIsDeleted())
+                .map(PvVarDefinition::fromPvVar)
+                .toList();
+        for (PvVarDefinition def : defs) {
+            if (def.getSourceType() == PvVarDefinition.VarSourceType.MAGIC || def.getJsonPath() == null) {
+                continue;
+            }
+            try {
+                bh.consume(JsonPath.read(document, def.getJsonPath()));
+            } catch (Exception e) {
+                bh.consume(e);
+            }
+        }
+    }
+
+    @Benchmark
+    public void extractionPlan(Blackhole bh) {
+        Object document = JsonPath.parse(policyJson).json();
+        bh.consume(productVersion.getExtractionPlan().extract(document));
+    }
+
+    /**
+     * Базовая линия для {@link #builder()}: прежний Builder.build() — определения из PvVar на каждый вызов
+     * и JsonPath.read(document, path) на каждую переменную (значения кладутся без приведения типа).
+     */
+    @Benchmark
+    public VariableContextImpl previousBuilder() {
+        Object document = JsonPath.parse(policyJson).json();
+        List<PvVarDefinition> defs = productVersion.getVars().stream()
+                .filter(v -> !v.getIsDeleted())
+                .map(PvVarDefinition::fromPvVar)
+                .toList();
+        VariableContextImpl ctx = VariableContextImpl.builder()
+                .document(document)
+                .varDefinitions(List.of())
+                .build();
+        defs.forEach(ctx::putDefinition);
+        for (PvVarDefinition def : defs) {
+            if (def.getSourceType() == PvVarDefinition.VarSourceType.MAGIC) {
+                continue;
+            }
+            Object value = null;
+            if (def.getJsonPath() != null) {
+                try {
+                    value = JsonPath.read(document, def.getJsonPath());
+                } catch (Exception e) {
+                    // как в прежнем resolveFromJson: ошибка пути — пустое значение
+                }
+            }
+            ctx.put(def.getCode(), value);
+        }
+        ctx.calcEmptyMagic();
+        return ctx;
+    }
+
+    @Benchmark
+    public VariableContextImpl builder() {
+        return VariableContextImpl.builder()
+                .json(policyJson)
+                .productVersion(productVersion)
+                .build();
+    }
+}
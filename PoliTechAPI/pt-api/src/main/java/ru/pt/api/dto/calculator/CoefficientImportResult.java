@@ -0,0 +1,10 @@
+package ru.pt.api.dto.calculator;
+
+/**
+ * Итог загрузки таблицы коэффициента из файла.
+ *
+ * @param rows       число загруженных строк (они заменили прежнюю таблицу)
+ * @param durationMs время загрузки, мс
+ */
+public record CoefficientImportResult(long rows, long durationMs) {
+}
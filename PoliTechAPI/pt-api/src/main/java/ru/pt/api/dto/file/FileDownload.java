@@ -1,11 +1,23 @@
 package ru.pt.api.dto.file;
 
 import java.io.InputStream;
+import java.nio.file.Path;
 
+/**
+ * Содержимое файла для выдачи клиенту.
+ * size — полный размер файла; offset — байт, с которого начинается inputStream (HTTP Range);
+ * path — файл на локальном диске (FS-хранилище) для отдачи через sendfile, иначе null.
+ */
 public record FileDownload(
 
         InputStream inputStream,
         String filename,
         String contentType,
-        long size
-) {}
+        long size,
+        long offset,
+        Path path
+) {
+    public FileDownload(InputStream inputStream, String filename, String contentType, long size) {
+        this(inputStream, filename, contentType, size, 0, null);
+    }
+}
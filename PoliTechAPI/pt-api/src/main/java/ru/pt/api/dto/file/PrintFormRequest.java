@@ -0,0 +1,9 @@
+package ru.pt.api.dto.file;
+
+/**
+ * Позиция задания фоновой печати: номер договора и тип печатной формы.
+ */
+public record PrintFormRequest(
+    String policyNumber,
+    String printFormType
+) {}
@@ -0,0 +1,21 @@
+package ru.pt.api.dto.file;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Задание фоновой печати: status — RUNNING, пока не обработаны все позиции, затем DONE.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PrintJob(
+    Long id,
+    String status,
+    int total,
+    int done,
+    int failed,
+    OffsetDateTime createdAt,
+    OffsetDateTime finishedAt,
+    List<PrintJobItem> items
+) {}
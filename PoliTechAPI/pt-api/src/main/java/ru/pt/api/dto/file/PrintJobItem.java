@@ -0,0 +1,18 @@
+package ru.pt.api.dto.file;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Состояние позиции задания печати.
+ * index — позиция во входном списке, status — NEW / DONE / FAILED;
+ * для DONE заполнен fileId, для FAILED — error.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PrintJobItem(
+    int index,
+    String policyNumber,
+    String printFormType,
+    String status,
+    Long fileId,
+    String error
+) {}
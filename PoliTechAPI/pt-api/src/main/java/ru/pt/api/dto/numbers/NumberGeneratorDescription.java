@@ -12,6 +12,13 @@ public class NumberGeneratorDescription {
     private ResetPolicy resetPolicy;
     private Long maxValue = 999_999L;
     private String xorMask;
+    /**
+     * Сколько номеров узел резервирует за одно обращение к БД.
+     * null или 1 — строгий режим: каждый номер выдаётся отдельной транзакцией, без пропусков.
+     * Больше 1 — номера выдаются из блока в памяти; неиспользованный остаток блока теряется при рестарте,
+     * номера разных узлов перемежаются.
+     */
+    private Integer blockSize;
 
     public NumberGeneratorDescription() {
     }
@@ -66,6 +73,14 @@ public class NumberGeneratorDescription {
         this.xorMask = xorMask;
     }
 
+    public Integer getBlockSize() {
+        return blockSize;
+    }
+
+    public void setBlockSize(Integer blockSize) {
+        this.blockSize = blockSize;
+    }
+
     public Long getId() {
         return id;
     }
@@ -92,6 +107,7 @@ public class NumberGeneratorDescription {
                 ", resetPolicy=" + resetPolicy +
                 ", maxValue=" + maxValue +
                 ", xorMask='" + xorMask + '\'' +
+                ", blockSize=" + blockSize +
                 '}';
     }
 }
@@ -24,7 +24,6 @@ import java.util.Map;
 public final class InsuranceContractPolicy implements StdPolicy {
 
     private final PolicyDTO contract;
-    private String sourceJson;
     private ProductVersionModel productVersion;
     private VariableContextImpl variableContext;
 
@@ -33,17 +32,16 @@ public final class InsuranceContractPolicy implements StdPolicy {
     private Commission commissionView;
     private List<Installment> installmentsView;
 
-    private InsuranceContractPolicy(PolicyDTO contract, String sourceJson) {
+    private InsuranceContractPolicy(PolicyDTO contract) {
         this.contract = contract;
-        this.sourceJson = sourceJson;
     }
 
     public static InsuranceContractPolicy fromJson(String json) {
-        return new InsuranceContractPolicy(PolicyJsonSupport.fromJson(json), json);
+        return new InsuranceContractPolicy(PolicyJsonSupport.fromJson(json));
     }
 
     public static InsuranceContractPolicy wrap(PolicyDTO contract) {
-        return new InsuranceContractPolicy(contract, null);
+        return new InsuranceContractPolicy(contract);
     }
 
     public PolicyDTO unwrap() {
@@ -299,11 +297,14 @@ public final class InsuranceContractPolicy implements StdPolicy {
         }
     }
 
+    /**
+     * Документ контекста строится из DTO одним проходом по токенам, без строки JSON.
+     * Вызывается один раз на запрос ({@link #setVars}); поля, изменённые сеттерами позже, переносятся в контекст через {@code syncVar}.
+     */
     private void rebuildVariableContext() {
         syncViewsToContract();
-        sourceJson = PolicyJsonSupport.toJson(contract);
         variableContext = VariableContextImpl.builder()
-                .json(sourceJson)
+                .document(PolicyJsonSupport.toDocument(contract))
                 .productVersion(productVersion)
                 .build();
     }
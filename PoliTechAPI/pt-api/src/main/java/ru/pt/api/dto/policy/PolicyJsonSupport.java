@@ -1,10 +1,15 @@
 package ru.pt.api.dto.policy;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.spi.json.JsonProvider;
 
 import ru.pt.api.dto.errors.ErrorConstants;
 import ru.pt.api.dto.errors.ErrorModel;
@@ -12,9 +17,15 @@ import ru.pt.api.dto.exception.BadRequestException;
 import ru.pt.api.dto.exception.InternalServerErrorException;
 import ru.pt.api.dto.policyv3.PolicyDTO;
 
+import java.io.IOException;
+import java.math.BigInteger;
+
 public final class PolicyJsonSupport {
 
     private static final ObjectMapper MAPPER = createMapper();
+    private static final JsonProvider JSON_PROVIDER = Configuration.defaultConfiguration().jsonProvider();
+    private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+    private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
 
     private PolicyJsonSupport() {
     }
@@ -54,4 +65,86 @@ public final class PolicyJsonSupport {
             ));
         }
     }
+
+    /**
+     * Документ для JsonPath, равный {@code JsonPath.parse(toJson(policyDto)).json()}, но без
+     * промежуточной строки: DTO пишется в {@link TokenBuffer}, дерево собирается из токенов.
+     */
+    public static Object toDocument(PolicyDTO policyDto) {
+        try (TokenBuffer buffer = new TokenBuffer(MAPPER, false)) {
+            MAPPER.writeValue(buffer, policyDto);
+            try (JsonParser parser = buffer.asParser()) {
+                return readValue(parser, parser.nextToken());
+            }
+        } catch (IOException e) {
+            throw new InternalServerErrorException(ErrorConstants.createErrorModel(
+                    500,
+                    "Unexpected error serializing policy: " + e.getMessage(),
+                    ErrorConstants.DOMAIN_POLICY,
+                    ErrorConstants.REASON_INTERNAL_ERROR,
+                    "policy"
+            ));
+        }
+    }
+
+    private static Object readValue(JsonParser parser, JsonToken token) throws IOException {
+        if (token == null) {
+            return null;
+        }
+        switch (token) {
+            case START_OBJECT: {
+                Object map = JSON_PROVIDER.createMap();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.currentName();
+                    JSON_PROVIDER.setProperty(map, name, readValue(parser, parser.nextToken()));
+                }
+                return map;
+            }
+            case START_ARRAY: {
+                Object array = JSON_PROVIDER.createArray();
+                int index = 0;
+                JsonToken next;
+                while ((next = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    JSON_PROVIDER.setArrayIndex(array, index++, readValue(parser, next));
+                }
+                return array;
+            }
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                return readInteger(parser);
+            case VALUE_NUMBER_FLOAT:
+                // тип дробного числа (Double/BigDecimal) зависит от длины текста — как у парсера JsonPath
+                return JSON_PROVIDER.parse(parser.getText());
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return null;
+            case VALUE_EMBEDDED_OBJECT:
+                return JSON_PROVIDER.parse(MAPPER.writeValueAsString(parser.getEmbeddedObject()));
+            default:
+                throw new IOException("Unexpected token: " + token);
+        }
+    }
+
+    /** Целое — самый узкий из Integer/Long/BigInteger, как при разборе текста JsonPath. */
+    private static Object readInteger(JsonParser parser) throws IOException {
+        return switch (parser.getNumberType()) {
+            case INT -> parser.getIntValue();
+            case LONG -> {
+                long value = parser.getLongValue();
+                yield value == (int) value ? (Object) (int) value : (Object) value;
+            }
+            default -> {
+                BigInteger value = parser.getBigIntegerValue();
+                if (value.compareTo(LONG_MIN) < 0 || value.compareTo(LONG_MAX) > 0) {
+                    yield value;
+                }
+                long longValue = value.longValue();
+                yield longValue == (int) longValue ? (Object) (int) longValue : (Object) longValue;
+            }
+        };
+    }
 }
@@ -1,9 +1,12 @@
 package ru.pt.api.dto.product;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import ru.pt.api.dto.numbers.NumberGeneratorDescription;
 import ru.pt.api.dto.rules.RuleDto;
+import ru.pt.domain.model.PvVarDefinition;
+import ru.pt.domain.model.VariableExtractionPlan;
 
 import java.util.List;
 
@@ -66,6 +69,10 @@ public class ProductVersionModel {
     @JsonProperty("celRules")
     private List<RuleDto> celRules;
 
+    /** План извлечения переменных; строится при первом обращении, сбрасывается при замене vars. */
+    @JsonIgnore
+    private volatile VariableExtractionPlan extractionPlan;
+
     public Long getId() {
         return id;
     }
@@ -176,6 +183,24 @@ public class ProductVersionModel {
 
     public void setVars(List<PvVar> vars) {
         this.vars = vars;
+        this.extractionPlan = null;
+    }
+
+    /**
+     * Скомпилированный план извлечения неудалённых переменных версии.
+     * Модель из кэша версий общая, поэтому план строится один раз и переиспользуется всеми запросами.
+     */
+    @JsonIgnore
+    public VariableExtractionPlan getExtractionPlan() {
+        VariableExtractionPlan plan = extractionPlan;
+        if (plan == null) {
+            plan = VariableExtractionPlan.compile(vars == null ? List.of() : vars.stream()
+                    .filter(v -> !v.getIsDeleted())
+                    .map(PvVarDefinition::fromPvVar)
+                    .toList());
+            extractionPlan = plan;
+        }
+        return plan;
     }
 
     public String getPhType() {
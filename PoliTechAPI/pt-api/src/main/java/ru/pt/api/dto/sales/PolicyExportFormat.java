@@ -0,0 +1,42 @@
+package ru.pt.api.dto.sales;
+
+import ru.pt.api.dto.exception.BadRequestException;
+
+/**
+ * Формат выгрузки договоров: NDJSON — строка на договор с индексом и JSON договора, CSV — только поля индекса.
+ */
+public enum PolicyExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    PolicyExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Формат по имени без учёта регистра; пусто — NDJSON.
+     */
+    public static PolicyExportFormat of(String value) {
+        if (value == null || value.isBlank()) {
+            return NDJSON;
+        }
+        for (PolicyExportFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(value.trim())) {
+                return format;
+            }
+        }
+        throw new BadRequestException("Unsupported export format: " + value);
+    }
+}
@@ -0,0 +1,26 @@
+package ru.pt.api.dto.sales;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import ru.pt.api.dto.errors.ErrorModel;
+
+/**
+ * Результат расчёта одного договора из пакетной котировки.
+ * index — позиция во входном списке, code — HTTP-статус, который вернул бы одиночный расчёт;
+ * заполнен либо policy (JSON договора), либо error.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record QuoteBatchItem(
+    int index,
+    int code,
+    @JsonRawValue String policy,
+    ErrorModel error
+) {
+    public static QuoteBatchItem ok(int index, String policyJson) {
+        return new QuoteBatchItem(index, 200, policyJson, null);
+    }
+
+    public static QuoteBatchItem failed(int index, ErrorModel error) {
+        return new QuoteBatchItem(index, error.getCode(), null, error);
+    }
+}
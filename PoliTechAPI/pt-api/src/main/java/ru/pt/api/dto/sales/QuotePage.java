@@ -0,0 +1,11 @@
+package ru.pt.api.dto.sales;
+
+import java.util.List;
+
+/**
+ * Страница списка котировок; nextCursor == null — страница последняя.
+ */
+public record QuotePage(
+    List<QuoteDto> items,
+    String nextCursor
+) { }
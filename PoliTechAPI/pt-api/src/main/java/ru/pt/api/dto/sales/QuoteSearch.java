@@ -0,0 +1,22 @@
+package ru.pt.api.dto.sales;
+
+import java.time.LocalDate;
+
+/**
+ * Параметры поиска договоров в списке котировок.
+ * qstr ищется в номере договора, страхователе и объекте страхования; пустые поля — без фильтра.
+ * dateFrom/dateTo — дата создания (включительно); cursor — из предыдущей страницы ({@link QuotePage#nextCursor()}).
+ */
+public record QuoteSearch(
+    String qstr,
+    String status,
+    String productCode,
+    LocalDate dateFrom,
+    LocalDate dateTo,
+    String cursor,
+    Integer limit
+) {
+    public static QuoteSearch of(String qstr) {
+        return new QuoteSearch(qstr, null, null, null, null, null, null);
+    }
+}
@@ -46,10 +46,19 @@ public interface CalculatorService {
      * @param productId айди продукта
      * @param versionNo номер версии
      * @param packageNo номер пакета
-     * @param inputValues входные переменные
-     * @return список переменных с рассчитанными значениями
+     * @param ctx контекст переменных договора, в него пишутся рассчитанные значения
+     * @return false, если калькулятор пакета не найден
      */
-    void runCalculator(Long tenantId, Long productId, Long versionNo, String packageNo, CalculatorContext ctx);
+    boolean runCalculator(Long tenantId, Long productId, Long versionNo, String packageNo, CalculatorContext ctx);
+
+    /**
+     * Сбросить скомпилированные калькуляторы всех пакетов версии продукта
+     * (после изменения переменных, пакетов или покрытий версии)
+     * @param tenantId айди тенанта
+     * @param productId айди продукта
+     * @param versionNo номер версии
+     */
+    void evictCalculatorPlans(Long tenantId, Long productId, Long versionNo);
 
     /**
      * Заменить модель калькулятора
@@ -2,8 +2,10 @@ package ru.pt.api.service.calculator;
 
 import ru.pt.api.dto.calculator.CoefficientColumn;
 import ru.pt.api.dto.calculator.CoefficientDataRow;
+import ru.pt.api.dto.calculator.CoefficientImportResult;
 import ru.pt.domain.model.VariableContext;
 
+import java.io.Reader;
 import java.util.List;
 
 /**
@@ -28,6 +30,20 @@ public interface CoefficientService {
      */
     List<CoefficientDataRow> replaceTable(Long calculatorId, String code, List<CoefficientDataRow> tableJson);
 
+    /**
+     * Заменить таблицу коэффициента строками из CSV: значения колонок col0..colN, последней — результат.
+     * Значения NUMBER-колонок {@code columns} и результат проверяются; при ошибке таблица не меняется.
+     * До commit расчёты читают прежнюю таблицу.
+     * @param calculatorId айди калькулятора
+     * @param code код коэффициента
+     * @param columns описание колонок коэффициента
+     * @param csv содержимое файла; первая строка — заголовок, если {@code header}
+     * @param header пропустить первую строку
+     * @return число загруженных строк
+     */
+    CoefficientImportResult importTable(Long calculatorId, String code, List<CoefficientColumn> columns,
+                                        Reader csv, boolean header);
+
     /**
      * Получить значение коэффициента по заданным параметрам
      * @param calculatorId айди калькулятора
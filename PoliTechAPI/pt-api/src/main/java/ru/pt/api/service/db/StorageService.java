@@ -3,11 +3,16 @@ package ru.pt.api.service.db;
 import ru.pt.api.dto.db.PolicyData;
 import ru.pt.api.security.AuthenticatedUser;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.UUID;
 
 import ru.pt.api.dto.policy.StdPolicy;
+import ru.pt.api.dto.sales.PolicyExportFormat;
 import ru.pt.api.dto.sales.QuoteDto;
+import ru.pt.api.dto.sales.QuotePage;
+import ru.pt.api.dto.sales.QuoteSearch;
 /**
  * Сервис хранения договоров + методы доступа
  */
@@ -89,5 +94,20 @@ public interface StorageService {
      * Нужны права - POLICY::LIST
      * @return List<QuoteDto>
      */
-    List<QuoteDto> getAccountQuotes(String qstr); 
+    List<QuoteDto> getAccountQuotes(String qstr);
+
+    /**
+     * Поиск договоров в дереве текущего аккаунта с постраничной выдачей (новые первыми).
+     * Вершина дерева берется из actingAccountId.
+     * Нужны права - POLICY::LIST
+     */
+    QuotePage searchAccountQuotes(QuoteSearch search);
+
+    /**
+     * Выгрузка договоров дерева текущего аккаунта в {@code out} потоком, по возрастанию id.
+     * Фильтры — как в {@link #searchAccountQuotes}; {@code limit} не задан — без ограничения.
+     * Каждая запись несёт курсор: выгрузка с {@code cursor} последней полученной записи продолжает прерванную.
+     * Нужны права - POLICY::LIST
+     */
+    void exportAccountPolicies(QuoteSearch search, PolicyExportFormat format, OutputStream out) throws IOException;
 }
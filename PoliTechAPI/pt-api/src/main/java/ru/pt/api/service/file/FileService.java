@@ -29,7 +29,18 @@ public interface FileService {
      * @param id идентификатор файла
      * @return содержимое, имя файла и content-type
      */
-    FileDownload downloadFile(Long id);
+    default FileDownload downloadFile(Long id) {
+        return downloadFile(id, 0);
+    }
+
+    /**
+     * Скачать файл с байта offset (HTTP Range). Поток закрывает вызывающий код.
+     *
+     * @param id     идентификатор файла
+     * @param offset первый байт; отрицательное значение — последние {@code -offset} байт файла
+     * @return содержимое с фактической позицией начала; если offset не меньше размера файла — пустой поток
+     */
+    FileDownload downloadFile(Long id, long offset);
 
     /**
      * Мягко удалить файл
@@ -56,4 +67,40 @@ public interface FileService {
      */
     byte[] getFile(Integer fileId, VariableContext keyValues);
 
+    /**
+     * Заполнить шаблон тенанта {@code tid} без пользователя в контексте (печать из фоновых задач).
+     * Права на файлы не проверяются — доступ к договору проверяет вызывающий код.
+     *
+     * @param tid     идентификатор тенанта
+     * @param fileId  идентификатор шаблона
+     * @param keyValues параметры заполнения
+     * @return файл в виде массива байт
+     */
+    byte[] getFile(Long tid, Integer fileId, VariableContext keyValues);
+
+    /**
+     * Сохранить файл, созданный системой (печатная форма), в хранилище тенанта.
+     * Права на файлы не проверяются — доступ к результату проверяет вызывающий код.
+     *
+     * @param tid идентификатор тенанта
+     * @return идентификатор файла
+     */
+    Long storeGeneratedFile(Long tid, String filename, String contentType, byte[] content);
+
+    /**
+     * Открыть файл, сохранённый {@link #storeGeneratedFile}. Поток закрывает вызывающий код.
+     *
+     * @param tid идентификатор тенанта
+     * @param id  идентификатор файла
+     */
+    FileDownload openGeneratedFile(Long tid, Long id);
+
+    /**
+     * Удалить файл, сохранённый {@link #storeGeneratedFile}, например лишнюю копию после параллельной печати.
+     *
+     * @param tid идентификатор тенанта
+     * @param id  идентификатор файла
+     */
+    void deleteGeneratedFile(Long tid, Long id);
+
 }
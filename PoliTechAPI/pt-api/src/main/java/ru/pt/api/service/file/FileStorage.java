@@ -1,6 +1,9 @@
 package ru.pt.api.service.file;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.Map;
 
 import ru.pt.api.dto.file.FileStorageType;
@@ -12,4 +15,31 @@ public interface FileStorage {
     void delete(String key, Map<String, String> config);
     boolean exists(String key, Map<String, String> config);
     boolean supports(FileStorageType type);
-} 
+
+    /**
+     * Содержимое начиная с байта offset (HTTP Range).
+     * По умолчанию начало потока читается и отбрасывается; хранилища с произвольным доступом переопределяют.
+     */
+    default InputStream load(String key, Map<String, String> config, long offset) {
+        InputStream stream = load(key, config);
+        try {
+            stream.skipNBytes(offset);
+        } catch (IOException e) {
+            try {
+                stream.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw new UncheckedIOException(e);
+        }
+        return stream;
+    }
+
+    /**
+     * Файл на локальном диске, если хранилище файловое: отдаётся без копирования через память (sendfile).
+     * @return путь или {@code null}
+     */
+    default Path localPath(String key, Map<String, String> config) {
+        return null;
+    }
+}
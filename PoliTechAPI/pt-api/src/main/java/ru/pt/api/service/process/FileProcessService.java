@@ -13,4 +13,22 @@ public interface FileProcessService {
      */
     byte[] generatePrintForm(String policyNumber, String printFormType);
 
+    /**
+     * Сгенерировать печатную форму и сохранить её в хранилище файлов тенанта договора.
+     * Для выпущенных договоров (ISSUED/PAID) повторно используется уже сохранённая форма.
+     * @param policyNumber номер полиса
+     * @param printFormType тип печатки
+     * @return идентификатор файла
+     */
+    Long storePrintForm(String policyNumber, String printFormType);
+
+    /**
+     * Сгенерировать печатную форму без пользователя в контексте (outbox и другие фоновые задачи):
+     * тенант берётся из договора, права пользователя не проверяются.
+     * @param policyNumber номер полиса
+     * @param printFormType тип печатки
+     * @return файл
+     */
+    byte[] renderPrintForm(String policyNumber, String printFormType);
+
 }
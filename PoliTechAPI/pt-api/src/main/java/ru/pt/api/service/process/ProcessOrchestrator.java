@@ -19,8 +19,10 @@ public interface ProcessOrchestrator {
     /**
      * Оформление договора (формат-независимый вход).
      * Маппинг wire JSON → {@link StdPolicy} выполняется на уровне API-контроллера.
+     * @return сохранённый договор; {@link PolicyData#getPolicy()} — JSON, записанный в хранилище,
+     *         он же отдаётся клиенту без повторной сериализации
      */
-    StdPolicy save(StdPolicy policy);
+    PolicyData save(StdPolicy policy);
 
     /**
      * Обновить неоплаченный полис
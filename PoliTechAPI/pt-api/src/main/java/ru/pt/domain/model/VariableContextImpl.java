@@ -37,6 +37,7 @@ public final class VariableContextImpl implements CalculatorContext {
 
     public static final class Builder {
         private String json;
+        private Object document;
         private ProductVersionModel productVersion;
         private List<PvVarDefinition> varDefinitions;
 
@@ -45,6 +46,14 @@ public final class VariableContextImpl implements CalculatorContext {
             return this;
         }
 
+        /**
+         * Уже разобранный документ (дерево JsonPath) — вместо {@link #json(String)}, без повторного разбора.
+         */
+        public Builder document(Object document) {
+            this.document = document;
+            return this;
+        }
+
         public Builder productVersion(ProductVersionModel productVersion) {
             this.productVersion = productVersion;
             return this;
@@ -56,18 +65,21 @@ public final class VariableContextImpl implements CalculatorContext {
         }
 
         public VariableContextImpl build() {
-            if (json == null) {
+            if (json == null && document == null) {
                 throw new IllegalArgumentException("json is required");
             }
-            Object jsonDocument = JsonPath.parse(json).json();
-            List<PvVarDefinition> defs = resolveDefinitions();
-            VariableContextImpl ctx = new VariableContextImpl(toDefinitionMap(defs));
-
-            for (PvVarDefinition def : defs) {
+            Object jsonDocument = document != null ? document : JsonPath.parse(json).json();
+            VariableExtractionPlan plan = resolvePlan();
+            List<PvVarDefinition> defs = plan.getDefinitions();
+            VariableContextImpl ctx = new VariableContextImpl(plan.getDefinitionMap());
+
+            Object[] raw = plan.extract(jsonDocument);
+            for (int i = 0; i < defs.size(); i++) {
+                PvVarDefinition def = defs.get(i);
                 if (def.getSourceType() == PvVarDefinition.VarSourceType.MAGIC) {
                     continue;
                 }
-                Object value = ctx.resolveFromJson(jsonDocument, def);
+                Object value = ctx.convertRaw(raw[i], def);
                 ctx.putValueInternal(def.getCode(), value);
                 logger.trace("materialize: code='{}', value='{}'", def.getCode(), value);
             }
@@ -76,25 +88,17 @@ public final class VariableContextImpl implements CalculatorContext {
             return ctx;
         }
 
-        private List<PvVarDefinition> resolveDefinitions() {
+        /**
+         * План продукта строится один раз и хранится в модели версии; явный список переменных компилируется на месте.
+         */
+        private VariableExtractionPlan resolvePlan() {
             if (varDefinitions != null) {
-                return varDefinitions;
+                return VariableExtractionPlan.compile(varDefinitions);
             }
             if (productVersion == null || productVersion.getVars() == null) {
-                return List.of();
-            }
-            return productVersion.getVars().stream()
-                    .filter(v -> !v.getIsDeleted())
-                    .map(PvVarDefinition::fromPvVar)
-                    .toList();
-        }
-
-        private static Map<String, PvVarDefinition> toDefinitionMap(List<PvVarDefinition> defs) {
-            Map<String, PvVarDefinition> map = new HashMap<>();
-            if (defs != null) {
-                defs.forEach(def -> map.put(def.getCode(), def));
+                return VariableExtractionPlan.EMPTY;
             }
-            return map;
+            return productVersion.getExtractionPlan();
         }
     }
 
@@ -194,15 +198,14 @@ public final class VariableContextImpl implements CalculatorContext {
         return decodeNullValue(cached);
     }
 
-    private Object resolveFromJson(Object jsonDocument, PvVarDefinition def) {
+    private Object convertRaw(Object raw, PvVarDefinition def) {
         if (def.getJsonPath() == null) {
             return null;
         }
         try {
-            Object raw = JsonPath.read(jsonDocument, def.getJsonPath());
             return convert(raw, def.getType(), def.getGroupFunctionName());
         } catch (Exception e) {
-            logger.trace("resolveFromJson: code='{}', path='{}', error={}",
+            logger.trace("convertRaw: code='{}', path='{}', error={}",
                     def.getCode(), def.getJsonPath(), e.getMessage());
             return null;
         }
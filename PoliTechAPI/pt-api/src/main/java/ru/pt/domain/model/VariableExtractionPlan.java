@@ -0,0 +1,259 @@
+package ru.pt.domain.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jayway.jsonpath.JsonPath;
+
+/**
+ * План извлечения переменных из JSON договора: пути разобраны и скомпилированы один раз.
+ * <p>
+ * Определённая часть пути ({@code a.b[0].c}) разложена в дерево по общим префиксам, которое
+ * обходится по документу один раз. Остаток пути после первого фильтра/wildcard
+ * ({@code [?(@.isPrimary)].city}) выполняется скомпилированным {@link JsonPath} от узла префикса.
+ * Результат совпадает с {@code JsonPath.read(document, path)}; ошибки пути дают {@code null}.
+ * <p>
+ * План неизменяемый, его можно переиспользовать между запросами.
+ */
+public final class VariableExtractionPlan {
+
+    private static final Logger logger = LoggerFactory.getLogger(VariableExtractionPlan.class);
+
+    public static final VariableExtractionPlan EMPTY = compile(List.of());
+
+    private final List<PvVarDefinition> definitions;
+    private final Map<String, PvVarDefinition> definitionMap;
+    private final Node root;
+
+    private VariableExtractionPlan(List<PvVarDefinition> definitions, Node root) {
+        this.definitions = definitions;
+        Map<String, PvVarDefinition> map = new HashMap<>();
+        definitions.forEach(def -> map.put(def.getCode(), def));
+        this.definitionMap = Collections.unmodifiableMap(map);
+        this.root = root;
+    }
+
+    public static VariableExtractionPlan compile(List<PvVarDefinition> definitions) {
+        List<PvVarDefinition> defs = definitions == null ? List.of() : List.copyOf(definitions);
+        Node root = new Node(null);
+        for (int i = 0; i < defs.size(); i++) {
+            PvVarDefinition def = defs.get(i);
+            if (def.getSourceType() == PvVarDefinition.VarSourceType.MAGIC || def.getJsonPath() == null) {
+                continue;
+            }
+            addPath(root, i, def.getJsonPath());
+        }
+        root.freeze();
+        return new VariableExtractionPlan(defs, root);
+    }
+
+    public List<PvVarDefinition> getDefinitions() {
+        return definitions;
+    }
+
+    public Map<String, PvVarDefinition> getDefinitionMap() {
+        return definitionMap;
+    }
+
+    /**
+     * Извлечь сырые значения всех путей за один обход документа.
+     * @param document документ, разобранный {@code JsonPath.parse(json).json()}
+     * @return значения по индексу в {@link #getDefinitions()}; для MAGIC и переменных без пути — {@code null}
+     */
+    public Object[] extract(Object document) {
+        Object[] raw = new Object[definitions.size()];
+        walk(root, document, State.PRESENT, document, raw);
+        return raw;
+    }
+
+    private void walk(Node node, Object value, State state, Object document, Object[] raw) {
+        for (Target target : node.targets) {
+            raw[target.index()] = target.read(value, state, document);
+        }
+        for (Node child : node.children.values()) {
+            Object childValue = null;
+            State childState = state;
+            if (state == State.PRESENT) {
+                childState = State.MISSING;
+                if (child.index >= 0) {
+                    if (value instanceof List<?> list) {
+                        if (child.index < list.size()) {
+                            childValue = list.get(child.index);
+                            childState = State.PRESENT;
+                        } else {
+                            // индекс за пределами массива JsonPath пропускает молча — результат зависит от остатка пути
+                            childState = State.FALLBACK;
+                        }
+                    }
+                } else if (value instanceof Map<?, ?> map && map.containsKey(child.property)) {
+                    childValue = map.get(child.property);
+                    childState = State.PRESENT;
+                }
+            }
+            walk(child, childValue, childState, document, raw);
+        }
+    }
+
+    private static void addPath(Node root, int index, String path) {
+        int pos = path.startsWith("$") ? 1 : 0;
+        Node node = root;
+        while (pos < path.length()) {
+            Segment segment = Segment.next(path, pos, node == root && pos == 0);
+            if (segment == null) {
+                break;
+            }
+            node = node.child(segment.key(), segment.property(), segment.index());
+            pos = segment.end();
+        }
+
+        if (node == root) {
+            // определённого префикса нет — весь путь целиком
+            node.targets.add(new Target(index, Kind.WHOLE, null, compileOrNull(path)));
+        } else if (pos >= path.length()) {
+            node.targets.add(new Target(index, Kind.DEFINITE, null, null));
+        } else {
+            String rest = path.substring(pos);
+            JsonPath restPath = compileOrNull(rest.startsWith("[") || rest.startsWith(".") ? "$" + rest : "$." + rest);
+            node.targets.add(new Target(index, Kind.PREFIXED, restPath, compileOrNull(path)));
+        }
+    }
+
+    private static JsonPath compileOrNull(String path) {
+        try {
+            return JsonPath.compile(path);
+        } catch (Exception e) {
+            logger.trace("compile: path='{}', error={}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Состояние узла префикса при обходе документа.
+     * MISSING — нет свойства или родитель не объект/массив: JsonPath на определённом префиксе
+     * бросает PathNotFoundException, значение {@code null}.
+     * FALLBACK — индекс за пределами массива: путь выполняется целиком от корня документа.
+     */
+    private enum State { PRESENT, MISSING, FALLBACK }
+
+    /** DEFINITE — путь определённый целиком; PREFIXED — префикс и остаток; WHOLE — префикса нет. */
+    private enum Kind { DEFINITE, PREFIXED, WHOLE }
+
+    /**
+     * Переменная, путь которой заканчивается в узле префикса.
+     * @param rest остаток пути после префикса, выполняется от значения узла
+     * @param full весь путь — когда остаток нельзя применить к значению узла
+     */
+    private record Target(int index, Kind kind, JsonPath rest, JsonPath full) {
+
+        Object read(Object value, State state, Object document) {
+            if (kind == Kind.DEFINITE) {
+                return state == State.PRESENT ? value : null;
+            }
+            if (state == State.MISSING || full == null) {
+                return null;
+            }
+            try {
+                if (kind == Kind.PREFIXED && state == State.PRESENT && rest != null
+                        && (value instanceof Map || value instanceof List)) {
+                    return rest.read(value);
+                }
+                return full.read(document);
+            } catch (Exception e) {
+                logger.trace("extract: path='{}', error={}", full.getPath(), e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    private static final class Node {
+        final String property;
+        final int index;
+        Map<String, Node> children = new LinkedHashMap<>();
+        List<Target> targets = new ArrayList<>();
+
+        Node(String property) {
+            this(property, -1);
+        }
+
+        Node(String property, int index) {
+            this.property = property;
+            this.index = index;
+        }
+
+        Node child(String key, String property, int index) {
+            return children.computeIfAbsent(key, k -> new Node(property, index));
+        }
+
+        void freeze() {
+            children.values().forEach(Node::freeze);
+            children = children.isEmpty() ? Map.of() : children;
+            targets = List.copyOf(targets);
+        }
+    }
+
+    /**
+     * Определённый шаг пути: {@code .name}, {@code ['name']} или {@code [0]}.
+     */
+    private record Segment(String key, String property, int index, int end) {
+
+        static Segment next(String path, int pos, boolean first) {
+            char c = path.charAt(pos);
+            if (c == '.') {
+                if (pos + 1 >= path.length() || path.charAt(pos + 1) == '.') {
+                    return null;
+                }
+                return property(path, pos + 1);
+            }
+            if (c == '[') {
+                // путь без "$" JsonPath дополняет "$." — скобку в начале оставляем ему
+                return first ? null : bracket(path, pos);
+            }
+            return first ? property(path, pos) : null;
+        }
+
+        private static Segment property(String path, int start) {
+            int end = start;
+            while (end < path.length() && isNameChar(path.charAt(end))) {
+                end++;
+            }
+            if (end == start) {
+                return null;
+            }
+            if (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                return null;
+            }
+            String name = path.substring(start, end);
+            return new Segment("." + name, name, -1, end);
+        }
+
+        private static Segment bracket(String path, int start) {
+            int close = path.indexOf(']', start);
+            if (close < 0) {
+                return null;
+            }
+            String inner = path.substring(start + 1, close);
+            if (!inner.isEmpty() && inner.chars().allMatch(Character::isDigit) && inner.length() < 10) {
+                int index = Integer.parseInt(inner);
+                return new Segment("[" + index + "]", null, index, close + 1);
+            }
+            if (inner.length() >= 2 && inner.startsWith("'") && inner.endsWith("'")) {
+                String name = inner.substring(1, inner.length() - 1);
+                if (!name.isEmpty() && name.chars().allMatch(ch -> isNameChar((char) ch))) {
+                    return new Segment("." + name, name, -1, close + 1);
+                }
+            }
+            return null;
+        }
+
+        private static boolean isNameChar(char c) {
+            return Character.isLetterOrDigit(c) || c == '_' || c == '-';
+        }
+    }
+}
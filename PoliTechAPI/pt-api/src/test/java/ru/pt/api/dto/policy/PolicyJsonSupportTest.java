@@ -0,0 +1,95 @@
+package ru.pt.api.dto.policy;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import ru.pt.api.dto.policyv3.PolicyDTO;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class PolicyJsonSupportTest {
+
+    private static final String POLICY = """
+            {
+              "productCode": "NS",
+              "startDate": "2026-01-01T00:00:00+03:00",
+              "premium": 1500.50,
+              "productVersion": 3,
+              "commission": { "appliedCommissionRate": 10, "commissionAmount": 150.05 },
+              "policyHolder": {
+                "person": { "firstName": "Ivan", "lastName": null },
+                "addresses": [ { "isPrimary": true, "city": "Moscow" } ]
+              },
+              "insuredObjects": [
+                {
+                  "packageCode": "1",
+                  "sumInsured": 1E+5,
+                  "covers": [
+                    { "cover": { "code": "DEATH" }, "sumInsured": 100000, "premium": 0.1234567890123456789 }
+                  ]
+                }
+              ],
+              "age": 35,
+              "big": 12345678901,
+              "huge": 123456789012345678901234567890,
+              "rate": 0.015,
+              "flags": [ true, false, null ]
+            }
+            """;
+
+    @Test
+    void toDocument_matchesParsedJson() {
+        PolicyDTO dto = PolicyJsonSupport.fromJson(POLICY);
+        dto.getAdditionalAttributes().put("double", 1.1d);
+        dto.getAdditionalAttributes().put("float", 1.1f);
+        dto.getAdditionalAttributes().put("long", Long.MAX_VALUE);
+        dto.getAdditionalAttributes().put("bigInteger", BigInteger.valueOf(7));
+        dto.getAdditionalAttributes().put("bigDecimal", new BigDecimal("12345678901234567890.5"));
+
+        Object expected = JsonPath.parse(PolicyJsonSupport.toJson(dto)).json();
+        Object actual = PolicyJsonSupport.toDocument(dto);
+
+        assertSameTree(expected, actual, "$");
+    }
+
+    @Test
+    void toJson_reflectsChangesThroughEarlierViews() {
+        InsuranceContractPolicy policy = InsuranceContractPolicy.fromJson(POLICY);
+        Commission commission = policy.getCommission();
+        String first = policy.toJson();
+
+        commission.setCommissionAmount(BigDecimal.ONE);
+        String second = policy.toJson();
+
+        assertNotEquals(first, second);
+        assertEquals(PolicyJsonSupport.toJson(InsuranceContractPolicy.requireDto(policy)), second);
+    }
+
+    private static void assertSameTree(Object expected, Object actual, String path) {
+        if (expected == null) {
+            assertEquals(null, actual, path);
+            return;
+        }
+        assertEquals(expected.getClass(), actual == null ? null : actual.getClass(), path);
+        if (expected instanceof Map<?, ?> expectedMap) {
+            Map<?, ?> actualMap = (Map<?, ?>) actual;
+            assertEquals(List.copyOf(expectedMap.keySet()), List.copyOf(actualMap.keySet()), path);
+            expectedMap.forEach((k, v) -> assertSameTree(v, actualMap.get(k), path + "." + k));
+        } else if (expected instanceof List<?> expectedList) {
+            List<?> actualList = (List<?>) actual;
+            assertEquals(expectedList.size(), actualList.size(), path);
+            Iterator<?> it = actualList.iterator();
+            for (int i = 0; i < expectedList.size(); i++) {
+                assertSameTree(expectedList.get(i), it.next(), path + "[" + i + "]");
+            }
+        } else {
+            assertEquals(expected, actual, path);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package ru.pt.domain.model;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class VariableExtractionPlanTest {
+
+    private static final String POLICY = """
+            {
+              "productCode": "NS",
+              "startDate": "2026-01-01T00:00:00+03:00",
+              "premium": 1500.5,
+              "commission": { "appliedCommissionRate": 10 },
+              "policyHolder": {
+                "person": { "firstName": "Ivan", "lastName": null },
+                "addresses": [
+                  { "isPrimary": false, "city": "Tver" },
+                  { "isPrimary": true, "city": "Moscow", "street": "Arbat" }
+                ]
+              },
+              "insuredObjects": [
+                {
+                  "packageCode": "1",
+                  "covers": [
+                    { "cover": { "code": "DEATH" }, "sumInsured": 100000, "premium": 500 },
+                    { "cover": { "code": "TRAUMA" }, "sumInsured": 50000, "premium": 250 }
+                  ]
+                }
+              ],
+              "tags": []
+            }
+            """;
+
+    private static final List<String> PATHS = List.of(
+            "productCode",
+            "$.premium",
+            "commission.appliedCommissionRate",
+            "policyHolder.person.firstName",
+            "policyHolder.person.lastName",
+            "policyHolder.person.middleName",
+            "policyHolder.person.firstName.length",
+            "policyHolder['person']['firstName']",
+            "policyHolder.addresses[1].city",
+            "policyHolder.addresses[5].city",
+            "policyHolder.addresses[?(@.isPrimary)].city",
+            "policyHolder.addresses[?(@.isPrimary)]",
+            "policyHolder.addresses[*].city",
+            "policyHolder.person.lastName[?(@.x)]",
+            "policyHolder.person.lastName.*",
+            "policyHolder.addresses[5][?(@.isPrimary)].city",
+            "policyHolder.missing[?(@.isPrimary)].city",
+            "insuredObjects[0].packageCode",
+            "insuredObjects[0].covers[?(@.cover.code == \"DEATH\")].sumInsured",
+            "insuredObjects[0].covers[?(@.cover.code == \"NONE\")].sumInsured",
+            "insuredObjects[0].covers[*].premium",
+            "insuredObjects[0].covers..code",
+            "insuredObjects[-1].packageCode",
+            "insuredObjects.packageCode",
+            "policyHolder.addresses[isPrimary].city",
+            "tags[0]",
+            "*",
+            "$",
+            "");
+
+    @Test
+    void extract_matchesJsonPathRead() {
+        List<PvVarDefinition> defs = new ArrayList<>();
+        for (int i = 0; i < PATHS.size(); i++) {
+            defs.add(def("v" + i, PATHS.get(i)));
+        }
+        Object document = JsonPath.parse(POLICY).json();
+
+        Object[] raw = VariableExtractionPlan.compile(defs).extract(document);
+
+        for (int i = 0; i < PATHS.size(); i++) {
+            assertEquals(legacyRead(document, PATHS.get(i)), raw[i], PATHS.get(i));
+        }
+    }
+
+    @Test
+    void extract_skipsMagicAndMissingPath() {
+        List<PvVarDefinition> defs = List.of(
+                new PvVarDefinition("io_age", "insuredObjects[0].age", PvVarDefinition.Type.NUMBER,
+                        PvVarDefinition.VarScope.DOMAIN, PvVarDefinition.VarSourceType.MAGIC, null),
+                def("noPath", null));
+
+        Object[] raw = VariableExtractionPlan.compile(defs).extract(JsonPath.parse(POLICY).json());
+
+        assertNull(raw[0]);
+        assertNull(raw[1]);
+    }
+
+    @Test
+    void build_fromPlanMatchesDefinitions() {
+        List<PvVarDefinition> defs = List.of(
+                def("pl_premium", "premium", PvVarDefinition.Type.NUMBER),
+                def("co_count", "insuredObjects[0].covers[*].premium.count()", PvVarDefinition.Type.NUMBER),
+                def("ph_city", "policyHolder.addresses[?(@.isPrimary == true)].city"));
+
+        VariableContextImpl ctx = VariableContextImpl.builder()
+                .json(POLICY)
+                .varDefinitions(defs)
+                .build();
+
+        assertEquals("1500.5", ctx.getDecimal("pl_premium").toPlainString());
+        assertEquals(2, ctx.getDecimal("co_count").intValue());
+        assertEquals("Moscow", ctx.getString("ph_city"));
+    }
+
+    private static Object legacyRead(Object document, String path) {
+        try {
+            return JsonPath.read(document, path);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static PvVarDefinition def(String code, String path) {
+        return def(code, path, PvVarDefinition.Type.STRING);
+    }
+
+    private static PvVarDefinition def(String code, String path, PvVarDefinition.Type type) {
+        return new PvVarDefinition(code, path, type,
+                PvVarDefinition.VarScope.DOMAIN, PvVarDefinition.VarSourceType.IN, null);
+    }
+}
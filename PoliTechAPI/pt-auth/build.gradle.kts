@@ -32,6 +32,7 @@ dependencies {
     implementation("org.flywaydb:flyway-database-postgresql:10.10.0")
 
     implementation("org.springframework.boot:spring-boot-starter-data-jpa")
+    implementation("io.micrometer:micrometer-core")
     
     // Lombok for annotations like @Data, @Getter, @Setter
     compileOnly("org.projectlombok:lombok")
@@ -23,9 +23,14 @@ public class AccountTokenEntity {
     @Column(name = "account_id", nullable = false)
     private Long accountId;
 
+    /** Маскированное превью ключа; сам ключ не хранится. */
     @Column(name = "token", nullable = false)
     private String token;
 
+    /** SHA-256 ключа (hex), см. {@link ru.pt.auth.security.ApiKeyDigest}. */
+    @Column(name = "token_hash", nullable = false, length = 64)
+    private String tokenHash;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -78,6 +83,14 @@ public class AccountTokenEntity {
         this.token = token;
     }
 
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
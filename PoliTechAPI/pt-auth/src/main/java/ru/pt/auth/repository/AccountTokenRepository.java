@@ -4,6 +4,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import ru.pt.auth.entity.AccountTokenEntity;
+import ru.pt.auth.security.ApiKeyPrincipal;
 
 import java.util.List;
 import java.util.Optional;
@@ -23,22 +24,32 @@ public interface AccountTokenRepository extends JpaRepository<AccountTokenEntity
            "WHERE al.userLogin = :userLogin")
     List<AccountTokenEntity> findByUserLogin(@Param("userLogin") String userLogin);
 */
-    @Query("SELECT at FROM AccountTokenEntity at WHERE at.token = :token AND at.clientId = :clientId")
-    Optional<AccountTokenEntity> findByTokenAndClientId(@Param("token") String token,
-                                                        @Param("clientId") Long clientId);
+    @Query("SELECT at FROM AccountTokenEntity at WHERE at.tokenHash = :tokenHash AND at.clientId = :clientId")
+    Optional<AccountTokenEntity> findByTokenHashAndClientId(@Param("tokenHash") String tokenHash,
+                                                            @Param("clientId") Long clientId);
 
-    @Query("SELECT at FROM AccountTokenEntity at WHERE at.token = :token AND at.accountId = :accountId")
-    Optional<AccountTokenEntity> findByTokenAndAccountId(@Param("token") String token,
-                                                         @Param("accountId") Long accountId);
+    @Query("SELECT at FROM AccountTokenEntity at WHERE at.tokenHash = :tokenHash AND at.accountId = :accountId")
+    Optional<AccountTokenEntity> findByTokenHashAndAccountId(@Param("tokenHash") String tokenHash,
+                                                             @Param("accountId") Long accountId);
 
-    @Query("SELECT at FROM AccountTokenEntity at JOIN TenantEntity t ON at.tid = t.id WHERE at.token = :token AND t.code = :tenantCode")
-    Optional<AccountTokenEntity> findByTokenAndTenantCode(@Param("token") String token,
-                                                         @Param("tenantCode") String tenantCode);
+    /**
+     * Поиск по превью ключа (как его показывает список токенов).
+     */
+    @Query("SELECT at FROM AccountTokenEntity at WHERE at.token = :token AND at.accountId = :accountId")
+    List<AccountTokenEntity> findByTokenAndAccountId(@Param("token") String token,
+                                                     @Param("accountId") Long accountId);
 
-    @Query("SELECT at FROM AccountTokenEntity at JOIN TenantEntity t ON at.tid = t.id WHERE at.token = :token AND t.code = :tenantCode")
-    Optional<AccountTokenEntity> findByTokenAndTenantCodeWithClientAndAccount(
-            @Param("token") String token,
-            @Param("tenantCode") String tenantCode);
+    /**
+     * Владелец ключа одним запросом: аккаунт, auth client id клиента аккаунта и тенант.
+     */
+    @Query("SELECT new ru.pt.auth.security.ApiKeyPrincipal(at.accountId, c.authClientId, t.code) " +
+           "FROM AccountTokenEntity at " +
+           "JOIN TenantEntity t ON at.tid = t.id " +
+           "JOIN AccountEntity a ON a.id = at.accountId " +
+           "JOIN a.clientEntity c " +
+           "WHERE at.tokenHash = :tokenHash AND t.code = :tenantCode")
+    Optional<ApiKeyPrincipal> findPrincipalByTokenHashAndTenantCode(@Param("tokenHash") String tokenHash,
+                                                                    @Param("tenantCode") String tenantCode);
 
     @Query("SELECT at FROM AccountTokenEntity at " +
            "JOIN TenantEntity t ON at.tid = t.id " +
@@ -0,0 +1,109 @@
+package ru.pt.auth.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш API-ключей: (tenant, SHA-256 ключа) → владелец ключа.
+ * <p>
+ * Неизвестный ключ тоже кэшируется ({@code negative-ttl-seconds}): перебор ключей не доходит до БД.
+ * Известные и неизвестные ключи лежат в разных LRU-картах, поэтому перебор не вытесняет рабочие ключи.
+ * Создание и удаление ключей сбрасывают кэш через {@link #evictAll()}.
+ */
+@Component
+public class ApiKeyCache {
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final Map<Key, Entry> principals;
+    private final Map<Key, Long> missing;
+    /** Увеличивается при каждом сбросе: значение, прочитанное до сброса, в кэш не кладётся. */
+    private final AtomicLong generation = new AtomicLong();
+
+    public ApiKeyCache(@Value("${pt.auth.api-key-cache.enabled:true}") boolean enabled,
+                       @Value("${pt.auth.api-key-cache.ttl-seconds:300}") long ttlSeconds,
+                       @Value("${pt.auth.api-key-cache.negative-ttl-seconds:30}") long negativeTtlSeconds,
+                       @Value("${pt.auth.api-key-cache.max-size:10000}") int maxSize) {
+        this.enabled = enabled;
+        this.ttlMillis = ttlSeconds * 1000L;
+        this.negativeTtlMillis = negativeTtlSeconds * 1000L;
+        this.principals = lru(maxSize);
+        this.missing = lru(maxSize);
+    }
+
+    /**
+     * Владелец ключа или {@code null}, если ключа нет; при промахе читается через {@code loader}.
+     */
+    public ApiKeyPrincipal get(String tenantCode, String keyHash, Supplier<ApiKeyPrincipal> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Key key = new Key(tenantCode, keyHash);
+        long now = System.currentTimeMillis();
+        Entry entry = principals.get(key);
+        if (entry != null && entry.expiresAt() >= now) {
+            return entry.principal();
+        }
+        Long missingUntil = missing.get(key);
+        if (missingUntil != null && missingUntil >= now) {
+            return null;
+        }
+        long startGeneration = generation.get();
+        ApiKeyPrincipal principal = loader.get();
+        if (generation.get() == startGeneration) {
+            if (principal != null) {
+                principals.put(key, new Entry(principal, now + ttlMillis));
+            } else {
+                missing.put(key, now + negativeTtlMillis);
+            }
+        }
+        return principal;
+    }
+
+    /**
+     * Сбросить весь кэш; внутри транзакции сброс повторяется после commit.
+     */
+    public void evictAll() {
+        if (!enabled) {
+            return;
+        }
+        Runnable eviction = () -> {
+            generation.incrementAndGet();
+            principals.clear();
+            missing.clear();
+        };
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    private static <V> Map<Key, V> lru(int maxSize) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, V> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    private record Key(String tenantCode, String keyHash) {
+    }
+
+    private record Entry(ApiKeyPrincipal principal, long expiresAt) {
+    }
+}
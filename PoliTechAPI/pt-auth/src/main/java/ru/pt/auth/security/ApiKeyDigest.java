@@ -0,0 +1,34 @@
+package ru.pt.auth.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * API-ключ в БД: SHA-256 (hex, 64 символа) для поиска и маскированное превью для списка в админке.
+ */
+public final class ApiKeyDigest {
+
+    private ApiKeyDigest() {
+    }
+
+    public static String hash(String apiKey) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(apiKey.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Превью ключа; совпадает с маскированием существующих ключей в миграции V13.
+     */
+    public static String preview(String apiKey) {
+        if (apiKey.length() >= 16) {
+            return apiKey.substring(0, 4) + "****" + apiKey.substring(apiKey.length() - 4);
+        }
+        return apiKey.substring(0, Math.min(2, apiKey.length())) + "****";
+    }
+}
@@ -0,0 +1,7 @@
+package ru.pt.auth.security;
+
+/**
+ * Владелец API-ключа: всё, что нужно контексту запроса для аутентификации по ключу.
+ */
+public record ApiKeyPrincipal(Long accountId, String clientAuthId, String tenantCode) {
+}
@@ -0,0 +1,208 @@
+package ru.pt.auth.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import ru.pt.auth.model.AuthProperties;
+
+import java.math.BigInteger;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Ключи подписи внешних IdP (Keycloak и др.) из JWKS, по URI набора ключей.
+ * URI берётся из настроек тенанта или из OpenID-discovery issuer.
+ * <p>
+ * Набор загружается при первом токене тенанта и обновляется в фоне раз в {@code pt.auth.jwks.refresh-seconds};
+ * при ошибке обновления остаются прежние ключи. Неизвестный {@code kid} (ротация ключей в IdP) перечитывает
+ * набор сразу, но не чаще раза в {@code pt.auth.jwks.min-refetch-seconds} — токены с чужим kid не нагружают IdP.
+ * Поддерживаются RSA-ключи (RS256/RS384/RS512).
+ */
+@Component
+public class JwksKeyCache {
+
+    private static final Logger log = LoggerFactory.getLogger(JwksKeyCache.class);
+
+    private final Function<String, String> fetcher;
+    private final long minRefetchMillis;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, KeySet> keySets = new ConcurrentHashMap<>();
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+    private final Map<String, String> discovered = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService refresher;
+
+    @Autowired
+    public JwksKeyCache(@Qualifier("keycloakRestTemplate") RestTemplate restTemplate,
+                        @Value("${pt.auth.jwks.refresh-seconds:300}") long refreshSeconds,
+                        @Value("${pt.auth.jwks.min-refetch-seconds:10}") long minRefetchSeconds) {
+        this(uri -> restTemplate.getForObject(uri, String.class), refreshSeconds, minRefetchSeconds);
+    }
+
+    /**
+     * @param fetcher        загрузка JWKS (JSON) по URI
+     * @param refreshSeconds период фонового обновления; 0 — без фонового обновления
+     */
+    JwksKeyCache(Function<String, String> fetcher, long refreshSeconds, long minRefetchSeconds) {
+        this.fetcher = fetcher;
+        this.minRefetchMillis = minRefetchSeconds * 1000L;
+        if (refreshSeconds > 0) {
+            refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "jwks-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            refresher.scheduleWithFixedDelay(this::refreshAll, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+        } else {
+            refresher = null;
+        }
+    }
+
+    /**
+     * URI JWKS из auth_config тенанта: {@code jwksUri}, иначе {@code jwks_uri} из OpenID-discovery
+     * {@code issuer/.well-known/openid-configuration} (запоминается на issuer).
+     * {@code null}, если не задано ни то, ни другое.
+     * @throws BadCredentialsException discovery-документ недоступен или не содержит jwks_uri
+     */
+    public String jwksUri(Map<String, String> authConfig) {
+        if (authConfig == null) {
+            return null;
+        }
+        String jwksUri = authConfig.get(AuthProperties.JWKS_URI.value());
+        if (jwksUri != null && !jwksUri.isBlank()) {
+            return jwksUri;
+        }
+        String issuer = authConfig.get(AuthProperties.ISSUER.value());
+        if (issuer == null || issuer.isBlank()) {
+            return null;
+        }
+        return discovered.computeIfAbsent(issuer, this::discover);
+    }
+
+    /**
+     * Открытый ключ по {@code kid}; без {@code kid} — единственный ключ набора.
+     * @throws BadCredentialsException ключ не найден и после перечитывания JWKS
+     */
+    public PublicKey getKey(String jwksUri, String kid) {
+        KeySet keySet = keySets.get(jwksUri);
+        if (keySet == null) {
+            keySet = reload(jwksUri, null);
+        }
+        PublicKey key = keySet.find(kid);
+        if (key == null) {
+            keySet = reload(jwksUri, keySet);
+            key = keySet.find(kid);
+        }
+        if (key == null) {
+            throw new BadCredentialsException("Unknown JWT signing key: " + kid);
+        }
+        return key;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * Перечитать набор, если он всё ещё {@code stale} и с прошлой загрузки прошло не меньше min-refetch.
+     */
+    private KeySet reload(String jwksUri, KeySet stale) {
+        synchronized (locks.computeIfAbsent(jwksUri, k -> new Object())) {
+            KeySet current = keySets.get(jwksUri);
+            if (current != null && (current != stale
+                    || current.loadedAt() + minRefetchMillis > System.currentTimeMillis())) {
+                return current;
+            }
+            try {
+                KeySet loaded = load(jwksUri);
+                keySets.put(jwksUri, loaded);
+                return loaded;
+            } catch (Exception e) {
+                log.warn("Failed to load JWKS {}: {}", jwksUri, e.getMessage());
+                if (current != null) {
+                    return current;
+                }
+                throw new BadCredentialsException("JWT signing keys are not available", e);
+            }
+        }
+    }
+
+    private void refreshAll() {
+        for (String jwksUri : keySets.keySet()) {
+            try {
+                KeySet loaded = load(jwksUri);
+                synchronized (locks.computeIfAbsent(jwksUri, k -> new Object())) {
+                    keySets.put(jwksUri, loaded);
+                }
+            } catch (Exception e) {
+                log.warn("Background JWKS refresh failed for {}: {}", jwksUri, e.getMessage());
+            }
+        }
+    }
+
+    private String discover(String issuer) {
+        String configurationUri = issuer.endsWith("/")
+                ? issuer + ".well-known/openid-configuration"
+                : issuer + "/.well-known/openid-configuration";
+        try {
+            String json = fetcher.apply(configurationUri);
+            String jwksUri = json == null ? "" : objectMapper.readTree(json).path("jwks_uri").asText("");
+            if (jwksUri.isBlank()) {
+                throw new IllegalStateException("jwks_uri is missing");
+            }
+            log.debug("JWKS URI discovered. issuer={}, jwksUri={}", issuer, jwksUri);
+            return jwksUri;
+        } catch (Exception e) {
+            log.warn("OpenID discovery failed for {}: {}", issuer, e.getMessage());
+            throw new BadCredentialsException("JWT signing keys are not available", e);
+        }
+    }
+
+    private KeySet load(String jwksUri) throws Exception {
+        String json = fetcher.apply(jwksUri);
+        if (json == null) {
+            throw new IllegalStateException("empty JWKS response");
+        }
+        Map<String, PublicKey> keys = new HashMap<>();
+        for (JsonNode jwk : objectMapper.readTree(json).path("keys")) {
+            if (!"RSA".equals(jwk.path("kty").asText()) || "enc".equals(jwk.path("use").asText())) {
+                continue;
+            }
+            BigInteger modulus = new BigInteger(1, Base64.getUrlDecoder().decode(jwk.path("n").asText()));
+            BigInteger exponent = new BigInteger(1, Base64.getUrlDecoder().decode(jwk.path("e").asText()));
+            PublicKey key = KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(modulus, exponent));
+            keys.put(jwk.path("kid").asText(""), key);
+        }
+        log.debug("JWKS loaded. uri={}, keys={}", jwksUri, keys.size());
+        return new KeySet(Map.copyOf(keys), System.currentTimeMillis());
+    }
+
+    private record KeySet(Map<String, PublicKey> keys, long loadedAt) {
+
+        PublicKey find(String kid) {
+            if (kid == null) {
+                return keys.size() == 1 ? keys.values().iterator().next() : null;
+            }
+            return keys.get(kid);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ru.pt.auth.security;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Claims JWT после проверки подписи и срока действия ({@link JwtVerifier}).
+ * Токен разбирается один раз за запрос; стратегии читают claims отсюда.
+ */
+public final class JwtClaims {
+
+    private final Map<String, Object> claims;
+
+    JwtClaims(Map<String, Object> claims) {
+        // значения claims могут быть null (Map.copyOf их не допускает)
+        this.claims = Collections.unmodifiableMap(new HashMap<>(claims));
+    }
+
+    public String getSubject() {
+        return getString("sub");
+    }
+
+    public String getIssuer() {
+        return getString("iss");
+    }
+
+    /**
+     * Строковое значение claim; числа и boolean приводятся к строке, массив — {@code null}.
+     */
+    public String getString(String name) {
+        Object value = claims.get(name);
+        if (value == null || value instanceof Collection<?> || value instanceof Map<?, ?>) {
+            return null;
+        }
+        return value.toString();
+    }
+
+    /**
+     * {@code aud} равен {@code audience} или (массив) содержит его.
+     */
+    public boolean hasAudience(String audience) {
+        Object aud = claims.get("aud");
+        if (aud instanceof Collection<?> values) {
+            return values.contains(audience);
+        }
+        return aud != null && aud.toString().equals(audience);
+    }
+
+    /**
+     * {@code exp} в секундах epoch, 0 если claim отсутствует.
+     */
+    public long getExpiresAt() {
+        return getEpochSeconds("exp");
+    }
+
+    /**
+     * {@code nbf} в секундах epoch, 0 если claim отсутствует.
+     */
+    public long getNotBefore() {
+        return getEpochSeconds("nbf");
+    }
+
+    public Map<String, Object> asMap() {
+        return claims;
+    }
+
+    private long getEpochSeconds(String name) {
+        return claims.get(name) instanceof Number value ? value.longValue() : 0L;
+    }
+}
@@ -0,0 +1,159 @@
+package ru.pt.auth.security;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Проверка JWT: подпись, {@code exp}/{@code nbf}, разбор claims в {@link JwtClaims}.
+ * <p>
+ * Локальные токены подписаны HMAC ({@code jwt.secret}), токены внешних IdP — RSA-ключами из {@link JwksKeyCache};
+ * обращения к IdP на каждый запрос нет. Проверенный токен запоминается по SHA-256 до истечения
+ * (но не дольше {@code pt.auth.jwt.verified-cache.ttl-seconds}): повторный запрос с тем же токеном
+ * не проверяет подпись заново.
+ */
+@Component
+public class JwtVerifier {
+
+    private static final String LOCAL_SOURCE = "local";
+    private static final Map<String, String> HMAC_ALGORITHMS = Map.of(
+            "HS256", "HmacSHA256", "HS384", "HmacSHA384", "HS512", "HmacSHA512");
+    private static final Map<String, String> RSA_ALGORITHMS = Map.of(
+            "RS256", "SHA256withRSA", "RS384", "SHA384withRSA", "RS512", "SHA512withRSA");
+
+    private final JwksKeyCache jwksKeyCache;
+    private final boolean cacheEnabled;
+    private final long cacheTtlSeconds;
+    private final long clockSkewSeconds;
+    private final Map<Key, Entry> verified;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public JwtVerifier(JwksKeyCache jwksKeyCache,
+                       @Value("${pt.auth.jwt.verified-cache.enabled:true}") boolean cacheEnabled,
+                       @Value("${pt.auth.jwt.verified-cache.ttl-seconds:300}") long cacheTtlSeconds,
+                       @Value("${pt.auth.jwt.verified-cache.max-size:10000}") int maxSize,
+                       @Value("${pt.auth.jwt.clock-skew-seconds:30}") long clockSkewSeconds) {
+        this.jwksKeyCache = jwksKeyCache;
+        this.cacheEnabled = cacheEnabled;
+        this.cacheTtlSeconds = cacheTtlSeconds;
+        this.clockSkewSeconds = clockSkewSeconds;
+        this.verified = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    /**
+     * Токен, выпущенный {@link JwtTokenUtil} (HMAC на общем секрете).
+     * @throws BadCredentialsException подпись неверна, токен истёк или повреждён
+     */
+    public JwtClaims verifyHmac(String token, String secret) {
+        return verify(token, LOCAL_SOURCE, (alg, header, signed, signature) -> {
+            String macAlgorithm = HMAC_ALGORITHMS.get(alg);
+            if (macAlgorithm == null) {
+                throw new BadCredentialsException("Unsupported JWT algorithm: " + alg);
+            }
+            Mac mac = Mac.getInstance(macAlgorithm);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), macAlgorithm));
+            return MessageDigest.isEqual(mac.doFinal(signed), signature);
+        });
+    }
+
+    /**
+     * URI JWKS тенанта, см. {@link JwksKeyCache#jwksUri}.
+     */
+    public String jwksUri(Map<String, String> authConfig) {
+        return jwksKeyCache.jwksUri(authConfig);
+    }
+
+    /**
+     * Токен внешнего IdP, подписанный ключом из JWKS {@code jwksUri}.
+     * @throws BadCredentialsException подпись неверна, ключ неизвестен, токен истёк или повреждён
+     */
+    public JwtClaims verifyJwks(String token, String jwksUri) {
+        return verify(token, jwksUri, (alg, header, signed, signature) -> {
+            String signatureAlgorithm = RSA_ALGORITHMS.get(alg);
+            if (signatureAlgorithm == null) {
+                throw new BadCredentialsException("Unsupported JWT algorithm: " + alg);
+            }
+            PublicKey key = jwksKeyCache.getKey(jwksUri, header.path("kid").asText(null));
+            Signature verifier = Signature.getInstance(signatureAlgorithm);
+            verifier.initVerify(key);
+            verifier.update(signed);
+            return verifier.verify(signature);
+        });
+    }
+
+    private JwtClaims verify(String token, String source, SignatureCheck check) {
+        if (token == null || token.isBlank()) {
+            throw new BadCredentialsException("JWT token missing");
+        }
+        long now = System.currentTimeMillis() / 1000;
+        Key key = cacheEnabled ? new Key(source, ApiKeyDigest.hash(token)) : null;
+        if (key != null) {
+            Entry cached = verified.get(key);
+            if (cached != null && cached.expiresAt() >= now) {
+                return cached.claims();
+            }
+        }
+
+        String[] parts = token.split("\\.");
+        if (parts.length != 3) {
+            throw new BadCredentialsException("Invalid JWT token format");
+        }
+        JwtClaims claims;
+        try {
+            JsonNode header = objectMapper.readTree(Base64.getUrlDecoder().decode(parts[0]));
+            String alg = header.path("alg").asText("");
+            byte[] signed = (parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII);
+            if (!check.verify(alg, header, signed, Base64.getUrlDecoder().decode(parts[2]))) {
+                throw new BadCredentialsException("Invalid JWT signature");
+            }
+            claims = new JwtClaims(objectMapper.readValue(Base64.getUrlDecoder().decode(parts[1]),
+                    new TypeReference<Map<String, Object>>() {}));
+        } catch (BadCredentialsException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BadCredentialsException("Invalid JWT token", e);
+        }
+
+        if (claims.getExpiresAt() == 0 || claims.getExpiresAt() + clockSkewSeconds < now) {
+            throw new BadCredentialsException("JWT token is expired");
+        }
+        if (claims.getNotBefore() - clockSkewSeconds > now) {
+            throw new BadCredentialsException("JWT token is not yet valid");
+        }
+        if (key != null) {
+            // TTL ограничивает жизнь записи при ротации ключей в IdP
+            verified.put(key, new Entry(claims, Math.min(claims.getExpiresAt(), now + cacheTtlSeconds)));
+        }
+        return claims;
+    }
+
+    @FunctionalInterface
+    private interface SignatureCheck {
+        boolean verify(String alg, JsonNode header, byte[] signed, byte[] signature) throws Exception;
+    }
+
+    private record Key(String source, String tokenHash) {
+    }
+
+    private record Entry(JwtClaims claims, long expiresAt) {
+    }
+}
@@ -0,0 +1,176 @@
+package ru.pt.auth.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш разрешённых пользователей: {@link UserDetailsImpl} с ролями продуктов по (tenant, client, login, account)
+ * и аккаунт по умолчанию по (tenant, client, login).
+ * <p>
+ * Записи живут {@code pt.auth.principal-cache.ttl-seconds}; изменения логинов, аккаунтов, ролей, токенов и клиентов
+ * сбрасывают кэш целиком через {@link #evictAll()}. {@link UserDetailsImpl} изменяемый (имперсонация),
+ * поэтому в кэш кладётся и из кэша отдаётся копия.
+ */
+@Component
+public class PrincipalCache {
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final int maxSize;
+
+    private final Map<PrincipalKey, Entry<UserDetailsImpl>> principals = new ConcurrentHashMap<>();
+    private final Map<LoginKey, Entry<Long>> defaultAccounts = new ConcurrentHashMap<>();
+    /** Увеличивается при каждом сбросе: значение, прочитанное до сброса, в кэш не кладётся. */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong principalHits = new AtomicLong();
+    private final AtomicLong principalMisses = new AtomicLong();
+    private final AtomicLong accountHits = new AtomicLong();
+    private final AtomicLong accountMisses = new AtomicLong();
+
+    public PrincipalCache(@Value("${pt.auth.principal-cache.enabled:true}") boolean enabled,
+                          @Value("${pt.auth.principal-cache.ttl-seconds:30}") long ttlSeconds,
+                          @Value("${pt.auth.principal-cache.max-size:10000}") int maxSize,
+                          ObjectProvider<MeterRegistry> meterRegistry) {
+        this.enabled = enabled;
+        this.ttlMillis = ttlSeconds * 1000L;
+        this.maxSize = maxSize;
+        meterRegistry.ifAvailable(this::bindMetrics);
+    }
+
+    /**
+     * Пользователь для аккаунта; при промахе строится через {@code loader}.
+     * @param login логин пользователя, {@code null} для API-ключа
+     */
+    public UserDetailsImpl getPrincipal(String tenantCode, String clientId, String login, Long accountId,
+                                        Supplier<UserDetailsImpl> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        PrincipalKey key = new PrincipalKey(tenantCode, clientId, login, accountId);
+        UserDetailsImpl cached = get(principals, key);
+        if (cached != null) {
+            principalHits.incrementAndGet();
+            return cached.copy();
+        }
+        principalMisses.incrementAndGet();
+        long startGeneration = generation.get();
+        UserDetailsImpl user = loader.get();
+        if (user != null) {
+            put(principals, key, user.copy(), startGeneration);
+        }
+        return user;
+    }
+
+    /**
+     * Аккаунт по умолчанию для логина; при промахе читается через {@code loader}.
+     */
+    public Long getDefaultAccount(String tenantCode, String clientId, String login, Supplier<Long> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        LoginKey key = new LoginKey(tenantCode, clientId, login);
+        Long cached = get(defaultAccounts, key);
+        if (cached != null) {
+            accountHits.incrementAndGet();
+            return cached;
+        }
+        accountMisses.incrementAndGet();
+        long startGeneration = generation.get();
+        Long accountId = loader.get();
+        if (accountId != null) {
+            put(defaultAccounts, key, accountId, startGeneration);
+        }
+        return accountId;
+    }
+
+    /**
+     * Сбросить весь кэш; внутри транзакции сброс повторяется после commit.
+     */
+    public void evictAll() {
+        if (!enabled) {
+            return;
+        }
+        Runnable eviction = () -> {
+            generation.incrementAndGet();
+            principals.clear();
+            defaultAccounts.clear();
+        };
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    private <K, V> V get(Map<K, Entry<V>> map, K key) {
+        Entry<V> entry = map.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() < System.currentTimeMillis()) {
+            map.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    private <K, V> void put(Map<K, Entry<V>> map, K key, V value, long startGeneration) {
+        if (generation.get() != startGeneration) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (map.size() >= maxSize) {
+            map.values().removeIf(entry -> entry.expiresAt() < now);
+            if (map.size() >= maxSize) {
+                // все записи живые — место освобождает TTL, новую не кладём
+                return;
+            }
+        }
+        map.put(key, new Entry<>(value, now + ttlMillis));
+    }
+
+    private void bindMetrics(MeterRegistry registry) {
+        counter(registry, "principal", "hit", principalHits);
+        counter(registry, "principal", "miss", principalMisses);
+        counter(registry, "default-account", "hit", accountHits);
+        counter(registry, "default-account", "miss", accountMisses);
+        Gauge.builder("pt.auth.principal-cache.size", principals, Map::size)
+                .tag("cache", "principal")
+                .register(registry);
+        Gauge.builder("pt.auth.principal-cache.size", defaultAccounts, Map::size)
+                .tag("cache", "default-account")
+                .register(registry);
+    }
+
+    private static void counter(MeterRegistry registry, String cache, String result, AtomicLong value) {
+        FunctionCounter.builder("pt.auth.principal-cache.requests", value, AtomicLong::get)
+                .tag("cache", cache)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private record PrincipalKey(String tenantCode, String clientId, String login, Long accountId) {
+    }
+
+    private record LoginKey(String tenantCode, String clientId, String login) {
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
@@ -117,6 +117,17 @@ public class UserDetailsImpl implements UserDetails, AuthenticatedUser {
         );
     }
 
+    /**
+     * Независимая копия: имперсонация меняет acting account и tenant только у копии.
+     */
+    public UserDetailsImpl copy() {
+        UserDetailsImpl copy = new UserDetailsImpl(id, username, tenantCode, tenantId, accountId, accountName,
+                clientId, clientName, userRole, productRoles, isDefault, actingAccountId, accountPath);
+        copy.impersonatedTenantCode = impersonatedTenantCode;
+        copy.dataScope = dataScope;
+        return copy;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         Set<GrantedAuthority> authorities = new HashSet<>();
@@ -4,7 +4,8 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.pt.api.dto.exception.ForbiddenException;
 import ru.pt.auth.entity.AccountLoginEntity;
 import ru.pt.auth.entity.AccountTokenEntity;
@@ -15,6 +16,7 @@ import ru.pt.auth.repository.ProductRoleRepository;
 import ru.pt.auth.security.context.RequestContext;
 import ru.pt.auth.service.ClientService;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -25,9 +27,9 @@ import ru.pt.auth.entity.AccountEntity;
 /**
  * Реализация UserDetailsService для Spring Security.
  * Загружает пользователя по логину из базы данных.
+ * Построенный пользователь кэшируется в {@link PrincipalCache}: при попадании транзакция не открывается.
  */
 @Service
-@Transactional(readOnly = true)
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     private final AccountTokenRepository accountTokenRepository;
@@ -38,13 +40,17 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     private final ProductRoleRepository productRoleRepository;
     private final ClientService clientService;
     private final RequestContext requestContext;
+    private final PrincipalCache principalCache;
+    private final TransactionTemplate readOnlyTransaction;
     
     public UserDetailsServiceImpl(LoginRepository loginRepository,
                                   AccountLoginRepository accountLoginRepository,
                                   AccountRepository accountRepository,
                                   ProductRoleRepository productRoleRepository,
                                   ClientService clientService,
-                                  RequestContext requestContext, AccountTokenRepository accountTokenRepository) {
+                                  RequestContext requestContext, AccountTokenRepository accountTokenRepository,
+                                  PrincipalCache principalCache,
+                                  PlatformTransactionManager transactionManager) {
         this.loginRepository = loginRepository;
         this.accountLoginRepository = accountLoginRepository;
         this.accountRepository = accountRepository;
@@ -52,6 +58,9 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         this.clientService = clientService;
         this.requestContext = requestContext;
         this.accountTokenRepository = accountTokenRepository;
+        this.principalCache = principalCache;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
 
@@ -73,10 +82,19 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         }
 
         String login = requestContext.getLogin();
+        String principalLogin = login != null && !login.isEmpty() ? login : null;
+        UserDetailsImpl userDetails = principalCache.getPrincipal(tenantCode, authClientId, principalLogin, accountId,
+                () -> readOnlyTransaction.execute(status -> loadUser(tenantCode, authClientId, principalLogin, accountId)));
+        //requestContext.setAccount(defaultAccountLogin.getAccount().getId().toString());
+        requestContext.setAccount(accountId);
+        return userDetails;
+    }
+
+    private UserDetailsImpl loadUser(String tenantCode, String authClientId, String login, Long accountId) {
         AccountLoginEntity accountLoginEntity = null;
         AccountTokenEntity accountTokenEntity = null;
 
-        if (login != null && !login.isEmpty()) {
+        if (login != null) {
             accountLoginEntity = accountLoginRepository.findByAll4Fields(tenantCode, authClientId, login, accountId)
                     .orElseThrow(() -> new UsernameNotFoundException("AccountLogin not found with id: " + accountId));
         } else {
@@ -84,8 +102,6 @@ public class UserDetailsServiceImpl implements UserDetailsService {
             accountTokenEntity = accountTokenRepository.findByAll4Fields(tenantCode, authClientId, accountId)
                     .orElseThrow(() -> new UsernameNotFoundException("AccountToken not found for account id: " + accountId));
         }
-        //requestContext.setAccount(defaultAccountLogin.getAccount().getId().toString());
-        requestContext.setAccount(accountId);
         // Инициализируем lazy-loaded поля внутри транзакции
         //initializeLazyFields(defaultAccountLogin, loginEntity);
 
@@ -134,7 +150,7 @@ public class UserDetailsServiceImpl implements UserDetailsService {
             .orElseThrow(() -> new UsernameNotFoundException("Account not found with id: " + accountId));
 
         // Создаем UserDetails без пароля (JWT авторизация)
-        UserDetails userDetails = null;
+        UserDetailsImpl userDetails = null;
         if (accountLoginEntity != null) {
             userDetails = UserDetailsImpl.build(accountLoginEntity, productRoles, actingAccountEntity);
         } 
@@ -190,7 +206,7 @@ public class UserDetailsServiceImpl implements UserDetailsService {
             }
         }
 
-        return allRoles;
+        return Collections.unmodifiableSet(allRoles);
     }
 }
 
@@ -8,14 +8,13 @@ import org.springframework.stereotype.Service;
 import ru.pt.api.dto.auth.ProductRole;
 import ru.pt.api.dto.exception.ForbiddenException;
 import ru.pt.api.security.AuthenticatedUser;
-import ru.pt.api.service.auth.AccountProductRoles;
 import ru.pt.api.service.auth.AuthZ;
 import ru.pt.api.service.auth.AuthorizationService;
-import ru.pt.auth.service.AccountDataService;
+import ru.pt.auth.service.AccountHierarchyIndex;
 
 /**
  * Authorization service implementation.
- * Uses AccountDataService for data access (no circular dependency).
+ * Hierarchy and product roles come from AccountHierarchyIndex (in memory, no SQL on the hot path).
  */
 @Service
 @RequiredArgsConstructor
@@ -23,8 +22,7 @@ public class AuthorizationServiceImpl implements AuthorizationService {
 
     private static final Logger log = LoggerFactory.getLogger(AuthorizationServiceImpl.class);
 
-    private final AccountDataService accountDataService;
-    private final AccountProductRoles accountProductRoles;
+    private final AccountHierarchyIndex accountHierarchyIndex;
 
     @Override
     public void check(
@@ -51,9 +49,9 @@ public class AuthorizationServiceImpl implements AuthorizationService {
             childId = user.getAccountId();
         }
 
-        // Account hierarchy check (SQL)
+        // Account hierarchy check
         if (resourceAccountId != null) {
-            if (!accountDataService.isParent(parentId, childId)) {
+            if (!accountHierarchyIndex.isParent(parentId, childId)) {
                 if (log.isTraceEnabled()) {
                     log.trace("Access denied by hierarchy: actingAccountId={} !> resourceAccountId={}",
                             actingAccountId, resourceAccountId);
@@ -118,7 +116,7 @@ public class AuthorizationServiceImpl implements AuthorizationService {
 
         Long actingAccountId = user.getActingAccountId();
 
-        ProductRole productRole = accountProductRoles.getProductRole(actingAccountId, productId);
+        ProductRole productRole = accountHierarchyIndex.getProductRole(actingAccountId, productId);
         if (productRole == null) {
             if (log.isTraceEnabled()) {
                 log.trace("checkProductAction: no ProductRole found for actingAccountId={}, productId={}",
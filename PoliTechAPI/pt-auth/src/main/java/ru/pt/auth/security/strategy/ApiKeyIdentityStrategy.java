@@ -5,22 +5,24 @@ import org.springframework.stereotype.Component;
 
 import jakarta.servlet.http.HttpServletRequest;
 import ru.pt.auth.model.AuthType;
-import ru.pt.auth.repository.AccountRepository;
 import ru.pt.auth.repository.AccountTokenRepository;
+import ru.pt.auth.security.ApiKeyCache;
+import ru.pt.auth.security.ApiKeyDigest;
+import ru.pt.auth.security.ApiKeyPrincipal;
 import ru.pt.auth.security.context.RequestContext;
 
 @Component
 public class ApiKeyIdentityStrategy implements IdentitySourceStrategy {
 
     private final AccountTokenRepository accountTokenRepository;
-    private final AccountRepository accountRepository;
+    private final ApiKeyCache apiKeyCache;
     private final RequestContext requestContext;
 
     public ApiKeyIdentityStrategy(AccountTokenRepository accountTokenRepository,
-                                  AccountRepository accountRepository,
+                                  ApiKeyCache apiKeyCache,
                                   RequestContext requestContext) {
         this.accountTokenRepository = accountTokenRepository;
-        this.accountRepository = accountRepository;
+        this.apiKeyCache = apiKeyCache;
         this.requestContext = requestContext;
     }
 
@@ -41,15 +43,16 @@ public class ApiKeyIdentityStrategy implements IdentitySourceStrategy {
             throw new BadCredentialsException("Tenant is required for API key authentication");
         }
 
-        var tokenEntity = accountTokenRepository.findByTokenAndTenantCodeWithClientAndAccount(apiKey, tenantCode)
-                .orElseThrow(() -> new BadCredentialsException("Invalid API key"));
-        var accountEntity = accountRepository.findById(tokenEntity.getAccountId())
-                .orElseThrow(() -> new BadCredentialsException("Account not found for API key"));
-        var clientAuthId = accountEntity.getClient().getAuthClientId();
+        String keyHash = ApiKeyDigest.hash(apiKey);
+        ApiKeyPrincipal principal = apiKeyCache.get(tenantCode, keyHash,
+                () -> accountTokenRepository.findPrincipalByTokenHashAndTenantCode(keyHash, tenantCode).orElse(null));
+        if (principal == null) {
+            throw new BadCredentialsException("Invalid API key");
+        }
 
         requestContext.setTenant(tenantCode);
-        requestContext.setClient(clientAuthId);
-        requestContext.setAccount(tokenEntity.getAccountId());
+        requestContext.setClient(principal.clientAuthId());
+        requestContext.setAccount(principal.accountId());
         // No login for API key - account is resolved directly
     }
 }
@@ -10,16 +10,21 @@ import ru.pt.api.dto.refs.TenantAuthType;
 import ru.pt.api.service.auth.TenantConfig;
 import ru.pt.auth.model.AuthProperties;
 import ru.pt.auth.model.AuthType;
+import ru.pt.auth.security.JwtClaims;
 import ru.pt.auth.security.JwtTokenUtil;
+import ru.pt.auth.security.JwtVerifier;
 import ru.pt.auth.security.UserDetailsServiceImpl;
 import ru.pt.auth.security.context.RequestContext;
 
+import java.util.Map;
+
 @Component
 public class JwtAuthenticationStrategy implements IdentitySourceStrategy {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationStrategy.class);
 
     private final JwtTokenUtil jwtTokenUtil;
+    private final JwtVerifier jwtVerifier;
     private final UserDetailsServiceImpl userDetailsService;
     private final RequestContext requestContext;
     private final TenantConfig tenantConfig;
@@ -27,10 +32,12 @@ public class JwtAuthenticationStrategy implements IdentitySourceStrategy {
 
     public JwtAuthenticationStrategy(
             JwtTokenUtil jwtTokenUtil,
+            JwtVerifier jwtVerifier,
             UserDetailsServiceImpl userDetailsService,
             RequestContext requestContext,
             TenantConfig tenantConfig) {
         this.jwtTokenUtil = jwtTokenUtil;
+        this.jwtVerifier = jwtVerifier;
         this.userDetailsService = userDetailsService;
         this.requestContext = requestContext;
         this.tenantConfig = tenantConfig;
@@ -49,51 +56,35 @@ public class JwtAuthenticationStrategy implements IdentitySourceStrategy {
             throw new BadCredentialsException("JWT token missing");
         }
 
-        // Try per-tenant auth_config-based validation first (when configured),
-        // otherwise fall back to legacy JwtTokenUtil.validateToken behavior.
+        // Токен внешнего IdP проверяется по JWKS из auth_config тенанта,
+        // без JWKS — как локальный токен (HS256 на jwt.secret).
         String tenantCode = requestContext.getTenant();
-        boolean validated = false;
+        Map<String, String> authConfig = null;
         if (tenantCode != null && !tenantCode.isBlank()) {
             try {
                 Tenant tenant = tenantConfig.getTenant(tenantCode);
-                if (TenantAuthType.JWT.equals(tenant.authType())
-                        && tenant.authConfig() != null
-                        && !tenant.authConfig().isEmpty()) {
-
-                    String expectedIssuer = tenant.authConfig().get(AuthProperties.ISSUER.value());
-                    String jwksUri = tenant.authConfig().get(AuthProperties.JWKS_URI.value());
-
-                    // For now we still rely on JwtTokenUtil for basic checks and
-                    // enforce issuer match if configured. JWKS integration can be
-                    // plugged in here later using expectedIssuer + jwksUri.
-                    if (!jwtTokenUtil.validateToken(jwt)) {
-                        throw new BadCredentialsException("Invalid JWT token");
-                    }
-                    if (expectedIssuer != null) {
-                        String tokenIssuer = jwtTokenUtil.getClaimFromToken(jwt, "iss");
-                        if (tokenIssuer == null || !expectedIssuer.equals(tokenIssuer)) {
-                            throw new BadCredentialsException("JWT issuer mismatch");
-                        }
-                    }
-                    validated = true;
+                if (TenantAuthType.JWT.equals(tenant.authType())) {
+                    authConfig = tenant.authConfig();
                 }
             } catch (Exception e) {
-                logger.warn("Per-tenant JWT validation failed for tenant {}: {}", tenantCode, e.getMessage());
-                // fall through to legacy validation
+                logger.warn("Per-tenant JWT config is not available for tenant {}: {}", tenantCode, e.getMessage());
             }
         }
-
-        if (!validated) {
-            if (!jwtTokenUtil.validateToken(jwt)) {
-                throw new BadCredentialsException("Invalid JWT token");
-            }
+        String jwksUri = jwtVerifier.jwksUri(authConfig);
+        String expectedIssuer = authConfig != null ? authConfig.get(AuthProperties.ISSUER.value()) : null;
+
+        JwtClaims claims = jwksUri != null
+                ? jwtVerifier.verifyJwks(jwt, jwksUri)
+                : jwtTokenUtil.verifyToken(jwt);
+        if (jwksUri != null && expectedIssuer != null && !expectedIssuer.equals(claims.getIssuer())) {
+            throw new BadCredentialsException("JWT issuer mismatch");
         }
-        
-        String username = jwtTokenUtil.getUsernameFromToken(jwt);
-        if (username == null) {
+
+        String username = claims.getSubject();
+        if (username == null || username.isBlank()) {
             throw new BadCredentialsException("JWT does not contain username");
         }
-        String clientId = jwtTokenUtil.getClaimFromToken(jwt, "client_id");
+        String clientId = claims.getString("client_id");
         if (clientId == null) {
             throw new BadCredentialsException("JWT does not contain client_id");
         }
@@ -10,7 +10,8 @@ import ru.pt.api.dto.refs.TenantAuthType;
 import ru.pt.api.service.auth.TenantConfig;
 import ru.pt.auth.model.AuthProperties;
 import ru.pt.auth.model.AuthType;
-import ru.pt.auth.security.JwtTokenUtil;
+import ru.pt.auth.security.JwtClaims;
+import ru.pt.auth.security.JwtVerifier;
 import ru.pt.auth.security.context.RequestContext;
 
 @Component
@@ -20,15 +21,15 @@ public class KeycloakIdentityStrategy implements IdentitySourceStrategy {
 
     private final RequestContext requestContext;
     private final TenantConfig tenantConfig;
-    private final JwtTokenUtil jwtTokenUtil;
+    private final JwtVerifier jwtVerifier;
 
     public KeycloakIdentityStrategy(
             RequestContext requestContext,
             TenantConfig tenantConfig,
-            JwtTokenUtil jwtTokenUtil) {
+            JwtVerifier jwtVerifier) {
         this.requestContext = requestContext;
         this.tenantConfig = tenantConfig;
-        this.jwtTokenUtil = jwtTokenUtil;
+        this.jwtVerifier = jwtVerifier;
     }
 
     @Override
@@ -54,38 +55,32 @@ public class KeycloakIdentityStrategy implements IdentitySourceStrategy {
                 throw new BadCredentialsException("AuthType is not KEYCLOAK for tenant " + tenantCode);
             }
 
-            // Basic claims-based validation using per-tenant auth_config
-            if (tenant.authConfig() != null && !tenant.authConfig().isEmpty()) {
-                String expectedIssuer = tenant.authConfig().get(AuthProperties.ISSUER.value());
-                String expectedAudience = tenant.authConfig().get(AuthProperties.AUDIENCE.value());
-
-                // Check expiration using common util (it only inspects exp claim)
-                if (jwtTokenUtil.isTokenExpired(jwt)) {
-                    throw new BadCredentialsException("JWT token is expired");
-                }
-
-                // Issuer check if configured
-                if (expectedIssuer != null) {
-                    String tokenIssuer = jwtTokenUtil.getClaimFromToken(jwt, "iss");
-                    if (tokenIssuer == null || !expectedIssuer.equals(tokenIssuer)) {
-                        throw new BadCredentialsException("JWT issuer mismatch");
-                    }
-                }
-
-                // Audience / azp check if configured
-                if (expectedAudience != null) {
-                    String azp = jwtTokenUtil.getClaimFromToken(jwt, "azp");
-                    String aud = jwtTokenUtil.getClaimFromToken(jwt, "aud");
-                    if (!expectedAudience.equals(azp) && !expectedAudience.equals(aud)) {
-                        throw new BadCredentialsException("JWT audience mismatch");
-                    }
-                }
+            // Signature is verified locally with cached JWKS keys, no IdP call per request
+            String jwksUri = jwtVerifier.jwksUri(tenant.authConfig());
+            if (jwksUri == null) {
+                throw new BadCredentialsException("Neither jwksUri nor issuer configured for tenant " + tenantCode);
+            }
+            JwtClaims claims = jwtVerifier.verifyJwks(jwt, jwksUri);
+
+            String expectedIssuer = tenant.authConfig().get(AuthProperties.ISSUER.value());
+            String expectedAudience = tenant.authConfig().get(AuthProperties.AUDIENCE.value());
+
+            // Issuer check if configured
+            if (expectedIssuer != null && !expectedIssuer.equals(claims.getIssuer())) {
+                throw new BadCredentialsException("JWT issuer mismatch");
+            }
+
+            // Audience / azp check if configured
+            if (expectedAudience != null
+                    && !expectedAudience.equals(claims.getString("azp"))
+                    && !claims.hasAudience(expectedAudience)) {
+                throw new BadCredentialsException("JWT audience mismatch");
             }
 
             // Map Keycloak claims into RequestContext
-            String preferredUsername = jwtTokenUtil.getClaimFromToken(jwt, "preferred_username");
-            String email = jwtTokenUtil.getClaimFromToken(jwt, "email");
-            String sub = jwtTokenUtil.getClaimFromToken(jwt, "sub");
+            String preferredUsername = claims.getString("preferred_username");
+            String email = claims.getString("email");
+            String sub = claims.getSubject();
 
             String login = preferredUsername != null ? preferredUsername
                     : (email != null ? email : sub);
@@ -93,9 +88,9 @@ public class KeycloakIdentityStrategy implements IdentitySourceStrategy {
                 throw new BadCredentialsException("JWT does not contain username/email/subject");
             }
 
-            String clientId = jwtTokenUtil.getClaimFromToken(jwt, "azp");
+            String clientId = claims.getString("azp");
             if (clientId == null) {
-                clientId = jwtTokenUtil.getClaimFromToken(jwt, "client_id");
+                clientId = claims.getString("client_id");
             }
 
             requestContext.setLogin(login);
@@ -4,6 +4,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.stereotype.Component;
 import ru.pt.auth.model.AuthType;
+import ru.pt.auth.security.JwtClaims;
 import ru.pt.auth.security.JwtTokenUtil;
 import ru.pt.auth.security.UserDetailsServiceImpl;
 import ru.pt.auth.security.context.RequestContext;
@@ -36,15 +37,13 @@ public class LocalJwtAuthenticationStrategy implements IdentitySourceStrategy {
             throw new BadCredentialsException("JWT token missing");
         }
 
-        if (!jwtTokenUtil.validateToken(jwt)) {
-            throw new BadCredentialsException("Invalid JWT token");
-        }
+        JwtClaims claims = jwtTokenUtil.verifyToken(jwt);
 
-        String username = jwtTokenUtil.getUsernameFromToken(jwt);
-        if (username == null) {
+        String username = claims.getSubject();
+        if (username == null || username.isBlank()) {
             throw new BadCredentialsException("JWT does not contain username");
         }
-        String clientId = jwtTokenUtil.getClaimFromToken(jwt, "client_id");
+        String clientId = claims.getString("client_id");
         if (clientId == null) {
             throw new BadCredentialsException("JWT does not contain client_id");
         }
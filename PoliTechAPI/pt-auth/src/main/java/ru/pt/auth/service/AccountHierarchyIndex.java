@@ -0,0 +1,179 @@
+package ru.pt.auth.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.pt.api.dto.auth.ProductRole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Индекс иерархии аккаунтов и ролей продуктов в памяти, по тенантам.
+ * <p>
+ * Дерево тенанта ({@link AccountTree}) строится двумя запросами при первом обращении и заменяется целиком:
+ * после изменения аккаунтов или ролей тенанта ({@link #invalidate(Long)}), по истечении
+ * {@code pt.auth.account-index.ttl-seconds} (изменения с других узлов) и когда аккаунт ещё не попал в дерево.
+ * Выключается {@code pt.auth.account-index.enabled=false} — тогда проверки идут SQL-запросами как раньше.
+ */
+@Component
+public class AccountHierarchyIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountHierarchyIndex.class);
+
+    /** Аккаунта нет в дереве — перечитать тенант, но не чаще раза в секунду (несуществующие id). */
+    private static final long MISSING_RELOAD_MILLIS = 1000L;
+
+    private static final String TENANT_SQL = "SELECT tid FROM acc_accounts WHERE id = ?";
+    private static final String ACCOUNTS_SQL = "SELECT id, parent_id, id_path FROM acc_accounts WHERE tid = ?";
+    private static final String ROLES_SQL = """
+            SELECT id, tid, client_id, role_product_id, role_account_id, id_path,
+                   can_read, can_quote, can_policy, can_addendum, can_cancel, can_prolongate
+            FROM acc_product_roles
+            WHERE tid = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AccountDataService accountDataService;
+    private final boolean enabled;
+    private final long ttlMillis;
+
+    private final Map<Long, Partition> partitions = new ConcurrentHashMap<>();
+    private final Map<Long, Long> tenantByAccount = new ConcurrentHashMap<>();
+    /** Увеличивается при каждом сбросе: дерево, прочитанное до сброса, в индекс не кладётся. */
+    private final AtomicLong generation = new AtomicLong();
+
+    public AccountHierarchyIndex(JdbcTemplate jdbcTemplate,
+                                 AccountDataService accountDataService,
+                                 @Value("${pt.auth.account-index.enabled:true}") boolean enabled,
+                                 @Value("${pt.auth.account-index.ttl-seconds:60}") long ttlSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.accountDataService = accountDataService;
+        this.enabled = enabled;
+        this.ttlMillis = ttlSeconds * 1000L;
+    }
+
+    /**
+     * {@code parent} — сам {@code child} или его предок; то же, что {@link AccountDataService#isParent}.
+     */
+    public boolean isParent(Long parent, Long child) {
+        if (!enabled) {
+            return accountDataService.isParent(parent, child);
+        }
+        if (parent == null || child == null) {
+            return false;
+        }
+        AccountTree tree = treeOf(child);
+        boolean result = tree != null && tree.isParent(parent, child);
+        if (log.isTraceEnabled()) {
+            log.trace("isParent(parent={}, child={}) -> {}", parent, child, result);
+        }
+        return result;
+    }
+
+    /**
+     * Самая специфичная роль продукта для аккаунта; то же, что {@link AccountDataService#getProductRole}
+     * (без названия продукта).
+     */
+    public ProductRole getProductRole(Long accountId, Long productId) {
+        if (!enabled) {
+            return accountDataService.getProductRole(accountId, productId);
+        }
+        if (accountId == null || productId == null) {
+            return null;
+        }
+        AccountTree tree = treeOf(accountId);
+        return tree == null ? null : tree.productRole(accountId, productId);
+    }
+
+    /**
+     * Перестроить дерево тенанта при следующем обращении; внутри транзакции сброс повторяется после commit.
+     */
+    public void invalidate(Long tenantId) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            if (tenantId == null) {
+                partitions.clear();
+            } else {
+                partitions.remove(tenantId);
+            }
+        });
+    }
+
+    public void invalidateAll() {
+        invalidate(null);
+    }
+
+    private AccountTree treeOf(Long accountId) {
+        Long tenantId = tenantByAccount.get(accountId);
+        if (tenantId == null) {
+            tenantId = jdbcTemplate.query(TENANT_SQL, rs -> rs.next() ? rs.getLong(1) : null, accountId);
+            if (tenantId == null) {
+                return null;
+            }
+        }
+        Partition partition = partitions.get(tenantId);
+        long now = System.currentTimeMillis();
+        if (partition == null || partition.loadedAt() + ttlMillis < now
+                || (!partition.tree().contains(accountId) && partition.loadedAt() + MISSING_RELOAD_MILLIS < now)) {
+            partition = load(tenantId, now);
+        }
+        return partition.tree();
+    }
+
+    private Partition load(Long tenantId, long now) {
+        long startGeneration = generation.get();
+        List<AccountTree.AccountRow> accounts = jdbcTemplate.query(ACCOUNTS_SQL,
+                (rs, rowNum) -> new AccountTree.AccountRow(
+                        rs.getLong("id"),
+                        rs.getObject("parent_id", Long.class),
+                        rs.getString("id_path")),
+                tenantId);
+        List<AccountTree.RoleRow> roles = jdbcTemplate.query(ROLES_SQL,
+                (rs, rowNum) -> new AccountTree.RoleRow(
+                        rs.getLong("id"),
+                        rs.getObject("tid", Long.class),
+                        rs.getObject("client_id", Long.class),
+                        rs.getObject("role_product_id", Long.class),
+                        rs.getObject("role_account_id", Long.class),
+                        rs.getString("id_path"),
+                        rs.getBoolean("can_read"),
+                        rs.getBoolean("can_quote"),
+                        rs.getBoolean("can_policy"),
+                        rs.getBoolean("can_addendum"),
+                        rs.getBoolean("can_cancel"),
+                        rs.getBoolean("can_prolongate")),
+                tenantId);
+        Partition partition = new Partition(AccountTree.build(accounts, roles), now);
+        if (generation.get() == startGeneration) {
+            accounts.forEach(account -> tenantByAccount.put(account.id(), tenantId));
+            partitions.put(tenantId, partition);
+        }
+        log.debug("Account tree loaded. tid={}, accounts={}, roles={}", tenantId, accounts.size(), roles.size());
+        return partition;
+    }
+
+    private static void afterCommit(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    private record Partition(AccountTree tree, long loadedAt) {
+    }
+}
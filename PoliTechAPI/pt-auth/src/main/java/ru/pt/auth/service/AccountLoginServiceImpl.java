@@ -19,6 +19,7 @@ import ru.pt.auth.entity.LoginEntity;
 import ru.pt.auth.repository.AccountLoginRepository;
 import ru.pt.auth.repository.AccountRepository;
 import ru.pt.auth.repository.LoginRepository;
+import ru.pt.auth.security.PrincipalCache;
 import ru.pt.auth.security.SecurityContextHelper;
 import ru.pt.auth.security.UserDetailsImpl;
 import ru.pt.auth.utils.AccountLoginMapper;
@@ -42,6 +43,7 @@ public class AccountLoginServiceImpl implements AccountLoginService {
     private final AuthorizationService authService;
     private final SecurityContextHelper securityContextHelper;
     private final AccountService accountService;
+    private final PrincipalCache principalCache;
 
     @Override
     @Transactional
@@ -95,6 +97,7 @@ public class AccountLoginServiceImpl implements AccountLoginService {
         //accountLoginEntity.setRecordStatus(login.recordStatus() != null ? login.recordStatus().getValue() : RecordStatus.ACTIVE.getValue());
 
         AccountLoginEntity savedEntity = accountLoginRepository.save(accountLoginEntity);
+        principalCache.evictAll();
         return accountLoginMapper.toDto(savedEntity);
     }
 
@@ -137,6 +140,7 @@ public class AccountLoginServiceImpl implements AccountLoginService {
 
         // Delete only from acc_account_logins
         accountLoginRepository.delete(accountLoginEntity);
+        principalCache.evictAll();
     }
 
     @Override
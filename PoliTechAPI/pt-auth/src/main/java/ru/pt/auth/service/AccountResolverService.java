@@ -10,6 +10,7 @@ import ru.pt.auth.entity.LoginEntity;
 import ru.pt.auth.model.ClientSecurityConfig;
 import ru.pt.auth.repository.AccountLoginRepository;
 import ru.pt.auth.repository.LoginRepository;
+import ru.pt.auth.security.PrincipalCache;
 import ru.pt.auth.security.context.RequestContext;
 import ru.pt.api.dto.auth.ClientAuthLevel;
 import ru.pt.api.dto.exception.NotFoundException;
@@ -22,7 +23,10 @@ public class AccountResolverService {
     private final LoginRepository loginRepository;
 
     private final RequestContext requestContext;
-    public AccountResolverService(AccountLoginRepository accountLoginRepository, ClientService clientService, LoginRepository loginRepository, RequestContext requestContext) {
+    private final PrincipalCache principalCache;
+    public AccountResolverService(AccountLoginRepository accountLoginRepository, ClientService clientService, LoginRepository loginRepository, RequestContext requestContext,
+                                  PrincipalCache principalCache) {
+        this.principalCache = principalCache;
         this.clientService = clientService;
         this.loginRepository = loginRepository;
         this.accountLoginRepository = accountLoginRepository;
@@ -72,6 +76,12 @@ public class AccountResolverService {
         }
 
         // uэто пользовательский аккаунт.
+        Long defaultAccountId = principalCache.getDefaultAccount(tenantCode, authClientId, userLogin,
+                () -> findDefaultAccount(tenantCode, authClientId, userLogin));
+        requestContext.setAccount(defaultAccountId);
+    }
+
+    private Long findDefaultAccount(String tenantCode, String authClientId, String userLogin) {
         // Находим LoginEntity по логину & tenant и пользователь не залочен
         LoginEntity loginEntity = loginRepository.findByTenantCodeAndUserLogin(tenantCode, userLogin)
                 .orElseThrow(() -> new NotFoundException("User not found with login: " + userLogin));
@@ -92,6 +102,6 @@ public class AccountResolverService {
                     .findFirst()
                     .orElse(accountLogins.getFirst());
         
-        requestContext.setAccount(defaultAccountLogin.getAccount().getId());
+        return defaultAccountLogin.getAccount().getId();
     }
 }
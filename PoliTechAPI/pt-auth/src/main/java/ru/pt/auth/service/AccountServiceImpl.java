@@ -19,6 +19,7 @@ import ru.pt.auth.entity.ProductRoleEntity;
 import ru.pt.auth.entity.UserRole;
 import ru.pt.auth.repository.AccountRepository;
 import ru.pt.auth.repository.ProductRoleRepository;
+import ru.pt.auth.security.PrincipalCache;
 import ru.pt.auth.security.SecurityContextHelper;
 import ru.pt.auth.security.UserDetailsImpl;
 import ru.pt.auth.service.admin.AdminPermissionHelper;
@@ -47,6 +48,8 @@ public class AccountServiceImpl implements AccountService {
     private final SecurityContextHelper securityContextHelper;
     private final AccountDataService accountDataService;
     private final AdminPermissionHelper adminPermissionHelper;
+    private final PrincipalCache principalCache;
+    private final AccountHierarchyIndex accountHierarchyIndex;
     
 
     @Override
@@ -107,6 +110,8 @@ public class AccountServiceImpl implements AccountService {
             AuthZ.Action.MANAGE);
 
         accountRepository.deleteById(id);
+        principalCache.evictAll();
+        accountHierarchyIndex.invalidate(tid);
     }
 
     /********************************** */
@@ -162,6 +167,8 @@ public class AccountServiceImpl implements AccountService {
             newRole.setId(null);
             productRoleRepository.save(newRole);
         }
+        principalCache.evictAll();
+        accountHierarchyIndex.invalidate(account.getTenant().getId());
 
         // Return complete data with product name from joined query
         return accountDataService.getProductRole(accountId, productRole.roleProductId());
@@ -184,6 +191,8 @@ public class AccountServiceImpl implements AccountService {
 
         if (roleToRemove != null) {
             productRoleRepository.delete(roleToRemove);
+            principalCache.evictAll();
+            accountHierarchyIndex.invalidate(roleToRemove.getTenant().getId());
         }
     }
 
@@ -229,6 +238,8 @@ public class AccountServiceImpl implements AccountService {
         role.setCanProlongate(canProlong != null && canProlong);
 
         ProductRoleEntity saved = productRoleRepository.save(role);
+        principalCache.evictAll();
+        accountHierarchyIndex.invalidate(account.getTenant().getId());
         return productRoleMapper.toDto(saved);
     }
 
@@ -255,6 +266,8 @@ public class AccountServiceImpl implements AccountService {
         }
 
         productRoleRepository.deleteById(productRoleId);
+        principalCache.evictAll();
+        accountHierarchyIndex.invalidate(role.getTenant().getId());
     }
 
     @Override
@@ -289,6 +302,8 @@ public class AccountServiceImpl implements AccountService {
         if (canProlong != null) role.setCanProlongate(canProlong);
 
         productRoleRepository.save(role);
+        principalCache.evictAll();
+        accountHierarchyIndex.invalidate(role.getTenant().getId());
         return accountDataService.getProductRole(role.getAccount().getId(), role.getRoleProductId());
     }
     
@@ -385,6 +400,8 @@ public class AccountServiceImpl implements AccountService {
             account.setIdPath(newPath);
 
             AccountEntity savedAccount = accountRepository.save(account);
+            principalCache.evictAll();
+            accountHierarchyIndex.invalidate(parentAccount.getTenant().getId());
             return accountMapper.toDto(savedAccount);
         } catch (IllegalArgumentException e) {
             throw new BadRequestException(e.getMessage());
@@ -15,6 +15,9 @@ import ru.pt.auth.entity.AccountEntity;
 import ru.pt.auth.entity.AccountTokenEntity;
 import ru.pt.auth.repository.AccountRepository;
 import ru.pt.auth.repository.AccountTokenRepository;
+import ru.pt.auth.security.ApiKeyCache;
+import ru.pt.auth.security.ApiKeyDigest;
+import ru.pt.auth.security.PrincipalCache;
 import ru.pt.auth.security.SecurityContextHelper;
 import ru.pt.auth.security.UserDetailsImpl;
 import ru.pt.auth.utils.AccountTokenMapper;
@@ -31,6 +34,8 @@ public class AccountTokenServiceImpl implements AccountTokenService {
     private final AccountTokenMapper accountTokenMapper;
     private final AuthorizationService authService;
     private final SecurityContextHelper securityContextHelper;
+    private final PrincipalCache principalCache;
+    private final ApiKeyCache apiKeyCache;
 
     @Override
     @Transactional
@@ -55,13 +60,16 @@ public class AccountTokenServiceImpl implements AccountTokenService {
                     throw new BadRequestException("Нарушение уникальности. Такой Token уже есть");
                 }
         
+        // ключ хранится только как SHA-256, в ответе и списке — превью
         AccountTokenEntity tokenEntity = new AccountTokenEntity();
-        tokenEntity.setToken(token);
+        tokenEntity.setToken(ApiKeyDigest.preview(token));
+        tokenEntity.setTokenHash(ApiKeyDigest.hash(token));
         tokenEntity.setTid(clientAccount.getTenant().getId());
         tokenEntity.setClientId(clientAccount.getClient().getId());
         tokenEntity.setAccountId(clientAccount.getId());
 
         AccountTokenEntity savedToken = accountTokenRepository.save(tokenEntity);
+        apiKeyCache.evictAll();
         return accountTokenMapper.toDto(savedToken);
     }
 
@@ -91,15 +99,31 @@ public class AccountTokenServiceImpl implements AccountTokenService {
             AuthZ.Action.MANAGE
         );
 
-        AccountTokenEntity tokenEntity = accountTokenRepository.findByTokenAndAccountId(token, accountId)
-                .orElseThrow(() -> new NotFoundException("Token not found"));
+        AccountTokenEntity tokenEntity = accountTokenRepository.findByTokenHashAndAccountId(ApiKeyDigest.hash(token), accountId)
+                .orElseGet(() -> findByPreview(accountId, token));
 
         accountTokenRepository.delete(tokenEntity);
+        apiKeyCache.evictAll();
+        principalCache.evictAll();
     }
 
     @Override
     public boolean tokenExists(Long clientId, String token) {
-        return accountTokenRepository.findByTokenAndClientId(token, clientId).isPresent();
+        return accountTokenRepository.findByTokenHashAndClientId(ApiKeyDigest.hash(token), clientId).isPresent();
+    }
+
+    /**
+     * Удаление из списка токенов: админка передаёт превью ключа, а не сам ключ.
+     */
+    private AccountTokenEntity findByPreview(Long accountId, String preview) {
+        List<AccountTokenEntity> tokens = accountTokenRepository.findByTokenAndAccountId(preview, accountId);
+        if (tokens.isEmpty()) {
+            throw new NotFoundException("Token not found");
+        }
+        if (tokens.size() > 1) {
+            throw new BadRequestException("Token preview is ambiguous, pass the full token");
+        }
+        return tokens.getFirst();
     }
 
     private UserDetailsImpl getCurrentUser() {
@@ -0,0 +1,130 @@
+package ru.pt.auth.service;
+
+import ru.pt.api.dto.auth.ProductRole;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Неизменяемое дерево аккаунтов одного тенанта с предрасчитанными ролями продуктов.
+ * <p>
+ * Проверка «предок или сам» — по интервалам обхода в глубину (Euler tour): O(1) без обхода родителей.
+ * Роль продукта для (аккаунт, продукт) выбрана заранее так же, как {@code findProductRoleForAccountId}:
+ * среди ролей продукта, id_path которых начинается с id_path аккаунта, — с самым длинным id_path.
+ * Префикс сравнивается по сегментам ({@code 1.5} не является префиксом {@code 1.55}).
+ */
+final class AccountTree {
+
+    private final Map<Long, int[]> intervals;
+    private final Map<Long, Map<Long, RoleRow>> roles;
+
+    private AccountTree(Map<Long, int[]> intervals, Map<Long, Map<Long, RoleRow>> roles) {
+        this.intervals = intervals;
+        this.roles = roles;
+    }
+
+    static AccountTree build(List<AccountRow> accounts, List<RoleRow> roleRows) {
+        Map<Long, List<Long>> children = new HashMap<>();
+        List<Long> roots = new ArrayList<>();
+        Map<Long, AccountRow> byId = new HashMap<>();
+        accounts.forEach(a -> byId.put(a.id(), a));
+        for (AccountRow account : accounts) {
+            if (account.parentId() == null || !byId.containsKey(account.parentId())) {
+                roots.add(account.id());
+            } else {
+                children.computeIfAbsent(account.parentId(), k -> new ArrayList<>()).add(account.id());
+            }
+        }
+
+        Map<Long, int[]> intervals = new HashMap<>();
+        int clock = 0;
+        for (Long root : roots) {
+            Deque<Long> stack = new ArrayDeque<>();
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                Long id = stack.peek();
+                int[] interval = intervals.get(id);
+                if (interval == null) {
+                    intervals.put(id, new int[]{clock++, -1});
+                    for (Long child : children.getOrDefault(id, List.of())) {
+                        if (!intervals.containsKey(child)) {
+                            stack.push(child);
+                        }
+                    }
+                } else {
+                    stack.pop();
+                    if (interval[1] < 0) {
+                        interval[1] = clock++;
+                    }
+                }
+            }
+        }
+
+        Map<String, List<Long>> accountsByPath = new HashMap<>();
+        for (AccountRow account : accounts) {
+            if (account.idPath() != null) {
+                accountsByPath.computeIfAbsent(account.idPath(), k -> new ArrayList<>()).add(account.id());
+            }
+        }
+        Map<Long, Map<Long, RoleRow>> roles = new HashMap<>();
+        for (RoleRow role : roleRows) {
+            String path = role.idPath();
+            if (path == null) {
+                continue;
+            }
+            // роль видна аккаунтам, id_path которых — сегментный префикс id_path роли
+            for (int end = 0; end >= 0; ) {
+                end = path.indexOf('.', end + 1);
+                String prefix = end < 0 ? path : path.substring(0, end);
+                for (Long accountId : accountsByPath.getOrDefault(prefix, List.of())) {
+                    roles.computeIfAbsent(accountId, k -> new HashMap<>())
+                            .merge(role.productId(), role, AccountTree::moreSpecific);
+                }
+            }
+        }
+        return new AccountTree(intervals, roles);
+    }
+
+    boolean contains(Long accountId) {
+        return intervals.containsKey(accountId);
+    }
+
+    /**
+     * {@code parent} — сам {@code child} или его предок.
+     */
+    boolean isParent(Long parent, Long child) {
+        int[] p = intervals.get(parent);
+        int[] c = intervals.get(child);
+        return p != null && c != null && p[0] <= c[0] && c[1] <= p[1];
+    }
+
+    ProductRole productRole(Long accountId, Long productId) {
+        RoleRow role = roles.getOrDefault(accountId, Map.of()).get(productId);
+        return role == null ? null : role.toProductRole(accountId);
+    }
+
+    private static RoleRow moreSpecific(RoleRow current, RoleRow candidate) {
+        int byLength = Integer.compare(candidate.idPath().length(), current.idPath().length());
+        if (byLength != 0) {
+            return byLength > 0 ? candidate : current;
+        }
+        return candidate.id() < current.id() ? candidate : current;
+    }
+
+    record AccountRow(Long id, Long parentId, String idPath) {
+    }
+
+    record RoleRow(long id, Long tid, Long clientId, Long productId, Long roleAccountId, String idPath,
+                   boolean canRead, boolean canQuote, boolean canPolicy,
+                   boolean canAddendum, boolean canCancel, boolean canProlongate) {
+
+        ProductRole toProductRole(Long accountId) {
+            return new ProductRole(id, tid, clientId, accountId, productId, null, roleAccountId,
+                    canRead, canQuote, canPolicy, canAddendum, canCancel, canProlongate);
+        }
+    }
+}
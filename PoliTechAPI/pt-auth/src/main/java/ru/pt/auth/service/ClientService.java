@@ -22,6 +22,7 @@ import ru.pt.auth.model.ClientSecurityConfig;
 import ru.pt.auth.repository.AccountLoginRepository;
 import ru.pt.auth.repository.AccountRepository;
 import ru.pt.auth.repository.ClientRepository;
+import ru.pt.auth.security.PrincipalCache;
 import ru.pt.auth.security.SecurityContextHelper;
 import ru.pt.auth.utils.ClientMapper;
 
@@ -44,6 +45,8 @@ public class ClientService implements ClientSecurityConfigService {
     private final ProductService productService;
     private final AuthorizationService authorizationService;
     private final IdentityProviderRegistry identityProviderRegistry;
+    private final PrincipalCache principalCache;
+    private final SecurityConfigSnapshot securityConfigSnapshot;
 
     public ClientService(
             ClientRepository clientRepository,
@@ -54,7 +57,9 @@ public class ClientService implements ClientSecurityConfigService {
             AccountService accountService,
             ProductService productService,
             AuthorizationService authorizationService,
-            IdentityProviderRegistry identityProviderRegistry) {
+            IdentityProviderRegistry identityProviderRegistry,
+            PrincipalCache principalCache,
+            SecurityConfigSnapshot securityConfigSnapshot) {
         this.clientRepository = clientRepository;
         this.accountLoginRepository = accountLoginRepository;
         this.accountRepository = accountRepository;
@@ -65,6 +70,8 @@ public class ClientService implements ClientSecurityConfigService {
         this.productService = productService;
         this.authorizationService = authorizationService;
         this.identityProviderRegistry = identityProviderRegistry;
+        this.principalCache = principalCache;
+        this.securityConfigSnapshot = securityConfigSnapshot;
     }
 
     public Optional<ClientEntity> findByAuthClientId(String clientId) {
@@ -86,12 +93,16 @@ public class ClientService implements ClientSecurityConfigService {
     /** Used during auth flow (e.g. AccountResolverService); no auth check - called before user is resolved. */
     @Override
     public ClientSecurityConfig getConfig(String tenantCode, String authClientId) {
+        ClientSecurityConfig config = securityConfigSnapshot.getClientConfig(tenantCode, authClientId);
+        if (config != null) {
+            return config;
+        }
         return clientRepository.findByTenantCodeAndAuthClientId(tenantCode, authClientId)
-                .map(this::mapToDomain)
+                .map(ClientService::toSecurityConfig)
                 .orElseThrow(() -> new IllegalArgumentException("Client not found: " + tenantCode + " " + authClientId));
     }
 
-    private ClientSecurityConfig mapToDomain(ClientEntity e) {
+    static ClientSecurityConfig toSecurityConfig(ClientEntity e) {
         return new ClientSecurityConfig(
             e.getId(),
             e.getAuthClientId(),
@@ -166,6 +177,7 @@ public class ClientService implements ClientSecurityConfigService {
 
         saved.setDefaultAccountId(savedDefAccount.getId());
         saved = clientRepository.save(saved);
+        securityConfigSnapshot.refreshAfterCommit();
 
         // Попытаться синхронизировать клиента с IdP в зависимости от AuthType тенанта.
         // Если провайдера нет — шаг тихо пропускается.
@@ -216,6 +228,8 @@ public class ClientService implements ClientSecurityConfigService {
 
         ClientEntity clientEntity = clientMapper.toEntity(client);
         ClientEntity saved = clientRepository.save(clientEntity);
+        principalCache.evictAll();
+        securityConfigSnapshot.refreshAfterCommit();
 
         AccountEntity account = accountRepository.findCliensAccountByClientId(saved.getId())
                 .orElseThrow(() -> new NotFoundException("Client account not found for client id: " + saved.getAuthClientId()));
@@ -259,6 +273,18 @@ public class ClientService implements ClientSecurityConfigService {
         return clientDto;
     }
 
+    /**
+     * Настройки клиента для фоновых задач (outbox, подтверждение оплаты): пользователя в потоке нет,
+     * права не проверяются.
+     */
+    @Transactional(readOnly = true)
+    public ClientConfiguration getClientConfiguration(Long id) {
+        ClientEntity client = clientRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Client not found"));
+        ClientConfiguration configuration = clientMapper.toDto(client).getClientConfiguration();
+        return configuration != null ? configuration : new ClientConfiguration();
+    }
+
     // ========== HELPER METHODS ==========
 
     private AuthenticatedUser getCurrentUser() {
@@ -14,6 +14,7 @@ import ru.pt.auth.identity.IdentityProvider;
 import ru.pt.auth.identity.IdentityProviderRegistry;
 import ru.pt.auth.repository.AccountLoginRepository;
 import ru.pt.auth.repository.LoginRepository;
+import ru.pt.auth.security.PrincipalCache;
 import ru.pt.auth.service.admin.AdminPermissionHelper;
 import ru.pt.auth.model.LoginDto;
 import ru.pt.api.dto.refs.RecordStatus;
@@ -38,6 +39,7 @@ public class LoginManagementService {
     private final PasswordEncoder passwordEncoder;
     private final AdminPermissionHelper adminPermissionHelper;
     private final IdentityProviderRegistry identityProviderRegistry;
+    private final PrincipalCache principalCache;
 
     /**
      * Создание пользователя (логина)
@@ -162,6 +164,7 @@ public class LoginManagementService {
 
         if (updated) {
             login = loginRepository.save(login);
+            principalCache.evictAll();
             logger.info("Updated login for user '{}' in tenant '{}'", login.getUserLogin(), tntCode);
         }
 
@@ -225,6 +228,7 @@ public class LoginManagementService {
         // Шаг 4: Установка флага удаления
         login.setRecordStatus(RecordStatus.SUSPENDED.getValue());
         login = loginRepository.save(login);
+        principalCache.evictAll();
 
         logger.info("Deleted (soft) login for user '{}' in tenant '{}'", login.getUserLogin(), tntCode);
 
@@ -0,0 +1,227 @@
+package ru.pt.auth.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.pt.api.dto.auth.Tenant;
+import ru.pt.api.dto.refs.RecordStatus;
+import ru.pt.auth.entity.ClientEntity;
+import ru.pt.auth.entity.TenantEntity;
+import ru.pt.auth.model.ClientSecurityConfig;
+import ru.pt.auth.model.TenantSecurityConfig;
+import ru.pt.auth.repository.ClientRepository;
+import ru.pt.auth.repository.TenantRepository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Неизменяемый снимок настроек безопасности: тенанты (auth/storage config), их {@link TenantSecurityConfig}
+ * и {@link ClientSecurityConfig} клиентов. Фильтры и {@code FileServiceImpl} читают его без блокировок и без SQL.
+ * <p>
+ * Снимок загружается при старте и заменяется целиком: после commit изменений тенантов и клиентов
+ * ({@link #refreshAfterCommit()}) и по истечении {@code pt.auth.config-snapshot.ttl-seconds} (изменения с других узлов).
+ * Чего нет в снимке, сервисы читают из БД как раньше. Метрики: {@code pt.auth.config-snapshot.version}
+ * и {@code pt.auth.config-snapshot.last-refresh} (epoch, секунды).
+ */
+@Component
+public class SecurityConfigSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(SecurityConfigSnapshot.class);
+
+    private final TenantRepository tenantRepository;
+    private final ClientRepository clientRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final boolean enabled;
+    private final long ttlMillis;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    public SecurityConfigSnapshot(TenantRepository tenantRepository,
+                                  ClientRepository clientRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  ObjectProvider<MeterRegistry> meterRegistry,
+                                  @Value("${pt.auth.config-snapshot.enabled:true}") boolean enabled,
+                                  @Value("${pt.auth.config-snapshot.ttl-seconds:60}") long ttlSeconds) {
+        this.tenantRepository = tenantRepository;
+        this.clientRepository = clientRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // своя транзакция: refresh вызывается и из afterCommit чужой транзакции
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.ttlMillis = ttlSeconds * 1000L;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        meterRegistry.ifAvailable(this::bindMetrics);
+        if (!enabled) {
+            return;
+        }
+        tryRefresh();
+    }
+
+    /**
+     * Активный тенант по коду или {@code null}.
+     */
+    public Tenant getTenant(String tenantCode) {
+        Snapshot snapshot = snapshot();
+        return snapshot == null ? null : snapshot.tenantsByCode().get(tenantCode);
+    }
+
+    /**
+     * Тенант по id (в любом статусе) или {@code null}.
+     */
+    public Tenant getTenantById(Long tenantId) {
+        Snapshot snapshot = snapshot();
+        return snapshot == null ? null : snapshot.tenantsById().get(tenantId);
+    }
+
+    public TenantSecurityConfig getTenantConfig(String tenantCode) {
+        Snapshot snapshot = snapshot();
+        return snapshot == null ? null : snapshot.tenantConfigs().get(tenantCode);
+    }
+
+    /**
+     * Активный клиент тенанта или {@code null}.
+     */
+    public ClientSecurityConfig getClientConfig(String tenantCode, String authClientId) {
+        Snapshot snapshot = snapshot();
+        return snapshot == null ? null : snapshot.clients().get(new ClientKey(tenantCode, authClientId));
+    }
+
+    /**
+     * Версия текущего снимка; растёт при каждой перезагрузке.
+     */
+    public long getVersion() {
+        Snapshot snapshot = current.get();
+        return snapshot == null ? 0L : snapshot.version();
+    }
+
+    /**
+     * Перечитать снимок после commit текущей транзакции (вне транзакции — сразу).
+     */
+    public void refreshAfterCommit() {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    tryRefresh();
+                }
+            });
+        } else {
+            tryRefresh();
+        }
+    }
+
+    /**
+     * Загрузить снимок из БД и заменить текущий.
+     */
+    public synchronized void refresh() {
+        Snapshot snapshot = transactionTemplate.execute(status -> build(version.incrementAndGet()));
+        current.set(snapshot);
+        log.debug("Security config snapshot loaded. version={}, tenants={}, clients={}",
+                snapshot.version(), snapshot.tenantsById().size(), snapshot.clients().size());
+    }
+
+    private Snapshot snapshot() {
+        if (!enabled) {
+            return null;
+        }
+        Snapshot snapshot = current.get();
+        if (snapshot == null) {
+            tryRefresh();
+            return current.get();
+        }
+        // устаревший снимок перечитывает один поток, остальные читают прежний
+        if (snapshot.loadedAt() + ttlMillis < System.currentTimeMillis() && refreshing.compareAndSet(false, true)) {
+            try {
+                tryRefresh();
+            } finally {
+                refreshing.set(false);
+            }
+            return current.get();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Ошибка загрузки не прерывает запрос: остаётся прежний снимок (или чтение из БД, если снимка нет).
+     */
+    private void tryRefresh() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Security config snapshot refresh failed: {}", e.getMessage());
+        }
+    }
+
+    private Snapshot build(long snapshotVersion) {
+        Map<String, Tenant> tenantsByCode = new HashMap<>();
+        Map<Long, Tenant> tenantsById = new HashMap<>();
+        Map<String, TenantSecurityConfig> tenantConfigs = new HashMap<>();
+        for (TenantEntity entity : tenantRepository.findAll()) {
+            try {
+                Tenant tenant = TenantService.toTenant(entity);
+                tenantsById.put(entity.getId(), tenant);
+                if (RecordStatus.ACTIVE.getValue().equals(entity.getRecordStatus())) {
+                    tenantsByCode.put(entity.getCode(), tenant);
+                    tenantConfigs.put(entity.getCode(), TenantService.toSecurityConfig(entity));
+                }
+            } catch (RuntimeException e) {
+                // тенант с некорректными настройками в снимок не попадает — ошибку покажет чтение из БД
+                log.warn("Tenant {} skipped in security config snapshot: {}", entity.getCode(), e.getMessage());
+            }
+        }
+        Map<ClientKey, ClientSecurityConfig> clients = new HashMap<>();
+        for (ClientEntity entity : clientRepository.findAll()) {
+            if (RecordStatus.ACTIVE.getValue().equals(entity.getRecordStatus())) {
+                clients.put(new ClientKey(entity.getTenant().getCode(), entity.getAuthClientId()),
+                        ClientService.toSecurityConfig(entity));
+            }
+        }
+        return new Snapshot(snapshotVersion, System.currentTimeMillis(),
+                Map.copyOf(tenantsByCode), Map.copyOf(tenantsById), Map.copyOf(tenantConfigs), Map.copyOf(clients));
+    }
+
+    private void bindMetrics(MeterRegistry registry) {
+        Gauge.builder("pt.auth.config-snapshot.version", this, SecurityConfigSnapshot::getVersion)
+                .register(registry);
+        Gauge.builder("pt.auth.config-snapshot.last-refresh", current,
+                        ref -> ref.get() == null ? 0 : ref.get().loadedAt() / 1000.0)
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    private record ClientKey(String tenantCode, String authClientId) {
+    }
+
+    private record Snapshot(long version, long loadedAt,
+                            Map<String, Tenant> tenantsByCode,
+                            Map<Long, Tenant> tenantsById,
+                            Map<String, TenantSecurityConfig> tenantConfigs,
+                            Map<ClientKey, ClientSecurityConfig> clients) {
+    }
+}
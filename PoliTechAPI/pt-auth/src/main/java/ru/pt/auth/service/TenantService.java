@@ -4,7 +4,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.cache.annotation.Cacheable;
 import lombok.RequiredArgsConstructor;
 import ru.pt.api.dto.exception.BadRequestException;
 import ru.pt.api.dto.exception.ForbiddenException;
@@ -14,10 +13,12 @@ import ru.pt.auth.model.AuthType;
 import ru.pt.auth.model.TenantSecurityConfig;
 import ru.pt.auth.model.AuthProperties;
 import ru.pt.auth.repository.*;
+import ru.pt.auth.security.PrincipalCache;
 import ru.pt.auth.security.SecurityContextHelper;
 import ru.pt.auth.security.UserDetailsImpl;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
@@ -47,6 +48,9 @@ public class TenantService implements TenantSecurityConfigService, TenantConfig
     private final TenantMapper tenantMapper;
     private final SchemaService schemaService;
     private final RefDictAdminService refDictAdminService;
+    private final PrincipalCache principalCache;
+    private final AccountHierarchyIndex accountHierarchyIndex;
+    private final SecurityConfigSnapshot securityConfigSnapshot;
 
     public Optional<TenantEntity> findByCode(String code) {
         return tenantRepository.findByCode(code.toLowerCase());
@@ -161,6 +165,7 @@ public class TenantService implements TenantSecurityConfigService, TenantConfig
 
         schemaService.newTenantCreated(savedTenant.getId());
         refDictAdminService.newTenantCreated(savedTenant.getId());
+        securityConfigSnapshot.refreshAfterCommit();
 
         return tenantMapper.toDto(savedTenant);
     }
@@ -190,6 +195,8 @@ public class TenantService implements TenantSecurityConfigService, TenantConfig
         tenantEntity.setRecordStatus(
                 tenantDto.recordStatus() != null ? tenantDto.recordStatus().getValue() : null);
         TenantEntity savedTenantEntity = save(tenantEntity);
+        principalCache.evictAll();
+        securityConfigSnapshot.refreshAfterCommit();
         return tenantMapper.toDto(savedTenantEntity);
     }
 
@@ -209,6 +216,8 @@ public class TenantService implements TenantSecurityConfigService, TenantConfig
         tenant.setRecordStatus(RecordStatus.DELETED.getValue());
         tenant.setUpdatedAt(LocalDateTime.now());
         save(tenant);
+        principalCache.evictAll();
+        securityConfigSnapshot.refreshAfterCommit();
         logger.info("Tenant '{}' deleted by SYS_ADMIN", tenant.getName());
     }
 
@@ -223,6 +232,9 @@ public class TenantService implements TenantSecurityConfigService, TenantConfig
                 .orElseThrow(() -> new NotFoundException("Tenant not found with ID: " + tenantDto.code()));
 
         tenantRepository.delete(tenant);
+        principalCache.evictAll();
+        accountHierarchyIndex.invalidate(tenant.getId());
+        securityConfigSnapshot.refreshAfterCommit();
         logger.info("Tenant '{}' deleted by SYS_ADMIN", tenant.getName());
     }
     // ========== HELPER METHODS ==========
@@ -250,21 +262,21 @@ public class TenantService implements TenantSecurityConfigService, TenantConfig
     }
 
     @Override
-    @Cacheable(
-        cacheNames = "tenant-security-config",
-        key = "#tenantCode"
-    )
     public TenantSecurityConfig getConfig(String tenantCode) {
+        TenantSecurityConfig config = securityConfigSnapshot.getTenantConfig(tenantCode);
+        if (config != null) {
+            return config;
+        }
         TenantEntity entity = tenantRepository
             .findByCode(tenantCode)
             .orElseThrow(() ->
                 new NotFoundException("Tenant not found: " + tenantCode)
             );
 
-        return mapToDomain(entity);
+        return toSecurityConfig(entity);
     }
 
-    private TenantSecurityConfig mapToDomain(TenantEntity e) {
+    static TenantSecurityConfig toSecurityConfig(TenantEntity e) {
         var authCfg = e.getAuthConfig();
         String issuer = null;
         String jwksUri = null;
@@ -284,26 +296,38 @@ public class TenantService implements TenantSecurityConfigService, TenantConfig
 
     @Override
     public Tenant getTenant(String tenantCode) {
+        Tenant tenant = securityConfigSnapshot.getTenant(tenantCode);
+        if (tenant != null) {
+            return tenant;
+        }
         TenantEntity entity = tenantRepository.findByCode(tenantCode)
             .orElseThrow(() -> new NotFoundException("Tenant not found: " + tenantCode));
+        return toTenant(entity);
+    }
+
+    @Override
+    public Tenant getTenantById(Long tenantId) {
+        Tenant tenant = securityConfigSnapshot.getTenantById(tenantId);
+        if (tenant != null) {
+            return tenant;
+        }
+        TenantEntity entity = tenantRepository.findById(tenantId)
+            .orElseThrow(() -> new NotFoundException("Tenant not found: " + tenantId));
+        return toTenant(entity);
+    }
+
+    static Tenant toTenant(TenantEntity entity) {
         return new Tenant(
             entity.getId(),
             entity.getName(),
-            RecordStatus.valueOf(entity.getRecordStatus()),
-            TenantAuthType.fromValue(entity.getAuthType()),
-            FileStorageType.valueOf(entity.getStorageType()),
+            entity.getRecordStatus() != null ? RecordStatus.valueOf(entity.getRecordStatus()) : null,
+            entity.getAuthType() != null ? TenantAuthType.fromValue(entity.getAuthType()) : null,
+            entity.getStorageType() != null ? FileStorageType.valueOf(entity.getStorageType()) : null,
             entity.getCode(),
             entity.getCreatedAt(),
             entity.getUpdatedAt(),
-            entity.getStorageConfig() != null ? entity.getStorageConfig() : new HashMap<>(),
-            entity.getAuthConfig() != null ? entity.getAuthConfig() : new HashMap<>()
+            Collections.unmodifiableMap(entity.getStorageConfig() != null ? new HashMap<>(entity.getStorageConfig()) : new HashMap<>()),
+            Collections.unmodifiableMap(entity.getAuthConfig() != null ? new HashMap<>(entity.getAuthConfig()) : new HashMap<>())
         );
     }
-
-    @Override
-    public Tenant getTenantById(Long tenantId) {
-        TenantEntity entity = tenantRepository.findById(tenantId)
-            .orElseThrow(() -> new NotFoundException("Tenant not found: " + tenantId));
-        return tenantMapper.toDto(entity);
-    }
 }
@@ -15,6 +15,7 @@ import ru.pt.api.service.auth.AuthorizationService;
 import ru.pt.auth.entity.*;
 import ru.pt.auth.model.AdminResponse;
 import ru.pt.auth.repository.*;
+import ru.pt.auth.security.PrincipalCache;
 import ru.pt.auth.service.AccountServiceImpl;
 
 import java.util.List;
@@ -36,6 +37,7 @@ public class AdminManagementService {
     private final AdminPermissionHelper adminPermissionHelper;
     private final AuthorizationService authService;
     private final AccountServiceImpl accountService;
+    private final PrincipalCache principalCache;
     
     private AdminResponse fromEntity(AccountLoginEntity accountLogin) {
         return new AdminResponse(
@@ -68,7 +70,9 @@ public class AdminManagementService {
         }
 
         AccountLoginEntity accountLogin = AccountLoginEntity.create(roleAccountEntity, loginEntity);
-        return accountLoginRepository.save(accountLogin);
+        AccountLoginEntity saved = accountLoginRepository.save(accountLogin);
+        principalCache.evictAll();
+        return saved;
     }
 
     /* Добавить логин к роли.  Находится узел с родителем groupId и ролью role. И к нему вязется логин.
@@ -182,6 +186,7 @@ public class AdminManagementService {
         }
 
         accountLoginRepository.deleteById(memberId);
+        principalCache.evictAll();
     }
 
 }
@@ -0,0 +1,93 @@
+package ru.pt.auth.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ApiKeyCacheTest {
+
+    private static final ApiKeyPrincipal OWNER = new ApiKeyPrincipal(1L, "client", "demo");
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final ApiKeyCache cache = new ApiKeyCache(true, 300, 30, 2);
+
+    @Test
+    void knownKeyIsLoadedOnce() {
+        assertSame(OWNER, cache.get("demo", "h1", loader(OWNER)));
+        assertSame(OWNER, cache.get("demo", "h1", loader(OWNER)));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void unknownKeyIsCachedNegatively() {
+        assertNull(cache.get("demo", "h1", loader(null)));
+        assertNull(cache.get("demo", "h1", loader(OWNER)));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void keysAreScopedByTenant() {
+        cache.get("demo", "h1", loader(OWNER));
+
+        assertNull(cache.get("other", "h1", loader(null)));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void evictAllDropsCachedKeys() {
+        cache.get("demo", "h1", loader(OWNER));
+        cache.get("demo", "h2", loader(null));
+        cache.evictAll();
+
+        cache.get("demo", "h1", loader(OWNER));
+        cache.get("demo", "h2", loader(OWNER));
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void valueReadBeforeEvictionIsNotCached() {
+        // ключ удалён, пока владелец читался из БД: прочитанное значение устарело
+        cache.get("demo", "h1", () -> {
+            loads.incrementAndGet();
+            cache.evictAll();
+            return OWNER;
+        });
+
+        assertNull(cache.get("demo", "h1", loader(null)));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void missesDoNotEvictKnownKeys() {
+        cache.get("demo", "h1", loader(OWNER));
+        for (int i = 0; i < 10; i++) {
+            cache.get("demo", "miss" + i, loader(null));
+        }
+
+        assertSame(OWNER, cache.get("demo", "h1", loader(null)));
+        assertEquals(11, loads.get());
+    }
+
+    @Test
+    void disabledCacheAlwaysLoads() {
+        ApiKeyCache disabled = new ApiKeyCache(false, 300, 30, 2);
+        disabled.get("demo", "h1", loader(OWNER));
+        disabled.get("demo", "h1", loader(OWNER));
+
+        assertEquals(2, loads.get());
+    }
+
+    private Supplier<ApiKeyPrincipal> loader(ApiKeyPrincipal principal) {
+        return () -> {
+            loads.incrementAndGet();
+            return principal;
+        };
+    }
+}
@@ -0,0 +1,21 @@
+package ru.pt.auth.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ApiKeyDigestTest {
+
+    @Test
+    void hashIsSha256Hex() {
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", ApiKeyDigest.hash("abc"));
+        assertEquals(64, ApiKeyDigest.hash("ключ").length());
+    }
+
+    @Test
+    void previewMatchesMigrationMask() {
+        assertEquals("abcd****mnop", ApiKeyDigest.preview("abcdefghijklmnop"));
+        assertEquals("ab****", ApiKeyDigest.preview("abcdefghijklmno"));
+        assertEquals("a****", ApiKeyDigest.preview("a"));
+    }
+}
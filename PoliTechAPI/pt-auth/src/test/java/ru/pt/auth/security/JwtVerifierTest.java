@@ -0,0 +1,137 @@
+package ru.pt.auth.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtVerifierTest {
+
+    private static final String JWKS_URI = "http://idp.local/realms/test/protocol/openid-connect/certs";
+
+    @Test
+    void verifiesRsaTokenWithCachedJwksAndRefetchesOnUnknownKid() throws Exception {
+        KeyPair first = rsaKeyPair();
+        KeyPair second = rsaKeyPair();
+        AtomicReference<String> jwks = new AtomicReference<>(jwks("k1", first));
+        AtomicInteger fetches = new AtomicInteger();
+        JwtVerifier verifier = verifier(uri -> {
+            fetches.incrementAndGet();
+            return jwks.get();
+        });
+
+        String token = rsaToken("k1", first, "{\"sub\":\"u1\",\"aud\":[\"account\",\"pt\"],\"exp\":" + inSeconds(600) + "}");
+        JwtClaims claims = verifier.verifyJwks(token, JWKS_URI);
+        assertEquals("u1", claims.getSubject());
+        assertEquals(true, claims.hasAudience("pt"));
+        verifier.verifyJwks(rsaToken("k1", first, "{\"sub\":\"u2\",\"exp\":" + inSeconds(600) + "}"), JWKS_URI);
+        assertEquals(1, fetches.get());
+
+        // ротация ключа в IdP: неизвестный kid перечитывает JWKS
+        jwks.set(jwks("k2", second));
+        String rotated = rsaToken("k2", second, "{\"sub\":\"u3\",\"exp\":" + inSeconds(600) + "}");
+        assertEquals("u3", verifier.verifyJwks(rotated, JWKS_URI).getSubject());
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void rejectsForgedAndExpiredTokens() throws Exception {
+        KeyPair idp = rsaKeyPair();
+        KeyPair attacker = rsaKeyPair();
+        JwtVerifier verifier = verifier(uri -> jwks("k1", idp));
+
+        String forged = rsaToken("k1", attacker, "{\"sub\":\"u1\",\"exp\":" + inSeconds(600) + "}");
+        assertThrows(BadCredentialsException.class, () -> verifier.verifyJwks(forged, JWKS_URI));
+        String expired = rsaToken("k1", idp, "{\"sub\":\"u1\",\"exp\":" + inSeconds(-600) + "}");
+        assertThrows(BadCredentialsException.class, () -> verifier.verifyJwks(expired, JWKS_URI));
+        String unsigned = encode("{\"alg\":\"none\"}") + "." + encode("{\"sub\":\"u1\",\"exp\":" + inSeconds(600) + "}") + ".";
+        assertThrows(BadCredentialsException.class, () -> verifier.verifyJwks(unsigned, JWKS_URI));
+    }
+
+    @Test
+    void verifiesLocalHmacToken() throws Exception {
+        JwtVerifier verifier = verifier(uri -> {
+            throw new AssertionError("JWKS must not be fetched for local tokens");
+        });
+        String body = encode("{\"alg\":\"HS256\",\"typ\":\"JWT\"}") + "."
+                + encode("{\"sub\":\"admin\",\"client_id\":\"sys\",\"exp\":" + inSeconds(600) + "}");
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec("secret".getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        String token = body + "." + base64(mac.doFinal(body.getBytes(StandardCharsets.US_ASCII)));
+
+        assertEquals("sys", verifier.verifyHmac(token, "secret").getString("client_id"));
+        assertThrows(BadCredentialsException.class, () -> verifier(uri -> null).verifyHmac(token, "other"));
+    }
+
+    @Test
+    void resolvesJwksUriThroughOpenIdDiscovery() {
+        AtomicInteger fetches = new AtomicInteger();
+        JwtVerifier verifier = verifier(uri -> {
+            fetches.incrementAndGet();
+            assertEquals("https://idp.example/.well-known/openid-configuration", uri);
+            return "{\"issuer\":\"https://idp.example\",\"jwks_uri\":\"https://idp.example/keys\"}";
+        });
+        Map<String, String> authConfig = Map.of("issuer", "https://idp.example");
+
+        assertEquals("https://idp.example/keys", verifier.jwksUri(authConfig));
+        assertEquals("https://idp.example/keys", verifier.jwksUri(authConfig));
+        assertEquals(1, fetches.get());
+        assertEquals(JWKS_URI, verifier.jwksUri(Map.of("jwksUri", JWKS_URI)));
+    }
+
+    private static JwtVerifier verifier(Function<String, String> fetcher) {
+        return new JwtVerifier(new JwksKeyCache(fetcher, 0, 0), true, 300, 100, 0);
+    }
+
+    private static KeyPair rsaKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return generator.generateKeyPair();
+    }
+
+    private static String jwks(String kid, KeyPair keyPair) {
+        RSAPublicKey key = (RSAPublicKey) keyPair.getPublic();
+        return "{\"keys\":[{\"kid\":\"" + kid + "\",\"kty\":\"RSA\",\"alg\":\"RS256\",\"use\":\"sig\","
+                + "\"n\":\"" + base64(unsigned(key.getModulus().toByteArray())) + "\","
+                + "\"e\":\"" + base64(unsigned(key.getPublicExponent().toByteArray())) + "\"}]}";
+    }
+
+    private static String rsaToken(String kid, KeyPair keyPair, String payload) throws Exception {
+        String body = encode("{\"alg\":\"RS256\",\"typ\":\"JWT\",\"kid\":\"" + kid + "\"}") + "." + encode(payload);
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(keyPair.getPrivate());
+        signature.update(body.getBytes(StandardCharsets.US_ASCII));
+        return body + "." + base64(signature.sign());
+    }
+
+    private static byte[] unsigned(byte[] bytes) {
+        return bytes[0] == 0 ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+    }
+
+    private static long inSeconds(long delta) {
+        return System.currentTimeMillis() / 1000 + delta;
+    }
+
+    private static String encode(String json) {
+        return base64(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String base64(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,63 @@
+package ru.pt.auth.service;
+
+import org.junit.jupiter.api.Test;
+import ru.pt.api.dto.auth.ProductRole;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountTreeTest {
+
+    //        1
+    //      /   \
+    //     5     55
+    //    / \
+    //  12   13
+    private static final List<AccountTree.AccountRow> ACCOUNTS = List.of(
+            new AccountTree.AccountRow(1L, null, "1"),
+            new AccountTree.AccountRow(5L, 1L, "1.5"),
+            new AccountTree.AccountRow(55L, 1L, "1.55"),
+            new AccountTree.AccountRow(12L, 5L, "1.5.12"),
+            new AccountTree.AccountRow(13L, 5L, "1.5.13"));
+
+    @Test
+    void isParent_matchesAncestorChain() {
+        AccountTree tree = AccountTree.build(ACCOUNTS, List.of());
+
+        assertTrue(tree.isParent(1L, 12L));
+        assertTrue(tree.isParent(5L, 13L));
+        assertTrue(tree.isParent(12L, 12L));
+        assertFalse(tree.isParent(12L, 5L));
+        assertFalse(tree.isParent(55L, 12L));
+        assertFalse(tree.isParent(12L, 13L));
+        assertFalse(tree.isParent(1L, 99L));
+    }
+
+    @Test
+    void productRole_longestPathBelowAccount() {
+        AccountTree tree = AccountTree.build(ACCOUNTS, List.of(
+                role(100L, 7L, 1L, "1"),
+                role(101L, 7L, 5L, "1.5"),
+                role(102L, 7L, 12L, "1.5.12"),
+                role(103L, 8L, 55L, "1.55")));
+
+        assertEquals(102L, tree.productRole(1L, 7L).id());
+        assertEquals(102L, tree.productRole(5L, 7L).id());
+        assertNull(tree.productRole(13L, 7L));
+        assertNull(tree.productRole(5L, 8L));
+
+        ProductRole role = tree.productRole(1L, 8L);
+        assertEquals(103L, role.id());
+        assertEquals(1L, role.accountId());
+        assertEquals(55L, role.roleAccountId());
+    }
+
+    private static AccountTree.RoleRow role(long id, Long productId, Long accountId, String path) {
+        return new AccountTree.RoleRow(id, 1L, 2L, productId, accountId, path,
+                true, true, false, false, false, false);
+    }
+}
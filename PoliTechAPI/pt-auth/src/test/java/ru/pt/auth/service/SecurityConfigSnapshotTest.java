@@ -0,0 +1,157 @@
+package ru.pt.auth.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.pt.api.dto.file.FileStorageType;
+import ru.pt.api.dto.refs.RecordStatus;
+import ru.pt.api.dto.refs.TenantAuthType;
+import ru.pt.auth.entity.ClientEntity;
+import ru.pt.auth.entity.TenantEntity;
+import ru.pt.auth.repository.ClientRepository;
+import ru.pt.auth.repository.TenantRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SecurityConfigSnapshotTest {
+
+    private final List<TenantEntity> tenants = new ArrayList<>();
+    private final List<ClientEntity> clients = new ArrayList<>();
+    private RuntimeException failure;
+    private final SecurityConfigSnapshot snapshot = new SecurityConfigSnapshot(
+            repository(TenantRepository.class, tenants), repository(ClientRepository.class, clients),
+            new NoopTransactionManager(), new DefaultListableBeanFactory().getBeanProvider(MeterRegistry.class),
+            true, 3600);
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void loadsActiveTenantsAndClients() {
+        TenantEntity demo = tenant(10L, "demo", RecordStatus.ACTIVE);
+        tenants.add(demo);
+        tenants.add(tenant(11L, "old", RecordStatus.DELETED));
+        clients.add(client(demo, "web", RecordStatus.ACTIVE));
+        clients.add(client(demo, "legacy", RecordStatus.DELETED));
+        snapshot.load();
+
+        assertEquals("DEMO", snapshot.getTenant("demo").name());
+        assertNotNull(snapshot.getTenantConfig("demo"));
+        assertNull(snapshot.getTenant("old"));
+        // по id тенант доступен в любом статусе
+        assertEquals("old", snapshot.getTenantById(11L).code());
+        assertEquals("web", snapshot.getClientConfig("demo", "web").authClientId());
+        assertNull(snapshot.getClientConfig("demo", "legacy"));
+    }
+
+    @Test
+    void writeOutsideTransactionRefreshesImmediately() {
+        TenantEntity demo = tenant(10L, "demo", RecordStatus.ACTIVE);
+        tenants.add(demo);
+        snapshot.load();
+        long version = snapshot.getVersion();
+
+        demo.setName("RENAMED");
+        snapshot.refreshAfterCommit();
+
+        assertEquals("RENAMED", snapshot.getTenant("demo").name());
+        assertEquals(version + 1, snapshot.getVersion());
+    }
+
+    @Test
+    void writeInsideTransactionRefreshesAfterCommit() {
+        TenantEntity demo = tenant(10L, "demo", RecordStatus.ACTIVE);
+        tenants.add(demo);
+        snapshot.load();
+
+        TransactionSynchronizationManager.initSynchronization();
+        demo.setRecordStatus(RecordStatus.DELETED.getValue());
+        snapshot.refreshAfterCommit();
+        // до commit изменения не видны
+        assertNotNull(snapshot.getTenant("demo"));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertNull(snapshot.getTenant("demo"));
+    }
+
+    @Test
+    void failedRefreshKeepsPreviousSnapshot() {
+        tenants.add(tenant(10L, "demo", RecordStatus.ACTIVE));
+        snapshot.load();
+        long version = snapshot.getVersion();
+
+        failure = new IllegalStateException("db down");
+        snapshot.refreshAfterCommit();
+
+        assertEquals("DEMO", snapshot.getTenant("demo").name());
+        assertEquals(version, snapshot.getVersion());
+    }
+
+    private static TenantEntity tenant(Long id, String code, RecordStatus status) {
+        TenantEntity entity = new TenantEntity();
+        entity.setId(id);
+        entity.setCode(code);
+        entity.setName(code.toUpperCase());
+        entity.setRecordStatus(status.getValue());
+        entity.setAuthType(TenantAuthType.LOCAL_JWT.getValue());
+        entity.setStorageType(FileStorageType.DB.name());
+        return entity;
+    }
+
+    private static ClientEntity client(TenantEntity tenant, String authClientId, RecordStatus status) {
+        ClientEntity entity = new ClientEntity();
+        entity.setTenant(tenant);
+        entity.setAuthClientId(authClientId);
+        entity.setRecordStatus(status.getValue());
+        return entity;
+    }
+
+    /**
+     * Репозиторий в памяти: только findAll, который читает снимок.
+     */
+    @SuppressWarnings("unchecked")
+    private <R> R repository(Class<R> type, List<?> rows) {
+        return (R) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            if (!method.getName().equals("findAll")) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return new ArrayList<>(rows);
+        });
+    }
+
+    private static final class NoopTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
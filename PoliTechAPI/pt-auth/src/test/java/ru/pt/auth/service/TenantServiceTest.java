@@ -0,0 +1,126 @@
+package ru.pt.auth.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import ru.pt.api.dto.auth.Tenant;
+import ru.pt.api.dto.file.FileStorageType;
+import ru.pt.api.dto.refs.RecordStatus;
+import ru.pt.api.dto.refs.TenantAuthType;
+import ru.pt.auth.entity.TenantEntity;
+import ru.pt.auth.repository.TenantRepository;
+import ru.pt.auth.security.PrincipalCache;
+import ru.pt.auth.security.SecurityContextHelper;
+import ru.pt.auth.security.UserDetailsImpl;
+import ru.pt.auth.utils.TenantMapper;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TenantServiceTest {
+
+    private final Map<String, TenantEntity> tenants = new HashMap<>();
+    private final PrincipalCache principalCache = new PrincipalCache(true, 300, 100,
+            new DefaultListableBeanFactory().getBeanProvider(MeterRegistry.class));
+    private final AtomicInteger loads = new AtomicInteger();
+    private TenantService service;
+
+    @BeforeEach
+    void setUp() {
+        tenants.put("demo", tenant("demo"));
+        service = new TenantService(tenantRepository(tenants), null, null, null, null, new SecurityContextHelper(),
+                new TenantMapper(), null, null, principalCache, new AccountHierarchyIndex(null, null, false, 60),
+                new SecurityConfigSnapshot(null, null, null, null, false, 60));
+
+        UserDetailsImpl admin = new UserDetailsImpl(1L, "admin", TenantEntity.SYS_TENANT_CODE, 1L, 1L, "sys", 1L, "sys",
+                "SYS_ADMIN", new HashSet<>(), true, 1L, "1");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(admin, "N/A", admin.getAuthorities()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void cachedPrincipalIsReusedWhileTenantIsUnchanged() {
+        principal();
+        principal();
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void updateTenantEvictsCachedPrincipals() {
+        principal();
+        service.updateTenant(new Tenant(10L, "Demo", RecordStatus.ACTIVE, TenantAuthType.NONE,
+                FileStorageType.DB, "demo", null, null, Map.of(), Map.of()));
+        principal();
+
+        assertEquals(2, loads.get());
+        assertEquals("NONE", tenants.get("demo").getAuthType());
+    }
+
+    @Test
+    void softDeleteTenantEvictsCachedPrincipals() {
+        principal();
+        service.softDeleteTenant("demo");
+        principal();
+
+        assertEquals(2, loads.get());
+        assertEquals("DELETED", tenants.get("demo").getRecordStatus());
+    }
+
+    @Test
+    void deleteTenantEvictsCachedPrincipals() {
+        principal();
+        service.deleteTenant(new Tenant(10L, "DEMO", null, null, null, "demo", null, null, null, null));
+        principal();
+
+        assertEquals(2, loads.get());
+        assertEquals(0, tenants.size());
+    }
+
+    private void principal() {
+        principalCache.getPrincipal("demo", "client", "agent", 5L, () -> {
+            loads.incrementAndGet();
+            return new UserDetailsImpl(5L, "agent", "demo", 10L, 5L, "agent", 12L, "client",
+                    "CLIENT_ADMIN", new HashSet<>(), true, 5L, "1.5");
+        });
+    }
+
+    private static TenantEntity tenant(String code) {
+        TenantEntity entity = new TenantEntity();
+        entity.setId(10L);
+        entity.setCode(code);
+        entity.setName(code.toUpperCase());
+        entity.setRecordStatus(RecordStatus.ACTIVE.getValue());
+        entity.setAuthType(TenantAuthType.LOCAL_JWT.getValue());
+        entity.setStorageType(FileStorageType.DB.name());
+        return entity;
+    }
+
+    /**
+     * Репозиторий тенантов в памяти по коду: findByCode, save, delete.
+     */
+    private static TenantRepository tenantRepository(Map<String, TenantEntity> tenants) {
+        return (TenantRepository) Proxy.newProxyInstance(TenantRepository.class.getClassLoader(),
+                new Class<?>[] {TenantRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findByCode" -> Optional.ofNullable(tenants.get((String) args[0]));
+                    case "save" -> args[0];
+                    case "delete" -> tenants.remove(((TenantEntity) args[0]).getCode());
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
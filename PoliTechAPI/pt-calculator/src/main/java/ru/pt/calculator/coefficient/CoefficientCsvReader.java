@@ -0,0 +1,104 @@
+package ru.pt.calculator.coefficient;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Построчное чтение CSV таблицы коэффициента без загрузки файла в память.
+ * <p>
+ * Разделитель — {@code ;} (выгрузка Excel с русской локалью) или {@code ,}, определяется по первой строке.
+ * Значения в кавычках по RFC 4180 (в том числе с переводами строк); BOM в начале файла пропускается;
+ * пустые строки пропускаются.
+ */
+public final class CoefficientCsvReader {
+
+    private final BufferedReader reader;
+    private char delimiter;
+    private int line;
+
+    public CoefficientCsvReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+    }
+
+    /**
+     * Номер строки файла, на которой закончилась последняя прочитанная запись.
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Следующая запись или {@code null} в конце файла. Пустые ячейки возвращаются как {@code null}.
+     */
+    public List<String> next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+            if (line == 1 && !text.isEmpty() && text.charAt(0) == '\uFEFF') {
+                text = text.substring(1);
+            }
+        } while (text.isBlank());
+        if (delimiter == 0) {
+            delimiter = text.indexOf(';') >= 0 ? ';' : ',';
+        }
+
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        int i = 0;
+        while (true) {
+            if (i == text.length()) {
+                if (!quoted) {
+                    break;
+                }
+                // перевод строки внутри кавычек — продолжение значения
+                String continuation = reader.readLine();
+                if (continuation == null) {
+                    throw new IOException("Unterminated quoted value at line " + line);
+                }
+                line++;
+                cell.append('\n');
+                text = continuation;
+                i = 0;
+                continue;
+            }
+            char c = text.charAt(i++);
+            if (quoted) {
+                if (c == '"') {
+                    if (i < text.length() && text.charAt(i) == '"') {
+                        cell.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"' && cell.isEmpty()) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == delimiter) {
+                cells.add(value(cell, wasQuoted));
+                cell.setLength(0);
+                wasQuoted = false;
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(value(cell, wasQuoted));
+        return cells;
+    }
+
+    private static String value(StringBuilder cell, boolean wasQuoted) {
+        String value = wasQuoted ? cell.toString() : cell.toString().trim();
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,83 @@
+package ru.pt.calculator.coefficient;
+
+import ru.pt.api.dto.calculator.CoefficientColumn;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Скомпилированный запрос коэффициента для набора колонок {@link ru.pt.api.dto.calculator.CoefficientDef}.
+ * <p>
+ * Хранит колонки, ключ раскладки для {@link CoefficientTable} и коды переменных в порядке колонок.
+ * Не зависит от данных таблицы, поэтому строится один раз: для калькулятора — при компиляции плана
+ * (операнд-коэффициент), для остальных вызовов — на набор колонок ({@link CoefficientTableCache#query(List)}).
+ * <p>
+ * Значение ищется по индексам {@link CoefficientTable} в памяти, в БД запрос не выполняется.
+ * Текст SQL ({@link #sql()}) строится только для просмотра шаблона, поэтому под {@code to_number(colN)}
+ * ни типизированных колонок, ни индексов по выражению не нужно.
+ */
+public record CoefficientQuery(List<CoefficientColumn> columns, String layoutKey, List<String> varCodes) {
+
+    private static final String NUMBER = "NUMBER";
+
+    /**
+     * Ключ кэша шаблонов: раскладка и коды переменных; {@code null}, если набор колонок невалиден.
+     */
+    static String cacheKey(List<CoefficientColumn> columns) {
+        String layoutKey = CoefficientTable.layoutKey(columns);
+        if (layoutKey == null) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder(layoutKey).append('#');
+        for (CoefficientColumn col : columns) {
+            if (col == null) continue;
+            key.append(col.getVarCode()).append('|');
+        }
+        return key.toString();
+    }
+
+    /**
+     * @return запрос или {@code null}, если набор колонок невалиден (см. {@link CoefficientTable#layoutKey})
+     */
+    public static CoefficientQuery compile(List<CoefficientColumn> columns) {
+        if (columns == null) {
+            return null;
+        }
+        String layoutKey = CoefficientTable.layoutKey(columns);
+        if (layoutKey == null) {
+            return null;
+        }
+        List<String> varCodes = new ArrayList<>();
+        for (CoefficientColumn col : columns) {
+            if (col == null) continue;
+            varCodes.add(col.getVarCode());
+        }
+        return new CoefficientQuery(Collections.unmodifiableList(new ArrayList<>(columns)), layoutKey, List.copyOf(varCodes));
+    }
+
+    /**
+     * SQL-шаблон поиска с именованными параметрами ({@code :calculatorId}, {@code :coefficientCode},
+     * {@code :<varCode>}) — значения договора в текст не подставляются.
+     */
+    public String sql() {
+        StringBuilder sql = new StringBuilder("select result_value from coefficient_data"
+                + " where calculator_id = :calculatorId and coefficient_code = :coefficientCode");
+        StringBuilder orderBy = new StringBuilder();
+        for (CoefficientColumn col : columns) {
+            if (col == null) continue;
+            String column = NUMBER.equals(col.getVarDataType())
+                    ? "to_number(col" + (col.getNr() - 1) + ",'9999999999.99')"
+                    : "col" + (col.getNr() - 1);
+            sql.append(" AND ").append(column).append(' ')
+                    .append(col.getConditionOperator().trim().toUpperCase())
+                    .append(" :").append(col.getVarCode());
+
+            String order = col.getSortOrder() == null ? "" : col.getSortOrder().trim().toUpperCase();
+            if (order.equals("ASC") || order.equals("DESC")) {
+                orderBy.append(orderBy.isEmpty() ? " order by " : ", ").append(column).append(' ').append(order);
+            }
+        }
+        return sql.append(orderBy).append(" limit 1").toString();
+    }
+}
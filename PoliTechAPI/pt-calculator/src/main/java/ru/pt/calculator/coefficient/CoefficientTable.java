@@ -0,0 +1,388 @@
+package ru.pt.calculator.coefficient;
+
+import ru.pt.api.dto.calculator.CoefficientColumn;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Таблица коэффициента (строки coefficient_data одного calculator_id + coefficient_code) в памяти.
+ * <p>
+ * Для каждого набора колонок из {@link ru.pt.api.dto.calculator.CoefficientDef} строится свой индекс:
+ * hash по колонкам с оператором {@code =}, внутри корзины — массив, отсортированный по первой
+ * колонке-диапазону ({@code <, <=, >, >=}), для бинарного поиска. Среди подходящих строк выбирается
+ * первая по {@link CoefficientColumn#getSortOrder()} — так же, как {@code order by ... limit 1} в SQL.
+ */
+public final class CoefficientTable {
+
+    static final int COLUMN_COUNT = 11;
+    private static final String NUMBER = "NUMBER";
+
+    private final List<Row> rows;
+    private final Map<String, LayoutIndex> indexes = new ConcurrentHashMap<>();
+
+    public CoefficientTable(List<Row> rows) {
+        this.rows = List.copyOf(rows);
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    /**
+     * Поиск значения коэффициента.
+     * @param columns описание колонок (уже проверенное {@link #layoutKey(List)})
+     * @param values значения переменных договора по колонкам, в порядке {@code columns}
+     * @return найденная строка или {@code null}
+     */
+    public Row lookup(List<CoefficientColumn> columns, String[] values) {
+        String layoutKey = layoutKey(columns);
+        if (layoutKey == null) {
+            return null;
+        }
+        return lookup(layoutKey, columns, values);
+    }
+
+    /**
+     * Поиск по скомпилированному запросу: ключ раскладки уже посчитан в {@link CoefficientQuery}.
+     */
+    public Row lookup(CoefficientQuery query, String[] values) {
+        return lookup(query.layoutKey(), query.columns(), values);
+    }
+
+    private Row lookup(String layoutKey, List<CoefficientColumn> columns, String[] values) {
+        LayoutIndex index = indexes.computeIfAbsent(layoutKey, k -> new LayoutIndex(Condition.of(columns), rows));
+        return index.lookup(values);
+    }
+
+    /**
+     * Ключ набора колонок; {@code null}, если набор невалиден (нет кода, номера или оператора,
+     * номер колонки вне 1..11, оператор не поддерживается).
+     */
+    public static String layoutKey(List<CoefficientColumn> columns) {
+        StringBuilder key = new StringBuilder();
+        for (CoefficientColumn col : columns) {
+            if (col == null) continue;
+            if (col.getVarCode() == null || col.getNr() == null || col.getConditionOperator() == null) return null;
+            int nr = col.getNr() - 1;
+            if (nr < 0 || nr >= COLUMN_COUNT) return null;
+            Operator op = Operator.of(col.getConditionOperator());
+            if (op == null) return null;
+            key.append(nr).append(':')
+                    .append(NUMBER.equals(col.getVarDataType()) ? 'N' : 'S').append(':')
+                    .append(op).append(':')
+                    .append(normalizeOrder(col.getSortOrder())).append('|');
+        }
+        return key.toString();
+    }
+
+    private static String normalizeOrder(String order) {
+        if (order == null) return null;
+        String s = order.trim().toUpperCase();
+        return switch (s) {
+            case "ASC", "DESC" -> s;
+            default -> null;
+        };
+    }
+
+    /**
+     * Строка таблицы: текстовые значения колонок, они же как число (если разбираются) и результат.
+     */
+    public record Row(String[] text, BigDecimal[] numbers, BigDecimal resultValue) {
+
+        public static Row of(String[] text, BigDecimal resultValue) {
+            BigDecimal[] numbers = new BigDecimal[COLUMN_COUNT];
+            for (int i = 0; i < COLUMN_COUNT; i++) {
+                numbers[i] = parseNumber(text[i]);
+            }
+            return new Row(text, numbers, resultValue);
+        }
+    }
+
+    static BigDecimal parseNumber(String s) {
+        if (s == null) return null;
+        try {
+            return new BigDecimal(s.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    enum Operator {
+        EQ, NE, LT, LE, GT, GE, LIKE;
+
+        static Operator of(String op) {
+            if (op == null) return null;
+            return switch (op.trim().toUpperCase()) {
+                case "=" -> EQ;
+                case "<>" -> NE;
+                case "<" -> LT;
+                case "<=" -> LE;
+                case ">" -> GT;
+                case ">=" -> GE;
+                case "LIKE" -> LIKE;
+                default -> null;
+            };
+        }
+
+        boolean isRange() {
+            return this == LT || this == LE || this == GT || this == GE;
+        }
+
+        /** Сравнение "значение в таблице {op} значение договора" по результату compareTo. */
+        boolean test(int cmp) {
+            return switch (this) {
+                case EQ -> cmp == 0;
+                case NE -> cmp != 0;
+                case LT -> cmp < 0;
+                case LE -> cmp <= 0;
+                case GT -> cmp > 0;
+                case GE -> cmp >= 0;
+                case LIKE -> false;
+            };
+        }
+    }
+
+    /**
+     * Условие по одной колонке; значение договора подставляется при поиске.
+     */
+    record Condition(int column, boolean numeric, Operator operator, int order) {
+
+        static List<Condition> of(List<CoefficientColumn> columns) {
+            List<Condition> result = new ArrayList<>();
+            for (CoefficientColumn col : columns) {
+                if (col == null) continue;
+                String ord = normalizeOrder(col.getSortOrder());
+                Operator op = Operator.of(col.getConditionOperator());
+                result.add(new Condition(
+                        col.getNr() - 1,
+                        NUMBER.equals(col.getVarDataType()) && op != Operator.LIKE,
+                        op,
+                        ord == null ? 0 : ("ASC".equals(ord) ? 1 : -1)));
+            }
+            return result;
+        }
+
+        /** Строка без значения в колонке (или с нечисловым текстом в числовой) не подходит — как NULL в SQL. */
+        boolean hasValue(Row row) {
+            return numeric ? row.numbers()[column] != null : row.text()[column] != null;
+        }
+
+        int compare(Row row, Object value) {
+            return numeric
+                    ? row.numbers()[column].compareTo((BigDecimal) value)
+                    : row.text()[column].compareTo((String) value);
+        }
+
+        boolean test(Row row, Object value) {
+            if (!hasValue(row)) return false;
+            if (operator == Operator.LIKE) {
+                return likePattern((String) value).matcher(row.text()[column]).matches();
+            }
+            return operator.test(compare(row, value));
+        }
+
+        Comparable<?> key(Row row) {
+            return numeric ? row.numbers()[column] : row.text()[column];
+        }
+    }
+
+    private static Pattern likePattern(String like) {
+        StringBuilder regex = new StringBuilder();
+        for (char c : like.toCharArray()) {
+            switch (c) {
+                case '%' -> regex.append(".*");
+                case '_' -> regex.append('.');
+                default -> regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    /**
+     * Индекс таблицы под конкретный набор колонок.
+     */
+    static final class LayoutIndex {
+
+        private final List<Condition> conditions;
+        private final int[] equalityPositions;
+        /** Первая колонка-диапазон (позиция в conditions) или -1. */
+        private final int rangePosition;
+        private final Comparator<Row> rowOrder;
+        private final Map<List<Object>, Bucket> buckets = new HashMap<>();
+
+        LayoutIndex(List<Condition> conditions, List<Row> rows) {
+            this.conditions = conditions;
+            List<Integer> eq = new ArrayList<>();
+            int range = -1;
+            for (int i = 0; i < conditions.size(); i++) {
+                Condition c = conditions.get(i);
+                if (c.operator() == Operator.EQ) {
+                    eq.add(i);
+                } else if (range < 0 && c.numeric() && c.operator().isRange()) {
+                    range = i;
+                }
+            }
+            this.equalityPositions = eq.stream().mapToInt(Integer::intValue).toArray();
+            this.rangePosition = range;
+            this.rowOrder = rowOrder(conditions);
+
+            Map<List<Object>, List<Entry>> grouped = new HashMap<>();
+            for (int i = 0; i < rows.size(); i++) {
+                Row row = rows.get(i);
+                if (!indexable(row)) continue;
+                grouped.computeIfAbsent(equalityKey(row), k -> new ArrayList<>()).add(new Entry(i, row));
+            }
+            grouped.forEach((key, entries) -> buckets.put(key, new Bucket(entries, rangePosition >= 0
+                    ? conditions.get(rangePosition) : null)));
+        }
+
+        private boolean indexable(Row row) {
+            for (int pos : equalityPositions) {
+                if (!conditions.get(pos).hasValue(row)) return false;
+            }
+            return rangePosition < 0 || conditions.get(rangePosition).hasValue(row);
+        }
+
+        private List<Object> equalityKey(Row row) {
+            Object[] key = new Object[equalityPositions.length];
+            for (int i = 0; i < equalityPositions.length; i++) {
+                Condition c = conditions.get(equalityPositions[i]);
+                key[i] = c.numeric() ? normalize(row.numbers()[c.column()]) : row.text()[c.column()];
+            }
+            return Arrays.asList(key);
+        }
+
+        private static BigDecimal normalize(BigDecimal value) {
+            return value.signum() == 0 ? BigDecimal.ZERO : value.stripTrailingZeros();
+        }
+
+        private static Comparator<Row> rowOrder(List<Condition> conditions) {
+            Comparator<Row> order = null;
+            for (Condition c : conditions) {
+                if (c.order() == 0) continue;
+                @SuppressWarnings({"unchecked", "rawtypes"})
+                Comparator<Row> byColumn = (a, b) -> ((Comparable) c.key(a)).compareTo(c.key(b));
+                if (c.order() < 0) byColumn = byColumn.reversed();
+                order = order == null ? byColumn : order.thenComparing(byColumn);
+            }
+            return order;
+        }
+
+        Row lookup(String[] rawValues) {
+            Object[] values = new Object[conditions.size()];
+            for (int i = 0; i < conditions.size(); i++) {
+                Condition c = conditions.get(i);
+                if (c.numeric()) {
+                    BigDecimal number = parseNumber(rawValues[i]);
+                    if (number == null) return null;
+                    values[i] = number;
+                } else {
+                    values[i] = rawValues[i];
+                }
+            }
+
+            Object[] key = new Object[equalityPositions.length];
+            for (int i = 0; i < equalityPositions.length; i++) {
+                Object v = values[equalityPositions[i]];
+                key[i] = v instanceof BigDecimal bd ? normalize(bd) : v;
+            }
+            Bucket bucket = buckets.get(Arrays.asList(key));
+            if (bucket == null) {
+                return null;
+            }
+
+            Entry best = null;
+            int from = 0;
+            int to = bucket.entries.length;
+            if (rangePosition >= 0) {
+                int[] slice = bucket.slice((BigDecimal) values[rangePosition]);
+                from = slice[0];
+                to = slice[1];
+            }
+            for (int i = from; i < to; i++) {
+                Entry entry = bucket.entries[i];
+                if (!matches(entry.row(), values)) continue;
+                if (best == null || isBefore(entry, best)) {
+                    best = entry;
+                }
+            }
+            return best == null ? null : best.row();
+        }
+
+        private boolean matches(Row row, Object[] values) {
+            for (int i = 0; i < conditions.size(); i++) {
+                if (i == rangePosition) continue;
+                Condition c = conditions.get(i);
+                if (c.operator() == Operator.EQ) continue; // уже учтено ключом корзины
+                if (!c.test(row, values[i])) return false;
+            }
+            return true;
+        }
+
+        private boolean isBefore(Entry candidate, Entry current) {
+            if (rowOrder != null) {
+                int cmp = rowOrder.compare(candidate.row(), current.row());
+                if (cmp != 0) return cmp < 0;
+            }
+            return candidate.position() < current.position();
+        }
+    }
+
+    private record Entry(int position, Row row) {
+    }
+
+    /**
+     * Строки с одинаковыми значениями {@code =}-колонок, отсортированные по колонке-диапазону.
+     */
+    private static final class Bucket {
+
+        private final Entry[] entries;
+        private final Condition range;
+
+        Bucket(List<Entry> entries, Condition range) {
+            this.range = range;
+            if (range != null) {
+                entries.sort(Comparator.comparing(e -> e.row().numbers()[range.column()]));
+            }
+            this.entries = entries.toArray(new Entry[0]);
+        }
+
+        /**
+         * Границы [from, to) строк, у которых колонка-диапазон удовлетворяет условию для {@code value}.
+         * Строки отсортированы по возрастанию значения колонки, поэтому это префикс или суффикс.
+         */
+        int[] slice(BigDecimal value) {
+            return switch (range.operator()) {
+                case LT -> new int[]{0, firstIndex(value, false)};
+                case LE -> new int[]{0, firstIndex(value, true)};
+                case GT -> new int[]{firstIndex(value, true), entries.length};
+                case GE -> new int[]{firstIndex(value, false), entries.length};
+                default -> new int[]{0, entries.length};
+            };
+        }
+
+        /** Первая позиция, где значение колонки {@code > value} (strict) или {@code >= value}. */
+        private int firstIndex(BigDecimal value, boolean strictlyGreater) {
+            int lo = 0;
+            int hi = entries.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                int cmp = entries[mid].row().numbers()[range.column()].compareTo(value);
+                if (strictlyGreater ? cmp <= 0 : cmp < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
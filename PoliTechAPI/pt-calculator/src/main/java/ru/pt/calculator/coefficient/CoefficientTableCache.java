@@ -0,0 +1,96 @@
+package ru.pt.calculator.coefficient;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.pt.api.dto.calculator.CoefficientColumn;
+import ru.pt.calculator.plan.CalculatorResultCache;
+import ru.pt.calculator.utils.AfterCommit;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Таблицы коэффициентов в памяти по (calculator_id, coefficient_code).
+ * Таблица загружается одним запросом при первом обращении и сбрасывается при любом изменении строк.
+ */
+@Component
+public class CoefficientTableCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoefficientTableCache.class);
+
+    private static final String SELECT_TABLE = """
+            select col0, col1, col2, col3, col4, col5, col6, col7, col8, col9, col10, result_value
+            from coefficient_data
+            where calculator_id = ? and coefficient_code = ?
+            order by id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CalculatorResultCache resultCache;
+    private final Map<Key, CoefficientTable> tables = new ConcurrentHashMap<>();
+    /** Увеличивается при каждом сбросе: таблица, загруженная до сброса, в кэш не кладётся. */
+    private final AtomicLong generation = new AtomicLong();
+    /** Шаблоны запросов по набору колонок; от строк таблиц не зависят и не сбрасываются. */
+    private final Map<String, CoefficientQuery> queries = new ConcurrentHashMap<>();
+
+    public CoefficientTableCache(JdbcTemplate jdbcTemplate, CalculatorResultCache resultCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.resultCache = resultCache;
+    }
+
+    public CoefficientTable get(Long calculatorId, String coefficientCode) {
+        Key key = new Key(calculatorId, coefficientCode);
+        CoefficientTable cached = tables.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long startGeneration = generation.get();
+        CoefficientTable table = load(calculatorId, coefficientCode);
+        if (generation.get() == startGeneration) {
+            tables.putIfAbsent(key, table);
+        }
+        return table;
+    }
+
+    /**
+     * Скомпилированный запрос для набора колонок или {@code null}, если набор невалиден.
+     */
+    public CoefficientQuery query(List<CoefficientColumn> columns) {
+        String key = CoefficientQuery.cacheKey(columns);
+        if (key == null) {
+            return null;
+        }
+        return queries.computeIfAbsent(key, k -> CoefficientQuery.compile(columns));
+    }
+
+    /**
+     * Сбросить таблицу; внутри транзакции сброс повторяется после commit.
+     */
+    public void evict(Long calculatorId, String coefficientCode) {
+        AfterCommit.evict(() -> {
+            generation.incrementAndGet();
+            tables.remove(new Key(calculatorId, coefficientCode));
+        });
+        resultCache.clear();
+    }
+
+    private CoefficientTable load(Long calculatorId, String coefficientCode) {
+        List<CoefficientTable.Row> rows = jdbcTemplate.query(SELECT_TABLE, (rs, rowNum) -> {
+            String[] text = new String[CoefficientTable.COLUMN_COUNT];
+            for (int i = 0; i < CoefficientTable.COLUMN_COUNT; i++) {
+                text[i] = rs.getString(i + 1);
+            }
+            return CoefficientTable.Row.of(text, rs.getBigDecimal("result_value"));
+        }, calculatorId, coefficientCode);
+        logger.debug("Coefficient table loaded: calculatorId={}, code={}, rows={}",
+                calculatorId, coefficientCode, rows.size());
+        return new CoefficientTable(rows);
+    }
+
+    private record Key(Long calculatorId, String coefficientCode) {
+    }
+}
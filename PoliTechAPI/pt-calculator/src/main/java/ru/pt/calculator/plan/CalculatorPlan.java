@@ -0,0 +1,325 @@
+package ru.pt.calculator.plan;
+
+import ru.pt.api.dto.calculator.CalculatorModel;
+import ru.pt.api.dto.calculator.CoefficientColumn;
+import ru.pt.api.dto.calculator.CoefficientDef;
+import ru.pt.api.dto.calculator.FormulaDef;
+import ru.pt.api.dto.calculator.FormulaLine;
+import ru.pt.api.dto.product.PvVar;
+import ru.pt.calculator.coefficient.CoefficientQuery;
+import ru.pt.domain.model.PvVarDefinition;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Скомпилированный калькулятор пакета: неизменяемая программа, которую можно выполнять
+ * параллельно для разных полисов.
+ * <p>
+ * Строки формулы отсортированы заранее, операторы и округление разобраны в enum/scale,
+ * операнды-коэффициенты связаны со своим {@link CoefficientDef} и скомпилированным запросом, определения переменных
+ * и значения констант построены один раз.
+ */
+public final class CalculatorPlan {
+
+    private final Long calculatorId;
+    private final boolean hasFormula;
+    private final String formulaCode;
+    private final List<VarInit> varInits;
+    private final List<Line> lines;
+    private final List<String> inputCodes;
+    private final List<String> outputCodes;
+
+    private CalculatorPlan(Long calculatorId, boolean hasFormula, String formulaCode,
+                           List<VarInit> varInits, List<Line> lines) {
+        this.calculatorId = calculatorId;
+        this.hasFormula = hasFormula;
+        this.formulaCode = formulaCode;
+        this.varInits = varInits;
+        this.lines = lines;
+        this.outputCodes = collectOutputs(varInits, lines);
+        this.inputCodes = collectInputs(varInits, lines, outputCodes);
+    }
+
+    /**
+     * Компиляция модели калькулятора (с уже добавленными переменными продукта и пакета).
+     * @param model модель калькулятора
+     * @return план или {@code null}, если калькулятора нет; калькулятор без формул даёт пустой план
+     */
+    public static CalculatorPlan compile(CalculatorModel model) {
+        if (model == null) {
+            return null;
+        }
+        if (model.getFormulas() == null || model.getFormulas().isEmpty()) {
+            return new CalculatorPlan(model.getId(), false, null, List.of(), List.of());
+        }
+
+        List<VarInit> varInits = new ArrayList<>();
+        for (PvVar v : model.getVars()) {
+            BigDecimal constValue = v.getVarType().equals("CONST") ? new BigDecimal(v.getVarValue()) : null;
+            varInits.add(new VarInit(PvVarDefinition.fromPvVar(v), constValue));
+        }
+
+        Map<String, Operand> coefficients = new HashMap<>();
+        if (model.getCoefficients() != null) {
+            for (CoefficientDef cd : model.getCoefficients()) {
+                coefficients.computeIfAbsent(cd.getVarCode(),
+                        code -> new Operand(code, cd, CoefficientQuery.compile(cd.getColumns())));
+            }
+        }
+
+        // Формула у пакета одна
+        FormulaDef formula = model.getFormulas().getFirst();
+        List<FormulaLine> sorted = new ArrayList<>(formula.getLines());
+        sorted.sort(Comparator.comparing(FormulaLine::getNr, Comparator.nullsLast(Long::compareTo)));
+
+        List<Line> lines = new ArrayList<>(sorted.size());
+        for (FormulaLine line : sorted) {
+            lines.add(new Line(
+                    line.getNr(),
+                    line.hasCondition(),
+                    line.getConditionLeft(),
+                    line.getConditionRight(),
+                    line.getConditionOperator(),
+                    Operand.of(line.getExpressionLeft(), coefficients),
+                    Operand.of(line.getExpressionRight(), coefficients),
+                    line.getExpressionOperator(),
+                    Operator.of(line.getExpressionOperator()),
+                    line.getPostProcessor(),
+                    Rounding.parse(line.getPostProcessor()),
+                    line.hasResult() ? line.getExpressionResult() : null));
+        }
+
+        return new CalculatorPlan(
+                model.getId(), true, formula.getVarCode(), List.copyOf(varInits), List.copyOf(lines));
+    }
+
+    public Long getCalculatorId() {
+        return calculatorId;
+    }
+
+    public boolean hasFormula() {
+        return hasFormula;
+    }
+
+    public String getFormulaCode() {
+        return formulaCode;
+    }
+
+    public List<VarInit> getVarInits() {
+        return varInits;
+    }
+
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    /**
+     * Переменные, значения которых определяют результат расчёта: всё, что читают строки формулы
+     * (условия, операнды, колонки и альтернативы коэффициентов), и все переменные, в которые пишет план.
+     * Отсортированы — порядок не зависит от порядка строк.
+     */
+    public List<String> getInputCodes() {
+        return inputCodes;
+    }
+
+    /**
+     * Переменные, в которые пишет план: константы, значения коэффициентов и результаты строк.
+     */
+    public List<String> getOutputCodes() {
+        return outputCodes;
+    }
+
+    private static List<String> collectOutputs(List<VarInit> varInits, List<Line> lines) {
+        Set<String> codes = new LinkedHashSet<>();
+        for (VarInit init : varInits) {
+            if (init.constValue() != null) {
+                codes.add(init.definition().getCode());
+            }
+        }
+        for (Line line : lines) {
+            for (Operand operand : List.of(line.left(), line.right())) {
+                if (operand.coefficient() != null) {
+                    codes.add(operand.varCode());
+                }
+            }
+            if (line.resultVarCode() != null) {
+                codes.add(line.resultVarCode());
+            }
+        }
+        return List.copyOf(codes);
+    }
+
+    private static List<String> collectInputs(List<VarInit> varInits, List<Line> lines, List<String> outputs) {
+        Set<String> codes = new TreeSet<>(outputs);
+        for (Line line : lines) {
+            addCode(codes, line.conditionLeft());
+            addCode(codes, line.conditionRight());
+            for (Operand operand : List.of(line.left(), line.right())) {
+                addCode(codes, operand.varCode());
+                CoefficientDef cd = operand.coefficient();
+                if (cd != null) {
+                    addCode(codes, cd.getAltVarCode());
+                    if (cd.getColumns() != null) {
+                        for (CoefficientColumn column : cd.getColumns()) {
+                            if (column != null) {
+                                addCode(codes, column.getVarCode());
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return List.copyOf(codes);
+    }
+
+    private static void addCode(Set<String> codes, String code) {
+        if (code != null && !code.isBlank()) {
+            codes.add(code);
+        }
+    }
+
+    /**
+     * Переменная калькулятора: определение для контекста и значение, если это CONST.
+     */
+    public record VarInit(PvVarDefinition definition, BigDecimal constValue) {
+    }
+
+    /**
+     * Операнд формулы; для коэффициента — его описание и запрос, скомпилированный вместе с планом
+     * ({@code query} — {@code null}, если колонки коэффициента невалидны).
+     */
+    public record Operand(String varCode, CoefficientDef coefficient, CoefficientQuery query) {
+        static Operand of(String varCode, Map<String, Operand> coefficients) {
+            Operand coefficient = varCode != null ? coefficients.get(varCode) : null;
+            return coefficient != null ? coefficient : new Operand(varCode, null, null);
+        }
+    }
+
+    public record Line(
+            Long nr,
+            boolean hasCondition,
+            String conditionLeft,
+            String conditionRight,
+            String conditionOperator,
+            Operand left,
+            Operand right,
+            String operatorText,
+            Operator operator,
+            String postProcessorText,
+            Rounding rounding,
+            String resultVarCode) {
+    }
+
+    public enum Operator {
+        NONE, PLUS, MINUS, MULTIPLY, DIVIDE, MIN, MAX, UNKNOWN;
+
+        static Operator of(String operator) {
+            if (operator == null || operator.isBlank()) {
+                return NONE;
+            }
+            return switch (operator.trim()) {
+                case "+" -> PLUS;
+                case "-" -> MINUS;
+                case "*" -> MULTIPLY;
+                case "/" -> DIVIDE;
+                case "min" -> MIN;
+                case "max" -> MAX;
+                default -> UNKNOWN;
+            };
+        }
+
+        public BigDecimal apply(BigDecimal left, BigDecimal right) {
+            switch (this) {
+                case PLUS:
+                    if (left != null && right != null) return left.add(right);
+                    if (left == null && right == null) return null;
+                    if (left == null) return right;
+                    return left;
+                case MINUS:
+                    if (left != null && right != null) return left.subtract(right);
+                    if (left == null && right == null) return null;
+                    if (left == null) return right.negate();
+                    return left;
+                case MULTIPLY:
+                    if (left != null && right != null) return left.multiply(right);
+                    return null;
+                case DIVIDE:
+                    if (left != null && right != null && right != BigDecimal.ZERO) return left.divide(right);
+                    return null;
+                case MIN:
+                    if (left == null && right == null) return null;
+                    if (left == null) return right;
+                    if (right == null) return left;
+                    return left.min(right);
+                case MAX:
+                    if (left == null && right == null) return null;
+                    if (left == null) return right;
+                    if (right == null) return left;
+                    return left.max(right);
+                default:
+                    return left;
+            }
+        }
+    }
+
+    /**
+     * Разобранный postProcessor вида {@code round}, {@code round2}, {@code round0_floor}.
+     */
+    public record Rounding(int scale, RoundingMode mode) {
+
+        /**
+         * @return округление или {@code null}, если postProcessor не задан или не начинается с "round"
+         */
+        static Rounding parse(String postProcessor) {
+            if (postProcessor == null) return null;
+
+            String pp = postProcessor.trim().toLowerCase();
+            if (!pp.startsWith("round")) {
+                return null;
+            }
+
+            // Extract scale (default is 2)
+            int scale = 2;
+            if (!"round2".equals(pp)) {
+                String digits = pp.replaceAll("[^0-9]", "");
+                if (!digits.isEmpty()) {
+                    try {
+                        scale = Integer.parseInt(digits);
+                    } catch (Exception ignored) {
+                        // Keep default scale = 2
+                    }
+                }
+            }
+
+            // Determine rounding mode
+            RoundingMode roundingMode = RoundingMode.HALF_UP; // default
+            if (pp.contains("_")) {
+                String modePart = pp.substring(pp.lastIndexOf("_") + 1);
+                roundingMode = switch (modePart) {
+                    case "up" -> RoundingMode.UP;
+                    case "down" -> RoundingMode.DOWN;
+                    case "ceiling" -> RoundingMode.CEILING;
+                    case "floor" -> RoundingMode.FLOOR;
+                    case "halfup", "half_up" -> RoundingMode.HALF_UP;
+                    case "halfdown", "half_down" -> RoundingMode.HALF_DOWN;
+                    case "halfeven", "half_even" -> RoundingMode.HALF_EVEN;
+                    default -> RoundingMode.HALF_UP;
+                };
+            }
+            return new Rounding(scale, roundingMode);
+        }
+
+        public BigDecimal apply(BigDecimal value) {
+            return value == null ? null : value.setScale(scale, mode);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ru.pt.calculator.plan;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import ru.pt.calculator.utils.AfterCommit;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш скомпилированных калькуляторов по (tid, productId, versionNo, packageNo).
+ * Отсутствие калькулятора тоже кэшируется, поэтому сброс нужен и при создании калькулятора.
+ */
+@Component
+public class CalculatorPlanCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CalculatorPlanCache.class);
+
+    private final Map<Key, Optional<CalculatorPlan>> plans = new ConcurrentHashMap<>();
+    /** Увеличивается при каждом сбросе: план, собранный до сброса, в кэш не кладётся. */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final CalculatorResultCache resultCache;
+
+    public CalculatorPlanCache(CalculatorResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    public CalculatorPlan get(Long tenantId, Long productId, Long versionNo, String packageNo,
+                              Supplier<CalculatorPlan> loader) {
+        Key key = new Key(tenantId, productId, versionNo, packageNo);
+        Optional<CalculatorPlan> cached = plans.get(key);
+        if (cached != null) {
+            return cached.orElse(null);
+        }
+        long startGeneration = generation.get();
+        CalculatorPlan plan = loader.get();
+        if (generation.get() == startGeneration) {
+            plans.putIfAbsent(key, Optional.ofNullable(plan));
+        }
+        logger.debug("Calculator plan compiled: tid={}, productId={}, versionNo={}, packageNo={}",
+                tenantId, productId, versionNo, packageNo);
+        return plan;
+    }
+
+    /**
+     * Сбросить план пакета; внутри транзакции сброс повторяется после commit.
+     */
+    public void evict(Long tenantId, Long productId, Long versionNo, String packageNo) {
+        AfterCommit.evict(() -> {
+            generation.incrementAndGet();
+            plans.remove(new Key(tenantId, productId, versionNo, packageNo));
+        });
+        resultCache.clear();
+    }
+
+    /**
+     * Сбросить планы всех пакетов версии продукта (изменились переменные, пакеты или покрытия).
+     */
+    public void evictVersion(Long tenantId, Long productId, Long versionNo) {
+        AfterCommit.evict(() -> {
+            generation.incrementAndGet();
+            plans.keySet().removeIf(key -> Objects.equals(key.tenantId(), tenantId)
+                    && Objects.equals(key.productId(), productId)
+                    && Objects.equals(key.versionNo(), versionNo));
+        });
+        resultCache.clear();
+    }
+
+    private record Key(Long tenantId, Long productId, Long versionNo, String packageNo) {
+    }
+}
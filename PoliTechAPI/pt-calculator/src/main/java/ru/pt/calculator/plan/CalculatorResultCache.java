@@ -0,0 +1,145 @@
+package ru.pt.calculator.plan;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.pt.calculator.utils.AfterCommit;
+import ru.pt.domain.model.PvVarDefinition;
+import ru.pt.domain.model.VariableContext;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кэш результатов калькулятора по отпечатку входных переменных.
+ * <p>
+ * Отпечаток — SHA-256 от значений {@link CalculatorPlan#getInputCodes()} (код, тип, значение без нормализации:
+ * 10 и 10.0 дают разные результаты по scale). Ключ включает сам план, поэтому изменение калькулятора,
+ * переменных или покрытий версии даёт новый план и новые ключи; коэффициенты и планы при изменении
+ * сбрасывают кэш целиком. Размер ограничен (LRU), записи живут не дольше TTL.
+ * <p>
+ * По умолчанию выключен: {@code pt.calculator.result-cache.enabled=true}.
+ */
+@Component
+public class CalculatorResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CalculatorResultCache.class);
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final Map<Key, Entry> results;
+    /** Увеличивается при каждом сбросе: результат, посчитанный до сброса, в кэш не кладётся. */
+    private final AtomicLong generation = new AtomicLong();
+
+    public CalculatorResultCache(@Value("${pt.calculator.result-cache.enabled:false}") boolean enabled,
+                                 @Value("${pt.calculator.result-cache.max-size:10000}") int maxSize,
+                                 @Value("${pt.calculator.result-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.ttlMillis = ttlSeconds * 1000L;
+        this.results = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    /**
+     * Отпечаток входа плана или {@code null}, если кэш выключен или результат нельзя кэшировать
+     * (калькулятор объявляет MAGIC-переменную, которой нет в договоре: её значение зависит от переменных вне отпечатка).
+     */
+    public Fingerprint fingerprint(CalculatorPlan plan, VariableContext ctx) {
+        if (!enabled) {
+            return null;
+        }
+        for (CalculatorPlan.VarInit init : plan.getVarInits()) {
+            PvVarDefinition def = init.definition();
+            if (def.getSourceType() == PvVarDefinition.VarSourceType.MAGIC && ctx.getDefinition(def.getCode()) == null) {
+                return null;
+            }
+        }
+        MessageDigest digest = sha256();
+        for (String code : plan.getInputCodes()) {
+            Object value = ctx.get(code);
+            digest.update(code.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            if (value != null) {
+                digest.update(value.getClass().getName().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) ':');
+                digest.update(value.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) 0);
+        }
+        return new Fingerprint(HexFormat.of().formatHex(digest.digest()), generation.get());
+    }
+
+    /**
+     * Значения выходных переменных в порядке {@link CalculatorPlan#getOutputCodes()} или {@code null} при промахе.
+     */
+    public List<Object> get(CalculatorPlan plan, Fingerprint fingerprint) {
+        Key key = new Key(plan, fingerprint.value());
+        Entry entry = results.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() < System.currentTimeMillis()) {
+            results.remove(key, entry);
+            return null;
+        }
+        return entry.outputs();
+    }
+
+    public void put(CalculatorPlan plan, Fingerprint fingerprint, VariableContext ctx) {
+        List<Object> outputs = new ArrayList<>(plan.getOutputCodes().size());
+        for (String code : plan.getOutputCodes()) {
+            outputs.add(ctx.get(code));
+        }
+        if (generation.get() == fingerprint.generation()) {
+            results.put(new Key(plan, fingerprint.value()),
+                    new Entry(Collections.unmodifiableList(outputs), System.currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    /**
+     * Сбросить все результаты; внутри транзакции сброс повторяется после commit.
+     */
+    public void clear() {
+        if (!enabled) {
+            return;
+        }
+        AfterCommit.evict(() -> {
+            generation.incrementAndGet();
+            results.clear();
+        });
+        logger.debug("Calculator result cache cleared");
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param generation поколение кэша на момент снятия отпечатка
+     */
+    public record Fingerprint(String value, long generation) {
+    }
+
+    private record Key(CalculatorPlan plan, String fingerprint) {
+    }
+
+    private record Entry(List<Object> outputs, long expiresAt) {
+    }
+}
@@ -29,12 +29,14 @@ import ru.pt.api.service.auth.AuthorizationService;
 import ru.pt.api.service.auth.AuthZ.Action;
 import ru.pt.api.service.auth.AuthZ.ResourceType;
 import ru.pt.api.service.calculator.CalculatorService;
-import ru.pt.api.service.calculator.CoefficientService;
 import ru.pt.api.service.product.LobService;
 import ru.pt.api.service.product.ProductServiceCRUD;
 import ru.pt.api.security.AuthenticatedUser;
 import ru.pt.auth.security.SecurityContextHelper;
 import ru.pt.calculator.entity.CalculatorEntity;
+import ru.pt.calculator.plan.CalculatorPlan;
+import ru.pt.calculator.plan.CalculatorPlanCache;
+import ru.pt.calculator.plan.CalculatorResultCache;
 import ru.pt.calculator.entity.LobCalculatorTemplateEntity;
 import ru.pt.calculator.repository.CalculatorRepository;
 import ru.pt.calculator.repository.LobCalculatorTemplateRepository;
@@ -44,15 +46,12 @@ import ru.pt.domain.model.CalculatorContext;
 
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 
-import static java.math.RoundingMode.HALF_UP;
-
 @Service
 @RequiredArgsConstructor
 public class CalculatorServiceImpl implements CalculatorService {
@@ -61,12 +60,14 @@ public class CalculatorServiceImpl implements CalculatorService {
 
     private final CalculatorRepository calculatorRepository;
     private final LobCalculatorTemplateRepository lobCalculatorTemplateRepository;
-    private final CoefficientService coefficientService;
+    private final CoefficientServiceImpl coefficientService;
     private final ProductServiceCRUD productServiceCRUD;
     private final ObjectMapper objectMapper;
     private final SecurityContextHelper securityContextHelper;
     private final AuthorizationService authService;
     private final LobService lobService;
+    private final CalculatorPlanCache calculatorPlanCache;
+    private final CalculatorResultCache calculatorResultCache;
     /**
      * Get current authenticated user from security context
      * @return AuthenticatedUser representing the current user
@@ -98,6 +99,14 @@ public class CalculatorServiceImpl implements CalculatorService {
                 tenantId,
                 Action.VIEW);
 
+        return loadCalculatorModel(tenantId, productId, versionNo, packageNo);
+    }
+
+    /**
+     * Модель калькулятора с переменными продукта (тарифные факторы) и пакета (суммы, премии, франшизы покрытий).
+     * Без проверки доступа — вызывающий метод проверяет сам.
+     */
+    private CalculatorModel loadCalculatorModel(Long tenantId, Long productId, Long versionNo, String packageNo) {
         Optional<CalculatorEntity> found =
                 calculatorRepository.findByKeys(tenantId, productId, versionNo, packageNo);
         if (found.isEmpty()) {
@@ -311,6 +320,7 @@ public class CalculatorServiceImpl implements CalculatorService {
 
         CalculatorEntity saved = calculatorRepository.save(e);
         calculatorModel.setId(saved.getId());
+        calculatorPlanCache.evict(tenantId, productId, versionNo, packageNo);
 
         try {
             saved.setCalculator(objectMapper.writeValueAsString(calculatorModel));
@@ -369,6 +379,7 @@ public class CalculatorServiceImpl implements CalculatorService {
         entity.setCalculator(calculatorJson);
 
         CalculatorEntity saved = calculatorRepository.save(entity);
+        calculatorPlanCache.evict(tenantId, productId, versionNo, packageNo);
         String calculator = saved.getCalculator();
         try {
             return objectMapper.readValue(calculator, CalculatorModel.class);
@@ -414,6 +425,7 @@ public class CalculatorServiceImpl implements CalculatorService {
             return;
         }
         calculatorRepository.delete(entity);
+        calculatorPlanCache.evict(tenantId, productId, versionNo, packageNo);
         logger.info("Calculator deleted: id={}", entity.getId());
     }
 
@@ -455,6 +467,7 @@ public class CalculatorServiceImpl implements CalculatorService {
         }
         saved.setCalculator(calculatorJson);
         saved = calculatorRepository.save(saved);
+        calculatorPlanCache.evict(tenantId, productId, versionNo, packageNo);
 
         String savedCalculatorJson = saved.getCalculator();
 
@@ -708,7 +721,7 @@ public class CalculatorServiceImpl implements CalculatorService {
         return value == null ? "" : value;
     }
     @Override
-    public void runCalculator(
+    public boolean runCalculator(
         Long tenantId,
         Long productId,
         Long versionNo,
@@ -718,93 +731,113 @@ public class CalculatorServiceImpl implements CalculatorService {
         
         logger.info("Running calculator: productId={}, versionNo={}, packageNo={}", productId, versionNo, packageNo);
 
-        CalculatorModel model = getCalculator(tenantId, productId, versionNo, packageNo);
-        if (model == null || model.getFormulas() == null || model.getFormulas().isEmpty()) {
-            logger.warn("Calculator not found or has no formulas, skipping");
-            return;
+        authService.check(
+                getCurrentUser(),
+                ResourceType.PRODUCT,
+                String.valueOf(productId),
+                tenantId,
+                Action.VIEW);
+
+        CalculatorPlan plan = calculatorPlanCache.get(tenantId, productId, versionNo, packageNo,
+                () -> CalculatorPlan.compile(loadCalculatorModel(tenantId, productId, versionNo, packageNo)));
+        if (plan == null) {
+            logger.warn("Calculator not found, skipping");
+            return false;
+        }
+        if (!plan.hasFormula()) {
+            logger.warn("Calculator has no formulas, skipping");
+            return true;
         }
 
-        
-//        logger.debug("Calculator loaded: {} variables, {} formulas, {} coefficients", model.getVars().size(), model.getFormulas().size(), model.getCoefficients().size());
+        CalculatorResultCache.Fingerprint fingerprint = calculatorResultCache.fingerprint(plan, ctx);
 
         // Добавить переменные калькулятора в контекст.
-        model.getVars().forEach(v -> {
-            PvVarDefinition varDef = PvVarDefinition.fromPvVar(v);
-            ctx.putDefinition(varDef);
-
-
-            if (v.getVarType().equals("CONST")) {
-                ctx.put(v.getVarCode(), new BigDecimal(v.getVarValue()));
-            };
-        });
-
+        for (CalculatorPlan.VarInit init : plan.getVarInits()) {
+            ctx.putDefinition(init.definition());
+            if (init.constValue() != null) {
+                ctx.put(init.definition().getCode(), init.constValue());
+            }
+        }
 
-        /*         
-        System.out.println("=== Variable Definitions ===");
-        ctx.getDefinitions().forEach(def -> {
-            System.out.println("varCode: " + def.getCode() + ", varDataType: " + def.getType());
-        });
-        System.out.println("===========================");
-*/
-        // Получить формулу калькулятора. Она у пакета одна
-        FormulaDef formula = model.getFormulas().getFirst();
-        logger.debug("Executing formula: {}", formula.getVarCode());
+        if (fingerprint != null) {
+            List<Object> cached = calculatorResultCache.get(plan, fingerprint);
+            if (cached != null) {
+                List<String> outputCodes = plan.getOutputCodes();
+                for (int i = 0; i < outputCodes.size(); i++) {
+                    Object value = cached.get(i);
+                    if (value != null || ctx.get(outputCodes.get(i)) != null) {
+                        ctx.put(outputCodes.get(i), value);
+                    }
+                }
+                logger.info("Calculator result taken from cache");
+                return true;
+            }
+        }
 
-        List<FormulaLine> lines = new ArrayList<>(formula.getLines());
-        lines.sort(Comparator.comparing(FormulaLine::getNr, Comparator.nullsLast(Long::compareTo)));
-        logger.trace("Sorted {} formula lines", lines.size());
+        logger.debug("Executing formula: {}", plan.getFormulaCode());
 
-        for (FormulaLine line : lines) {
-            logger.trace("Processing line {}: {} {} {}", line.getNr(), 
-                    line.getExpressionLeft(), line.getExpressionOperator(), line.getExpressionRight());
+        for (CalculatorPlan.Line line : plan.getLines()) {
+            logger.trace("Processing line {}: {} {} {}", line.nr(),
+                    line.left().varCode(), line.operatorText(), line.right().varCode());
 
-        // ---------- CONDITION ----------
-        if (line.hasCondition()) {
-            boolean ok = ValidatorImpl.validate(
-                ctx,
-                line.getConditionLeft(),
-                line.getConditionRight(),
-                null,
-                line.getConditionOperator()
-            );
-            logger.trace("Condition evaluated: {}", ok);
-            if (!ok) continue;
-        }
+            // ---------- CONDITION ----------
+            if (line.hasCondition()) {
+                boolean ok = ValidatorImpl.validate(
+                    ctx,
+                    line.conditionLeft(),
+                    line.conditionRight(),
+                    null,
+                    line.conditionOperator()
+                );
+                logger.trace("Condition evaluated: {}", ok);
+                if (!ok) continue;
+            }
 
-        // ---------- LEFT / RIGHT ----------
-        BigDecimal left = resolveValue(ctx, model, line.getExpressionLeft());
-        BigDecimal right = resolveValue(ctx, model, line.getExpressionRight());
-        logger.trace("Resolved values: left={}, right={}", left, right);
+            // ---------- LEFT / RIGHT ----------
+            BigDecimal left = resolveValue(ctx, plan, line.left());
+            BigDecimal right = resolveValue(ctx, plan, line.right());
+            logger.trace("Resolved values: left={}, right={}", left, right);
 
-        // ---------- COMPUTE ----------
-        BigDecimal result = compute( left, line.getExpressionOperator(), right );
+            // ---------- COMPUTE ----------
+            BigDecimal result = line.operator().apply(left, right);
 
-        String rslt = result != null ? result.toString() : "";
-        String lft = left != null ? left.toString() : "";
-        String rgt = right != null ? right.toString() : "";
-        String opr = line.getExpressionOperator();
+            if (logger.isDebugEnabled()) {
+                logger.debug("Calculator operation: {} {} {} = {}",
+                        left != null ? left.toString() : "",
+                        line.operatorText(),
+                        right != null ? right.toString() : "",
+                        result != null ? result.toString() : "");
+            }
 
-        logger.debug("Calculator operation: {} {} {} = {}", lft, opr, rgt, rslt);
+            if (line.rounding() != null) {
+                BigDecimal original = result;
+                result = line.rounding().apply(result);
+                logger.trace("Post-processed {} -> {} using {}", original, result, line.postProcessorText());
+            }
 
-        if (line.getPostProcessor() != null) {
-            BigDecimal original = result;
-            result = postProcess(result, line.getPostProcessor());
-            logger.trace("Post-processed {} -> {} using {}", original, result, line.getPostProcessor());
+            // ---------- WRITE RESULT ----------
+            if (line.resultVarCode() != null) {
+                ctx.put(line.resultVarCode(), result);
+                logger.trace("Stored result: {}={}", line.resultVarCode(), result);
+            }
         }
 
-        // ---------- WRITE RESULT ----------
-        if (line.getExpressionResult() != null && !line.getExpressionResult().isBlank()) {
-            ctx.put(line.getExpressionResult(), result);
-            logger.trace("Stored result: {}={}", line.getExpressionResult(), result);
+        if (fingerprint != null) {
+            calculatorResultCache.put(plan, fingerprint, ctx);
         }
-    }
 
-    logger.info("Calculator execution completed");
-}
+        logger.info("Calculator execution completed");
+        return true;
+    }
 
+    @Override
+    public void evictCalculatorPlans(Long tenantId, Long productId, Long versionNo) {
+        calculatorPlanCache.evictVersion(tenantId, productId, versionNo);
+    }
 
-    protected BigDecimal resolveValue(CalculatorContext ctx, CalculatorModel model, String varCode)
+    protected BigDecimal resolveValue(CalculatorContext ctx, CalculatorPlan plan, CalculatorPlan.Operand operand)
     {
+        String varCode = operand.varCode();
         logger.trace("Resolving value for varCode: {}", varCode);
         PvVarDefinition varDef = ctx.getDefinition(varCode);
         if (varDef == null) {
@@ -814,17 +847,17 @@ public class CalculatorServiceImpl implements CalculatorService {
 
         if (varDef.getSourceType() == PvVarDefinition.VarSourceType.COEFFICIENT) {
             logger.debug("Resolving coefficient: {}", varCode);
-            CoefficientDef cd = model.getCoefficients().stream().filter(c -> c.getVarCode().equals(varCode)).findFirst().orElse(null);
+            CoefficientDef cd = operand.coefficient();
             if (cd == null) {
                 logger.warn("Coefficient definition not found for varCode: {}", varCode);
                 return null;
             }
-            Long calcId = model.getId();
+            Long calcId = plan.getCalculatorId();
             if (calcId == null) {
                 logger.warn("Calculator model has no id; cannot resolve coefficient {}", varCode);
                 return null;
             }
-            String s = coefficientService.getCoefficientValue(calcId, varCode, ctx, cd.getColumns());
+            String s = coefficientService.getCoefficientValue(calcId, varCode, ctx, operand.query());
             logger.debug("Coefficient value resolved: {}={}", varCode, s);
             
             // Если вернулся null то ничего не найдено или еще какаято ошибка. 
@@ -850,100 +883,4 @@ public class CalculatorServiceImpl implements CalculatorService {
         logger.trace("Resolved value: {}={}", varCode, value);
         return value;
     }
-
-    private BigDecimal compute(BigDecimal left, String operator, BigDecimal right) {
-        if (operator == null || operator.isBlank()) return left;
-
-        switch (operator.trim()) {
-            case "+":
-                if (left != null && right != null) return left.add(right);
-                if (left == null && right == null) return null;
-                if (left == null) return right;
-                return left;
-            case "-":
-                if (left != null && right != null) return left.subtract(right);
-                if (left == null && right == null) return null;
-                if (left == null) return right.negate();
-                return left;
-            case "*":
-                if (left != null && right != null) return left.multiply(right);
-                return null;
-            case "/":
-                if (left != null && right != null && right != BigDecimal.ZERO) return left.divide(right);
-                return null;
-            case "min":
-                if (left == null && right == null) return null;
-                if (left == null) return right;
-                if (right == null) return left;
-                return left.min(right);
-            case "max":
-                if (left == null && right == null) return null;
-                if (left == null) return right;
-                if (right == null) return left;
-                return left.max(right);
-            default:
-                return left;
-        }
-    }
-
-    private BigDecimal postProcess(BigDecimal value, String postProcessor) {
-        if (value == null || postProcessor == null) return value;
-
-        String pp = postProcessor.trim().toLowerCase();
-        if (!pp.startsWith("round")) {
-            return value;
-        }
-
-        // Extract scale (default is 2)
-        int scale = 2;
-        if ("round2".equals(pp)) {
-            scale = 2;
-        } else {
-            String digits = pp.replaceAll("[^0-9]", "");
-            if (!digits.isEmpty()) {
-                try {
-                    scale = Integer.parseInt(digits);
-                } catch (Exception ignored) {
-                    // Keep default scale = 2
-                }
-            }
-        }
-
-        // Determine rounding mode
-        RoundingMode roundingMode = HALF_UP; // default
-        if (pp.contains("_")) {
-            String modePart = pp.substring(pp.lastIndexOf("_") + 1);
-            switch (modePart) {
-                case "up":
-                    roundingMode = RoundingMode.UP;
-                    break;
-                case "down":
-                    roundingMode = RoundingMode.DOWN;
-                    break;
-                case "ceiling":
-                    roundingMode = RoundingMode.CEILING;
-                    break;
-                case "floor":
-                    roundingMode = RoundingMode.FLOOR;
-                    break;
-                case "halfup":
-                case "half_up":
-                    roundingMode = RoundingMode.HALF_UP;
-                    break;
-                case "halfdown":
-                case "half_down":
-                    roundingMode = RoundingMode.HALF_DOWN;
-                    break;
-                case "halfeven":
-                case "half_even":
-                    roundingMode = RoundingMode.HALF_EVEN;
-                    break;
-                default:
-                    roundingMode = HALF_UP;
-                    break;
-            }
-        }
-
-        return value.setScale(scale, roundingMode);
-    }
 }
@@ -7,7 +7,12 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 import ru.pt.api.dto.calculator.CoefficientColumn;
 import ru.pt.api.dto.calculator.CoefficientDataRow;
+import ru.pt.api.dto.calculator.CoefficientImportResult;
 import ru.pt.api.service.calculator.CoefficientService;
+import ru.pt.calculator.coefficient.CoefficientCsvReader;
+import ru.pt.calculator.coefficient.CoefficientQuery;
+import ru.pt.calculator.coefficient.CoefficientTable;
+import ru.pt.calculator.coefficient.CoefficientTableCache;
 import ru.pt.calculator.entity.CoefficientDataEntity;
 import ru.pt.calculator.repository.CoefficientDataRepository;
 import ru.pt.domain.model.VariableContext;
@@ -15,6 +20,8 @@ import ru.pt.api.security.AuthenticatedUser;
 import ru.pt.auth.security.SecurityContextHelper;
 import ru.pt.api.dto.exception.BadRequestException;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
@@ -24,14 +31,28 @@ public class CoefficientServiceImpl implements CoefficientService {
 
     private static final Logger logger = LoggerFactory.getLogger(CoefficientServiceImpl.class);
 
+    private static final int CONDITION_COLUMNS = 11;
+    private static final int BATCH_SIZE = 1000;
+    private static final int IMPORT_PROGRESS_ROWS = 50_000;
+    private static final String INSERT_ROW = """
+            insert into coefficient_data
+                (tid, calculator_id, coefficient_code,
+                 col0, col1, col2, col3, col4, col5, col6, col7, col8, col9, col10,
+                 result_value)
+            values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
     private final CoefficientDataRepository repository;
     private final JdbcTemplate jdbcTemplate;
     private final SecurityContextHelper securityContextHelper;
+    private final CoefficientTableCache coefficientTableCache;
 
-    public CoefficientServiceImpl(CoefficientDataRepository repository, JdbcTemplate jdbcTemplate, SecurityContextHelper securityContextHelper) {
+    public CoefficientServiceImpl(CoefficientDataRepository repository, JdbcTemplate jdbcTemplate,
+                                  SecurityContextHelper securityContextHelper, CoefficientTableCache coefficientTableCache) {
         this.repository = repository;
         this.jdbcTemplate = jdbcTemplate;
         this.securityContextHelper = securityContextHelper;
+        this.coefficientTableCache = coefficientTableCache;
         }
 
     protected AuthenticatedUser getCurrentUser() {
@@ -52,6 +73,7 @@ public class CoefficientServiceImpl implements CoefficientService {
         entity.setTId(getCurrentTenantId());
         mapFromRow(entity, row);
         CoefficientDataEntity saved = repository.save(entity);
+        coefficientTableCache.evict(calculatorId, code);
         logger.info("Coefficient data inserted: id={}", saved.getId());
         return saved;
     }
@@ -62,6 +84,7 @@ public class CoefficientServiceImpl implements CoefficientService {
         CoefficientDataEntity entity = repository.findById(id).orElseThrow(() -> new IllegalArgumentException("Coefficient row not found: " + id));
         mapFromRow(entity, row);
         CoefficientDataEntity updated = repository.save(entity);
+        coefficientTableCache.evict(updated.getCalculatorId(), updated.getCoefficientCode());
         logger.info("Coefficient data updated: id={}", id);
         return updated;
     }
@@ -69,6 +92,8 @@ public class CoefficientServiceImpl implements CoefficientService {
     @Transactional
     public void delete(Long id) {
         logger.info("Deleting coefficient data: id={}", id);
+        repository.findById(id).ifPresent(entity ->
+                coefficientTableCache.evict(entity.getCalculatorId(), entity.getCoefficientCode()));
         repository.deleteById(id);
     }
 
@@ -89,19 +114,111 @@ public class CoefficientServiceImpl implements CoefficientService {
     @Override
     public List<CoefficientDataRow> replaceTable(Long calculatorId, String code, List<CoefficientDataRow> tableJson) {
         logger.info("Replacing coefficient table: calculatorId={}, code={}, rows={}", calculatorId, code, tableJson.size());
-        repository.deleteAllByCalcAndCode(getCurrentTenantId(), calculatorId, code);
+        Long tid = getCurrentTenantId();
+        repository.deleteAllByCalcAndCode(tid, calculatorId, code);
+        coefficientTableCache.evict(calculatorId, code);
         logger.debug("Deleted existing coefficient data");
-        
+
+        RowBatch batch = new RowBatch(tid, calculatorId, code);
         for (CoefficientDataRow row : tableJson) {
-            insert(calculatorId, code, row);
+            batch.add(row.getConditionValue(), row.getResultValue());
         }
+        batch.flush();
         logger.info("Inserted {} new coefficient rows", tableJson.size());
         return getTable(calculatorId, code);
     }
 
     /**
-     * Generates SQL query string for coefficient lookup using variable names instead of values.
-     * This method creates a template SQL that shows which variables are used in the conditions.
+     * Таблица заменяется в одной транзакции: удаление и пакетная вставка ({@value #BATCH_SIZE} строк за запрос)
+     * не видны расчётам до commit, кэш таблицы сбрасывается после commit. Файл читается построчно.
+     */
+    @Transactional
+    @Override
+    public CoefficientImportResult importTable(Long calculatorId, String code, List<CoefficientColumn> columns,
+                                               Reader csv, boolean header) {
+        if (calculatorId == null || code == null || columns == null || CoefficientTable.layoutKey(columns) == null) {
+            throw new BadRequestException("Invalid coefficient definition: " + code);
+        }
+        long started = System.currentTimeMillis();
+        logger.info("Importing coefficient table: calculatorId={}, code={}", calculatorId, code);
+        Long tid = getCurrentTenantId();
+        repository.deleteAllByCalcAndCode(tid, calculatorId, code);
+        coefficientTableCache.evict(calculatorId, code);
+
+        RowBatch batch = new RowBatch(tid, calculatorId, code);
+        CoefficientCsvReader reader = new CoefficientCsvReader(csv);
+        try {
+            if (header) {
+                reader.next();
+            }
+            List<String> cells;
+            while ((cells = reader.next()) != null) {
+                List<String> conditions = normalizeRow(cells.subList(0, cells.size() - 1), columns, reader.getLine());
+                batch.add(conditions, parseResult(cells.get(cells.size() - 1), reader.getLine()));
+                if (batch.count() % IMPORT_PROGRESS_ROWS == 0) {
+                    logger.info("Coefficient import progress: code={}, rows={}", code, batch.count());
+                }
+            }
+        } catch (IOException e) {
+            throw new BadRequestException("Invalid CSV at line " + reader.getLine() + ": " + e.getMessage());
+        }
+        batch.flush();
+
+        long duration = System.currentTimeMillis() - started;
+        logger.info("Coefficient table imported: calculatorId={}, code={}, rows={}, {} ms",
+                calculatorId, code, batch.count(), duration);
+        return new CoefficientImportResult(batch.count(), duration);
+    }
+
+    private static BigDecimal parseResult(String value, int line) {
+        if (value == null) {
+            return null;
+        }
+        BigDecimal number = parseImportNumber(value);
+        if (number == null) {
+            throw new BadRequestException("Line " + line + ": result value is not a number: " + value);
+        }
+        return number;
+    }
+
+    /**
+     * Значения NUMBER-колонок разбираются тем же парсером, что и результат, и сохраняются с точкой:
+     * иначе строка никогда не найдётся при расчёте.
+     */
+    static List<String> normalizeRow(List<String> conditions, List<CoefficientColumn> columns, int line) {
+        if (conditions.size() > CONDITION_COLUMNS) {
+            throw new BadRequestException("Line " + line + ": too many columns: " + (conditions.size() + 1));
+        }
+        List<String> row = new ArrayList<>(conditions);
+        for (CoefficientColumn col : columns) {
+            if (col == null || !"NUMBER".equals(col.getVarDataType())) continue;
+            int index = col.getNr() - 1;
+            String value = index < row.size() ? row.get(index) : null;
+            if (value == null) continue;
+            BigDecimal number = parseImportNumber(value);
+            if (number == null) {
+                throw new BadRequestException("Line " + line + ": column " + col.getNr()
+                        + " (" + col.getVarCode() + ") is not a number: " + value);
+            }
+            row.set(index, number.toPlainString());
+        }
+        return row;
+    }
+
+    /**
+     * Число из CSV: десятичный разделитель — точка или запятая.
+     */
+    static BigDecimal parseImportNumber(String value) {
+        try {
+            return new BigDecimal(value.trim().replace(',', '.'));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * SQL-шаблон поиска коэффициента с именами переменных вместо значений ({@code :varCode}) — для просмотра:
+     * {@link #getCoefficientValue} ищет по тому же {@link CoefficientQuery} в таблице в памяти.
      *
      * @param calculatorId Calculator ID
      * @param coefficientCode Coefficient code
@@ -119,55 +236,19 @@ public class CoefficientServiceImpl implements CoefficientService {
             return null;
         }
 
-        StringBuilder sql = new StringBuilder("select result_value from coefficient_data where calculator_id = ");
-        sql.append(calculatorId.toString());
-        sql.append(" and coefficient_code = ");
-        sql.append("'").append(coefficientCode).append("'");
-
-        StringBuilder orderBy = new StringBuilder();
-
-        for (CoefficientColumn col : columns) {
-            if (col == null) continue;
-            String varCode = col.getVarCode();
-            String nr = (col.getNr() - 1) + "";  // TODO
-            String op = col.getConditionOperator();
-            String sortOrder = col.getSortOrder();
-            String varDataType = col.getVarDataType();
-
-            if (varCode == null || nr == null || op == null) return null;
-            if (!nr.matches("1?0|[0-9]")) return null; // only 0..10
-
-            String operator = normalizeOperator(op);
-            if (operator == null) return null;
-
-            if (varDataType != null && varDataType.equals("NUMBER")) {
-                sql.append(" AND to_number(col").append(nr).append(",'9999999999.99') ").append(operator).append(":").append(varCode);
-            } else {
-                sql.append(" AND col").append(nr).append(" ").append(operator).append(" :").append(varCode);
-            }
-
-            String ord = normalizeOrder(sortOrder);
-            if (ord != null) {
-                if (orderBy.length() == 0) orderBy.append(" order by ");
-                else orderBy.append(", ");
-                if (varDataType != null && varDataType.equals("NUMBER")) {
-                    orderBy.append("to_number(col").append(nr).append(",'9999999999.99') ");
-                } else {
-                    orderBy.append("col").append(nr).append(" ");
-                }
-                orderBy.append(" ").append(ord);
-            }
+        CoefficientQuery query = coefficientTableCache.query(columns);
+        if (query == null) {
+            return null;
         }
-
-        if (orderBy.length() > 0) sql.append(orderBy);
-        sql.append(" limit 1");
-        String sqlS = sql.toString();
-        
-        logger.trace("Generated SQL query: {}", sqlS);
-        return sqlS;
+        String sql = query.sql();
+        logger.trace("Generated SQL query: {}", sql);
+        return sql;
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Значение коэффициента ищется в таблице, загруженной в память ({@link CoefficientTableCache}),
+     * с той же семантикой, что и {@link #getSQL}: условия по колонкам, сортировка по sortOrder, первая строка.
+     */
     @Override
     public String getCoefficientValue(Long calculatorId,
                                       String coefficientCode,
@@ -180,66 +261,41 @@ public class CoefficientServiceImpl implements CoefficientService {
                     calculatorId, coefficientCode, columns != null ? "present" : "null");
             return null;
         }
+        return getCoefficientValue(calculatorId, coefficientCode, values, coefficientTableCache.query(columns));
+    }
 
-        StringBuilder sql = new StringBuilder("select result_value from coefficient_data where calculator_id = ");
-        sql.append(calculatorId.toString());
-        sql.append(" and coefficient_code = ");
-        sql.append("'").append(coefficientCode).append("'");
-
-        StringBuilder orderBy = new StringBuilder();
-        java.util.List<Object> params = new java.util.ArrayList<>();
-        params.add(calculatorId.toString());
-        params.add(coefficientCode);
-
-        for (CoefficientColumn col : columns) {
-            if (col == null) continue;
-            String varCode = col.getVarCode();
-            String nr = (col.getNr() - 1) + "";  // TODO
-            String op = col.getConditionOperator();
-            String sortOrder = col.getSortOrder();
-            String varDataType = col.getVarDataType();
-
-            if (varCode == null || nr == null || op == null) return null;
-            if (!nr.matches("1?0|[0-9]")) return null; // only 0..10
+    /**
+     * Поиск по уже скомпилированному запросу (план калькулятора): колонки повторно не разбираются.
+     */
+    public String getCoefficientValue(Long calculatorId,
+                                      String coefficientCode,
+                                      VariableContext values,
+                                      CoefficientQuery query) {
+        if (query == null) {
+            logger.warn("Invalid coefficient columns: calculatorId={}, coefficientCode={}", calculatorId, coefficientCode);
+            return null;
+        }
 
-            String varValue = values != null ? values.get(varCode).toString() : null;
+        String[] varValues = new String[query.varCodes().size()];
+        for (int i = 0; i < varValues.length; i++) {
+            String varValue = values != null ? values.get(query.varCodes().get(i)).toString() : null;
             if (varValue == null) return null;
-
-            String operator = normalizeOperator(op);
-            if (operator == null) return null;
-
-            if (varDataType.equals("NUMBER")) {
-                sql.append(" AND to_number(col").append(nr).append(",'9999999999.99') ").append(operator).append(varValue);
-            } else {
-                sql.append(" AND col").append(nr).append(" ").append(operator).append("'").append(varValue).append("'");
-            }
-            params.add(varValue);
-
-            String ord = normalizeOrder(sortOrder);
-            if (ord != null) {
-                if (orderBy.length() == 0) orderBy.append(" order by ");
-                else orderBy.append(", ");
-                if (varDataType.equals("NUMBER")) {
-                    orderBy.append("to_number(col").append(nr).append(",'9999999999.99') ");
-                } else {
-                    orderBy.append("col").append(nr).append(" ");
-                }
-                orderBy.append(" ").append(ord);
-            }
+            varValues[i] = varValue;
         }
 
-        if (orderBy.length() > 0) sql.append(orderBy);
-        sql.append(" limit 1");
-        String sqlS = sql.toString();
-        
-        logger.trace("Executing coefficient query: {}", sqlS);
-
         try {
-            Double result = jdbcTemplate.query(sqlS, rs -> rs.next() ? rs.getDouble(1) : null);
+            CoefficientTable table = coefficientTableCache.get(calculatorId, coefficientCode);
+            CoefficientTable.Row row = table.lookup(query, varValues);
+            if (row == null) {
+                logger.debug("Coefficient value not found: {}", coefficientCode);
+                return null;
+            }
+            // как rs.getDouble: пустой result_value даёт 0
+            double result = row.resultValue() != null ? row.resultValue().doubleValue() : 0d;
             logger.debug("Coefficient value retrieved: {}={}", coefficientCode, result);
-            return result == null ? null : String.valueOf(result);
+            return String.valueOf(result);
         } catch (Exception e) {
-            logger.error("Failed to query coefficient: {}", e.getMessage(), e);
+            logger.error("Failed to lookup coefficient: {}", e.getMessage(), e);
             return null;
         }
     }
@@ -277,29 +333,11 @@ public class CoefficientServiceImpl implements CoefficientService {
             coefficientCode
         );
 
+        coefficientTableCache.evict(calculatorIdTo, coefficientCode);
         logger.info("Copied {} coefficient rows for code {}", inserted, coefficientCode);
         return inserted;
     }
 
-    private String normalizeOperator(String op) {
-        if (op == null) return null;
-        String s = op.trim().toUpperCase();
-        return switch (s) {
-            case "=", ">", "<", ">=", "<=", "<>" -> s;
-            case "LIKE" -> "LIKE";
-            default -> null;
-        };
-    }
-
-    private String normalizeOrder(String order) {
-        if (order == null) return null;
-        String s = order.trim().toUpperCase();
-        return switch (s) {
-            case "ASC", "DESC" -> s;
-            default -> null;
-        };
-    }
-
     private void mapFromRow(CoefficientDataEntity entity, CoefficientDataRow row) {
         List<String> condition = row.getConditionValue() != null ? row.getConditionValue() : List.of();
         entity.setCol0(getConditionValue(condition, 0));
@@ -343,4 +381,49 @@ public class CoefficientServiceImpl implements CoefficientService {
         return condition.get(index);
     }
 
+    /**
+     * Пакетная вставка строк coefficient_data через JDBC batch; tid вычисляется один раз на таблицу.
+     */
+    private final class RowBatch {
+
+        private final Long tid;
+        private final Long calculatorId;
+        private final String code;
+        private final List<Object[]> pending = new ArrayList<>(BATCH_SIZE);
+        private long count;
+
+        RowBatch(Long tid, Long calculatorId, String code) {
+            this.tid = tid;
+            this.calculatorId = calculatorId;
+            this.code = code;
+        }
+
+        void add(List<String> conditions, BigDecimal resultValue) {
+            List<String> condition = conditions != null ? conditions : List.of();
+            Object[] args = new Object[3 + CONDITION_COLUMNS + 1];
+            args[0] = tid;
+            args[1] = calculatorId;
+            args[2] = code;
+            for (int i = 0; i < CONDITION_COLUMNS; i++) {
+                args[3 + i] = getConditionValue(condition, i);
+            }
+            args[3 + CONDITION_COLUMNS] = resultValue;
+            pending.add(args);
+            count++;
+            if (pending.size() >= BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (!pending.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_ROW, pending);
+                pending.clear();
+            }
+        }
+
+        long count() {
+            return count;
+        }
+    }
 }
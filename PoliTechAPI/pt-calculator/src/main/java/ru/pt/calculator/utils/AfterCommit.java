@@ -0,0 +1,29 @@
+package ru.pt.calculator.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Сброс кэшей калькулятора при изменениях в транзакции.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * Выполнить сброс сразу и, если есть активная транзакция, повторить после commit —
+     * иначе параллельный расчёт может закэшировать ещё не зафиксированное старое состояние.
+     */
+    public static void evict(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
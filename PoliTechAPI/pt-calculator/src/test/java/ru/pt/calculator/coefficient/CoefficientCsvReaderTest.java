@@ -0,0 +1,39 @@
+package ru.pt.calculator.coefficient;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CoefficientCsvReaderTest {
+
+    @Test
+    void readsSemicolonCsvWithQuotesAndEmptyCells() throws Exception {
+        CoefficientCsvReader reader = new CoefficientCsvReader(new StringReader(
+                "\uFEFFregion;age_from;result\n"
+                        + "MSK; 18 ;1.1\n"
+                        + "\n"
+                        + "\"Санкт-Петербург; ЛО\";;\"0,9\"\n"
+                        + "\"многострочное\n\"\"значение\"\"\";31;1\n"));
+
+        assertEquals(Arrays.asList("region", "age_from", "result"), reader.next());
+        assertEquals(Arrays.asList("MSK", "18", "1.1"), reader.next());
+        assertEquals(Arrays.asList("Санкт-Петербург; ЛО", null, "0,9"), reader.next());
+        assertEquals(4, reader.getLine());
+        assertEquals(Arrays.asList("многострочное\n\"значение\"", "31", "1"), reader.next());
+        assertEquals(6, reader.getLine());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void detectsCommaDelimiter() throws Exception {
+        CoefficientCsvReader reader = new CoefficientCsvReader(new StringReader("1,2,3\n\"a,b\",,0.5\n"));
+
+        assertEquals(Arrays.asList("1", "2", "3"), reader.next());
+        assertEquals(Arrays.asList("a,b", null, "0.5"), reader.next());
+        assertNull(reader.next());
+    }
+}
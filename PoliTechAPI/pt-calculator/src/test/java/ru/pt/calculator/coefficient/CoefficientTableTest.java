@@ -0,0 +1,94 @@
+package ru.pt.calculator.coefficient;
+
+import org.junit.jupiter.api.Test;
+import ru.pt.api.dto.calculator.CoefficientColumn;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CoefficientTableTest {
+
+    private static CoefficientColumn column(int nr, String varCode, String type, String op, String sortOrder) {
+        CoefficientColumn col = new CoefficientColumn();
+        col.setNr(nr);
+        col.setVarCode(varCode);
+        col.setVarDataType(type);
+        col.setConditionOperator(op);
+        col.setSortOrder(sortOrder);
+        return col;
+    }
+
+    private static CoefficientTable.Row row(String result, String... cols) {
+        String[] text = new String[CoefficientTable.COLUMN_COUNT];
+        System.arraycopy(cols, 0, text, 0, cols.length);
+        return CoefficientTable.Row.of(text, new BigDecimal(result));
+    }
+
+    private static BigDecimal lookup(CoefficientTable table, List<CoefficientColumn> columns, String... values) {
+        CoefficientTable.Row row = table.lookup(columns, values);
+        return row == null ? null : row.resultValue();
+    }
+
+    @Test
+    void lookup_ageBandsByRegion() {
+        CoefficientTable table = new CoefficientTable(List.of(
+                row("1.1", "MSK", "18", "30"),
+                row("1.0", "MSK", "31", "60"),
+                row("1.5", "MSK", "61", "99"),
+                row("0.9", "SPB", "18", "99")));
+        List<CoefficientColumn> columns = List.of(
+                column(1, "ph_region", "STRING", "=", null),
+                column(2, "ph_age", "NUMBER", "<=", null),
+                column(3, "ph_age", "NUMBER", ">=", null));
+
+        assertEquals(new BigDecimal("1.1"), lookup(table, columns, "MSK", "18", "18"));
+        assertEquals(new BigDecimal("1.0"), lookup(table, columns, "MSK", "45", "45"));
+        assertEquals(new BigDecimal("1.5"), lookup(table, columns, "MSK", "99", "99"));
+        assertEquals(new BigDecimal("0.9"), lookup(table, columns, "SPB", "40", "40"));
+        assertNull(lookup(table, columns, "MSK", "17", "17"));
+        assertNull(lookup(table, columns, "EKB", "40", "40"));
+    }
+
+    @Test
+    void lookup_sortOrderPicksFirstMatch() {
+        CoefficientTable table = new CoefficientTable(List.of(
+                row("1.0", "0"),
+                row("1.2", "100000"),
+                row("1.4", "500000")));
+        List<CoefficientColumn> desc = List.of(column(1, "io_sumInsured", "NUMBER", "<=", "DESC"));
+        List<CoefficientColumn> asc = List.of(column(1, "io_sumInsured", "NUMBER", "<=", "ASC"));
+
+        assertEquals(new BigDecimal("1.2"), lookup(table, desc, "300000"));
+        assertEquals(new BigDecimal("1.0"), lookup(table, asc, "300000"));
+    }
+
+    @Test
+    void lookup_numericEqualityIgnoresScale() {
+        CoefficientTable table = new CoefficientTable(List.of(row("2.0", "12.50")));
+        List<CoefficientColumn> columns = List.of(column(1, "pl_term", "NUMBER", "=", null));
+
+        assertEquals(new BigDecimal("2.0"), lookup(table, columns, "12.5"));
+    }
+
+    @Test
+    void lookup_emptyOrNonNumericCellsDoNotMatch() {
+        List<CoefficientTable.Row> rows = new ArrayList<>();
+        rows.add(row("1.0", (String) null));
+        rows.add(row("2.0", "abc"));
+        CoefficientTable table = new CoefficientTable(rows);
+        List<CoefficientColumn> columns = List.of(column(1, "io_age", "NUMBER", ">=", null));
+
+        assertNull(lookup(table, columns, "10"));
+        assertNull(lookup(table, columns, "not-a-number"));
+    }
+
+    @Test
+    void layoutKey_invalidColumnNumber() {
+        assertNull(CoefficientTable.layoutKey(List.of(column(12, "x", "NUMBER", "=", null))));
+        assertNull(CoefficientTable.layoutKey(List.of(column(1, "x", "NUMBER", "~", null))));
+    }
+}
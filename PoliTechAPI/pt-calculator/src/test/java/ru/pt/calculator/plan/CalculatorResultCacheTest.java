@@ -0,0 +1,103 @@
+package ru.pt.calculator.plan;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import ru.pt.api.dto.calculator.CalculatorModel;
+import ru.pt.domain.model.PvVarDefinition;
+import ru.pt.domain.model.VariableContextImpl;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CalculatorResultCacheTest {
+
+    private static final String CALCULATOR = """
+            {
+              "id": 1,
+              "vars": [
+                { "varCode": "k_base", "varType": "CONST", "varValue": "1.5", "varDataType": "NUMBER" }
+              ],
+              "formulas": [ { "varCode": "premium", "lines": [
+                { "nr": 1, "conditionLeft": "pl_term", "conditionOperator": "=", "conditionRight": "pl_longTerm",
+                  "expressionLeft": "pl_sumInsured", "expressionOperator": "*", "expressionRight": "k_base",
+                  "expressionResult": "pl_premium", "postProcessor": "round2" }
+              ] } ]
+            }
+            """;
+
+    private final CalculatorPlan plan = CalculatorPlan.compile(readModel());
+
+    @Test
+    void plan_collectsInputsAndOutputs() {
+        assertEquals(List.of("k_base", "pl_premium"), plan.getOutputCodes());
+        assertEquals(List.of("k_base", "pl_longTerm", "pl_premium", "pl_sumInsured", "pl_term"), plan.getInputCodes());
+    }
+
+    @Test
+    void fingerprint_dependsOnlyOnCalculatorInputs() {
+        CalculatorResultCache cache = new CalculatorResultCache(true, 100, 60);
+
+        CalculatorResultCache.Fingerprint base = cache.fingerprint(plan, context("100000", "Ivan"));
+        assertEquals(base.value(), cache.fingerprint(plan, context("100000", "Petr")).value());
+        assertNotEquals(base.value(), cache.fingerprint(plan, context("200000", "Ivan")).value());
+        // scale влияет на результат арифметики — 100000 и 100000.0 различаются
+        assertNotEquals(base.value(), cache.fingerprint(plan, context("100000.0", "Ivan")).value());
+    }
+
+    @Test
+    void get_returnsStoredOutputsUntilCleared() {
+        CalculatorResultCache cache = new CalculatorResultCache(true, 100, 60);
+        VariableContextImpl ctx = context("100000", "Ivan");
+        CalculatorResultCache.Fingerprint fingerprint = cache.fingerprint(plan, ctx);
+        assertNull(cache.get(plan, fingerprint));
+
+        plan.getVarInits().forEach(init -> ctx.putDefinition(init.definition()));
+        ctx.put("k_base", plan.getVarInits().getFirst().constValue());
+        ctx.put("pl_premium", new BigDecimal("150000.00"));
+        cache.put(plan, fingerprint, ctx);
+
+        List<Object> outputs = cache.get(plan, cache.fingerprint(plan, context("100000", "Petr")));
+        assertNotNull(outputs);
+        assertEquals("150000.00", outputs.get(1).toString());
+
+        cache.clear();
+        assertNull(cache.get(plan, fingerprint));
+        assertNull(new CalculatorResultCache(false, 100, 60).fingerprint(plan, ctx));
+    }
+
+    private static VariableContextImpl context(String sumInsured, String name) {
+        String json = """
+                { "sumInsured": %s, "term": "P1Y", "name": "%s" }
+                """.formatted(sumInsured, name);
+        return VariableContextImpl.builder()
+                .json(json)
+                .varDefinitions(List.of(
+                        def("pl_sumInsured", "sumInsured", PvVarDefinition.Type.NUMBER),
+                        def("pl_term", "term", PvVarDefinition.Type.STRING),
+                        def("pl_longTerm", "longTerm", PvVarDefinition.Type.STRING),
+                        def("pl_premium", "premium", PvVarDefinition.Type.NUMBER),
+                        def("ph_name", "name", PvVarDefinition.Type.STRING)))
+                .build();
+    }
+
+    private static PvVarDefinition def(String code, String path, PvVarDefinition.Type type) {
+        return new PvVarDefinition(code, path, type,
+                PvVarDefinition.VarScope.DOMAIN, PvVarDefinition.VarSourceType.IN, null);
+    }
+
+    private static CalculatorModel readModel() {
+        try {
+            return new ObjectMapper()
+                    .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                    .readValue(CALCULATOR, CalculatorModel.class);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package ru.pt.calculator.service;
+
+import org.junit.jupiter.api.Test;
+import ru.pt.api.dto.calculator.CoefficientColumn;
+import ru.pt.api.dto.exception.BadRequestException;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CoefficientServiceImplTest {
+
+    @Test
+    void numberCellsAcceptCommaLikeResultAndAreStoredWithDot() {
+        List<CoefficientColumn> columns = List.of(column("region", "STRING", 1), column("age", "NUMBER", 2));
+
+        assertEquals(Arrays.asList("MSK,1", "18.5", null),
+                CoefficientServiceImpl.normalizeRow(Arrays.asList("MSK,1", " 18,5 ", null), columns, 2));
+        assertEquals(new BigDecimal("0.9"), CoefficientServiceImpl.parseImportNumber("0,9"));
+        assertNull(CoefficientServiceImpl.parseImportNumber("abc"));
+    }
+
+    @Test
+    void nonNumericNumberCellIsRejected() {
+        List<CoefficientColumn> columns = List.of(column("age", "NUMBER", 1));
+
+        assertThrows(BadRequestException.class,
+                () -> CoefficientServiceImpl.normalizeRow(List.of("восемнадцать"), columns, 3));
+    }
+
+    private static CoefficientColumn column(String varCode, String type, int nr) {
+        CoefficientColumn column = new CoefficientColumn();
+        column.setVarCode(varCode);
+        column.setVarDataType(type);
+        column.setNr(nr);
+        return column;
+    }
+}
@@ -8,7 +8,10 @@ import org.springframework.stereotype.Component;
 
 
 import ru.pt.api.dto.db.PolicyData;
+import ru.pt.api.dto.sales.PolicyExportFormat;
 import ru.pt.api.dto.sales.QuoteDto;
+import ru.pt.api.dto.sales.QuotePage;
+import ru.pt.api.dto.sales.QuoteSearch;
 import ru.pt.api.dto.errors.ErrorConstants;
 import ru.pt.api.dto.errors.ErrorModel;
 import ru.pt.api.dto.exception.BadRequestException;
@@ -25,6 +28,8 @@ import ru.pt.db.repository.PolicyIndexRepository;
 import ru.pt.db.repository.PolicyRepository;
 import ru.pt.db.utils.PolicyMapper;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -44,7 +49,11 @@ public class DbStorageService implements StorageService {
     private final PolicyMapper policyMapper;
     private final PolicyReport policyReport;
     private final AuthorizationService authService;
+    private final PolicySalesRollup policySalesRollup;
+    private final PolicyExport policyExport;
 
+    // договор, индекс и изменение итогов дашборда (policy_sales_delta) пишутся вместе
+    @Transactional
     @Override
     public PolicyData save(StdPolicy policy, AuthenticatedUser userData) {
 
@@ -68,6 +77,7 @@ public class DbStorageService implements StorageService {
                 .orElseThrow(() -> new NotFoundException("Account path not found for accountId: " + index.getUserAccountId()));
         index.setIdPath(idPath);
         policyIndexRepository.save(index);
+        policySalesRollup.added(index);
 
         var policyData = new PolicyData();
         policyData.setPolicyIndex(policyMapper.toDto(index));
@@ -86,6 +96,7 @@ public class DbStorageService implements StorageService {
                 .orElseThrow(() -> new NotFoundException(ErrorConstants.createErrorModel(404,
                         ErrorConstants.policyNotFoundById(policyData.getPolicyId().toString()),
                         ErrorConstants.DOMAIN_STORAGE, ErrorConstants.REASON_NOT_FOUND, "policyId")));
+        var rollupBefore = PolicySalesRollup.Contribution.of(indexEntity);
         var dtoUpdates = policyMapper.toEntity(policyData.getPolicyIndex());
         indexEntity.setPolicyNumber(dtoUpdates.getPolicyNumber());
         indexEntity.setVersionNo(dtoUpdates.getVersionNo());
@@ -94,6 +105,7 @@ public class DbStorageService implements StorageService {
         indexEntity.setEndDate(dtoUpdates.getEndDate());
         indexEntity.setPaymentOrderId(dtoUpdates.getPaymentOrderId());
         policyIndexRepository.save(indexEntity);
+        policySalesRollup.changed(rollupBefore, indexEntity);
 
         var policyEntity = policyRepository.findById(indexEntity.getId())
                 .orElseThrow(() -> new NotFoundException(ErrorConstants.createErrorModel(404,
@@ -261,6 +273,11 @@ public class DbStorageService implements StorageService {
      */
     @Override
     public List<QuoteDto> getAccountQuotes(String qstr) {
+        return searchAccountQuotes(QuoteSearch.of(qstr)).items();
+    }
+
+    @Override
+    public QuotePage searchAccountQuotes(QuoteSearch search) {
         var userData = securityContextHelper.getCurrentUser()
             .orElseThrow(() -> new BadRequestException("Unable to get current user from context"));
         Long accountId = userData.getActingAccountId();
@@ -268,8 +285,21 @@ public class DbStorageService implements StorageService {
         // Есть права на получения списка договоров
         authService.check(userData, AuthZ.ResourceType.POLICY, null, accountId, AuthZ.Action.LIST);
 
-        return policyReport.findPoliciesByAccountPath(userData.getAccountPath(),  userData.getDataScope() , qstr);
+        return policyReport.searchPolicies(userData.getAccountPath(), userData.getDataScope(), search);
+    }
 
+    @Override
+    public void exportAccountPolicies(QuoteSearch search, PolicyExportFormat format, OutputStream out) throws IOException {
+        var userData = securityContextHelper.getCurrentUser()
+            .orElseThrow(() -> new BadRequestException("Unable to get current user from context"));
+        Long accountId = userData.getActingAccountId();
+
+        authService.check(userData, AuthZ.ResourceType.POLICY, null, accountId, AuthZ.Action.LIST);
+
+        if (userData.getAccountPath() == null || userData.getAccountPath().isBlank()) {
+            return;
+        }
+        policyExport.export(userData.getAccountPath(), userData.getDataScope(), search, format, out);
     }
 
 }
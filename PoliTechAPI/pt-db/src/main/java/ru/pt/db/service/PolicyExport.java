@@ -0,0 +1,246 @@
+package ru.pt.db.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.pt.api.dto.sales.PolicyExportFormat;
+import ru.pt.api.dto.sales.QuoteSearch;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковая выгрузка договоров (policy_index + policy_data) в NDJSON или CSV.
+ * <p>
+ * Запрос читается курсором сервера ({@code pt.export.fetch-size} строк за раз, в read-only транзакции —
+ * иначе драйвер PostgreSQL загружает весь результат), каждая строка сразу пишется в выходной поток:
+ * память не зависит от числа договоров. Порядок — по возрастанию id; курсор записи — тот же формат,
+ * что у {@link PolicyReport}, выгрузка с ним продолжается со следующей записи.
+ */
+@Repository
+public class PolicyExport {
+
+    private static final Logger log = LoggerFactory.getLogger(PolicyExport.class);
+
+    private static final String[] COLUMNS = {
+            "cursor", "id", "policyNr", "versionNo", "productCode", "policyStatus",
+            "createDate", "issueDate", "paymentDate", "startDate", "endDate",
+            "userAccountId", "clientAccountId", "userLogin", "insCompany",
+            "phDigest", "ioDigest", "premium", "agentKvPercent", "agentKvAmount"
+    };
+
+    private static final String SELECT_SQL = """
+        SELECT
+            p.id,
+            p.public_id::text,
+            p.policy_nr,
+            p.version_no::text,
+            p.product_code,
+            p.policy_status,
+            p.create_date,
+            p.issue_date,
+            p.payment_date,
+            p.start_date,
+            p.end_date,
+            p.user_account_id::text,
+            p.client_account_id::text,
+            p.user_login,
+            p.ins_company,
+            p.ph_digest,
+            p.io_digest,
+            p.premium::text,
+            p.agent_kv_percent::text,
+            p.agent_kv_amount::text
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int fetchSize;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public PolicyExport(JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${pt.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Выгрузить договоры поддерева аккаунта.
+     *
+     * @param accountPath id_path вершины; поддерево — сама вершина и пути {@code accountPath.*}
+     * @param environment data_scope
+     * @return число выгруженных договоров
+     */
+    public long export(String accountPath, String environment, QuoteSearch search,
+                       PolicyExportFormat format, OutputStream out) throws IOException {
+        boolean withPolicy = format == PolicyExportFormat.NDJSON;
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        if (withPolicy) {
+            sql.append("    , d.policy::text\nFROM policy_index p\nJOIN policy_data d ON d.id = p.id\n");
+        } else {
+            sql.append("FROM policy_index p\n");
+        }
+        sql.append("WHERE (p.id_path = ? OR p.id_path LIKE ?)\n  AND p.data_scope = ?\n");
+        List<Object> params = new ArrayList<>();
+        params.add(accountPath);
+        params.add(PolicyReport.escapeLike(accountPath) + ".%");
+        params.add(environment);
+        PolicyReport.appendFilters(sql, params, search);
+        if (search.cursor() != null && !search.cursor().isBlank()) {
+            sql.append("  AND p.id > ?\n");
+            params.add(PolicyReport.decodeCursor(search.cursor()));
+        }
+        sql.append("ORDER BY p.id");
+        if (search.limit() != null) {
+            sql.append("\nLIMIT ?");
+            params.add(Math.max(1, search.limit()));
+        }
+
+        RowWriter writer = withPolicy ? new NdjsonWriter(jsonFactory.createGenerator(out)) : new CsvWriter(out);
+        long[] count = {0};
+        try {
+            writer.start();
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql.toString(),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                for (int i = 0; i < params.size(); i++) {
+                    ps.setObject(i + 1, params.get(i));
+                }
+                return ps;
+            }, rs -> {
+                try {
+                    writer.write(rs);
+                    count[0]++;
+                } catch (IOException e) {
+                    // клиент закрыл соединение — прекращаем чтение курсора
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            writer.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        log.debug("Policies exported. accountPath={}, format={}, count={}", accountPath, format, count[0]);
+        return count[0];
+    }
+
+    private static String value(ResultSet rs, int column) throws SQLException {
+        if (column == 1) {
+            return PolicyReport.encodeCursor(rs.getLong(1));
+        }
+        if (column >= 7 && column <= 11) {
+            Timestamp ts = rs.getTimestamp(column);
+            return ts == null ? null : ts.toInstant().toString();
+        }
+        return rs.getString(column);
+    }
+
+    private interface RowWriter {
+        void start() throws IOException;
+
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    /**
+     * Строка — объект с полями индекса ({@link #COLUMNS}) и {@code policy} (JSON договора как есть).
+     */
+    private static final class NdjsonWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+
+        NdjsonWriter(JsonGenerator generator) {
+            this.generator = generator;
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // строки разделяются только переводом строки, без пробела перед следующим объектом
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < COLUMNS.length; i++) {
+                generator.writeStringField(COLUMNS[i], value(rs, i + 1));
+            }
+            generator.writeFieldName("policy");
+            generator.writeRawValue(rs.getString(COLUMNS.length + 1));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    /**
+     * Заголовок — {@link #COLUMNS}, значения по RFC 4180.
+     */
+    private static final class CsvWriter implements RowWriter {
+
+        private final Writer writer;
+
+        CsvWriter(OutputStream out) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void start() throws IOException {
+            writer.write(String.join(",", COLUMNS));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(csv(value(rs, i + 1)));
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        static String csv(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
@@ -6,33 +6,43 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
+import ru.pt.api.dto.exception.BadRequestException;
 import ru.pt.api.dto.sales.QuoteDto;
+import ru.pt.api.dto.sales.QuotePage;
+import ru.pt.api.dto.sales.QuoteSearch;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 
 /**
  * Reporting helper that executes policy search query and maps results to QuoteDto.
- *
- * The SQL is based on the native query defined in PolicyIndexRepository.
  */
 @Repository
 public class PolicyReport {
 
     private static final Logger log = LoggerFactory.getLogger(PolicyReport.class);
 
-    private static final String POLICY_REPORT_SQL = """
-        WITH RECURSIVE account_tree AS (
-            SELECT id FROM acc_accounts WHERE id = ?
-            UNION ALL
-            SELECT a.id FROM acc_accounts a
-            JOIN account_tree at ON a.parent_id = at.id
-        )
-        SELECT 
+    /** Размер страницы по умолчанию (прежний LIMIT 100) и верхняя граница limit. */
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 500;
+
+    private static final QuoteRowMapper QUOTE_ROW_MAPPER = new QuoteRowMapper();
+
+    /*
+     * Поиск опирается на индексы V14: id_path (varchar_pattern_ops, id) для поддерева аккаунта
+     * и GIN pg_trgm на policy_nr / ph_digest / io_digest для ILIKE '%q%'.
+     * Страницы — по убыванию id (keyset): следующая начинается с id < последнего, без OFFSET.
+     */
+    private static final String SEARCH_SQL = """
+        SELECT
             p.public_id::text,
             p.draft_id,
             p.policy_nr,
@@ -42,7 +52,7 @@ public class PolicyReport {
             p.payment_date,
             p.start_date,
             p.end_date,
-            p.policy_status, 
+            p.policy_status,
             p.user_account_id,
             p.client_account_id,
             p.data_scope,
@@ -52,11 +62,12 @@ public class PolicyReport {
             p.premium::text,
             p.agent_kv_percent::text,
             p.agent_kv_amount::text,
-            p.user_login
+            p.user_login,
+            p.ins_company,
+            p.id
         FROM policy_index p
-        JOIN account_tree at ON p.user_account_id = at.id
-        WHERE ( p.policy_nr LIKE ? OR p.ph_digest LIKE ? )
-        ORDER BY p.policy_nr
+        WHERE (p.id_path = ? OR p.id_path LIKE ?)
+          AND p.data_scope = ?
         """;
 
     private final JdbcTemplate jdbcTemplate;
@@ -66,67 +77,96 @@ public class PolicyReport {
     }
 
     /**
-     * Execute report query and map rows to QuoteDto list.
+     * Страница договоров поддерева аккаунта, новые первыми.
      *
-     * @param accountId account id (root of the recursive tree)
-     * @param qstr search string used in LIKE conditions
+     * @param accountPath id_path вершины; поддерево — сама вершина и пути {@code accountPath.*}
+     * @param environment data_scope
      */
-    public List<QuoteDto> findPoliciesByAccountRecursive(long accountId, String qstr) {
-        String like = "%" + (qstr != null ? qstr : "") + "%";
+    public QuotePage searchPolicies(String accountPath, String environment, QuoteSearch search) {
+        if (accountPath == null || accountPath.isBlank()) {
+            return new QuotePage(List.of(), null);
+        }
+        int limit = search.limit() == null ? DEFAULT_LIMIT : Math.max(1, Math.min(search.limit(), MAX_LIMIT));
+
+        StringBuilder sql = new StringBuilder(SEARCH_SQL);
+        List<Object> params = new ArrayList<>();
+        params.add(accountPath);
+        params.add(escapeLike(accountPath) + ".%");
+        params.add(environment);
+        appendFilters(sql, params, search);
+        if (search.cursor() != null && !search.cursor().isBlank()) {
+            sql.append("  AND p.id < ?\n");
+            params.add(decodeCursor(search.cursor()));
+        }
+        sql.append("ORDER BY p.id DESC\nLIMIT ?");
+        // строка сверх страницы — признак того, что следующая страница есть
+        params.add(limit + 1);
+
         if (log.isTraceEnabled()) {
-            log.trace("findPoliciesByAccountRecursive(accountId={}, qstr='{}', like='{}')", accountId, qstr, like);
+            log.trace("searchPolicies(accountPath='{}', environment='{}', search={})", accountPath, environment, search);
+        }
+        List<Long> ids = new ArrayList<>();
+        List<QuoteDto> rows = jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+            ids.add(rs.getLong("id"));
+            return QUOTE_ROW_MAPPER.mapRow(rs, rowNum);
+        }, params.toArray());
+
+        if (rows.size() <= limit) {
+            return new QuotePage(rows, null);
         }
-        return jdbcTemplate.query(
-            POLICY_REPORT_SQL,
-            new Object[]{accountId, like, like},
-            new QuoteRowMapper()
-        );
+        return new QuotePage(List.copyOf(rows.subList(0, limit)), encodeCursor(ids.get(limit - 1)));
     }
 
-    private static final String POLICY_REPORT_SQL2 = """
-        
-        SELECT 
-            p.public_id::text,
-            p.draft_id,
-            p.policy_nr,
-            p.product_code,
-            p.create_date,
-            p.issue_date,
-            p.payment_date,
-            p.start_date,
-            p.end_date,
-            p.policy_status, 
-            p.user_account_id,
-            p.client_account_id,
-            p.data_scope,
-            p.payment_order_id,
-            p.ph_digest,
-            p.io_digest,
-            p.premium::text,
-            p.agent_kv_percent::text,
-            p.agent_kv_amount::text,
-            p.user_login,
-            p.ins_company
-        FROM policy_index p
-        WHERE ( p.policy_nr LIKE ? OR p.ph_digest LIKE ? )
-        AND p.id_path LIKE ?
-        AND p.data_scope = ?
-        ORDER BY p.policy_nr
-        LIMIT 100
-        """;
+    /**
+     * Фильтры {@link QuoteSearch} (кроме курсора) к запросу по policy_index с алиасом {@code p}.
+     */
+    static void appendFilters(StringBuilder sql, List<Object> params, QuoteSearch search) {
+        if (search.qstr() != null && !search.qstr().isBlank()) {
+            String like = "%" + escapeLike(search.qstr().trim()) + "%";
+            sql.append("  AND (p.policy_nr ILIKE ? OR p.ph_digest ILIKE ? OR p.io_digest ILIKE ?)\n");
+            params.add(like);
+            params.add(like);
+            params.add(like);
+        }
+        if (search.status() != null && !search.status().isBlank()) {
+            sql.append("  AND p.policy_status = ?\n");
+            params.add(search.status());
+        }
+        if (search.productCode() != null && !search.productCode().isBlank()) {
+            sql.append("  AND p.product_code = ?\n");
+            params.add(search.productCode());
+        }
+        if (search.dateFrom() != null) {
+            sql.append("  AND p.create_date >= ?\n");
+            params.add(startOfDay(search.dateFrom()));
+        }
+        if (search.dateTo() != null) {
+            sql.append("  AND p.create_date < ?\n");
+            params.add(startOfDay(search.dateTo().plusDays(1)));
+        }
+    }
 
-    public List<QuoteDto> findPoliciesByAccountPath(String accountPath, String environment , String qstr) {
-        String like = "%" + (qstr != null ? qstr : "") + "%";
-        String likePath = (accountPath != null ? accountPath : "") + "%";
-        if (log.isTraceEnabled()) {
-            log.trace("findPoliciesByAccountPath(accountPath='{}', environment='{}', qstr='{}', like='{}', likePath='{}')",
-                accountPath, environment, qstr, like, likePath);
+    static String encodeCursor(long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Long.toString(id).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    static long decodeCursor(String cursor) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
         }
-        return jdbcTemplate.query(
-            POLICY_REPORT_SQL2,
-            new QuoteRowMapper(),
-            like, like, likePath, environment
-        );
+    }
+
+    /**
+     * Экранирует символы шаблона LIKE (escape по умолчанию в PostgreSQL — обратная косая черта).
+     */
+    static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    static Timestamp startOfDay(LocalDate date) {
+        return Timestamp.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
     }
 
     private static class QuoteRowMapper implements RowMapper<QuoteDto> {
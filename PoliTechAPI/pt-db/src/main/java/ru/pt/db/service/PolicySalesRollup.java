@@ -0,0 +1,187 @@
+package ru.pt.db.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.pt.db.entity.PolicyIndexEntity;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Инкрементальное ведение дневных итогов продаж (policy_sales_daily, V15), из которых читает дашборд.
+ * <p>
+ * В транзакции сохранения договора в {@code policy_sales_delta} (V19) только добавляется строка с его вкладом;
+ * при переносе даты начала — строка со снятием со старого дня и строка для нового. Общие строки итогов
+ * (корень тенанта, узел клиента) при этом не блокируются, и параллельные продажи не ждут друг друга.
+ * Фоновый поток раз в {@code pt.dashboard.rollup.interval-ms} переносит накопленные строки в итоги по всем
+ * узлам id_path одним запросом: строки забираются через {@code SKIP LOCKED}, итоги обновляются в порядке
+ * ключа, поэтому несколько узлов приложения не блокируют друг друга. Дашборд отстаёт на один интервал.
+ */
+@Repository
+public class PolicySalesRollup {
+
+    private static final Logger logger = LoggerFactory.getLogger(PolicySalesRollup.class);
+
+    private static final String INSERT_DELTA_SQL = """
+        INSERT INTO policy_sales_delta (id_path, day, tid, product_code, client_account_id,
+                                        sales_count, premium_sum, commission_sum)
+        VALUES (?, CAST(? AS timestamptz)::date, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private static final String FLUSH_SQL = """
+        WITH batch AS (
+            DELETE FROM policy_sales_delta
+             WHERE id IN (SELECT id FROM policy_sales_delta ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED)
+            RETURNING id_path, day, tid, product_code, client_account_id, sales_count, premium_sum, commission_sum
+        )
+        INSERT INTO policy_sales_daily (node_path, day, tid, product_code, client_account_id,
+                                        sales_count, premium_sum, commission_sum)
+        SELECT n.node_path, b.day, b.tid, b.product_code, b.client_account_id,
+               sum(b.sales_count), sum(b.premium_sum), sum(b.commission_sum)
+        FROM batch b
+        CROSS JOIN LATERAL (
+            SELECT array_to_string((string_to_array(b.id_path, '.'))[1:i], '.') AS node_path
+            FROM generate_series(1, cardinality(string_to_array(b.id_path, '.'))) AS i
+        ) n
+        GROUP BY 1, 2, 3, 4, 5
+        ORDER BY 1, 2, 3, 4, 5
+        ON CONFLICT (node_path, day, tid, product_code, client_account_id) DO UPDATE
+           SET sales_count    = policy_sales_daily.sales_count + excluded.sales_count,
+               premium_sum    = policy_sales_daily.premium_sum + excluded.premium_sum,
+               commission_sum = policy_sales_daily.commission_sum + excluded.commission_sum
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final long intervalMillis;
+    private final int batchSize;
+    private volatile ScheduledExecutorService scheduler;
+
+    public PolicySalesRollup(JdbcTemplate jdbcTemplate,
+                             @Value("${pt.dashboard.rollup.enabled:true}") boolean enabled,
+                             @Value("${pt.dashboard.rollup.interval-ms:2000}") long intervalMillis,
+                             @Value("${pt.dashboard.rollup.batch-size:5000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.intervalMillis = intervalMillis;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Учесть новый договор.
+     */
+    public void added(PolicyIndexEntity index) {
+        record(delta(Contribution.of(index), 1));
+    }
+
+    /**
+     * Учесть изменение договора: {@code before} — вклад до изменения ({@link Contribution#of} до setter-ов).
+     */
+    public void changed(Contribution before, PolicyIndexEntity after) {
+        Contribution current = Contribution.of(after);
+        if (current.equals(before)) {
+            return;
+        }
+        record(delta(before, -1), delta(current, 1));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            logger.info("Policy sales rollup worker is disabled");
+            return;
+        }
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sales-rollup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flushAll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        scheduler = executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            // не перенесённые строки остаются в policy_sales_delta до следующего запуска
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Перенести накопленные изменения в итоги, пока они есть.
+     */
+    void flushAll() {
+        try {
+            int moved;
+            do {
+                moved = jdbcTemplate.update(FLUSH_SQL, batchSize);
+            } while (moved > 0 && !Thread.currentThread().isInterrupted());
+        } catch (DataAccessException e) {
+            logger.warn("Policy sales rollup flush failed: {}", e.getMessage());
+        }
+    }
+
+    private void record(Object[]... deltas) {
+        List<Object[]> rows = new ArrayList<>(deltas.length);
+        for (Object[] delta : deltas) {
+            if (delta != null) {
+                rows.add(delta);
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_DELTA_SQL, rows);
+        }
+    }
+
+    /**
+     * Строка policy_sales_delta со знаком; {@code null}, если договор в итоги не попадает.
+     */
+    private static Object[] delta(Contribution contribution, int sign) {
+        if (contribution.startDate() == null || contribution.idPath() == null) {
+            return null;
+        }
+        BigDecimal signum = BigDecimal.valueOf(sign);
+        return new Object[]{
+                contribution.idPath(),
+                contribution.startDate(),
+                contribution.tid(),
+                contribution.productCode(),
+                contribution.clientAccountId(),
+                (long) sign,
+                contribution.premium().multiply(signum),
+                contribution.commission().multiply(signum)
+        };
+    }
+
+    /**
+     * Поля договора, от которых зависит его вклад в итоги.
+     */
+    public record Contribution(String idPath, Timestamp startDate, Long tid, String productCode,
+                               Long clientAccountId, BigDecimal premium, BigDecimal commission) {
+
+        public static Contribution of(PolicyIndexEntity index) {
+            return new Contribution(
+                    index.getIdPath(),
+                    index.getStartDate() == null ? null : Timestamp.from(index.getStartDate().toInstant()),
+                    index.getTid(),
+                    Objects.requireNonNullElse(index.getProductCode(), ""),
+                    Objects.requireNonNullElse(index.getClientAccountId(), 0L),
+                    Objects.requireNonNullElse(index.getPremium(), BigDecimal.ZERO),
+                    Objects.requireNonNullElse(index.getAgentKvAmount(), BigDecimal.ZERO));
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package ru.pt.db.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import ru.pt.api.dto.sales.PolicyExportFormat;
+import ru.pt.api.dto.sales.QuoteSearch;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PolicyExportTest {
+
+    private static final String HEADER = "cursor,id,policyNr,versionNo,productCode,policyStatus,"
+            + "createDate,issueDate,paymentDate,startDate,endDate,"
+            + "userAccountId,clientAccountId,userLogin,insCompany,"
+            + "phDigest,ioDigest,premium,agentKvPercent,agentKvAmount";
+
+    private final FakeJdbcTemplate jdbc = new FakeJdbcTemplate();
+    private final PolicyExport export = new PolicyExport(jdbc, new NoopTransactionManager(), 500);
+
+    @Test
+    void ndjsonWritesOneObjectPerLineWithPolicyAsIs() throws IOException {
+        jdbc.rows = List.of(row(10L, "P-10", "{\"a\":1}"), row(11L, "P-11", "{\"b\":[2]}"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = export.export("1.2", "PROD", QuoteSearch.of(null), PolicyExportFormat.NDJSON, out);
+
+        assertEquals(2, count);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(3, lines.length);
+        // строка начинается сразу с объекта: без разделителя корневых значений
+        assertTrue(lines[0].startsWith("{\"cursor\":\"" + PolicyReport.encodeCursor(10L) + "\",\"id\":\"pub-10\""));
+        assertTrue(lines[0].endsWith(",\"policy\":{\"a\":1}}"));
+        assertTrue(lines[0].contains("\"createDate\":\"2024-03-01T10:00:00Z\""));
+        assertTrue(lines[0].contains("\"issueDate\":null"));
+        assertTrue(lines[1].startsWith("{\"cursor\":\"" + PolicyReport.encodeCursor(11L) + "\""));
+        assertTrue(lines[1].endsWith(",\"policy\":{\"b\":[2]}}"));
+        assertEquals("", lines[2]);
+        assertTrue(jdbc.sql.contains("JOIN policy_data d ON d.id = p.id"));
+    }
+
+    @Test
+    void csvWritesHeaderAndQuotesValuesWithoutPolicyJson() throws IOException {
+        Map<Integer, Object> row = row(10L, "P-10, \"дубль\"", null);
+        jdbc.rows = List.of(row);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = export.export("1.2", "PROD", QuoteSearch.of(null), PolicyExportFormat.CSV, out);
+
+        assertEquals(1, count);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n", -1);
+        assertEquals(HEADER, lines[0]);
+        assertEquals(PolicyReport.encodeCursor(10L) + ",pub-10,\"P-10, \"\"дубль\"\"\",1,ACC,PAID,"
+                + "2024-03-01T10:00:00Z,,,,,,,agent,,,,1000.00,,", lines[1]);
+        assertEquals("", lines[2]);
+        assertFalse(jdbc.sql.contains("policy_data"));
+    }
+
+    @Test
+    void cursorAndLimitContinueAfterLastExportedId() throws IOException {
+        export.export("1_2", "PROD",
+                new QuoteSearch(null, null, null, null, null, PolicyReport.encodeCursor(40L), 0),
+                PolicyExportFormat.CSV, new ByteArrayOutputStream());
+
+        assertTrue(jdbc.sql.endsWith("  AND p.id > ?\nORDER BY p.id\nLIMIT ?"));
+        assertArrayEquals(new Object[] {"1_2", "1\\_2.%", "PROD", 40L, 1}, jdbc.args.toArray());
+        assertEquals(500, jdbc.fetchSize);
+    }
+
+    /**
+     * Строка выборки по номеру колонки; колонки без значения — null.
+     */
+    private static Map<Integer, Object> row(long id, String policyNr, String policy) {
+        Map<Integer, Object> row = new HashMap<>();
+        row.put(1, id);
+        row.put(2, "pub-" + id);
+        row.put(3, policyNr);
+        row.put(4, "1");
+        row.put(5, "ACC");
+        row.put(6, "PAID");
+        row.put(7, Timestamp.from(Instant.parse("2024-03-01T10:00:00Z")));
+        row.put(14, "agent");
+        row.put(18, "1000.00");
+        row.put(21, policy);
+        return row;
+    }
+
+    /**
+     * Выполняет {@link PreparedStatementCreator} на заглушке соединения и отдаёт строки обработчику.
+     */
+    private static final class FakeJdbcTemplate extends JdbcTemplate {
+
+        private List<Map<Integer, Object>> rows = List.of();
+        private String sql;
+        private final List<Object> args = new ArrayList<>();
+        private int fetchSize;
+
+        @Override
+        public void query(PreparedStatementCreator psc, RowCallbackHandler rch) {
+            try {
+                psc.createPreparedStatement(connection());
+                for (Map<Integer, Object> row : rows) {
+                    rch.processRow(resultSet(row));
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private Connection connection() {
+            PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(), new Class<?>[] {PreparedStatement.class},
+                    (proxy, method, methodArgs) -> {
+                        if (method.getName().equals("setFetchSize")) {
+                            fetchSize = (Integer) methodArgs[0];
+                        } else if (method.getName().equals("setObject")) {
+                            args.add(methodArgs[1]);
+                        }
+                        return null;
+                    });
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                    (proxy, method, methodArgs) -> {
+                        sql = (String) methodArgs[0];
+                        return statement;
+                    });
+        }
+
+        private static ResultSet resultSet(Map<Integer, Object> row) {
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] {ResultSet.class},
+                    (proxy, method, methodArgs) -> row.get((Integer) methodArgs[0]));
+        }
+    }
+
+    private static final class NoopTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
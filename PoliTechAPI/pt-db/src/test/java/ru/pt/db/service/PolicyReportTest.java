@@ -0,0 +1,100 @@
+package ru.pt.db.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import ru.pt.api.dto.exception.BadRequestException;
+import ru.pt.api.dto.sales.QuotePage;
+import ru.pt.api.dto.sales.QuoteSearch;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PolicyReportTest {
+
+    private final FakeJdbcTemplate jdbc = new FakeJdbcTemplate();
+    private final PolicyReport report = new PolicyReport(jdbc);
+
+    @Test
+    void cursorRoundTripsAndRejectsGarbage() {
+        assertEquals(9_000_000_123L, PolicyReport.decodeCursor(PolicyReport.encodeCursor(9_000_000_123L)));
+        assertThrows(BadRequestException.class, () -> PolicyReport.decodeCursor("не курсор"));
+        assertThrows(BadRequestException.class, () -> PolicyReport.decodeCursor(PolicyReport.encodeCursor(1L) + "!"));
+    }
+
+    @Test
+    void firstPageHasNoKeysetPredicateAndReturnsCursorOfLastRow() {
+        jdbc.ids = List.of(50L, 40L, 30L);
+
+        QuotePage page = report.searchPolicies("1.2", "PROD",
+                new QuoteSearch(null, null, null, null, null, null, 2));
+
+        assertFalse(jdbc.sql.contains("p.id < ?"));
+        assertTrue(jdbc.sql.endsWith("ORDER BY p.id DESC\nLIMIT ?"));
+        // строка сверх страницы запрашивается, но не возвращается
+        assertArrayEquals(new Object[] {"1.2", "1.2.%", "PROD", 3}, jdbc.args);
+        assertEquals(2, page.items().size());
+        assertEquals(40L, PolicyReport.decodeCursor(page.nextCursor()));
+    }
+
+    @Test
+    void nextPageContinuesBelowCursorId() {
+        jdbc.ids = List.of(30L);
+
+        QuotePage page = report.searchPolicies("1.2", "PROD",
+                new QuoteSearch("ИВАНОВ", null, null, null, null, PolicyReport.encodeCursor(40L), 2));
+
+        assertTrue(jdbc.sql.contains("  AND p.id < ?\nORDER BY p.id DESC"));
+        assertArrayEquals(new Object[] {"1.2", "1.2.%", "PROD", "%ИВАНОВ%", "%ИВАНОВ%", "%ИВАНОВ%", 40L, 3}, jdbc.args);
+        assertEquals(1, page.items().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void limitIsClampedAndLikeWildcardsAreEscaped() {
+        report.searchPolicies("1_2", "PROD", new QuoteSearch(null, null, null, null, null, null, 10_000));
+
+        assertEquals("1\\_2.%", jdbc.args[1]);
+        assertEquals(PolicyReport.MAX_LIMIT + 1, jdbc.args[jdbc.args.length - 1]);
+    }
+
+    /**
+     * policy_index в памяти: строки отдаются с заданными id, остальные колонки пустые.
+     */
+    private static final class FakeJdbcTemplate extends JdbcTemplate {
+
+        private List<Long> ids = List.of();
+        private String sql;
+        private Object[] args;
+
+        @Override
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            this.sql = sql;
+            this.args = args;
+            List<T> rows = new ArrayList<>();
+            try {
+                for (Long id : ids) {
+                    rows.add(rowMapper.mapRow(resultSet(id), rows.size()));
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            return rows;
+        }
+
+        private static ResultSet resultSet(Long id) {
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] {ResultSet.class},
+                    (proxy, method, methodArgs) -> "id".equals(methodArgs[0]) ? id : null);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package ru.pt.db.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.pt.api.dto.db.PolicyStatus;
+import ru.pt.db.entity.PolicyIndexEntity;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PolicySalesRollupTest {
+
+    private static final ZonedDateTime MARCH_1 = ZonedDateTime.parse("2026-03-01T00:00:00+03:00");
+    private static final ZonedDateTime MARCH_5 = ZonedDateTime.parse("2026-03-05T00:00:00+03:00");
+
+    private final FakeJdbcTemplate jdbc = new FakeJdbcTemplate();
+    private final PolicySalesRollup rollup = new PolicySalesRollup(jdbc, false, 1000, 100);
+
+    @Test
+    void addedPolicyWritesOnePositiveDelta() {
+        rollup.added(policy(PolicyStatus.QUOTE, MARCH_1));
+
+        assertEquals(1, jdbc.deltas.size());
+        assertArrayEquals(new Object[]{"1.5", Timestamp.from(MARCH_1.toInstant()), 10L, "NS", 5L, 1L,
+                new BigDecimal("1000.00"), new BigDecimal("100.00")}, jdbc.deltas.get(0));
+    }
+
+    @Test
+    void statusChangeAloneDoesNotTouchTotals() {
+        PolicyIndexEntity policy = policy(PolicyStatus.QUOTE, MARCH_1);
+        PolicySalesRollup.Contribution before = PolicySalesRollup.Contribution.of(policy);
+
+        policy.setPolicyStatus(PolicyStatus.PAID);
+        rollup.changed(before, policy);
+
+        assertTrue(jdbc.deltas.isEmpty());
+    }
+
+    @Test
+    void statusChangeWithNewStartDateMovesPolicyBetweenDays() {
+        PolicyIndexEntity policy = policy(PolicyStatus.QUOTE, MARCH_1);
+        PolicySalesRollup.Contribution before = PolicySalesRollup.Contribution.of(policy);
+
+        policy.setPolicyStatus(PolicyStatus.ISSUED);
+        policy.setStartDate(MARCH_5);
+        rollup.changed(before, policy);
+
+        // снятие со старого дня и вклад в новый — одним пакетом
+        assertEquals(1, jdbc.batches);
+        assertEquals(2, jdbc.deltas.size());
+        assertArrayEquals(new Object[]{"1.5", Timestamp.from(MARCH_1.toInstant()), 10L, "NS", 5L, -1L,
+                new BigDecimal("-1000.00"), new BigDecimal("-100.00")}, jdbc.deltas.get(0));
+        assertArrayEquals(new Object[]{"1.5", Timestamp.from(MARCH_5.toInstant()), 10L, "NS", 5L, 1L,
+                new BigDecimal("1000.00"), new BigDecimal("100.00")}, jdbc.deltas.get(1));
+    }
+
+    @Test
+    void policyWithoutStartDateIsNotCounted() {
+        PolicyIndexEntity policy = policy(PolicyStatus.QUOTE, null);
+        rollup.added(policy);
+        PolicySalesRollup.Contribution before = PolicySalesRollup.Contribution.of(policy);
+
+        policy.setStartDate(MARCH_1);
+        rollup.changed(before, policy);
+
+        assertEquals(1, jdbc.deltas.size());
+        assertEquals(1L, jdbc.deltas.get(0)[5]);
+    }
+
+    @Test
+    void flushRepeatsUntilNothingIsMoved() {
+        jdbc.moved.addAll(List.of(100, 100, 7, 0));
+
+        rollup.flushAll();
+
+        assertEquals(4, jdbc.flushes);
+    }
+
+    private static PolicyIndexEntity policy(PolicyStatus status, ZonedDateTime startDate) {
+        PolicyIndexEntity policy = new PolicyIndexEntity();
+        policy.setIdPath("1.5");
+        policy.setTid(10L);
+        policy.setProductCode("NS");
+        policy.setClientAccountId(5L);
+        policy.setPremium(new BigDecimal("1000.00"));
+        policy.setAgentKvAmount(new BigDecimal("100.00"));
+        policy.setPolicyStatus(status);
+        policy.setStartDate(startDate);
+        return policy;
+    }
+
+    private static final class FakeJdbcTemplate extends JdbcTemplate {
+
+        private final List<Object[]> deltas = new ArrayList<>();
+        private final Deque<Integer> moved = new ArrayDeque<>();
+        private int batches;
+        private int flushes;
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            batches++;
+            deltas.addAll(batchArgs);
+            return new int[batchArgs.size()];
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            flushes++;
+            return moved.isEmpty() ? 0 : moved.poll();
+        }
+    }
+}
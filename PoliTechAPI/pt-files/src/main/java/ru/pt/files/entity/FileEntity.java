@@ -26,8 +26,9 @@ public class FileEntity {
     @Column(name = "size")
     private Long size;
 
-    @Column(name = "file_body")
-    private byte[] fileBody;
+    /** Содержимое в pt_file_blobs; null — файл загружен до дедупликации и хранится по public_id */
+    @Column(name = "blob_id")
+    private Long blobId;
 
 
     @Column(name = "tid", nullable = false)
@@ -73,12 +74,12 @@ public class FileEntity {
         this.size = size;
     }
 
-    public byte[] getFileBody() {
-        return fileBody;
+    public Long getBlobId() {
+        return blobId;
     }
 
-    public void setFileBody(byte[] fileBody) {
-        this.fileBody = fileBody;
+    public void setBlobId(Long blobId) {
+        this.blobId = blobId;
     }
 
     public Long getTid() {
@@ -1,82 +1,171 @@
 package ru.pt.files.service;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.sql.ResultSet;
+import java.util.Arrays;
 import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.stereotype.Component;
 
 import lombok.RequiredArgsConstructor;
 import ru.pt.api.dto.file.FileStorageType;
 import ru.pt.api.service.file.FileStorage;
-import ru.pt.auth.security.SecurityContextHelper;
-import ru.pt.files.entity.FileEntity;
-import ru.pt.files.repository.FileRepository;
 
+/**
+ * Хранение тел файлов в PostgreSQL large objects ({@code pt_file_bodies}: ключ хранилища → oid).
+ * <p>
+ * Запись и чтение идут частями по {@link #CHUNK_SIZE} через {@code lo_put}/{@code lo_get}:
+ * в памяти не больше одной части независимо от размера файла. Large object освобождается
+ * триггером при удалении ключа или замене тела.
+ */
 @Component
 @RequiredArgsConstructor
 public class DatabaseStorage implements FileStorage {
 
     private static final Logger logger = LoggerFactory.getLogger(DatabaseStorage.class);
 
-    private final FileRepository fileRepository;
-    private final SecurityContextHelper securityContextHelper;
+    static final int CHUNK_SIZE = 1024 * 1024;
+
+    private static final ResultSetExtractor<Boolean> IGNORE = ResultSet::next;
+
+    private static final String SELECT_SQL = "select body_oid from pt_file_bodies where storage_key = ?";
+
+    private static final String UPSERT_SQL = """
+            insert into pt_file_bodies (storage_key, body_oid) values (?, ?)
+            on conflict (storage_key) do update set body_oid = excluded.body_oid
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
 
     @Override
     public String store(Long tid, String key, Map<String, String> config, InputStream stream) {
 
-        byte[] data;
+        Long oid = jdbcTemplate.queryForObject("select lo_create(0)", Long.class);
+        long size = 0;
+        byte[] buffer = new byte[CHUNK_SIZE];
         try {
-            data = stream.readAllBytes();
+            int read;
+            while ((read = stream.readNBytes(buffer, 0, CHUNK_SIZE)) > 0) {
+                byte[] chunk = read == CHUNK_SIZE ? buffer : Arrays.copyOf(buffer, read);
+                jdbcTemplate.query("select lo_put(?::oid, ?, ?)", IGNORE, oid, size, chunk);
+                size += read;
+            }
         } catch (IOException ex) {
             logger.error("Failed to read stream for file: {}", key, ex);
             throw new RuntimeException("Failed to read file content", ex);
         }
 
-        FileEntity entity = fileRepository.findByPublicId(key).orElse(null);
-
-        if (entity != null) {
-            entity.setFileBody(data);
-            entity.setSize((long) data.length);
-            fileRepository.save(entity);
-        } else {
-            entity = new FileEntity();
-            entity.setPublicId(key);
-            entity.setFileBody(data);
-            entity.setSize((long) data.length);
-            entity.setTid(tid);
-            fileRepository.save(entity);
-        }
+        jdbcTemplate.update(UPSERT_SQL, key, oid);
+        logger.debug("File stored as large object. key={}, oid={}, size={}", key, oid, size);
 
         return key;
     }
 
     @Override
     public InputStream load(String key, Map<String, String> config) {
-        FileEntity entity = fileRepository.findByPublicId(key)
+        return load(key, config, 0);
+    }
+
+    @Override
+    public InputStream load(String key, Map<String, String> config, long offset) {
+        Long oid = jdbcTemplate.queryForList(SELECT_SQL, Long.class, key).stream()
+                .findFirst()
                 .orElseThrow(() -> new RuntimeException("File not found: " + key));
-        byte[] body = entity.getFileBody();
-        if (body == null) {
-            throw new RuntimeException("File body is empty: " + key);
-        }
-        return new ByteArrayInputStream(body);
+        return new LargeObjectInputStream(oid, offset);
     }
 
     @Override
     public void delete(String key, Map<String, String> config) {
-        fileRepository.findByPublicId(key).ifPresent(fileRepository::delete);
+        jdbcTemplate.update("delete from pt_file_bodies where storage_key = ?", key);
     }
 
     @Override
     public boolean exists(String key, Map<String, String> config) {
-        return fileRepository.findByPublicId(key).isPresent();
+        return !jdbcTemplate.queryForList(SELECT_SQL, Long.class, key).isEmpty();
     }
 
     @Override
     public boolean supports(FileStorageType type) {
         return type == FileStorageType.DB;
     }
+
+    /**
+     * Чтение large object частями; каждая часть — отдельный {@code lo_get}, соединение между частями не удерживается.
+     */
+    private final class LargeObjectInputStream extends InputStream {
+
+        private final long oid;
+        private long position;
+        private byte[] chunk = new byte[0];
+        private int chunkPos;
+        private boolean eof;
+
+        LargeObjectInputStream(long oid, long offset) {
+            this.oid = oid;
+            this.position = offset;
+        }
+
+        @Override
+        public int read() {
+            if (!fill()) {
+                return -1;
+            }
+            return chunk[chunkPos++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int n = Math.min(len, chunk.length - chunkPos);
+            System.arraycopy(chunk, chunkPos, b, off, n);
+            chunkPos += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            if (n <= 0) {
+                return 0;
+            }
+            int buffered = chunk.length - chunkPos;
+            if (n <= buffered) {
+                chunkPos += (int) n;
+                return n;
+            }
+            chunkPos = chunk.length;
+            position += n - buffered;
+            return n;
+        }
+
+        private boolean fill() {
+            if (chunkPos < chunk.length) {
+                return true;
+            }
+            if (eof) {
+                return false;
+            }
+            byte[] next = jdbcTemplate.queryForObject("select lo_get(?::oid, ?, ?)", byte[].class, oid, position, CHUNK_SIZE);
+            if (next == null || next.length == 0) {
+                eof = true;
+                return false;
+            }
+            if (next.length < CHUNK_SIZE) {
+                eof = true;
+            }
+            chunk = next;
+            chunkPos = 0;
+            position += next.length;
+            return true;
+        }
+    }
 }
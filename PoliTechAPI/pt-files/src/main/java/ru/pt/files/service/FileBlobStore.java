@@ -0,0 +1,107 @@
+package ru.pt.files.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import ru.pt.api.dto.auth.Tenant;
+import ru.pt.api.dto.file.StorageProperty;
+
+/**
+ * Содержимое файлов по SHA-256 ({@code pt_file_blobs}) со счётчиком ссылок логических файлов.
+ * <p>
+ * Одинаковые байты одного тенанта в одном хранилище ({@link #location}) записываются один раз; объект хранилища
+ * удаляется, когда удалён последний ссылающийся на него файл. Между тенантами содержимое не делится, даже если
+ * хранилище общее (все DB-тенанты): иначе по загрузке можно узнать, есть ли такой файл у другого тенанта.
+ */
+@Repository
+public class FileBlobStore {
+
+    /** Параметры, не влияющие на место хранения */
+    private static final Set<String> NON_LOCATION_PROPERTIES = Set.of(
+            StorageProperty.MAX_SIZE.getValue(),
+            StorageProperty.ACCESS_KEY.getValue(),
+            StorageProperty.SECRET_KEY.getValue());
+
+    private static final String ACQUIRE_SQL = """
+            insert into pt_file_blobs (location, sha256, storage_key, size, ref_count)
+            values (?, ?, ?, ?, 1)
+            on conflict (location, sha256) do update set ref_count = pt_file_blobs.ref_count + 1
+            returning id, storage_key, size
+            """;
+
+    private static final String RELEASE_SQL = """
+            update pt_file_blobs set ref_count = ref_count - 1 where id = ? returning ref_count
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public FileBlobStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Добавить ссылку на содержимое. Если такое содержимое в хранилище уже есть, возвращается
+     * существующий объект — только что записанный {@code storageKey} вызывающий код удаляет.
+     */
+    public Blob acquire(String location, String sha256, String storageKey, long size) {
+        return jdbcTemplate.queryForObject(ACQUIRE_SQL, (rs, n) -> new Blob(
+                rs.getLong("id"), rs.getString("storage_key"), rs.getLong("size")),
+                location, sha256, storageKey, size);
+    }
+
+    public String storageKey(Long blobId) {
+        return jdbcTemplate.queryForObject("select storage_key from pt_file_blobs where id = ?", String.class, blobId);
+    }
+
+    /**
+     * Снять ссылку. Строку логического файла нужно удалить до вызова (внешний ключ).
+     *
+     * @return ключ объекта хранилища, если ссылок не осталось (объект удаляет вызывающий код), иначе {@code null}
+     */
+    public String release(Long blobId) {
+        List<Integer> left = jdbcTemplate.queryForList(RELEASE_SQL, Integer.class, blobId);
+        if (left.isEmpty() || left.get(0) > 0) {
+            return null;
+        }
+        List<String> keys = jdbcTemplate.queryForList(
+                "delete from pt_file_blobs where id = ? and ref_count <= 0 returning storage_key", String.class, blobId);
+        return keys.isEmpty() ? null : keys.get(0);
+    }
+
+    /**
+     * Ключ дедупликации: тенант, тип хранилища и параметры расположения (каталог, endpoint, бакет, префикс).
+     * Строки, записанные до включения тенанта в ключ, остаются и освобождаются по id.
+     */
+    public static String location(Tenant tenant) {
+        Map<String, String> config = new TreeMap<>();
+        if (tenant.storageConfig() != null) {
+            tenant.storageConfig().forEach((k, v) -> {
+                if (!NON_LOCATION_PROPERTIES.contains(k)) {
+                    config.put(k, v);
+                }
+            });
+        }
+        return sha256Hex(tenant.id() + "|" + tenant.storageType() + "|" + config);
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record Blob(Long id, String storageKey, long size) {
+    }
+}
@@ -1,11 +1,16 @@
 package ru.pt.files.service;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,11 +22,12 @@ import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDResources;
 import org.apache.pdfbox.pdmodel.font.PDFont;
-import org.apache.pdfbox.pdmodel.font.PDType0Font;
 import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
 import org.apache.pdfbox.pdmodel.interactive.form.PDField;
 import org.apache.pdfbox.pdmodel.interactive.form.PDTextField;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,7 +50,6 @@ import ru.pt.domain.model.TextDocumentView;
 import ru.pt.domain.model.VariableContext;
 import ru.pt.files.entity.FileEntity;
 import ru.pt.files.repository.FileRepository;
-import java.io.FileInputStream;
 import lombok.RequiredArgsConstructor;
 
 import ru.pt.api.service.auth.AuthZ;
@@ -64,62 +69,11 @@ public class FileServiceImpl implements FileService {
     private final List<FileStorage> storages;
     private final TenantConfig tenantConfig;
     private final AuthorizationService authorizationService;
+    private final PrintTemplateCache printTemplateCache;
+    private final PrintFont printFont;
+    private final FileBlobStore fileBlobStore;
 
 
-    private static final String FONT_CLASSPATH = "fonts/calibri.ttf";
-
-    /**
-     * Load a TrueType font that supports Cyrillic characters (Liberation Sans, compatible with Helvetica).
-     * Tries classpath first, then filesystem fallbacks.
-     *
-     * @param doc The PDF document
-     * @return PDFont instance or null if no suitable font found
-     */
-    private PDFont loadCyrillicFont(PDDocument doc) {
-        // 1. Classpath resource (preferred)
-        try (InputStream fontStream = getClass().getClassLoader().getResourceAsStream(FONT_CLASSPATH)) {
-            if (fontStream != null) {
-                logger.debug("Loading font from classpath: {}", FONT_CLASSPATH);
-                return PDType0Font.load(doc, fontStream, false);
-            }
-        } catch (IOException e) {
-            logger.trace("Could not load font from classpath: {}", e.getMessage());
-        }
-
-        // 2. Alternative: getClass().getResource (for some classloader setups)
-        try (InputStream fontStream = getClass().getResourceAsStream("/" + FONT_CLASSPATH)) {
-            if (fontStream != null) {
-                logger.debug("Loading font from classpath (absolute): /{}", FONT_CLASSPATH);
-                return PDType0Font.load(doc, fontStream, false);
-            }
-        } catch (IOException e) {
-            logger.trace("Could not load font from classpath (absolute): {}", e.getMessage());
-        }
-
-        // 3. Filesystem fallbacks (Linux)
-        String[] fsPaths = {
-            "/usr/share/fonts/truetype/liberation/LiberationSans-Regular.ttf",
-            "/usr/share/fonts/liberation-sans/LiberationSans-Regular.ttf",
-            "/usr/share/fonts/liberation/LiberationSans-Regular.ttf"
-        };
-        for (String path : fsPaths) {
-            try {
-                File f = new File(path);
-                if (f.exists() && f.canRead()) {
-                    try (FileInputStream fis = new FileInputStream(f)) {
-                        logger.debug("Loading font from file system: {}", path);
-                        return PDType0Font.load(doc, fis, false);
-                    }
-                }
-            } catch (Exception e) {
-                logger.trace("Could not load font from {}: {}", path, e.getMessage());
-            }
-        }
-
-        logger.info("No custom Cyrillic font found, PDFBox will use built-in fallback fonts");
-        return null;
-    }
-
     /**
      * Get current authenticated user from security context
      * @return AuthenticatedUser representing the current user
@@ -147,9 +101,10 @@ public class FileServiceImpl implements FileService {
         Tenant tenant = tenantConfig.getTenant(tenantCode);
 
         Map<String, String> storageConfig = tenant.storageConfig();
+        long maxSize = Long.MAX_VALUE;
         if (storageConfig.containsKey(StorageProperty.MAX_SIZE.getValue())) {
-            Long maxSize = Long.parseLong(storageConfig.get(StorageProperty.MAX_SIZE.getValue()));
-            if (size > maxSize) {
+            maxSize = Long.parseLong(storageConfig.get(StorageProperty.MAX_SIZE.getValue()));
+            if (size != null && size > maxSize) {
                 throw new UnprocessableEntityException("File size is too large");
             }
         }
@@ -162,31 +117,67 @@ public class FileServiceImpl implements FileService {
         entity.setSize(size);
         var saved = fileRepository.save(entity);
 
+        storeContent(saved, tenant, file, maxSize);
+        return saved.getId();
+    }
+
+    /**
+     * Записать содержимое под новым ключом, считая SHA-256 и размер по ходу записи.
+     * Если такое содержимое в хранилище уже есть, файл ссылается на существующий объект, а записанный удаляется.
+     */
+    private void storeContent(FileEntity entity, Tenant tenant, InputStream content, long maxSize) {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        // заявленный размер не гарантирован: лимит проверяется ещё и по фактически прочитанным байтам
+        LimitedInputStream limited = new LimitedInputStream(new DigestInputStream(content, sha256), maxSize);
         FileStorage storage = resolve(tenant);
-        storage.store(entity.getTid(), entity.getPublicId(), tenant.storageConfig(), file);
+        String storageKey = UUID.randomUUID().toString();
+        try {
+            storage.store(entity.getTid(), storageKey, tenant.storageConfig(), limited);
+        } catch (RuntimeException e) {
+            if (limited.isExceeded()) {
+                throw new UnprocessableEntityException("File size is too large");
+            }
+            throw e;
+        }
 
-        return saved.getId();
+        String digest = HexFormat.of().formatHex(sha256.digest());
+        FileBlobStore.Blob blob = fileBlobStore.acquire(
+                FileBlobStore.location(tenant), digest, storageKey, limited.getCount());
+        if (!blob.storageKey().equals(storageKey)) {
+            storage.delete(storageKey, tenant.storageConfig());
+            logger.debug("Duplicate content, reusing blob. blobId={}, sha256={}", blob.id(), digest);
+        }
+        entity.setBlobId(blob.id());
+        entity.setSize(limited.getCount());
     }
 
     @Override
-    public FileDownload downloadFile(Long id) {
+    public FileDownload downloadFile(Long id, long offset) {
         FileEntity entity = fileRepository.findActiveById(getCurrentTenantId(), id)
                 .orElseThrow(() -> new NotFoundException("File not found"));
         Tenant tenant = tenantConfig.getTenantById(entity.getTid());
 
         /* Файлы загружаются из тенната, поэтому проверяем что это доступный тенант для юзера */
         authorizationService.check(getCurrentUser(), AuthZ.ResourceType.FILE, null, tenant.id(), AuthZ.Action.VIEW);
-        
-        FileStorage storage = resolve(tenant);
 
-        try (InputStream inputStream = storage.load(entity.getPublicId(), tenant.storageConfig())) {
-           
-            String filename = entity.getFilename() != null ? entity.getFilename() : "download";
-            String contentType = entity.getContentType() != null ? entity.getContentType() : "application/octet-stream";
-            return new FileDownload(inputStream, filename, contentType, entity.getSize());
-        } catch (IOException e) {
-            throw new InternalServerErrorException("Failed to download file", e);
-        }
+        long size = entity.getSize() != null ? entity.getSize() : 0L;
+        long start = offset < 0 ? Math.max(0, size + offset) : offset;
+        FileStorage storage = resolve(tenant);
+        String storageKey = storageKey(entity);
+        // начало за концом файла — 416 у вызывающего; хранилище не открывается (MinIO на таком offset падает)
+        InputStream inputStream = start >= size
+                ? InputStream.nullInputStream()
+                : storage.load(storageKey, tenant.storageConfig(), start);
+
+        String filename = entity.getFilename() != null ? entity.getFilename() : "download";
+        String contentType = entity.getContentType() != null ? entity.getContentType() : "application/octet-stream";
+        return new FileDownload(inputStream, filename, contentType, size, start,
+                storage.localPath(storageKey, tenant.storageConfig()));
     }
 
 
@@ -198,10 +189,37 @@ public class FileServiceImpl implements FileService {
         // ToDo checj Auth
         Tenant tenant = tenantConfig.getTenantById( entity.getTid());
         authorizationService.check(getCurrentUser(), AuthZ.ResourceType.FILE, null, tenant.id(), AuthZ.Action.MANAGE);
+        delete(entity, tenant);
+    }
+
+    @Transactional
+    @Override
+    public void deleteGeneratedFile(Long tid, Long id) {
+        FileEntity entity = fileRepository.findActiveById(tid, id)
+                .orElseThrow(() -> new NotFoundException("File not found"));
+        delete(entity, tenantConfig.getTenantById(tid));
+    }
 
-        FileStorage storage = resolve(tenant);   
-        storage.delete(entity.getPublicId(), tenant.storageConfig());
+    private void delete(FileEntity entity, Tenant tenant) {
+        FileStorage storage = resolve(tenant);
         fileRepository.delete(entity);
+        printTemplateCache.evict(entity.getTid(), entity.getId());
+        if (entity.getBlobId() == null) {
+            storage.delete(entity.getPublicId(), tenant.storageConfig());
+            return;
+        }
+        // строка файла удаляется раньше ссылки на содержимое (внешний ключ)
+        fileRepository.flush();
+        String orphan = fileBlobStore.release(entity.getBlobId());
+        if (orphan == null) {
+            return;
+        }
+        if (tenant.storageType() == FileStorageType.DB) {
+            // тело в той же БД: удаляется в этой же транзакции
+            storage.delete(orphan, tenant.storageConfig());
+        } else {
+            afterCommit(() -> storage.delete(orphan, tenant.storageConfig()));
+        }
     }
 
     @Override
@@ -213,19 +231,41 @@ public class FileServiceImpl implements FileService {
         );
 
         logger.debug("Processing PDF file with id: {}", id);
-        FileEntity entity = fileRepository.findActiveById(getCurrentTenantId(), id)
-                .orElseThrow(() -> new NotFoundException("File not found"));
-        if (entity.getFileBody() == null) {
-            throw new IllegalArgumentException("File body is empty");
+        return process(getCurrentTenantId(), id, keyValues);
+    }
+
+    private byte[] process(Long tid, Long id, VariableContext keyValues) {
+        try {
+            PrintTemplateCache.PrintTemplate template = printTemplateCache.get(tid, id, () -> {
+                FileEntity entity = fileRepository.findActiveById(tid, id)
+                        .orElseThrow(() -> new NotFoundException("File not found"));
+                Tenant tenant = tenantConfig.getTenantById(tid);
+                try (InputStream in = resolve(tenant).load(storageKey(entity), tenant.storageConfig())) {
+                    return in.readAllBytes();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return fill(template, keyValues);
+        } catch (IOException ex) {
+            logger.error("Failed to process PDF: {}", ex.getMessage(), ex);
+            throw new InternalServerErrorException("Failed to process PDF", ex);
         }
+    }
 
-        try (PDDocument doc = Loader.loadPDF( entity.getFileBody())) {
-            PDAcroForm form = doc.getDocumentCatalog().getAcroForm();
+    /**
+     * Заполнение копии шаблона: поля и их ключи переменных берутся из манифеста,
+     * дерево полей обходится один раз.
+     */
+    private byte[] fill(PrintTemplateCache.PrintTemplate template, VariableContext keyValues) throws IOException {
+        try (PDDocument doc = Loader.loadPDF(template.pdf())) {
+            PDAcroForm form = template.hasForm() ? doc.getDocumentCatalog().getAcroForm() : null;
             if (form != null) {
                 // Configure font for Cyrillic support
-                PDFont cyrillicFont = loadCyrillicFont(doc);
-                if (cyrillicFont != null) {
-                    try {
+                String appearance = null;
+                try {
+                    PDFont cyrillicFont = printFont.load(doc);
+                    if (cyrillicFont != null) {
                         // Set default appearance with the font that supports Cyrillic
                         PDResources resources = form.getDefaultResources();
                         if (resources == null) {
@@ -238,35 +278,32 @@ public class FileServiceImpl implements FileService {
                         resources.put(org.apache.pdfbox.cos.COSName.getPDFName("Helv"), cyrillicFont);
                         form.setDefaultResources(resources);
 
-                        // Устанавливаем appearance для всех текстовых полей (включая вложенные)
-                        for (PDField field : form.getFieldTree()) {
-                            if (field instanceof PDTextField) {
-                                ((PDTextField) field).setDefaultAppearance("/" + fontName + " 12 Tf 0 g");
-                            }
-                        }
-                        
-                        form.setDefaultAppearance("/" + fontName + " 12 Tf 0 g");
-                        
+                        appearance = "/" + fontName + " 12 Tf 0 g";
+                        form.setDefaultAppearance(appearance);
                         logger.debug("Configured Liberation Sans font for Cyrillic support");
-                    } catch (Exception e) {
-                        logger.warn("Could not configure custom font: {}", e.getMessage());
                     }
+                } catch (Exception e) {
+                    logger.warn("Could not configure custom font: {}", e.getMessage());
                 }
-                
+
                 // Fill form fields (включая вложенные через getFieldTree)
                 for (PDField pdfield : form.getFieldTree()) {
-                    //String fName = pdfield.getPartialName();
-                    String fName = pdfield.getValueAsString();
+                    PrintTemplateCache.Field field = template.fields().get(pdfield.getFullyQualifiedName());
+                    if (field == null) {
+                        continue;
+                    }
+                    if (appearance != null && field.text()) {
+                        ((PDTextField) pdfield).setDefaultAppearance(appearance);
+                    }
+                    String fName = field.variable();
                     String fieldValue = textDocumentView.get(keyValues, fName);
 
                     logger.debug("Field name: {}, value: {}", fName, fieldValue);
 
                     if (fieldValue != null) {
-                        String fValue = fieldValue.toString();
                         try {
-                            pdfield.setValue(fValue);
-                            logger.trace("Set field '{}' to value: {}", fName, fValue);
- 
+                            pdfield.setValue(fieldValue);
+                            logger.trace("Set field '{}' to value: {}", fName, fieldValue);
                         } catch (Exception ex) {
                             logger.warn("Failed to set field '{}': {}", fName, ex.getMessage());
                         }
@@ -280,9 +317,6 @@ public class FileServiceImpl implements FileService {
             doc.save(out);
             logger.debug("PDF processed successfully, size: {} bytes", out.size());
             return out.toByteArray();
-        } catch (IOException ex) {
-            logger.error("Failed to process PDF: {}", ex.getMessage(), ex);
-            throw new InternalServerErrorException("Failed to process PDF", ex);
         }
     }
 
@@ -301,6 +335,64 @@ public class FileServiceImpl implements FileService {
         return process(fileId.longValue(), keyValues);
     }
 
+    @Override
+    public byte[] getFile(Long tid, Integer fileId, VariableContext keyValues) {
+        if (fileId == null) {
+            throw new NotFoundException("File ID is not found");
+        }
+
+        keyValues.calcEmptyMagic();
+        logger.debug("Processing PDF file with id: {}, tid: {}", fileId, tid);
+        return process(tid, fileId.longValue(), keyValues);
+    }
+
+    @Transactional
+    @Override
+    public Long storeGeneratedFile(Long tid, String filename, String contentType, byte[] content) {
+        Tenant tenant = tenantConfig.getTenantById(tid);
+
+        FileEntity entity = new FileEntity();
+        entity.setTid(tid);
+        entity.setPublicId(UUID.randomUUID().toString());
+        entity.setFilename(filename);
+        entity.setContentType(contentType);
+        entity.setSize((long) content.length);
+        var saved = fileRepository.save(entity);
+
+        storeContent(saved, tenant, new ByteArrayInputStream(content), Long.MAX_VALUE);
+        logger.debug("Generated file stored. tid={}, id={}, size={}", tid, saved.getId(), content.length);
+        return saved.getId();
+    }
+
+    @Override
+    public FileDownload openGeneratedFile(Long tid, Long id) {
+        FileEntity entity = fileRepository.findActiveById(tid, id)
+                .orElseThrow(() -> new NotFoundException("File not found"));
+        Tenant tenant = tenantConfig.getTenantById(tid);
+        InputStream inputStream = resolve(tenant).load(storageKey(entity), tenant.storageConfig());
+        String filename = entity.getFilename() != null ? entity.getFilename() : "download";
+        String contentType = entity.getContentType() != null ? entity.getContentType() : "application/octet-stream";
+        return new FileDownload(inputStream, filename, contentType, entity.getSize());
+    }
+
+    private String storageKey(FileEntity entity) {
+        return entity.getBlobId() != null ? fileBlobStore.storageKey(entity.getBlobId()) : entity.getPublicId();
+    }
+
+    /** Объект хранилища удаляется только после фиксации: при откате ссылка на него остаётся. */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
     private FileStorage resolve(Tenant tenant) {
 
         FileStorageType fsType = tenant.storageType();
@@ -4,9 +4,13 @@ import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
 
 import ru.pt.api.dto.file.FileStorageType;
@@ -34,8 +38,16 @@ public class FileSystemStorage implements FileStorage {
 
         try {
             Files.copy(stream, path);
-        } catch (IOException e) {
+        } catch (FileAlreadyExistsException e) {
             throw new RuntimeException(e);
+        } catch (IOException | RuntimeException e) {
+            // не оставляем недописанный файл (обрыв загрузки, превышение размера)
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e instanceof RuntimeException re ? re : new RuntimeException(e);
         }
 
         return key;
@@ -51,6 +63,23 @@ public class FileSystemStorage implements FileStorage {
         }
     }
 
+    @Override
+    public InputStream load(String key, Map<String, String> config, long offset) {
+
+        try {
+            FileChannel channel = FileChannel.open(getRoot(config, key), StandardOpenOption.READ);
+            channel.position(offset);
+            return Channels.newInputStream(channel);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public Path localPath(String key, Map<String, String> config) {
+        return getRoot(config, key);
+    }
+
     @Override
     public void delete(String key, Map<String, String> config) {
 
@@ -0,0 +1,67 @@
+package ru.pt.files.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Поток загрузки с ограничением размера: превышение обнаруживается по мере чтения,
+ * до того как файл целиком попадёт в хранилище.
+ */
+final class LimitedInputStream extends FilterInputStream {
+
+    private final long limit;
+    private long count;
+    private boolean exceeded;
+
+    LimitedInputStream(InputStream in, long limit) {
+        super(in);
+        this.limit = limit;
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    boolean isExceeded() {
+        return exceeded;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            advance(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            advance(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        advance(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void advance(long n) throws IOException {
+        count += n;
+        if (count > limit) {
+            exceeded = true;
+            throw new IOException("File size exceeds limit of " + limit + " bytes");
+        }
+    }
+}
@@ -77,6 +77,24 @@ public class MinIOStorage implements FileStorage {
         }
     }
 
+    @Override
+    public InputStream load(String key, Map<String, String> config, long offset) {
+
+        String bucket = config.get(StorageProperty.BUCKET.getValue());
+
+        try {
+            return getClient(config).getObject(
+            GetObjectArgs.builder()
+                    .bucket(bucket)
+                    .object(key)
+                    .offset(offset)
+                    .build()
+            );
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     public void delete(String key, Map<String, String> config) {
 
@@ -0,0 +1,95 @@
+package ru.pt.files.service;
+
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * TrueType-шрифт с кириллицей для печатных форм.
+ * <p>
+ * Файл шрифта ищется один раз (classpath, затем системные пути Linux) и держится в памяти.
+ * Программа шрифта разбирается один раз на поток: разобранный {@link TrueTypeFont} не потокобезопасен,
+ * но последовательные печати одного потока используют его повторно (таблицы и глифы уже прочитаны).
+ */
+@Component
+public class PrintFont {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrintFont.class);
+
+    private static final String FONT_CLASSPATH = "fonts/calibri.ttf";
+    private static final String[] FS_PATHS = {
+        "/usr/share/fonts/truetype/liberation/LiberationSans-Regular.ttf",
+        "/usr/share/fonts/liberation-sans/LiberationSans-Regular.ttf",
+        "/usr/share/fonts/liberation/LiberationSans-Regular.ttf"
+    };
+
+    private volatile byte[] fontData;
+    private volatile boolean resolved;
+    private final ThreadLocal<TrueTypeFont> parsed = new ThreadLocal<>();
+
+    /**
+     * Шрифт для документа (встраивается целиком) или {@code null}, если шрифт не найден —
+     * тогда PDFBox использует встроенные шрифты.
+     */
+    public PDFont load(PDDocument doc) throws IOException {
+        byte[] data = fontData();
+        if (data == null) {
+            return null;
+        }
+        TrueTypeFont ttf = parsed.get();
+        if (ttf == null) {
+            ttf = new TTFParser().parse(new RandomAccessReadBuffer(data));
+            parsed.set(ttf);
+        }
+        return PDType0Font.load(doc, ttf, false);
+    }
+
+    private byte[] fontData() {
+        if (!resolved) {
+            synchronized (this) {
+                if (!resolved) {
+                    fontData = find();
+                    resolved = true;
+                }
+            }
+        }
+        return fontData;
+    }
+
+    private byte[] find() {
+        try (InputStream fontStream = getClass().getClassLoader().getResourceAsStream(FONT_CLASSPATH)) {
+            if (fontStream != null) {
+                logger.debug("Loading font from classpath: {}", FONT_CLASSPATH);
+                return fontStream.readAllBytes();
+            }
+        } catch (IOException e) {
+            logger.trace("Could not load font from classpath: {}", e.getMessage());
+        }
+
+        for (String path : FS_PATHS) {
+            Path file = Path.of(path);
+            if (Files.isReadable(file)) {
+                try {
+                    logger.debug("Loading font from file system: {}", path);
+                    return Files.readAllBytes(file);
+                } catch (IOException e) {
+                    logger.trace("Could not load font from {}: {}", path, e.getMessage());
+                }
+            }
+        }
+
+        logger.info("No custom Cyrillic font found, PDFBox will use built-in fallback fonts");
+        return null;
+    }
+}
@@ -0,0 +1,94 @@
+package ru.pt.files.service;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
+import org.apache.pdfbox.pdmodel.interactive.form.PDField;
+import org.apache.pdfbox.pdmodel.interactive.form.PDTextField;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Шаблоны печатных форм в памяти: байты PDF и разобранный заранее манифест полей AcroForm.
+ * <p>
+ * Тело шаблона после загрузки не меняется (новая загрузка — новый файл), поэтому запись живёт
+ * до удаления файла ({@link #evict}) или {@code pt.files.print-template-cache.ttl-seconds}
+ * (удаление на другом узле). Печать не читает тело из БД и не разбирает форму повторно.
+ */
+@Component
+public class PrintTemplateCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrintTemplateCache.class);
+
+    private final long ttlMillis;
+    private final Map<Key, PrintTemplate> templates;
+
+    public PrintTemplateCache(@Value("${pt.files.print-template-cache.max-size:64}") int maxSize,
+                              @Value("${pt.files.print-template-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.ttlMillis = ttlSeconds * 1000L;
+        this.templates = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PrintTemplate> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    /**
+     * Шаблон файла тенанта; при промахе тело читается {@code loader} и разбирается.
+     */
+    public PrintTemplate get(Long tid, Long fileId, Supplier<byte[]> loader) throws IOException {
+        Key key = new Key(tid, fileId);
+        PrintTemplate cached = templates.get(key);
+        if (cached != null && cached.loadedAt() + ttlMillis > System.currentTimeMillis()) {
+            return cached;
+        }
+        PrintTemplate template = analyse(loader.get());
+        templates.put(key, template);
+        return template;
+    }
+
+    public void evict(Long tid, Long fileId) {
+        templates.remove(new Key(tid, fileId));
+    }
+
+    private static PrintTemplate analyse(byte[] pdf) throws IOException {
+        Map<String, Field> fields = new HashMap<>();
+        boolean hasForm;
+        try (PDDocument doc = Loader.loadPDF(pdf)) {
+            PDAcroForm form = doc.getDocumentCatalog().getAcroForm();
+            hasForm = form != null;
+            if (form != null) {
+                for (PDField field : form.getFieldTree()) {
+                    if (field.getFullyQualifiedName() == null) continue;
+                    // значение поля в шаблоне — ключ переменной договора
+                    fields.put(field.getFullyQualifiedName(),
+                            new Field(field.getValueAsString(), field instanceof PDTextField));
+                }
+            }
+        }
+        logger.debug("Print template analysed: size={} bytes, fields={}", pdf.length, fields.size());
+        return new PrintTemplate(pdf, hasForm, Map.copyOf(fields), System.currentTimeMillis());
+    }
+
+    /**
+     * @param fields поле (полное имя) → ключ переменной и признак текстового поля
+     */
+    public record PrintTemplate(byte[] pdf, boolean hasForm, Map<String, Field> fields, long loadedAt) {
+    }
+
+    public record Field(String variable, boolean text) {
+    }
+
+    private record Key(Long tid, Long fileId) {
+    }
+}
@@ -1,5 +1,6 @@
 package ru.pt.files.service.email;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import ru.pt.api.dto.auth.Client;
@@ -15,20 +16,46 @@ import ru.pt.auth.service.ClientService;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Выбор шлюза e-mail клиента и отправка писем.
+ * <p>
+ * Вызывается из обработчиков outbox: очередь, повторы с задержкой и статус доставки — {@code pt_outbox}.
+ * Здесь — ограничение частоты на учётную запись шлюза ({@code pt.email.rate-per-second}, 0 — без ограничения):
+ * лимит почтового сервера действует на логин, поэтому письма разных клиентов не ждут друг друга;
+ * соединения SMTP переиспользуются {@link SmtpTransportPool}.
+ */
 @Component
 public class EmailGateService {
 
     private final Map<String, EmailClient> emailClients;
     private final ClientService clientService;
     private final FileProcessService fileProcessService;
+    private final double ratePerSecond;
+    private final Map<RateKey, SendRateLimiter> rateLimiters = new ConcurrentHashMap<>();
 
     public EmailGateService(Map<String, EmailClient> emailClients,
                             ClientService clientService,
-                            FileProcessService fileProcessService) {
+                            FileProcessService fileProcessService,
+                            @Value("${pt.email.rate-per-second:5}") double ratePerSecond) {
         this.emailClients = emailClients;
         this.clientService = clientService;
         this.fileProcessService = fileProcessService;
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    /**
+     * Отправить письмо через шлюз из настроек клиента.
+     */
+    public void send(EmailMessage message, ClientConfiguration configuration) {
+        if (configuration == null || !StringUtils.hasText(configuration.getEmailGate())) {
+            throw new IllegalStateException("Email gate is not configured for client");
+        }
+        EmailClient client = resolveClient(configuration.getEmailGate());
+        rateLimiters.computeIfAbsent(new RateKey(client.getEmailGate(), configuration.getEmailLogin()),
+                key -> new SendRateLimiter(ratePerSecond)).acquire();
+        client.sendEmail(message, configuration);
     }
 
     public EmailClient resolveForCurrentUser(Long clientId) {
@@ -41,6 +68,10 @@ public class EmailGateService {
         return resolveClient(configuration.getEmailGate());
     }
 
+    /**
+     * Письмо с печатной формой договора. Вызывается из outbox без пользователя в контексте:
+     * форма печатается в тенанте договора ({@link FileProcessService#renderPrintForm}).
+     */
     public EmailMessage buildEmailMessage(PolicyData policyData) {
         EmailMessage emailMessage = new EmailMessage();
         emailMessage.setSubject("Ваш договор страхования " + policyData.getPolicyNumber());
@@ -51,7 +82,7 @@ public class EmailGateService {
         emailAttachment.setFilename(policyData.getPolicyNumber() + ".pdf");
         emailAttachment.setContentType("application/pdf");
         emailAttachment.setContent(
-                fileProcessService.generatePrintForm(policyData.getPolicyNumber(), "POLICY")
+                fileProcessService.renderPrintForm(policyData.getPolicyNumber(), "POLICY")
         );
         emailMessage.setAttachments(List.of(emailAttachment));
         return emailMessage;
@@ -67,4 +98,6 @@ public class EmailGateService {
         return client;
     }
 
+    private record RateKey(String emailGate, String login) {
+    }
 }
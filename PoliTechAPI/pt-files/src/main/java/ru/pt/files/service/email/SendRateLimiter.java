@@ -0,0 +1,38 @@
+package ru.pt.files.service.email;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничение частоты отправки: не чаще одного письма в {@code 1 / perSecond} секунд.
+ * Каждый вызов резервирует следующий свободный интервал и ждёт его начала.
+ */
+final class SendRateLimiter {
+
+    private final long intervalNanos;
+    private long nextSlot;
+
+    SendRateLimiter(double perSecond) {
+        this.intervalNanos = perSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / perSecond) : 0L;
+    }
+
+    void acquire() {
+        if (intervalNanos == 0) {
+            return;
+        }
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextSlot);
+            nextSlot = slot + intervalNanos;
+            wait = slot - now;
+        }
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for email rate limit", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package ru.pt.files.service.email;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пул SMTP-соединений на учётную запись шлюза (хост, порт, логин).
+ * <p>
+ * Соединение после отправки возвращается в пул и используется для следующих писем той же учётной записи:
+ * TCP, TLS-рукопожатие и AUTH выполняются один раз на {@code pt.email.smtp.max-messages-per-connection} писем,
+ * а не на каждое письмо. Соединение, простоявшее дольше {@code pt.email.smtp.idle-seconds}, закрывается
+ * фоновой проверкой (серверы сами рвут долго простаивающие сессии); учётная запись без соединений
+ * и отправок за это время удаляется из пула, запись со сменившимся паролем — сразу.
+ * Число одновременных соединений на учётную запись ограничено {@code pt.email.smtp.max-connections}.
+ */
+@Component
+public class SmtpTransportPool {
+
+    private static final Logger log = LoggerFactory.getLogger(SmtpTransportPool.class);
+
+    private final int maxConnections;
+    private final long idleMillis;
+    private final int maxMessagesPerConnection;
+    private final Map<Account, Slot> slots = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper;
+
+    public SmtpTransportPool(@Value("${pt.email.smtp.max-connections:4}") int maxConnections,
+                             @Value("${pt.email.smtp.idle-seconds:60}") long idleSeconds,
+                             @Value("${pt.email.smtp.max-messages-per-connection:100}") int maxMessagesPerConnection) {
+        this.maxConnections = maxConnections;
+        this.idleMillis = idleSeconds * 1000L;
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "smtp-pool-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        long period = Math.max(idleMillis / 2, 1000L);
+        sweeper.scheduleWithFixedDelay(this::sweep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Сессия учётной записи: создаётся один раз, письма для {@link #send} строятся в ней.
+     */
+    public Session session(Account account) {
+        return slot(account).session;
+    }
+
+    /**
+     * Отправить письмо через соединение из пула. Если соединение из пула оказалось разорванным,
+     * письмо один раз повторяется через новое соединение. Отказ сервера по письму или части получателей
+     * ({@link SendFailedException}) не повторяется: принятые получатели уже получили письмо.
+     */
+    public void send(Account account, MimeMessage message) throws MessagingException {
+        Slot slot = slot(account);
+        slot.permits.acquireUninterruptibly();
+        try {
+            Connection connection = slot.borrow();
+            try {
+                connection.send(message);
+            } catch (MessagingException e) {
+                boolean broken = connection.broken(e);
+                connection.close();
+                if (!connection.reused || !broken) {
+                    throw e;
+                }
+                log.debug("Pooled SMTP connection failed, reconnecting. host={}: {}", account.host(), e.getMessage());
+                connection = slot.connect();
+                try {
+                    connection.send(message);
+                } catch (MessagingException retryError) {
+                    connection.close();
+                    throw retryError;
+                }
+            }
+            slot.giveBack(connection);
+        } finally {
+            slot.permits.release();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+        slots.values().forEach(Slot::retire);
+        slots.clear();
+    }
+
+    private Slot slot(Account account) {
+        Slot slot = slots.get(account);
+        if (slot != null) {
+            return slot;
+        }
+        // та же учётная запись с другим паролем: старые соединения больше не нужны
+        slots.entrySet().removeIf(entry -> {
+            if (!entry.getKey().equals(account) && entry.getKey().sameLogin(account)) {
+                entry.getValue().retire();
+                return true;
+            }
+            return false;
+        });
+        return slots.computeIfAbsent(account, Slot::new);
+    }
+
+    /**
+     * Закрыть простаивающие соединения и удалить неиспользуемые учётные записи.
+     */
+    void sweep() {
+        long now = System.currentTimeMillis();
+        slots.entrySet().removeIf(entry -> entry.getValue().sweep(now));
+    }
+
+    /**
+     * Учётная запись SMTP: ключ пула.
+     */
+    public record Account(String host, int port, boolean starttls, String login, String password) {
+
+        boolean sameLogin(Account other) {
+            return port == other.port && starttls == other.starttls
+                    && host.equals(other.host) && login.equals(other.login);
+        }
+
+        @Override
+        public String toString() {
+            return "Account[host=" + host + ", port=" + port + ", login=" + login + "]";
+        }
+    }
+
+    private final class Slot {
+
+        private final Account account;
+        private final Session session;
+        private final Semaphore permits = new Semaphore(maxConnections);
+        private final ConcurrentLinkedDeque<Connection> idle = new ConcurrentLinkedDeque<>();
+        private volatile long lastUsed = System.currentTimeMillis();
+        private boolean retired;
+
+        Slot(Account account) {
+            this.account = account;
+            Properties props = new Properties();
+            props.put("mail.smtp.auth", "true");
+            props.put("mail.smtp.starttls.enable", String.valueOf(account.starttls()));
+            props.put("mail.smtp.host", account.host());
+            props.put("mail.smtp.port", String.valueOf(account.port()));
+            props.put("mail.smtp.timeout", "10000");
+            props.put("mail.smtp.connectiontimeout", "10000");
+            props.put("mail.smtp.writetimeout", "10000");
+            this.session = Session.getInstance(props);
+        }
+
+        Connection borrow() throws MessagingException {
+            lastUsed = System.currentTimeMillis();
+            Connection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                if (connection.usable()) {
+                    connection.reused = true;
+                    return connection;
+                }
+                connection.close();
+            }
+            return connect();
+        }
+
+        Connection connect() throws MessagingException {
+            Transport transport = session.getTransport("smtp");
+            transport.connect(account.host(), account.port(), account.login(), account.password());
+            log.debug("SMTP connection opened. host={}, login={}", account.host(), account.login());
+            return new Connection(transport);
+        }
+
+        void giveBack(Connection connection) {
+            lastUsed = System.currentTimeMillis();
+            if (connection.sent >= maxMessagesPerConnection) {
+                connection.close();
+                return;
+            }
+            connection.lastUsed = lastUsed;
+            synchronized (this) {
+                if (!retired) {
+                    idle.offerFirst(connection);
+                    return;
+                }
+            }
+            connection.close();
+        }
+
+        /**
+         * @return {@code true}, если запись простаивает и удалена из пула
+         */
+        boolean sweep(long now) {
+            for (Connection connection : idle) {
+                if (now - connection.lastUsed >= idleMillis && idle.remove(connection)) {
+                    connection.close();
+                }
+            }
+            synchronized (this) {
+                if (idle.isEmpty() && permits.availablePermits() == maxConnections && now - lastUsed >= idleMillis) {
+                    retired = true;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Закрыть простаивающие соединения; занятые закрываются при возврате.
+         */
+        void retire() {
+            synchronized (this) {
+                retired = true;
+            }
+            Connection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                connection.close();
+            }
+        }
+    }
+
+    private final class Connection {
+
+        private final Transport transport;
+        private long lastUsed = System.currentTimeMillis();
+        private int sent;
+        private boolean reused;
+
+        Connection(Transport transport) {
+            this.transport = transport;
+        }
+
+        boolean usable() {
+            return System.currentTimeMillis() - lastUsed < idleMillis && transport.isConnected();
+        }
+
+        /**
+         * Ошибка соединения (разрыв, таймаут), а не ответ сервера на письмо.
+         */
+        boolean broken(MessagingException e) {
+            if (e instanceof SendFailedException) {
+                return false;
+            }
+            if (!transport.isConnected()) {
+                return true;
+            }
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void send(MimeMessage message) throws MessagingException {
+            message.saveChanges();
+            transport.sendMessage(message, message.getAllRecipients());
+            sent++;
+        }
+
+        void close() {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.trace("SMTP connection close failed: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -10,6 +10,7 @@ import jakarta.mail.internet.MimeMultipart;
 import jakarta.mail.util.ByteArrayDataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import ru.pt.api.dto.auth.ClientConfiguration;
@@ -18,7 +19,6 @@ import ru.pt.api.dto.email.EmailMessage;
 
 import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Properties;
 
 @Component
 public class YandexEmailClient implements EmailClient {
@@ -26,6 +26,21 @@ public class YandexEmailClient implements EmailClient {
     private static final Logger log = LoggerFactory.getLogger(YandexEmailClient.class);
     private static final String EMAIL_GATE = "yandex";
 
+    private final SmtpTransportPool transportPool;
+    private final String host;
+    private final int port;
+    private final boolean starttls;
+
+    public YandexEmailClient(SmtpTransportPool transportPool,
+                             @Value("${pt.email.yandex.host:smtp.yandex.ru}") String host,
+                             @Value("${pt.email.yandex.port:587}") int port,
+                             @Value("${pt.email.yandex.starttls:true}") boolean starttls) {
+        this.transportPool = transportPool;
+        this.host = host;
+        this.port = port;
+        this.starttls = starttls;
+    }
+
     @Override
     public String getEmailGate() {
         return EMAIL_GATE;
@@ -35,15 +50,10 @@ public class YandexEmailClient implements EmailClient {
     public void sendEmail(EmailMessage message, ClientConfiguration configuration) {
         validate(configuration, message);
 
-        Session session = Session.getInstance(buildProperties(), new Authenticator() {
-            @Override
-            protected PasswordAuthentication getPasswordAuthentication() {
-                return new PasswordAuthentication(configuration.getEmailLogin(), configuration.getEmailPassword());
-            }
-        });
-
+        SmtpTransportPool.Account account = new SmtpTransportPool.Account(
+                host, port, starttls, configuration.getEmailLogin(), configuration.getEmailPassword());
         try {
-            MimeMessage mimeMessage = new MimeMessage(session);
+            MimeMessage mimeMessage = new MimeMessage(transportPool.session(account));
             mimeMessage.setFrom(new InternetAddress(configuration.getEmailLogin()));
             mimeMessage.setRecipients(Message.RecipientType.TO, InternetAddress.parse(message.getTo()));
             mimeMessage.setSubject(nullToEmpty(message.getSubject()), StandardCharsets.UTF_8.name());
@@ -55,7 +65,7 @@ public class YandexEmailClient implements EmailClient {
                 mimeMessage.setContent(buildMultipart(message));
             }
 
-            Transport.send(mimeMessage);
+            transportPool.send(account, mimeMessage);
             log.info("Yandex email sent to {}", message.getTo());
         } catch (MessagingException ex) {
             throw new IllegalStateException("Failed to send email via Yandex", ex);
@@ -74,17 +84,6 @@ public class YandexEmailClient implements EmailClient {
         }
     }
 
-    private Properties buildProperties() {
-        Properties props = new Properties();
-        props.put("mail.smtp.auth", "true");
-        props.put("mail.smtp.starttls.enable", "true");
-        props.put("mail.smtp.host", "smtp.yandex.ru");
-        props.put("mail.smtp.port", "587");
-        props.put("mail.smtp.timeout", "10000");
-        props.put("mail.smtp.connectiontimeout", "10000");
-        return props;
-    }
-
     private void setBody(MimeMessage mimeMessage, EmailMessage message) throws MessagingException {
         if (message.isHtml()) {
             mimeMessage.setContent(nullToEmpty(message.getBody()), "text/html; charset=UTF-8");
@@ -0,0 +1,113 @@
+package ru.pt.files.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DatabaseStorageTest {
+
+    private static final int SIZE = 2 * DatabaseStorage.CHUNK_SIZE + 123;
+
+    private final FakeJdbcTemplate jdbc = new FakeJdbcTemplate();
+    private final DatabaseStorage storage = new DatabaseStorage(jdbc);
+    private final byte[] content = content();
+
+    @Test
+    void storesAndLoadsLargeObjectInChunks() throws IOException {
+        storage.store(1L, "k1", Map.of(), new ByteArrayInputStream(content));
+        assertEquals(List.of(0L, (long) DatabaseStorage.CHUNK_SIZE, 2L * DatabaseStorage.CHUNK_SIZE), jdbc.putOffsets);
+
+        try (InputStream in = storage.load("k1", Map.of())) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+        // последняя часть короче CHUNK_SIZE — дочитывать после неё не нужно
+        assertEquals(3, jdbc.gets);
+    }
+
+    @Test
+    void loadsFromOffsetAndSkipsPastBufferedChunk() throws IOException {
+        storage.store(1L, "k1", Map.of(), new ByteArrayInputStream(content));
+
+        try (InputStream in = storage.load("k1", Map.of(), DatabaseStorage.CHUNK_SIZE + 10)) {
+            assertEquals(content[DatabaseStorage.CHUNK_SIZE + 10] & 0xff, in.read());
+            assertEquals(DatabaseStorage.CHUNK_SIZE, in.skip(DatabaseStorage.CHUNK_SIZE));
+            byte[] tail = in.readAllBytes();
+            assertArrayEquals(Arrays.copyOfRange(content, 2 * DatabaseStorage.CHUNK_SIZE + 11, SIZE), tail);
+        }
+    }
+
+    @Test
+    void missingKeyFails() {
+        assertThrows(RuntimeException.class, () -> storage.load("missing", Map.of()));
+    }
+
+    private static byte[] content() {
+        byte[] bytes = new byte[SIZE];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        return bytes;
+    }
+
+    /**
+     * Один large object в памяти: lo_create/lo_put/lo_get и строка pt_file_bodies.
+     */
+    private static final class FakeJdbcTemplate extends JdbcTemplate {
+
+        private static final long OID = 77L;
+
+        private final List<Long> putOffsets = new ArrayList<>();
+        private byte[] body = new byte[0];
+        private String key;
+        private int gets;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T queryForObject(String sql, Class<T> requiredType) {
+            return (T) Long.valueOf(OID);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+            gets++;
+            int from = (int) Math.min((long) args[1], body.length);
+            int to = (int) Math.min(from + (long) (int) args[2], body.length);
+            return (T) Arrays.copyOfRange(body, from, to);
+        }
+
+        @Override
+        public <T> T query(String sql, ResultSetExtractor<T> rse, Object... args) {
+            long offset = (long) args[1];
+            byte[] chunk = (byte[]) args[2];
+            putOffsets.add(offset);
+            body = Arrays.copyOf(body, (int) offset + chunk.length);
+            System.arraycopy(chunk, 0, body, (int) offset, chunk.length);
+            return null;
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            key = (String) args[0];
+            return 1;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+            return args[0].equals(key) ? (List<T>) List.of(OID) : List.of();
+        }
+    }
+}
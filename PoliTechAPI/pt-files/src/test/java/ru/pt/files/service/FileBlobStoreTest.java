@@ -0,0 +1,135 @@
+package ru.pt.files.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import ru.pt.api.dto.auth.Tenant;
+import ru.pt.api.dto.file.FileStorageType;
+import ru.pt.api.dto.file.StorageProperty;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FileBlobStoreTest {
+
+    private final FakeJdbcTemplate jdbc = new FakeJdbcTemplate();
+    private final FileBlobStore store = new FileBlobStore(jdbc);
+
+    @Test
+    void duplicateUploadSharesBlobAndLastReleaseReturnsKey() {
+        FileBlobStore.Blob first = store.acquire("loc", "abc", "key-1", 10);
+        FileBlobStore.Blob second = store.acquire("loc", "abc", "key-2", 10);
+
+        // повторная загрузка получает уже записанный объект; key-2 удаляет вызывающий код
+        assertEquals(first.id(), second.id());
+        assertEquals("key-1", second.storageKey());
+        assertEquals(2, jdbc.blobs.get(first.id()).refCount);
+
+        assertNull(store.release(first.id()));
+        assertEquals("key-1", store.release(first.id()));
+        assertEquals(0, jdbc.blobs.size());
+        assertNull(store.release(first.id()));
+    }
+
+    @Test
+    void differentContentOrLocationGetsOwnBlob() {
+        FileBlobStore.Blob blob = store.acquire("loc", "abc", "key-1", 10);
+
+        assertNotEquals(blob.id(), store.acquire("loc", "def", "key-2", 10).id());
+        assertNotEquals(blob.id(), store.acquire("other", "abc", "key-3", 10).id());
+    }
+
+    @Test
+    void locationSeparatesTenantsAndIgnoresCredentialsAndLimits() {
+        Map<String, String> config = Map.of(StorageProperty.MAX_SIZE.getValue(), "100");
+        Map<String, String> otherLimit = Map.of(StorageProperty.MAX_SIZE.getValue(), "200");
+
+        assertEquals(FileBlobStore.location(tenant(1L, config)), FileBlobStore.location(tenant(1L, otherLimit)));
+        // общее DB-хранилище не делит содержимое между тенантами
+        assertNotEquals(FileBlobStore.location(tenant(1L, config)), FileBlobStore.location(tenant(2L, config)));
+    }
+
+    private static Tenant tenant(Long id, Map<String, String> storageConfig) {
+        return new Tenant(id, "t" + id, null, null, FileStorageType.DB, "t" + id, null, null, storageConfig, null);
+    }
+
+    /**
+     * Таблица pt_file_blobs в памяти: уникальность (location, sha256) и счётчик ссылок.
+     */
+    private static final class FakeJdbcTemplate extends JdbcTemplate {
+
+        private final Map<Long, Row> blobs = new HashMap<>();
+        private long nextId = 1;
+
+        @Override
+        public <T> T queryForObject(String sql, RowMapper<T> rowMapper, Object... args) {
+            String location = (String) args[0];
+            String sha256 = (String) args[1];
+            Row row = blobs.values().stream()
+                    .filter(b -> b.location.equals(location) && b.sha256.equals(sha256))
+                    .findFirst()
+                    .orElse(null);
+            if (row == null) {
+                row = new Row(nextId++, location, sha256, (String) args[2], (long) args[3]);
+                blobs.put(row.id, row);
+            } else {
+                row.refCount++;
+            }
+            try {
+                return rowMapper.mapRow(resultSet(row), 0);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+            Row row = blobs.get((Long) args[0]);
+            if (row == null) {
+                return List.of();
+            }
+            if (sql.startsWith("delete")) {
+                if (row.refCount > 0) {
+                    return List.of();
+                }
+                blobs.remove(row.id);
+                return (List<T>) List.of(row.storageKey);
+            }
+            row.refCount--;
+            return (List<T>) List.of(row.refCount);
+        }
+
+        private static ResultSet resultSet(Row row) {
+            Map<String, Object> columns = Map.of("id", row.id, "storage_key", row.storageKey, "size", row.size);
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] {ResultSet.class},
+                    (proxy, method, methodArgs) -> columns.get((String) methodArgs[0]));
+        }
+    }
+
+    private static final class Row {
+
+        private final long id;
+        private final String location;
+        private final String sha256;
+        private final String storageKey;
+        private final long size;
+        private int refCount = 1;
+
+        Row(long id, String location, String sha256, String storageKey, long size) {
+            this.id = id;
+            this.location = location;
+            this.sha256 = sha256;
+            this.storageKey = storageKey;
+            this.size = size;
+        }
+    }
+}
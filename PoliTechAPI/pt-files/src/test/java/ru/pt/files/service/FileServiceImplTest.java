@@ -0,0 +1,103 @@
+package ru.pt.files.service;
+
+import org.junit.jupiter.api.Test;
+import ru.pt.api.dto.auth.Tenant;
+import ru.pt.api.dto.file.FileStorageType;
+import ru.pt.api.service.auth.TenantConfig;
+import ru.pt.api.service.file.FileStorage;
+import ru.pt.files.entity.FileEntity;
+import ru.pt.files.repository.FileRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FileServiceImplTest {
+
+    private final List<String> deleted = new ArrayList<>();
+
+    @Test
+    void deleteEvictsCachedPrintTemplate() throws IOException {
+        FileEntity entity = new FileEntity();
+        entity.setId(7L);
+        entity.setTid(1L);
+        entity.setPublicId("pub-7");
+        PrintTemplateCache cache = new PrintTemplateCache(64, 600);
+        FileServiceImpl service = new FileServiceImpl(repository(entity), null, null, List.of(new FakeStorage()),
+                new FakeTenantConfig(), null, cache, null, null);
+        AtomicInteger loads = new AtomicInteger();
+        byte[] pdf = PrintTemplateCacheTest.blank();
+        cache.get(1L, 7L, () -> {
+            loads.incrementAndGet();
+            return pdf;
+        });
+
+        service.deleteGeneratedFile(1L, 7L);
+
+        assertEquals(List.of("repository:7", "storage:pub-7"), deleted);
+        // запись удалена из кэша: следующая печать читает шаблон заново
+        cache.get(1L, 7L, () -> {
+            loads.incrementAndGet();
+            return pdf;
+        });
+        assertEquals(2, loads.get());
+    }
+
+    private FileRepository repository(FileEntity entity) {
+        return (FileRepository) Proxy.newProxyInstance(FileRepository.class.getClassLoader(),
+                new Class<?>[] {FileRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findActiveById" -> Optional.of(entity);
+                    case "delete" -> deleted.add("repository:" + ((FileEntity) args[0]).getId());
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static final class FakeTenantConfig implements TenantConfig {
+
+        @Override
+        public Tenant getTenant(String tenantCode) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Tenant getTenantById(Long tenantId) {
+            return new Tenant(tenantId, "t" + tenantId, null, null, FileStorageType.FS, "t" + tenantId, null, null, Map.of(), null);
+        }
+    }
+
+    private final class FakeStorage implements FileStorage {
+
+        @Override
+        public String store(Long tid, String key, Map<String, String> config, InputStream stream) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public InputStream load(String key, Map<String, String> config) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public void delete(String key, Map<String, String> config) {
+            deleted.add("storage:" + key);
+        }
+
+        @Override
+        public boolean exists(String key, Map<String, String> config) {
+            return false;
+        }
+
+        @Override
+        public boolean supports(FileStorageType type) {
+            return type == FileStorageType.FS;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ru.pt.files.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LimitedInputStreamTest {
+
+    @Test
+    void readsUpToLimitAndCountsBytes() throws IOException {
+        LimitedInputStream in = new LimitedInputStream(new ByteArrayInputStream(new byte[] {1, 2, 3, 4}), 4);
+
+        assertEquals(1, in.read());
+        byte[] rest = in.readAllBytes();
+
+        assertArrayEquals(new byte[] {2, 3, 4}, rest);
+        assertEquals(4, in.getCount());
+        assertFalse(in.isExceeded());
+    }
+
+    @Test
+    void failsAsSoonAsLimitIsExceeded() throws IOException {
+        LimitedInputStream in = new LimitedInputStream(new ByteArrayInputStream(new byte[10]), 5);
+
+        assertEquals(3, in.skip(3));
+        assertThrows(IOException.class, () -> in.read(new byte[4], 0, 4));
+        assertTrue(in.isExceeded());
+        assertEquals(7, in.getCount());
+    }
+}
@@ -0,0 +1,117 @@
+package ru.pt.files.service;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
+import org.apache.pdfbox.pdmodel.interactive.form.PDTextField;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrintTemplateCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void secondPrintUsesCachedTemplateAndManifest() throws IOException {
+        PrintTemplateCache cache = new PrintTemplateCache(64, 600);
+        byte[] pdf = form();
+
+        PrintTemplateCache.PrintTemplate first = cache.get(1L, 7L, loader(pdf));
+        PrintTemplateCache.PrintTemplate second = cache.get(1L, 7L, loader(pdf));
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertTrue(first.hasForm());
+        assertEquals(new PrintTemplateCache.Field("pl_policyNumber", true), first.fields().get("policyNumber"));
+    }
+
+    @Test
+    void evictedOrExpiredTemplateIsLoadedAgain() throws IOException {
+        PrintTemplateCache cache = new PrintTemplateCache(64, 600);
+        byte[] pdf = blank();
+
+        cache.get(1L, 7L, loader(pdf));
+        // тот же id файла у другого тенанта — другая запись
+        cache.get(2L, 7L, loader(pdf));
+        cache.evict(1L, 7L);
+        cache.get(1L, 7L, loader(pdf));
+        cache.get(2L, 7L, loader(pdf));
+        assertEquals(3, loads.get());
+
+        PrintTemplateCache expiring = new PrintTemplateCache(64, 0);
+        expiring.get(1L, 7L, loader(pdf));
+        PrintTemplateCache.PrintTemplate template = expiring.get(1L, 7L, loader(pdf));
+        assertEquals(5, loads.get());
+        assertFalse(template.hasForm());
+    }
+
+    @Test
+    void leastRecentlyUsedTemplateIsDroppedOverMaxSize() throws IOException {
+        PrintTemplateCache cache = new PrintTemplateCache(2, 600);
+        byte[] pdf = blank();
+
+        cache.get(1L, 1L, loader(pdf));
+        cache.get(1L, 2L, loader(pdf));
+        cache.get(1L, 1L, loader(pdf));
+        cache.get(1L, 3L, loader(pdf));
+        assertEquals(3, loads.get());
+
+        cache.get(1L, 1L, loader(pdf));
+        cache.get(1L, 2L, loader(pdf));
+        assertEquals(4, loads.get());
+    }
+
+    private Supplier<byte[]> loader(byte[] pdf) {
+        return () -> {
+            loads.incrementAndGet();
+            return pdf;
+        };
+    }
+
+    static byte[] blank() throws IOException {
+        try (PDDocument doc = new PDDocument()) {
+            doc.addPage(new PDPage());
+            return save(doc);
+        }
+    }
+
+    /**
+     * Форма с одним текстовым полем; значение поля — ключ переменной договора.
+     */
+    static byte[] form() throws IOException {
+        try (PDDocument doc = new PDDocument()) {
+            doc.addPage(new PDPage());
+            PDAcroForm form = new PDAcroForm(doc);
+            form.setNeedAppearances(true);
+            PDResources resources = new PDResources();
+            resources.put(COSName.HELV, new PDType1Font(Standard14Fonts.FontName.HELVETICA));
+            form.setDefaultResources(resources);
+            form.setDefaultAppearance("/Helv 0 Tf 0 g");
+            doc.getDocumentCatalog().setAcroForm(form);
+            PDTextField field = new PDTextField(form);
+            field.setPartialName("policyNumber");
+            form.getFields().add(field);
+            field.setValue("pl_policyNumber");
+            return save(doc);
+        }
+    }
+
+    private static byte[] save(PDDocument doc) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        doc.save(out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,53 @@
+package ru.pt.files.service.email;
+
+import org.junit.jupiter.api.Test;
+import ru.pt.api.dto.auth.ClientConfiguration;
+import ru.pt.api.dto.email.EmailMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmailGateServiceTest {
+
+    private final List<String> sent = new ArrayList<>();
+    private final EmailGateService service = new EmailGateService(Map.of("yandex", new EmailClient() {
+        @Override
+        public String getEmailGate() {
+            return "yandex";
+        }
+
+        @Override
+        public void sendEmail(EmailMessage message, ClientConfiguration configuration) {
+            sent.add(configuration.getEmailLogin());
+        }
+    }), null, null, 2);
+
+    @Test
+    void rateLimitIsPerAccountNotPerGate() {
+        long started = System.nanoTime();
+        service.send(new EmailMessage(), configuration("a@tenant-a.ru"));
+        service.send(new EmailMessage(), configuration("b@tenant-b.ru"));
+        // разные учётные записи не ждут друг друга
+        assertTrue(elapsedMillis(started) < 400);
+
+        service.send(new EmailMessage(), configuration("a@tenant-a.ru"));
+        assertTrue(elapsedMillis(started) >= 450);
+        assertEquals(List.of("a@tenant-a.ru", "b@tenant-b.ru", "a@tenant-a.ru"), sent);
+    }
+
+    private static ClientConfiguration configuration(String login) {
+        ClientConfiguration configuration = new ClientConfiguration();
+        configuration.setEmailGate("Yandex");
+        configuration.setEmailLogin(login);
+        return configuration;
+    }
+
+    private static long elapsedMillis(long started) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+    }
+}
@@ -0,0 +1,53 @@
+package ru.pt.files.service.email;
+
+import jakarta.mail.Address;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.URLName;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SMTP-транспорт без сети для тестов пула: подключается через META-INF/javamail.providers.
+ * Результаты отправок задаются очередью {@link #failures}: {@code null} — письмо принято.
+ */
+public class FakeSmtpTransport extends Transport {
+
+    static final AtomicInteger connections = new AtomicInteger();
+    static final Deque<MessagingException> failures = new ArrayDeque<>();
+    static int sent;
+
+    public FakeSmtpTransport(Session session, URLName urlName) {
+        super(session, urlName);
+    }
+
+    static synchronized void reset() {
+        connections.set(0);
+        failures.clear();
+        sent = 0;
+    }
+
+    @Override
+    protected boolean protocolConnect(String host, int port, String user, String password) {
+        connections.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public void sendMessage(Message message, Address[] addresses) throws MessagingException {
+        MessagingException failure;
+        synchronized (FakeSmtpTransport.class) {
+            failure = failures.isEmpty() ? null : failures.pollFirst();
+            if (failure == null) {
+                sent++;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
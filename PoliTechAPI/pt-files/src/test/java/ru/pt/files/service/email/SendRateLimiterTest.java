@@ -0,0 +1,33 @@
+package ru.pt.files.service.email;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SendRateLimiterTest {
+
+    @Test
+    void spacesSendsByInterval() {
+        SendRateLimiter limiter = new SendRateLimiter(20);
+
+        long started = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire();
+        }
+        // первое письмо сразу, следующие через 50 мс
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) >= 95);
+    }
+
+    @Test
+    void zeroRateDoesNotWait() {
+        SendRateLimiter limiter = new SendRateLimiter(0);
+
+        long started = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            limiter.acquire();
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 500);
+    }
+}
@@ -0,0 +1,77 @@
+package ru.pt.files.service.email;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SmtpTransportPoolTest {
+
+    private final SmtpTransportPool pool = new SmtpTransportPool(2, 60, 100);
+    private final SmtpTransportPool.Account account =
+            new SmtpTransportPool.Account("smtp.test", 587, true, "agent@test.ru", "secret");
+
+    @BeforeEach
+    void resetTransport() {
+        FakeSmtpTransport.reset();
+    }
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void pooledConnectionIsReusedForNextMessage() throws Exception {
+        pool.send(account, message());
+        pool.send(account, message());
+
+        assertEquals(1, FakeSmtpTransport.connections.get());
+        assertEquals(2, FakeSmtpTransport.sent);
+    }
+
+    @Test
+    void brokenPooledConnectionIsRetriedOnceOnNewConnection() throws Exception {
+        pool.send(account, message());
+        FakeSmtpTransport.failures.add(new MessagingException("connection reset", new IOException("reset")));
+
+        pool.send(account, message());
+
+        assertEquals(2, FakeSmtpTransport.connections.get());
+        assertEquals(2, FakeSmtpTransport.sent);
+    }
+
+    @Test
+    void rejectedMessageIsNotRetried() throws Exception {
+        pool.send(account, message());
+        SendFailedException rejected = new SendFailedException("550 mailbox unavailable");
+        FakeSmtpTransport.failures.add(rejected);
+
+        // часть получателей могла уже принять письмо
+        assertSame(rejected, assertThrows(SendFailedException.class, () -> pool.send(account, message())));
+        assertEquals(1, FakeSmtpTransport.connections.get());
+    }
+
+    @Test
+    void failureOnFreshConnectionIsNotRetried() {
+        FakeSmtpTransport.failures.add(new MessagingException("connection reset", new IOException("reset")));
+
+        assertThrows(MessagingException.class, () -> pool.send(account, message()));
+        assertEquals(1, FakeSmtpTransport.connections.get());
+        assertEquals(0, FakeSmtpTransport.sent);
+    }
+
+    private MimeMessage message() throws MessagingException {
+        MimeMessage message = new MimeMessage(pool.session(account));
+        message.setText("test");
+        return message;
+    }
+}
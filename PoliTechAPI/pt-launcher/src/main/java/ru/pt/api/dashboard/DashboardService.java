@@ -34,14 +34,14 @@ public class DashboardService {
         LocalDate toDate = range[1];
 
         String period = normalizePeriodByRange(fromDate, toDate);
-        String idPathPrefix = getCurrentUserIdPathPrefix();
+        String accountPath = getCurrentUserAccountPath();
 
         List<Object[]> rows;
         switch (period) {
-            case "week" -> rows = policyIndexRepository.getWeeklyChart(fromDate, toDate, idPathPrefix);
-            case "month" -> rows = policyIndexRepository.getMonthlyChart(fromDate, toDate, idPathPrefix);
-            case "year" -> rows = policyIndexRepository.getYearlyChart(fromDate, toDate, idPathPrefix);
-            default -> rows = policyIndexRepository.getDailyChart(fromDate, toDate, idPathPrefix);
+            case "week" -> rows = policyIndexRepository.getWeeklyChart(fromDate, toDate, accountPath);
+            case "month" -> rows = policyIndexRepository.getMonthlyChart(fromDate, toDate, accountPath);
+            case "year" -> rows = policyIndexRepository.getYearlyChart(fromDate, toDate, accountPath);
+            default -> rows = policyIndexRepository.getDailyChart(fromDate, toDate, accountPath);
         }
 
         // Индексируем строки по дате периода, чтобы потом заполнить "дыры" нулями
@@ -113,8 +113,8 @@ public class DashboardService {
         LocalDate fromDate = range[0];
         LocalDate toDate = range[1];
 
-        String idPathPrefix = getCurrentUserIdPathPrefix();
-        List<Object[]> rows = policyIndexRepository.getDashboardCardsAggregates(fromDate, toDate, idPathPrefix);
+        String accountPath = getCurrentUserAccountPath();
+        List<Object[]> rows = policyIndexRepository.getDashboardCardsAggregates(fromDate, toDate, accountPath);
         Object[] row = rows.isEmpty() ? new Object[]{0L, BigDecimal.ZERO, BigDecimal.ZERO} : rows.get(0);
         long salesCount = ((Number) row[0]).longValue();
         BigDecimal totalSales = (BigDecimal) row[1];
@@ -135,9 +135,9 @@ public class DashboardService {
 
     public DashboardBarResponse getChartByProducts(LocalDate from, LocalDate to) {
         LocalDate[] range = normalizeRange(from, to);
-        String idPathPrefix = getCurrentUserIdPathPrefix();
+        String accountPath = getCurrentUserAccountPath();
 
-        List<Object[]> rows = policyIndexRepository.getDashboardByProducts(range[0], range[1], idPathPrefix);
+        List<Object[]> rows = policyIndexRepository.getDashboardByProducts(range[0], range[1], accountPath);
         List<DashboardBarPoint> points = new ArrayList<>();
         for (Object[] r : rows) {
             String label = (String) r[0];
@@ -150,9 +150,9 @@ public class DashboardService {
 
     public DashboardBarResponse getChartByClients(LocalDate from, LocalDate to) {
         LocalDate[] range = normalizeRange(from, to);
-        String idPathPrefix = getCurrentUserIdPathPrefix();
+        String accountPath = getCurrentUserAccountPath();
 
-        List<Object[]> rows = policyIndexRepository.getDashboardByClients(range[0], range[1], idPathPrefix);
+        List<Object[]> rows = policyIndexRepository.getDashboardByClients(range[0], range[1], accountPath);
         List<DashboardBarPoint> points = new ArrayList<>();
         for (Object[] r : rows) {
             String label = (String) r[0];
@@ -190,12 +190,11 @@ public class DashboardService {
         return "year";
     }
 
-    private String getCurrentUserIdPathPrefix() {
+    private String getCurrentUserAccountPath() {
         Optional<UserDetailsImpl> userOpt = securityContextHelper.getCurrentUser();
         UserDetailsImpl user = userOpt.orElseThrow(() -> new ForbiddenException("Not authenticated"));
-        String idPath = user.getAccountPath();
-        
-        return idPath + "%";
+        // поддерево аккаунта уже свёрнуто в узел node_path итогов
+        return user.getAccountPath();
     }
 
 }
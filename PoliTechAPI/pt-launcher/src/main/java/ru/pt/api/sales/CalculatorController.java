@@ -4,11 +4,13 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import ru.pt.api.dto.calculator.CalculatorModel;
 import ru.pt.api.dto.calculator.CalculatorTemplate;
 import ru.pt.api.dto.calculator.CoefficientDataRow;
 import ru.pt.api.dto.calculator.CoefficientDef;
+import ru.pt.api.dto.calculator.CoefficientImportResult;
 import ru.pt.api.dto.calculator.CalculatorTemplateLine;
 import ru.pt.api.dto.llm.LlmCalculatorAssistRequest;
 import ru.pt.api.dto.llm.LlmCalculatorAssistResponse;
@@ -19,6 +21,10 @@ import ru.pt.auth.security.UserDetailsImpl;
 
 import lombok.RequiredArgsConstructor;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 import java.util.List;
 
@@ -111,6 +117,34 @@ public class CalculatorController  {
         return ResponseEntity.ok(coefficientService.replaceTable(calculatorId, code, tableJson));
     }
 
+    /**
+     * Загрузка таблицы коэффициента из CSV (multipart, поле file): колонки col0..colN, последней — результат.
+     * PUT /api/v1/{tenantCode}/admin/calculators/{calculatorId}/coefficients/{code}/import?header=true
+     */
+    @PutMapping("/{calculatorId}/coefficients/{code}/import")
+    public ResponseEntity<CoefficientImportResult> importCoefficients(
+            @PathVariable String tenantCode,
+            @AuthenticationPrincipal UserDetailsImpl user,
+            @PathVariable("calculatorId") Long calculatorId,
+            @PathVariable("code") String code,
+            @RequestParam(value = "header", defaultValue = "true") boolean header,
+            @RequestPart("file") MultipartFile file) throws IOException {
+        CalculatorModel calculator = calculateService.getCalculatorById(user.getTenantId(), calculatorId);
+        if (calculator == null || calculator.getCoefficients() == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Optional<CoefficientDef> coefficient = calculator.getCoefficients().stream()
+                .filter(c -> c.getVarCode().equals(code))
+                .findFirst();
+        if (coefficient.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try (Reader csv = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)) {
+            return ResponseEntity.ok(coefficientService.importTable(
+                    calculatorId, code, coefficient.get().getColumns(), csv, header));
+        }
+    }
+
     @GetMapping("/{calculatorId}/coefficients/{code}/SQL")
     public ResponseEntity<String> getCoefficientSQL(
             @PathVariable String tenantCode,
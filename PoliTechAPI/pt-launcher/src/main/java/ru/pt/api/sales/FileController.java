@@ -4,13 +4,14 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import ru.pt.api.dto.file.FileDownload;
 import ru.pt.api.service.file.FileService;
@@ -18,7 +19,14 @@ import ru.pt.auth.security.UserDetailsImpl;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Контроллер для управления файлами
@@ -32,6 +40,13 @@ import java.util.Map;
 @RequestMapping("/api/v1/{tenantCode}/admin/files")
 public class FileController {
 
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d{0,18})-(\\d{0,18})");
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final FileService fileService;
 
     @PostMapping
@@ -60,33 +75,103 @@ public class FileController {
     }
 
 
+    /**
+     * Скачать файл; поддерживается один диапазон Range ({@code bytes=a-b}, {@code bytes=a-}, {@code bytes=-n}) — ответ 206.
+     * Файлы FS-хранилища отдаются через sendfile контейнера, остальные — потоком из хранилища.
+     */
     @GetMapping("/{fileId}")
-    public ResponseEntity<StreamingResponseBody> download(
+    public void download(
             @PathVariable String tenantCode,
             @AuthenticationPrincipal UserDetailsImpl user,
-            @PathVariable("fileId") Long fileId) {
-        FileDownload fd = fileService.downloadFile(fileId);
-
-        StreamingResponseBody body = outputStream -> {
-
-            try (InputStream input = fd.inputStream()) {
-                input.transferTo(outputStream);
+            @PathVariable("fileId") Long fileId,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        long[] requested = parseRange(range);
+        FileDownload fd = fileService.downloadFile(fileId, requested == null ? 0 : requested[0]);
+
+        try (InputStream input = fd.inputStream()) {
+            long size = fd.size();
+            long start = fd.offset();
+            long end = size - 1;
+            if (requested != null && requested[1] >= 0) {
+                end = Math.min(requested[1], size - 1);
+            }
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            if (requested != null && (start >= size || end < start)) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            long length = end - start + 1;
+            if (requested != null) {
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+            response.setContentType(fd.contentType());
+            response.setContentLengthLong(length);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fd.filename() + "\"");
+
+            if (fd.path() != null && length > 0 && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                // тело отдаёт контейнер после возврата из метода, без копирования через heap
+                request.setAttribute(SENDFILE_FILENAME, fd.path().toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, start);
+                request.setAttribute(SENDFILE_END, end + 1);
+                return;
             }
-    
-        };
-    
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(fd.contentType()))
-                .contentLength(fd.size())
-                .header(
-                    HttpHeaders.CONTENT_DISPOSITION,
-                    "attachment; filename=\"" + fd.filename() + "\""
-                )
-                .body(body);
+            if (fd.path() != null) {
+                try (FileChannel channel = FileChannel.open(fd.path(), StandardOpenOption.READ)) {
+                    WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+                    long position = start;
+                    while (position <= end) {
+                        long sent = channel.transferTo(position, end + 1 - position, out);
+                        if (sent <= 0) {
+                            break;
+                        }
+                        position += sent;
+                    }
+                }
+                return;
+            }
+            copy(input, response.getOutputStream(), length);
+        }
     }
 
+    /**
+     * @return {start, end} (end = -1 — до конца файла; start < 0 — последние -start байт) или null,
+     *         если заголовка нет, диапазонов несколько или end < start — тогда отдаётся весь файл
+     */
+    static long[] parseRange(String range) {
+        if (range == null) {
+            return null;
+        }
+        Matcher m = RANGE.matcher(range.trim());
+        if (!m.matches() || (m.group(1).isEmpty() && m.group(2).isEmpty())) {
+            return null;
+        }
+        if (m.group(1).isEmpty()) {
+            long suffix = Long.parseLong(m.group(2));
+            return suffix == 0 ? null : new long[] {-suffix, -1};
+        }
+        long start = Long.parseLong(m.group(1));
+        long end = m.group(2).isEmpty() ? -1 : Long.parseLong(m.group(2));
+        if (end >= 0 && end < start) {
+            // синтаксически неверный диапазон игнорируется (RFC 9110, 14.2)
+            return null;
+        }
+        return new long[] {start, end};
+    }
 
-
+    private static void copy(InputStream input, OutputStream output, long length) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long remaining = length;
+        while (remaining > 0) {
+            int read = input.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                break;
+            }
+            output.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
 }
-
-
@@ -1,9 +1,12 @@
 package ru.pt.api.sales;
 
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
@@ -15,9 +18,16 @@ import ru.pt.api.dto.errors.ErrorConstants;
 import ru.pt.api.dto.errors.ErrorModel;
 import ru.pt.api.dto.exception.BadRequestException;
 import ru.pt.api.dto.exception.NotFoundException;
+import ru.pt.api.dto.file.FileDownload;
+import ru.pt.api.dto.file.PrintFormRequest;
+import ru.pt.api.dto.file.PrintJob;
 import ru.pt.api.dto.policy.StdPolicy;
 import ru.pt.api.dto.policy.StdPolicyFormat;
+import ru.pt.api.dto.sales.PolicyExportFormat;
+import ru.pt.api.dto.sales.QuoteBatchItem;
 import ru.pt.api.dto.sales.QuoteDto;
+import ru.pt.api.dto.sales.QuotePage;
+import ru.pt.api.dto.sales.QuoteSearch;
 import ru.pt.api.security.SecuredController;
 import ru.pt.api.service.db.StorageService;
 import ru.pt.api.service.policy.StdPolicyFactory;
@@ -26,7 +36,12 @@ import ru.pt.api.service.process.ProcessOrchestrator;
 import ru.pt.auth.security.SecurityContextHelper;
 import ru.pt.auth.security.UserDetailsImpl;
 import ru.pt.db.service.DbStorageService;
+import ru.pt.process.service.PrintJobService;
+import ru.pt.process.service.QuoteBatchService;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.util.List;
 
@@ -48,23 +63,30 @@ import static org.springframework.http.MediaType.APPLICATION_JSON;
 public class SalesController extends SecuredController {
 
     private static final Logger logger = LoggerFactory.getLogger(SalesController.class);
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     private final ProcessOrchestrator processOrchestrator;
     private final StdPolicyFactory stdPolicyFactory;
     private final StorageService dbStorageService;
     private final FileProcessService fileProcessService;
+    private final QuoteBatchService quoteBatchService;
+    private final PrintJobService printJobService;
 
     public SalesController(ProcessOrchestrator processOrchestrator,
                            StdPolicyFactory stdPolicyFactory,
                            SecurityContextHelper securityContextHelper,
                            StorageService dbStorageService,
-                           FileProcessService fileProcessService
+                           FileProcessService fileProcessService,
+                           QuoteBatchService quoteBatchService,
+                           PrintJobService printJobService
     ) {
         super(securityContextHelper);
         this.processOrchestrator = processOrchestrator;
         this.stdPolicyFactory = stdPolicyFactory;
         this.dbStorageService = dbStorageService;
         this.fileProcessService = fileProcessService;
+        this.quoteBatchService = quoteBatchService;
+        this.printJobService = printJobService;
     }
 
     /**
@@ -212,13 +234,70 @@ public class SalesController extends SecuredController {
         return ResponseEntity.ok().contentType(APPLICATION_JSON).body(result);
     }
 
+    /**
+     * Пакетная котировка
+     * POST /api/v1/{tenantCode}/sales/quotes/batch
+     * Тело: массив договоров либо {"base": {...}, "variants": [{...}, ...]}.
+     * Ответ 200 с результатом по каждой позиции; ошибки отдельных договоров — в поле error.
+     */
+    @PostMapping("/quotes/batch")
+    public ResponseEntity<List<QuoteBatchItem>> quoteBatch(
+            @PathVariable("tenantCode") String tenantCode,
+            @RequestBody String requestBody) {
+
+        requireRequestBody(requestBody);
+
+        return ResponseEntity.ok(quoteBatchService.quote(requestBody));
+    }
+
+    /**
+     * Список договоров дерева текущего аккаунта, новые первыми.
+     * GET /api/v1/{tenantCode}/sales/quotes?qstr=&status=&product=&dateFrom=&dateTo=&cursor=&limit=
+     * Тело — страница договоров; курсор следующей страницы — в заголовке X-Next-Cursor (нет заголовка — страница последняя).
+     */
     @GetMapping("/quotes")
     public ResponseEntity<List<QuoteDto>> getAccountQuotes(
             @RequestParam(value = "qstr", required = false) String qstr,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "product", required = false) String productCode,
+            @RequestParam(value = "dateFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+            @RequestParam(value = "dateTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
             @PathVariable("tenantCode") String tenantCode) {
         String searchQuery = (qstr != null && !qstr.trim().isEmpty()) ? qstr.trim() : "";
-        List<QuoteDto> quotes = dbStorageService.getAccountQuotes(searchQuery);
-        return ResponseEntity.ok().body(quotes);
+        QuotePage page = dbStorageService.searchAccountQuotes(
+                new QuoteSearch(searchQuery, status, productCode, dateFrom, dateTo, cursor, limit));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
+    }
+
+    /**
+     * Выгрузка договоров дерева текущего аккаунта (реестр для бухгалтерии).
+     * GET /api/v1/{tenantCode}/sales/policies/export?format=ndjson|csv&status=&product=&dateFrom=&dateTo=&cursor=&limit=
+     * Пишется прямо в ответ по мере чтения из БД; прерванную выгрузку продолжает cursor последней полученной записи.
+     */
+    @GetMapping("/policies/export")
+    public void exportPolicies(
+            @RequestParam(value = "format", required = false) String format,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "product", required = false) String productCode,
+            @RequestParam(value = "dateFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+            @RequestParam(value = "dateTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @PathVariable("tenantCode") String tenantCode,
+            HttpServletResponse response) throws IOException {
+        PolicyExportFormat exportFormat = PolicyExportFormat.of(format);
+        response.setContentType(exportFormat.getContentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"policies." + exportFormat.getExtension() + "\"");
+        dbStorageService.exportAccountPolicies(
+                new QuoteSearch(null, status, productCode, dateFrom, dateTo, cursor, limit),
+                exportFormat, response.getOutputStream());
     }
 
     @PostMapping(value = "/policies")
@@ -229,7 +308,7 @@ public class SalesController extends SecuredController {
         requireRequestBody(requestBody);
 
         StdPolicy policy = stdPolicyFactory.build(StdPolicyFormat.INSURANCE_CONTRACT, requestBody);
-        String result = processOrchestrator.save(policy).toJson();
+        String result = processOrchestrator.save(policy).getPolicy();
         return ResponseEntity.ok().contentType(APPLICATION_JSON).body(result);
     }
 
@@ -279,6 +358,49 @@ public class SalesController extends SecuredController {
         return fileProcessService.generatePrintForm(policyNr, pfType);
     }
 
+    /**
+     * Фоновая печать набора форм
+     * POST /api/v1/{tenantCode}/sales/printpf/jobs
+     * Тело: [{"policyNumber": "...", "printFormType": "..."}, ...]. Ответ 202 с заданием;
+     * состояние — GET /printpf/jobs/{jobId}, готовые формы — по одной или ZIP-архивом.
+     */
+    @PostMapping("/printpf/jobs")
+    public ResponseEntity<PrintJob> submitPrintJob(
+            @PathVariable("tenantCode") String tenantCode,
+            @RequestBody List<PrintFormRequest> items) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(printJobService.submit(items));
+    }
+
+    @GetMapping("/printpf/jobs/{jobId}")
+    public ResponseEntity<PrintJob> getPrintJob(
+            @PathVariable("tenantCode") String tenantCode,
+            @PathVariable("jobId") Long jobId) {
+        return ResponseEntity.ok(printJobService.get(jobId));
+    }
+
+    @GetMapping("/printpf/jobs/{jobId}/items/{index}")
+    public void downloadPrintJobItem(
+            @PathVariable("tenantCode") String tenantCode,
+            @PathVariable("jobId") Long jobId,
+            @PathVariable("index") int index,
+            HttpServletResponse response) throws IOException {
+        FileDownload file = printJobService.download(jobId, index);
+        try (InputStream in = file.inputStream()) {
+            response.setContentType(file.contentType());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.filename() + "\"");
+            in.transferTo(response.getOutputStream());
+        }
+    }
+
+    @GetMapping("/printpf/jobs/{jobId}/zip")
+    public void downloadPrintJobZip(
+            @PathVariable("tenantCode") String tenantCode,
+            @PathVariable("jobId") Long jobId,
+            HttpServletResponse response) throws IOException {
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"printforms-" + jobId + ".zip\"");
+        printJobService.writeZip(jobId, response.getOutputStream());
+    }
 
     @PostMapping("/v2/quotes")
     public ResponseEntity<String> quoteV2(
@@ -0,0 +1,22 @@
+create table if not exists pt_outbox (
+    id                  bigint primary key default nextval('pt_seq'),
+    event_type          varchar(64) not null,
+    event_key           varchar(128),
+    payload             text,
+    status              varchar(16) not null default 'NEW',
+    attempts            int not null default 0,
+    next_attempt_at     timestamptz not null default now(),
+    locked_until        timestamptz,
+    last_error          text,
+    created_at          timestamptz not null default now(),
+    processed_at        timestamptz
+);
+
+create index if not exists idx_pt_outbox_pending
+    on pt_outbox (next_attempt_at, id)
+    where status in ('NEW', 'PROCESSING');
+
+-- одно незавершённое событие на (тип, ключ): повторная постановка до обработки схлопывается
+create unique index if not exists uq_pt_outbox_pending_key
+    on pt_outbox (event_type, event_key)
+    where status in ('NEW', 'PROCESSING');
@@ -0,0 +1,19 @@
+-- API-ключи хранятся как SHA-256 (hex); в token остаётся только маскированное превью для списка в админке
+alter table acc_account_tokens add column if not exists token_hash varchar(64);
+
+update acc_account_tokens
+   set token_hash = encode(sha256(convert_to(token, 'UTF8')), 'hex')
+ where token_hash is null;
+
+alter table acc_account_tokens alter column token_hash set not null;
+alter table acc_account_tokens drop constraint if exists acc_account_tokens_uk;
+
+create unique index if not exists uq_acc_account_tokens_hash_client
+    on acc_account_tokens (token_hash, client_id);
+
+-- маска не уникальна: старое ограничение unique(token, client_id) снято выше
+update acc_account_tokens
+   set token = case
+           when length(token) >= 16 then left(token, 4) || '****' || right(token, 4)
+           else left(token, 2) || '****'
+       end;
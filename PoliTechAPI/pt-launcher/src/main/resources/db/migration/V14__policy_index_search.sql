@@ -0,0 +1,17 @@
+-- Поиск в списке котировок (GET /sales/quotes): поддерево аккаунта по id_path + подстрока в номере и дайджестах
+
+create extension if not exists pg_trgm;
+
+-- id_path = :path OR id_path LIKE ':path.%'; id — порядок keyset-страниц
+create index if not exists idx_policy_index_id_path
+    on policy_index (id_path varchar_pattern_ops, id);
+
+-- ILIKE '%q%' по номеру договора, страхователю и объекту страхования
+create index if not exists idx_policy_index_policy_nr_trgm
+    on policy_index using gin (policy_nr gin_trgm_ops);
+
+create index if not exists idx_policy_index_ph_digest_trgm
+    on policy_index using gin (ph_digest gin_trgm_ops);
+
+create index if not exists idx_policy_index_io_digest_trgm
+    on policy_index using gin (io_digest gin_trgm_ops);
@@ -0,0 +1,35 @@
+-- Дневные итоги продаж для дашборда: строка на (узел дерева аккаунтов, день, тенант, продукт, клиент).
+-- Договор учитывается в каждом узле своего id_path ('1', '1.2', '1.2.4'): поддерево аккаунта читается
+-- по node_path = :path без LIKE. День — start_date::date, как в прежних запросах дашборда.
+-- Ведётся из DbStorageService (PolicySalesRollup); пустые продукт и клиент хранятся как '' и 0.
+
+create table if not exists policy_sales_daily (
+    node_path           varchar(300) not null,
+    day                 date not null,
+    tid                 bigint not null,
+    product_code        varchar(30) not null default '',
+    client_account_id   bigint not null default 0,
+    sales_count         bigint not null default 0,
+    premium_sum         numeric(20, 2) not null default 0,
+    commission_sum      numeric(20, 2) not null default 0,
+    constraint policy_sales_daily_pk primary key (node_path, day, tid, product_code, client_account_id)
+);
+
+insert into policy_sales_daily (node_path, day, tid, product_code, client_account_id,
+                                sales_count, premium_sum, commission_sum)
+select n.node_path,
+       p.start_date::date,
+       p.tid,
+       coalesce(p.product_code, ''),
+       coalesce(p.client_account_id, 0),
+       count(*),
+       coalesce(sum(p.premium), 0),
+       coalesce(sum(p.agent_kv_amount), 0)
+from policy_index p
+cross join lateral (
+    select array_to_string((string_to_array(p.id_path, '.'))[1:i], '.') as node_path
+    from generate_series(1, cardinality(string_to_array(p.id_path, '.'))) as i
+) n
+where p.start_date is not null
+group by 1, 2, 3, 4, 5
+on conflict do nothing;
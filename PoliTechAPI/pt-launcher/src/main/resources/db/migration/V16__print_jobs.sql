@@ -0,0 +1,37 @@
+-- Фоновая печать: задание на набор (договор, тип печатной формы), результат — файл в хранилище тенанта (pt_files).
+create table if not exists print_jobs (
+    id                  bigint primary key default nextval('pt_seq'),
+    tid                 bigint not null,
+    user_login          varchar(250),
+    status              varchar(16) not null default 'RUNNING',
+    total               int not null,
+    done_count          int not null default 0,
+    failed_count        int not null default 0,
+    created_at          timestamptz not null default now(),
+    finished_at         timestamptz
+);
+
+create table if not exists print_job_items (
+    id                  bigint primary key default nextval('pt_seq'),
+    job_id              bigint not null references print_jobs (id) on delete cascade,
+    item_nr             int not null,
+    policy_nr           varchar(100) not null,
+    pf_type             varchar(100) not null,
+    status              varchar(16) not null default 'NEW',
+    file_id             bigint,
+    error               text,
+    constraint print_job_items_nr_uq unique (job_id, item_nr)
+);
+
+-- Печатные формы выпущенных договоров (ISSUED/PAID): данные договора в этой версии и статусе не меняются,
+-- форма печатается один раз и дальше отдаётся из хранилища.
+create table if not exists print_form_renders (
+    tid                 bigint not null,
+    policy_nr           varchar(100) not null,
+    version_no          bigint not null default 0,
+    policy_status       varchar(30) not null,
+    pf_type             varchar(100) not null,
+    file_id             bigint not null,
+    created_at          timestamptz not null default now(),
+    constraint print_form_renders_pk primary key (tid, policy_nr, version_no, policy_status, pf_type)
+);
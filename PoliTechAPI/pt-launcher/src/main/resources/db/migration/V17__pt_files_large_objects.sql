@@ -0,0 +1,23 @@
+-- Тела файлов DB-хранилища — large objects PostgreSQL вместо bytea: запись и чтение частями,
+-- файл не собирается целиком ни в памяти приложения, ни в одной строке протокола.
+alter table pt_files add column if not exists body_oid oid;
+
+update pt_files set body_oid = lo_from_bytea(0, file_body)
+where file_body is not null and body_oid is null;
+
+alter table pt_files drop column if exists file_body;
+
+-- large object не удаляется вместе со строкой: освобождаем его при удалении файла или замене тела
+create or replace function pt_files_unlink_body() returns trigger as $$
+begin
+    if old.body_oid is not null and (tg_op = 'DELETE' or new.body_oid is distinct from old.body_oid) then
+        perform lo_unlink(old.body_oid);
+    end if;
+    return null;
+end;
+$$ language plpgsql;
+
+drop trigger if exists pt_files_unlink_body on pt_files;
+create trigger pt_files_unlink_body
+    after update of body_oid or delete on pt_files
+    for each row execute function pt_files_unlink_body();
@@ -0,0 +1,35 @@
+-- Содержимое файлов хранится по SHA-256: одинаковые байты в одном хранилище записываются один раз.
+-- pt_files — логические файлы (имя, тип, тенант), pt_file_blobs — физические объекты хранилища со счётчиком ссылок.
+-- location — отпечаток хранилища тенанта (тип и конфигурация без лимитов и ключей доступа):
+-- тенанты с общим хранилищем делят содержимое.
+create table if not exists pt_file_blobs (
+    id                  bigint primary key default nextval('pt_seq'),
+    location            varchar(64) not null,
+    sha256              varchar(64) not null,
+    storage_key         varchar(255) not null,
+    size                bigint not null,
+    ref_count           int not null,
+    created_at          timestamptz not null default now(),
+    constraint pt_file_blobs_uk unique (location, sha256)
+);
+
+-- файлы, загруженные раньше, остаются без blob_id и читаются по public_id, как прежде
+alter table pt_files add column if not exists blob_id bigint references pt_file_blobs (id);
+
+-- DB-хранилище: тела по ключу хранилища, а не по строке логического файла
+create table if not exists pt_file_bodies (
+    storage_key         varchar(255) primary key,
+    body_oid            oid not null
+);
+
+insert into pt_file_bodies (storage_key, body_oid)
+select public_id, body_oid from pt_files where body_oid is not null
+on conflict do nothing;
+
+drop trigger if exists pt_files_unlink_body on pt_files;
+alter table pt_files drop column if exists body_oid;
+
+drop trigger if exists pt_file_bodies_unlink_body on pt_file_bodies;
+create trigger pt_file_bodies_unlink_body
+    after update of body_oid or delete on pt_file_bodies
+    for each row execute function pt_files_unlink_body();
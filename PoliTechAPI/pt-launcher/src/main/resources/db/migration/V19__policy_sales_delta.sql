@@ -0,0 +1,14 @@
+-- Изменения итогов продаж: сохранение договора только добавляет строку сюда, без блокировок общих строк
+-- policy_sales_daily. PolicySalesRollup в фоне переносит строки в policy_sales_daily по узлам id_path.
+
+create table if not exists policy_sales_delta (
+    id                  bigserial primary key,
+    id_path             varchar(300) not null,
+    day                 date not null,
+    tid                 bigint not null,
+    product_code        varchar(30) not null default '',
+    client_account_id   bigint not null default 0,
+    sales_count         bigint not null,
+    premium_sum         numeric(20, 2) not null,
+    commission_sum      numeric(20, 2) not null
+);
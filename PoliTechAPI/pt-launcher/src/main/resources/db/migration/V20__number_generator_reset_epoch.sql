@@ -0,0 +1,3 @@
+-- Эпоха сброса генератора номеров: reset() увеличивает её, и узлы отбрасывают блоки, зарезервированные до сброса.
+
+alter table pt_number_generators add column if not exists reset_epoch bigint not null default 0;
@@ -0,0 +1,28 @@
+package ru.pt.api.sales;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FileControllerTest {
+
+    @Test
+    void parsesSingleByteRanges() {
+        assertArrayEquals(new long[] {0, 99}, FileController.parseRange("bytes=0-99"));
+        assertArrayEquals(new long[] {100, -1}, FileController.parseRange(" bytes=100- "));
+        assertArrayEquals(new long[] {-500, -1}, FileController.parseRange("bytes=-500"));
+        assertArrayEquals(new long[] {7, 7}, FileController.parseRange("bytes=7-7"));
+    }
+
+    @Test
+    void invalidOrMultipleRangesServeWholeFile() {
+        assertNull(FileController.parseRange(null));
+        assertNull(FileController.parseRange("bytes=-"));
+        assertNull(FileController.parseRange("bytes=-0"));
+        assertNull(FileController.parseRange("bytes=0-1,5-9"));
+        assertNull(FileController.parseRange("items=0-9"));
+        // end < start: заголовок игнорируется, ответ 200 с полным телом
+        assertNull(FileController.parseRange("bytes=10-5"));
+    }
+}
@@ -25,6 +25,9 @@ public class NumberGeneratorEntity {
     @Column(name = "last_reset", nullable = false)
     private LocalDate lastReset = LocalDate.now();
 
+    @Column(name = "reset_epoch", nullable = false)
+    private Long resetEpoch = 0L;
+
 
     public Long getId() {
         return id;
@@ -65,4 +68,12 @@ public class NumberGeneratorEntity {
     public void setLastReset(LocalDate lastReset) {
         this.lastReset = lastReset;
     }
+
+    public Long getResetEpoch() {
+        return resetEpoch;
+    }
+
+    public void setResetEpoch(Long resetEpoch) {
+        this.resetEpoch = resetEpoch;
+    }
 }
\ No newline at end of file
@@ -9,7 +9,7 @@ import ru.pt.numbers.entity.NumberGeneratorEntity;
 
 import java.util.Optional;
 
-public interface NumberGeneratorRepository extends JpaRepository<NumberGeneratorEntity, Long>, NumberGeneratorRepositoryCustom {
+public interface NumberGeneratorRepository extends JpaRepository<NumberGeneratorEntity, Long> {
 
 //    @Query("select ng from NumberGeneratorEntity ng where ng.tid = :tId and ng.code = :code")
 //    Optional<NumberGeneratorEntity> findByTidAndCode(@Param("tId") Long tId, @Param("code") String code);
@@ -22,4 +22,7 @@ public interface NumberGeneratorRepository extends JpaRepository<NumberGenerator
     @Query("select ng from NumberGeneratorEntity ng where ng.tid = :tId and ng.id = :id")
     Optional<NumberGeneratorEntity> findByTidAndIdForUpdate(@Param("tId") Long tId, @Param("id") Long id);
 
+    @Query("select ng.resetEpoch from NumberGeneratorEntity ng where ng.tid = :tId and ng.id = :id")
+    Optional<Long> findResetEpoch(@Param("tId") Long tId, @Param("id") Long id);
+
 }
\ No newline at end of file
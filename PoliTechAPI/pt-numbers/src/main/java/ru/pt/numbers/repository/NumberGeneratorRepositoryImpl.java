@@ -1,37 +0,0 @@
-package ru.pt.numbers.repository;
-
-import org.springframework.stereotype.Component;
-
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
-import jakarta.persistence.Query;
-
-@Component
-public class NumberGeneratorRepositoryImpl implements NumberGeneratorRepositoryCustom {
-
-    @PersistenceContext
-    private EntityManager entityManager;
-/* 
-    @Override
-    public Long incrementAndGetCurrentValue(Long tid, String code) {
-        Query query = entityManager.createNativeQuery(
-                "UPDATE pt_number_generators SET current_value = current_value + 1 WHERE tid = :tid AND code = :code RETURNING current_value"
-        );
-        query.setParameter("tid", tid);
-        query.setParameter("code", code);
-        Object result = query.getSingleResult();
-        return result != null ? ((Number) result).longValue() : null;
-    }
-*/
-    @Override
-    public Long incrementAndGetCurrentValue(Long tid, Long id) {
-        Query query = entityManager.createNativeQuery(
-                "UPDATE pt_number_generators SET current_value = current_value + 1 WHERE tid = :tid AND id = :id RETURNING current_value"
-        );
-        query.setParameter("tid", tid);
-        query.setParameter("id", id);
-        Object result = query.getSingleResult();
-        return result != null ? ((Number) result).longValue() : null;
-    }
-
-}
@@ -1,7 +1,7 @@
 package ru.pt.numbers.service;
 
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import ru.pt.api.dto.exception.NotFoundException;
 import ru.pt.api.dto.numbers.NumberGeneratorDescription;
@@ -10,8 +10,9 @@ import ru.pt.numbers.entity.NumberGeneratorEntity;
 import ru.pt.numbers.repository.NumberGeneratorRepository;
 
 import java.time.LocalDate;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 import ru.pt.domain.model.VariableContext;
 import org.springframework.stereotype.Component;
@@ -19,64 +20,32 @@ import lombok.RequiredArgsConstructor;
 
 /**
  * Кор реализация сервиса генерации номеров через таблицу в БД
+ * <p>
+ * Строгий режим (blockSize не задан или 1): каждый номер резервируется отдельной транзакцией, без пропусков.
+ * Блочный режим: узел резервирует blockSize номеров одной транзакцией и выдаёт их из памяти.
+ * Перед выдачей номера из блока сверяется эпоха сброса строки: после reset() на любом узле старый блок отбрасывается.
  */
 @Component
 @RequiredArgsConstructor
 public class DatabaseNumberGeneratorService implements NumberGeneratorService {
 
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseNumberGeneratorService.class);
+
     private final NumberGeneratorRepository repository;
+    private final NumberBlockAllocator allocator;
+
+    private final Map<GeneratorKey, NumberBlock> blocks = new ConcurrentHashMap<>();
+    private final Map<GeneratorKey, ReentrantLock> blockLocks = new ConcurrentHashMap<>();
+    private final Map<MaskKey, NumberMask> masks = new ConcurrentHashMap<>();
 
     @Override
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public String getNextNumber(Long tid, NumberGeneratorDescription ng, VariableContext values) {
 
-        Long currentValue = getNext(tid, ng);
-
-        String mask = ng.getMask();
-        StringBuilder resultMask = new StringBuilder(mask);
-        LocalDate today = LocalDate.now();
-
-        // Replace {KEY} patterns
-        Pattern pattern = Pattern.compile("\\{([^}]+)\\}");
-        Matcher matcher = pattern.matcher(mask);
-
-        while (matcher.find()) {
-            String key = matcher.group(1);
-            String replacement;
-
-            // Built-in date keys
-            if ("YYYY".equals(key)) {
-                replacement = Integer.toString(today.getYear());
-            } else if ("YY".equals(key)) {
-                replacement = String.format("%02d", today.getYear() % 100);
-            } else if ("MM".equals(key)) {
-                replacement = String.format("%02d", today.getMonthValue());
-            } else if (key.matches("X+")) {
-                // Handle any number of X's as sequence number (XXXX, XXX, XX, etc.)
-                int xCount = key.length();
-                //Long currentValue = ng.getCurrentValue();
-                if (ng.getXorMask() != null && !ng.getXorMask().isEmpty()) {
-                    currentValue = currentValue ^ Integer.parseInt(ng.getXorMask());
-                }
-                replacement = String.format("%0" + xCount + "d", currentValue);
-
-            } else {
-                // Get value from provided map
-                replacement = values.getString(key);
-            }
-
-            replaceAll(resultMask, matcher.group(0), replacement);
-        }
+        long currentValue = getNext(tid, ng);
 
-        return resultMask.toString();
-    }
-
-
-    private static void replaceAll(StringBuilder sb, String target, String replacement) {
-        int idx;
-        while ((idx = sb.indexOf(target)) != -1) {
-            sb.replace(idx, idx + target.length(), replacement);
-        }
+        NumberMask mask = masks.computeIfAbsent(new MaskKey(ng.getMask(), ng.getXorMask()),
+                key -> NumberMask.compile(key.mask(), key.xorMask()));
+        return mask.format(currentValue, LocalDate.now(), values);
     }
 
     @Override
@@ -97,44 +66,58 @@ public class DatabaseNumberGeneratorService implements NumberGeneratorService {
 
         nge.setCurrentValue(0L);
         nge.setLastReset(LocalDate.now());
+        nge.setResetEpoch(nge.getResetEpoch() + 1);
         repository.save(nge);
+        blocks.remove(new GeneratorKey(tid, id));
     }
 
-    private Long getNext(Long tid, NumberGeneratorDescription ng) {
-
-        NumberGeneratorEntity nge = repository.findByTidAndIdForUpdate(tid, ng.getId())
-                .orElseThrow(() -> new NotFoundException("Generator not found: " + ng.getId()));
-
-        LocalDate today = LocalDate.now();
-        switch (ng.getResetPolicy()) {
-            case YEARLY:
-                if (nge.getLastReset().getYear() != today.getYear()) {
-                    nge.setLastReset(today);
-                    nge.setCurrentValue(0L);
-                }
-                break;
-            case MONTHLY:
-                if (nge.getLastReset().getYear() != today.getYear() || nge.getLastReset().getMonth() != today.getMonth()) {
-                    nge.setLastReset(today);
-                    nge.setCurrentValue(0L);
-                }
-                break;
-            case NEVER:
+    private long getNext(Long tid, NumberGeneratorDescription ng) {
+        int blockSize = ng.getBlockSize() != null ? ng.getBlockSize() : 1;
+        if (blockSize <= 1) {
+            return allocator.reserve(tid, ng, 1).next();
         }
 
-        Long next = nge.getCurrentValue() + 1;
-        if (ng.getMaxValue() != null && next > ng.getMaxValue()) {
-            nge.setCurrentValue(0L);
+        GeneratorKey key = new GeneratorKey(tid, ng.getId());
+        long value = nextFromBlock(key, ng);
+        if (value > 0) {
+            return value;
         }
-        repository.save(nge);
+        ReentrantLock lock = blockLocks.computeIfAbsent(key, k -> new ReentrantLock());
+        lock.lock();
+        try {
+            // другой поток мог уже зарезервировать новый блок
+            value = nextFromBlock(key, ng);
+            while (value <= 0) {
+                NumberBlock block = allocator.reserve(tid, ng, blockSize);
+                blocks.put(key, block);
+                value = block.next();
+            }
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
 
-        Long newValue = repository.incrementAndGetCurrentValue(tid, ng.getId());
-        if (newValue == null) {
-            throw new NotFoundException("Generator not found: " + ng.getId());
+    private long nextFromBlock(GeneratorKey key, NumberGeneratorDescription ng) {
+        NumberBlock block = blocks.get(key);
+        if (block == null) {
+            return -1;
+        }
+        if (!block.getPeriod().equals(NumberBlockAllocator.period(ng.getResetPolicy(), LocalDate.now()))) {
+            logger.debug("Number block dropped on period change: generatorId={}", key.id());
+            return -1;
         }
-        nge.setCurrentValue(newValue);
+        if (block.getEpoch() != allocator.currentEpoch(key.tid(), key.id())) {
+            logger.debug("Number block dropped after generator reset: generatorId={}", key.id());
+            return -1;
+        }
+        return block.next();
+    }
+
+    private record GeneratorKey(Long tid, Long id) {
+    }
 
-        return newValue;
+    private record MaskKey(String mask, String xorMask) {
     }
 
 }
@@ -0,0 +1,39 @@
+package ru.pt.numbers.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Диапазон номеров [from, to], зарезервированный в БД и выдаваемый из памяти.
+ * period — период сброса (год, год-месяц), в котором блок зарезервирован: в следующем периоде блок не используется.
+ * epoch — эпоха сброса строки генератора: после ручного сброса на любом узле блок не используется.
+ */
+public final class NumberBlock {
+
+    private final long to;
+    private final String period;
+    private final long epoch;
+    private final AtomicLong next;
+
+    public NumberBlock(long from, long to, String period, long epoch) {
+        this.to = to;
+        this.period = period;
+        this.epoch = epoch;
+        this.next = new AtomicLong(from);
+    }
+
+    /**
+     * @return следующий номер блока или -1, если блок исчерпан
+     */
+    public long next() {
+        long value = next.getAndIncrement();
+        return value <= to ? value : -1;
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+}
@@ -0,0 +1,89 @@
+package ru.pt.numbers.service;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.pt.api.dto.exception.NotFoundException;
+import ru.pt.api.dto.numbers.NumberGeneratorDescription;
+import ru.pt.api.dto.numbers.ResetPolicy;
+import ru.pt.numbers.entity.NumberGeneratorEntity;
+import ru.pt.numbers.repository.NumberGeneratorRepository;
+
+import java.time.LocalDate;
+
+/**
+ * Резервирование номеров в pt_number_generators: одна короткая транзакция под блокировкой строки на блок.
+ */
+@Component
+@RequiredArgsConstructor
+public class NumberBlockAllocator {
+
+    private static final Logger logger = LoggerFactory.getLogger(NumberBlockAllocator.class);
+
+    private final NumberGeneratorRepository repository;
+
+    /**
+     * Зарезервировать до {@code size} номеров подряд.
+     * Сброс по YEARLY/MONTHLY и переход через maxValue выполняются на границе блока:
+     * блок не пересекает maxValue и начинается с 1 после сброса.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public NumberBlock reserve(Long tid, NumberGeneratorDescription ng, int size) {
+        NumberGeneratorEntity nge = repository.findByTidAndIdForUpdate(tid, ng.getId())
+                .orElseThrow(() -> new NotFoundException("Generator not found: " + ng.getId()));
+
+        LocalDate today = LocalDate.now();
+        if (!period(ng.getResetPolicy(), nge.getLastReset()).equals(period(ng.getResetPolicy(), today))) {
+            nge.setLastReset(today);
+            nge.setCurrentValue(0L);
+        }
+
+        long[] range = range(nge.getCurrentValue(), size, ng.getMaxValue());
+        nge.setCurrentValue(range[1]);
+        repository.save(nge);
+
+        logger.debug("Number block reserved: tid={}, generatorId={}, from={}, to={}", tid, ng.getId(), range[0], range[1]);
+        return new NumberBlock(range[0], range[1], period(ng.getResetPolicy(), today), nge.getResetEpoch());
+    }
+
+    /**
+     * Текущая эпоха сброса генератора: чтение без блокировки строки.
+     */
+    @Transactional(readOnly = true)
+    public long currentEpoch(Long tid, Long id) {
+        return repository.findResetEpoch(tid, id)
+                .orElseThrow(() -> new NotFoundException("Generator not found: " + id));
+    }
+
+    /**
+     * Диапазон следующего блока после current: {from, to}.
+     */
+    static long[] range(long current, int size, Long maxValue) {
+        long from = current + 1;
+        if (maxValue != null && from > maxValue) {
+            from = 1;
+        }
+        long to = from + Math.max(size, 1) - 1;
+        if (maxValue != null && to > maxValue) {
+            to = Math.max(maxValue, from);
+        }
+        return new long[]{from, to};
+    }
+
+    /**
+     * Ключ периода сброса: номера разных периодов не смешиваются.
+     */
+    static String period(ResetPolicy resetPolicy, LocalDate date) {
+        if (resetPolicy == null) {
+            return "";
+        }
+        return switch (resetPolicy) {
+            case YEARLY -> Integer.toString(date.getYear());
+            case MONTHLY -> date.getYear() + "-" + date.getMonthValue();
+            case NEVER -> "";
+        };
+    }
+}
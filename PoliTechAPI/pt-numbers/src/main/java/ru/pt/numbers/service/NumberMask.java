@@ -0,0 +1,91 @@
+package ru.pt.numbers.service;
+
+import ru.pt.domain.model.VariableContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Разобранная маска номера, например {@code NS-{YYYY}-{XXXXXX}}.
+ * <p>
+ * Ключи: {@code {YYYY}}, {@code {YY}}, {@code {MM}} — дата выдачи; {@code {X...X}} — порядковый номер
+ * с нулями до числа X (с xorMask, если задан); остальные — переменные договора.
+ */
+public final class NumberMask {
+
+    private static final Pattern KEY = Pattern.compile("\\{([^}]+)\\}");
+    private static final Pattern SEQUENCE = Pattern.compile("X+");
+
+    private final List<Part> parts;
+    private final Long xor;
+
+    private NumberMask(List<Part> parts, Long xor) {
+        this.parts = parts;
+        this.xor = xor;
+    }
+
+    public static NumberMask compile(String mask, String xorMask) {
+        List<Part> parts = new ArrayList<>();
+        Matcher matcher = KEY.matcher(mask);
+        int pos = 0;
+        while (matcher.find()) {
+            if (matcher.start() > pos) {
+                parts.add(new Part(Kind.TEXT, mask.substring(pos, matcher.start()), 0));
+            }
+            String key = matcher.group(1);
+            switch (key) {
+                case "YYYY" -> parts.add(new Part(Kind.YEAR, key, 0));
+                case "YY" -> parts.add(new Part(Kind.YEAR2, key, 0));
+                case "MM" -> parts.add(new Part(Kind.MONTH, key, 0));
+                default -> parts.add(SEQUENCE.matcher(key).matches()
+                        ? new Part(Kind.SEQUENCE, key, key.length())
+                        : new Part(Kind.VAR, key, 0));
+            }
+            pos = matcher.end();
+        }
+        if (pos < mask.length()) {
+            parts.add(new Part(Kind.TEXT, mask.substring(pos), 0));
+        }
+        Long xor = xorMask != null && !xorMask.isEmpty() ? (long) Integer.parseInt(xorMask) : null;
+        return new NumberMask(List.copyOf(parts), xor);
+    }
+
+    public String format(long sequence, LocalDate date, VariableContext values) {
+        long number = xor != null ? sequence ^ xor : sequence;
+        StringBuilder sb = new StringBuilder(32);
+        for (Part part : parts) {
+            switch (part.kind()) {
+                case TEXT -> sb.append(part.text());
+                case YEAR -> sb.append(date.getYear());
+                case YEAR2 -> pad(sb, date.getYear() % 100, 2);
+                case MONTH -> pad(sb, date.getMonthValue(), 2);
+                case SEQUENCE -> pad(sb, number, part.width());
+                case VAR -> sb.append(Objects.requireNonNull(values.getString(part.text()),
+                        () -> "Number mask variable is empty: " + part.text()));
+            }
+        }
+        return sb.toString();
+    }
+
+    /** Как {@code String.format("%0Nd")}: ширина — минимум, знак минуса перед нулями. */
+    private static void pad(StringBuilder sb, long value, int width) {
+        String digits = Long.toString(Math.abs(value));
+        if (value < 0) {
+            sb.append('-');
+            width--;
+        }
+        for (int i = digits.length(); i < width; i++) {
+            sb.append('0');
+        }
+        sb.append(digits);
+    }
+
+    private enum Kind { TEXT, YEAR, YEAR2, MONTH, SEQUENCE, VAR }
+
+    private record Part(Kind kind, String text, int width) {
+    }
+}
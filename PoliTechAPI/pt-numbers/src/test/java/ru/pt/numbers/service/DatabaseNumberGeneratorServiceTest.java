@@ -0,0 +1,86 @@
+package ru.pt.numbers.service;
+
+import org.junit.jupiter.api.Test;
+import ru.pt.api.dto.numbers.NumberGeneratorDescription;
+import ru.pt.api.dto.numbers.ResetPolicy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DatabaseNumberGeneratorServiceTest {
+
+    private final FakeAllocator allocator = new FakeAllocator();
+    private final DatabaseNumberGeneratorService service = new DatabaseNumberGeneratorService(null, allocator);
+
+    @Test
+    void blockModeHandsOutFromBlockAndReservesNextWhenExhausted() {
+        NumberGeneratorDescription ng = generator(3);
+
+        assertEquals(List.of("001", "002", "003", "004"), next(ng, 4));
+        // один резерв на блок, а не на номер
+        assertEquals(List.of(3, 3), allocator.reserved);
+    }
+
+    @Test
+    void blockReservedBeforeResetOnAnotherNodeIsDropped() {
+        NumberGeneratorDescription ng = generator(3);
+
+        assertEquals(List.of("001"), next(ng, 1));
+        allocator.current = 0;
+        allocator.epoch = 1;
+
+        assertEquals(List.of("001", "002"), next(ng, 2));
+        assertEquals(List.of(3, 3), allocator.reserved);
+    }
+
+    @Test
+    void strictModeReservesEveryNumber() {
+        NumberGeneratorDescription ng = generator(null);
+
+        assertEquals(List.of("001", "002"), next(ng, 2));
+        assertEquals(List.of(1, 1), allocator.reserved);
+    }
+
+    private List<String> next(NumberGeneratorDescription ng, int count) {
+        List<String> numbers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            numbers.add(service.getNextNumber(10L, ng, null));
+        }
+        return numbers;
+    }
+
+    private static NumberGeneratorDescription generator(Integer blockSize) {
+        NumberGeneratorDescription ng = new NumberGeneratorDescription(5L, "{XXX}", ResetPolicy.NEVER, 999L, null);
+        ng.setBlockSize(blockSize);
+        return ng;
+    }
+
+    /**
+     * Строка pt_number_generators в памяти: current_value и эпоха сброса.
+     */
+    private static final class FakeAllocator extends NumberBlockAllocator {
+
+        private final List<Integer> reserved = new ArrayList<>();
+        private long current;
+        private long epoch;
+
+        FakeAllocator() {
+            super(null);
+        }
+
+        @Override
+        public NumberBlock reserve(Long tid, NumberGeneratorDescription ng, int size) {
+            reserved.add(size);
+            long[] range = range(current, size, ng.getMaxValue());
+            current = range[1];
+            return new NumberBlock(range[0], range[1], "", epoch);
+        }
+
+        @Override
+        public long currentEpoch(Long tid, Long id) {
+            return epoch;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package ru.pt.numbers.service;
+
+import org.junit.jupiter.api.Test;
+import ru.pt.api.dto.numbers.ResetPolicy;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NumberBlockAllocatorTest {
+
+    private static final LocalDate DATE = LocalDate.of(2026, 3, 5);
+
+    @Test
+    void range_wrapsAtMaxValueOnBlockBoundary() {
+        assertArrayEquals(new long[]{1, 100}, NumberBlockAllocator.range(0, 100, 999_999L));
+        assertArrayEquals(new long[]{999_951, 999_999}, NumberBlockAllocator.range(999_950, 100, 999_999L));
+        assertArrayEquals(new long[]{1, 100}, NumberBlockAllocator.range(999_999, 100, 999_999L));
+        assertArrayEquals(new long[]{8, 8}, NumberBlockAllocator.range(7, 1, null));
+    }
+
+    @Test
+    void period_changesOnlyWithResetPolicy() {
+        assertEquals("", NumberBlockAllocator.period(ResetPolicy.NEVER, DATE));
+        assertEquals("2026", NumberBlockAllocator.period(ResetPolicy.YEARLY, DATE));
+        assertEquals("2026-3", NumberBlockAllocator.period(ResetPolicy.MONTHLY, DATE));
+    }
+}
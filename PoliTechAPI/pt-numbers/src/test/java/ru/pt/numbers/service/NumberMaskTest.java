@@ -0,0 +1,29 @@
+package ru.pt.numbers.service;
+
+import org.junit.jupiter.api.Test;
+import ru.pt.domain.model.PvVarDefinition;
+import ru.pt.domain.model.VariableContextImpl;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NumberMaskTest {
+
+    private static final LocalDate DATE = LocalDate.of(2026, 3, 5);
+
+    @Test
+    void format_replacesDateSequenceAndVariables() {
+        VariableContextImpl values = VariableContextImpl.builder()
+                .json("{\"productCode\":\"NS\"}")
+                .varDefinitions(List.of(new PvVarDefinition("pl_product", "productCode", PvVarDefinition.Type.STRING,
+                        PvVarDefinition.VarScope.DOMAIN, PvVarDefinition.VarSourceType.IN, null)))
+                .build();
+
+        assertEquals("NS-2026-03-000042/26", NumberMask.compile("{pl_product}-{YYYY}-{MM}-{XXXXXX}/{YY}", null)
+                .format(42, DATE, values));
+        assertEquals("1234567", NumberMask.compile("{XXX}", null).format(1234567, DATE, values));
+        assertEquals(String.format("%06d", 42 ^ 5), NumberMask.compile("{XXXXXX}", "5").format(42, DATE, values));
+    }
+}
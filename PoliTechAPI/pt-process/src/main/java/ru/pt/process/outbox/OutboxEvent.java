@@ -0,0 +1,9 @@
+package ru.pt.process.outbox;
+
+/**
+ * Событие outbox, взятое воркером в обработку.
+ * @param key      ключ события (обычно id договора)
+ * @param attempts номер текущей попытки, начиная с 1
+ */
+public record OutboxEvent(long id, String type, String key, String payload, int attempts) {
+}
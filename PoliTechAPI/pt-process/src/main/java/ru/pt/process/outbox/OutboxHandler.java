@@ -0,0 +1,14 @@
+package ru.pt.process.outbox;
+
+/**
+ * Обработчик событий outbox одного типа.
+ * <p>
+ * Событие может быть доставлено повторно (повтор после ошибки, истёкшая аренда после падения узла),
+ * поэтому обработка должна быть идемпотентной. Исключение — попытка неудачна, событие уходит на повтор.
+ */
+public interface OutboxHandler {
+
+    String getType();
+
+    void handle(OutboxEvent event) throws Exception;
+}
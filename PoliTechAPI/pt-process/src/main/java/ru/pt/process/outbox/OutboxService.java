@@ -0,0 +1,57 @@
+package ru.pt.process.outbox;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Постановка побочных эффектов (письма, печать, обратные вызовы оплаты) в таблицу {@code pt_outbox}.
+ * <p>
+ * Запись идёт в текущей транзакции вызывающего кода: событие появляется только вместе с данными,
+ * которые его породили. Обработка — {@link OutboxWorker} после commit.
+ */
+@Service
+public class OutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxService.class);
+
+    private static final String INSERT_SQL = """
+            insert into pt_outbox (event_type, event_key, payload)
+            values (?, ?, ?)
+            on conflict (event_type, event_key) where status in ('NEW', 'PROCESSING') do nothing
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OutboxWorker worker;
+
+    public OutboxService(JdbcTemplate jdbcTemplate, OutboxWorker worker) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.worker = worker;
+    }
+
+    /**
+     * Поставить событие в очередь.
+     * Если событие с тем же типом и ключом ещё не обработано, новое не добавляется.
+     */
+    public void enqueue(String type, String key, String payload) {
+        int inserted = jdbcTemplate.update(INSERT_SQL, type, key, payload);
+        if (inserted == 0) {
+            logger.debug("Outbox event already pending. type={}, key={}", type, key);
+            return;
+        }
+        logger.debug("Outbox event enqueued. type={}, key={}", type, key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    worker.wake();
+                }
+            });
+        } else {
+            worker.wake();
+        }
+    }
+}
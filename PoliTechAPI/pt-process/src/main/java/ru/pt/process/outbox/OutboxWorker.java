@@ -0,0 +1,250 @@
+package ru.pt.process.outbox;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Обработка событий {@code pt_outbox} пулом фиксированного размера.
+ * <p>
+ * Один поток-диспетчер опрашивает таблицу раз в {@code poll-interval-ms} или сразу после commit нового события
+ * и забирает не больше событий, чем свободных воркеров: при всплеске очередь растёт в таблице, а не в памяти.
+ * Событие забирается через {@code FOR UPDATE SKIP LOCKED} с арендой {@code lease-seconds}, поэтому
+ * несколько узлов не обрабатывают одно событие одновременно, а событие упавшего узла после аренды берётся снова.
+ * Ошибка — повтор с экспоненциальной задержкой, после {@code max-attempts} попыток событие помечается FAILED.
+ */
+@Component
+public class OutboxWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxWorker.class);
+
+    private static final String CLAIM_SQL = """
+            update pt_outbox
+               set status = 'PROCESSING', attempts = attempts + 1,
+                   locked_until = now() + ? * interval '1 second'
+             where id in (select id from pt_outbox
+                           where (status = 'NEW' and next_attempt_at <= now())
+                              or (status = 'PROCESSING' and locked_until < now())
+                           order by next_attempt_at, id
+                           limit ?
+                           for update skip locked)
+            returning id, event_type, event_key, payload, attempts
+            """;
+    private static final String DONE_SQL = """
+            update pt_outbox
+               set status = 'DONE', processed_at = now(), locked_until = null, last_error = null
+             where id = ?
+            """;
+    private static final String RETRY_SQL = """
+            update pt_outbox
+               set status = 'NEW', next_attempt_at = now() + ? * interval '1 second',
+                   locked_until = null, last_error = ?
+             where id = ?
+            """;
+    private static final String FAILED_SQL = """
+            update pt_outbox
+               set status = 'FAILED', processed_at = now(), locked_until = null, last_error = ?
+             where id = ?
+            """;
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<OutboxHandler> handlerProvider;
+    private final boolean enabled;
+    private final int workerCount;
+    private final int batchSize;
+    private final long pollIntervalMillis;
+    private final long leaseSeconds;
+    private final int maxAttempts;
+    private final long retryBaseSeconds;
+    private final long retryMaxSeconds;
+
+    /** Свободные воркеры: диспетчер забирает из таблицы не больше событий, чем есть разрешений. */
+    private final Semaphore permits;
+    private final AtomicBoolean wakeScheduled = new AtomicBoolean();
+    private volatile boolean backlog;
+    private volatile Map<String, OutboxHandler> handlers;
+    private volatile ScheduledExecutorService dispatcher;
+    private volatile ExecutorService workers;
+
+    public OutboxWorker(JdbcTemplate jdbcTemplate,
+                        ObjectProvider<OutboxHandler> handlerProvider,
+                        @Value("${pt.outbox.enabled:true}") boolean enabled,
+                        @Value("${pt.outbox.workers:4}") int workerCount,
+                        @Value("${pt.outbox.batch-size:20}") int batchSize,
+                        @Value("${pt.outbox.poll-interval-ms:2000}") long pollIntervalMillis,
+                        @Value("${pt.outbox.lease-seconds:300}") long leaseSeconds,
+                        @Value("${pt.outbox.max-attempts:8}") int maxAttempts,
+                        @Value("${pt.outbox.retry-base-seconds:10}") long retryBaseSeconds,
+                        @Value("${pt.outbox.retry-max-seconds:3600}") long retryMaxSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.handlerProvider = handlerProvider;
+        this.enabled = enabled;
+        this.workerCount = workerCount;
+        this.batchSize = batchSize;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.leaseSeconds = leaseSeconds;
+        this.maxAttempts = maxAttempts;
+        this.retryBaseSeconds = retryBaseSeconds;
+        this.retryMaxSeconds = retryMaxSeconds;
+        this.permits = new Semaphore(workerCount);
+    }
+
+    /**
+     * Запуск после старта приложения: к этому моменту миграции применены и все обработчики созданы.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            logger.info("Outbox worker is disabled");
+            return;
+        }
+        handlers = handlerProvider.orderedStream()
+                .collect(Collectors.toUnmodifiableMap(OutboxHandler::getType, Function.identity()));
+        workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactory("outbox-worker-"));
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory("outbox-dispatcher-"));
+        scheduler.scheduleWithFixedDelay(this::poll, 0L, pollIntervalMillis, TimeUnit.MILLISECONDS);
+        dispatcher = scheduler;
+        logger.info("Outbox worker started. workers={}, handlers={}", workerCount, handlers.keySet());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (dispatcher != null) {
+            dispatcher.shutdownNow();
+        }
+        if (workers != null) {
+            workers.shutdown();
+            try {
+                // необработанные события остаются в таблице и будут взяты после аренды
+                workers.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Опросить таблицу вне расписания. Повторные вызовы до начала опроса схлопываются.
+     */
+    public void wake() {
+        ScheduledExecutorService scheduler = dispatcher;
+        if (scheduler == null || !wakeScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            scheduler.execute(this::poll);
+        } catch (Exception e) {
+            wakeScheduled.set(false);
+        }
+    }
+
+    private void poll() {
+        wakeScheduled.set(false);
+        int free = permits.availablePermits();
+        if (free == 0) {
+            return;
+        }
+        int limit = Math.min(free, batchSize);
+        List<OutboxEvent> events;
+        try {
+            events = jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new OutboxEvent(
+                    rs.getLong("id"),
+                    rs.getString("event_type"),
+                    rs.getString("event_key"),
+                    rs.getString("payload"),
+                    rs.getInt("attempts")), leaseSeconds, limit);
+        } catch (DataAccessException e) {
+            logger.warn("Outbox poll failed: {}", e.getMessage());
+            return;
+        }
+        backlog = events.size() == limit;
+        for (OutboxEvent event : events) {
+            permits.acquireUninterruptibly();
+            workers.execute(() -> {
+                try {
+                    process(event);
+                } finally {
+                    permits.release();
+                    if (backlog) {
+                        wake();
+                    }
+                }
+            });
+        }
+    }
+
+    private void process(OutboxEvent event) {
+        OutboxHandler handler = handlers.get(event.type());
+        try {
+            if (handler == null) {
+                throw new IllegalStateException("No outbox handler for type " + event.type());
+            }
+            handler.handle(event);
+            jdbcTemplate.update(DONE_SQL, event.id());
+            logger.debug("Outbox event processed. id={}, type={}, key={}", event.id(), event.type(), event.key());
+        } catch (Exception e) {
+            String error = errorText(e);
+            try {
+                if (event.attempts() >= maxAttempts) {
+                    jdbcTemplate.update(FAILED_SQL, error, event.id());
+                    logger.error("Outbox event failed permanently. id={}, type={}, key={}, attempts={}",
+                            event.id(), event.type(), event.key(), event.attempts(), e);
+                } else {
+                    long delay = retryDelaySeconds(event.attempts(), retryBaseSeconds, retryMaxSeconds);
+                    jdbcTemplate.update(RETRY_SQL, delay, error, event.id());
+                    logger.warn("Outbox event failed, retry in {}s. id={}, type={}, key={}, attempt={}: {}",
+                            delay, event.id(), event.type(), event.key(), event.attempts(), error);
+                }
+            } catch (DataAccessException dbError) {
+                // статус не записан — событие будет взято снова после истечения аренды
+                logger.error("Outbox event status update failed. id={}: {}", event.id(), dbError.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Задержка перед повтором: base, 2·base, 4·base, … но не больше max.
+     */
+    static long retryDelaySeconds(int attempts, long baseSeconds, long maxSeconds) {
+        int shift = Math.min(Math.max(attempts - 1, 0), 30);
+        return Math.min(baseSeconds << shift, maxSeconds);
+    }
+
+    private static String errorText(Exception e) {
+        String text = e.getClass().getSimpleName() + ": " + e.getMessage();
+        return text.length() > MAX_ERROR_LENGTH ? text.substring(0, MAX_ERROR_LENGTH) : text;
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
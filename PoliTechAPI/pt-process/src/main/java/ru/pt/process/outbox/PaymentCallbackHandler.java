@@ -0,0 +1,27 @@
+package ru.pt.process.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.pt.api.service.process.ProcessOrchestrator;
+
+/**
+ * Подтверждение оплаты без ожидания платёжного шлюза (наличные): ключ события — id договора.
+ */
+@Component
+@RequiredArgsConstructor
+public class PaymentCallbackHandler implements OutboxHandler {
+
+    public static final String TYPE = "PAYMENT_CALLBACK";
+
+    private final ProcessOrchestrator processOrchestrator;
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        processOrchestrator.paymentCallback(event.key());
+    }
+}
@@ -0,0 +1,50 @@
+package ru.pt.process.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import ru.pt.api.dto.auth.ClientConfiguration;
+import ru.pt.api.dto.db.PolicyData;
+import ru.pt.api.service.db.StorageService;
+import ru.pt.auth.service.ClientService;
+import ru.pt.files.service.email.EmailGateService;
+
+import java.util.UUID;
+
+/**
+ * Письмо клиенту с печатной формой оплаченного договора: ключ события — id договора.
+ */
+@Component
+@RequiredArgsConstructor
+public class PolicyPaidEmailHandler implements OutboxHandler {
+
+    public static final String TYPE = "POLICY_PAID_EMAIL";
+
+    private static final Logger logger = LoggerFactory.getLogger(PolicyPaidEmailHandler.class);
+
+    private final StorageService storageService;
+    private final ClientService clientService;
+    private final EmailGateService emailGateService;
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        PolicyData policyData = storageService.getPolicyById(UUID.fromString(event.key()));
+        if (policyData == null) {
+            throw new IllegalStateException("Policy not found: " + event.key());
+        }
+        // поток воркера без пользователя: настройки клиента и печать — с тенантом договора
+        ClientConfiguration clientConfiguration =
+                clientService.getClientConfiguration(policyData.getPolicyIndex().getClientAccountId());
+        if (!clientConfiguration.isSendEmailAfterBuy()) {
+            logger.info("For client sending email is disabled, skipping. policyId={}", event.key());
+            return;
+        }
+        emailGateService.send(emailGateService.buildEmailMessage(policyData), clientConfiguration);
+    }
+}
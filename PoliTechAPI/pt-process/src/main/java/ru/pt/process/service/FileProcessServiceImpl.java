@@ -6,6 +6,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import ru.pt.api.dto.errors.ErrorConstants;
 import ru.pt.api.dto.errors.ErrorModel;
+import ru.pt.api.dto.db.PolicyStatus;
+import ru.pt.api.dto.exception.InternalServerErrorException;
 import ru.pt.api.dto.exception.NotFoundException;
 import ru.pt.api.dto.product.LobModel;
 import ru.pt.api.dto.product.LobVar;
@@ -17,6 +19,7 @@ import ru.pt.api.service.process.FileProcessService;
 import ru.pt.process.service.PreProcessService;
 import ru.pt.process.service.PostProcessService;
 import ru.pt.db.repository.PolicyIndexRepository;
+import ru.pt.db.entity.PolicyIndexEntity;
 import ru.pt.db.repository.PolicyRepository;
 import ru.pt.domain.model.PolicyCoreView;
 import ru.pt.domain.model.PvVarDefinition;
@@ -26,9 +29,14 @@ import ru.pt.product.repository.ProductRepository;
 import ru.pt.product.repository.ProductVersionRepository;
 import ru.pt.api.service.product.LobService;
 import ru.pt.api.service.product.ProductService;
+import ru.pt.api.dto.exception.UnauthorizedException;
+import ru.pt.auth.security.SecurityContextHelper;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import ru.pt.domain.model.PolicyCoreView;
 
 @Component
@@ -36,6 +44,8 @@ public class FileProcessServiceImpl implements FileProcessService {
 
     private final Logger logger = LoggerFactory.getLogger(FileProcessServiceImpl.class);
 
+    private static final String PDF = "application/pdf";
+
     private final PolicyIndexRepository policyIndexRepository;
     private final ProductRepository productRepository;
     private final PolicyRepository policyRepository;
@@ -46,6 +56,8 @@ public class FileProcessServiceImpl implements FileProcessService {
 
     private final ProductService productService;
     private final LobService lobService;
+    private final PrintFormStore printFormStore;
+    private final SecurityContextHelper securityContextHelper;
 
     public FileProcessServiceImpl(
             PolicyIndexRepository policyIndexRepository,
@@ -56,7 +68,9 @@ public class FileProcessServiceImpl implements FileProcessService {
             PreProcessService preProcessService,
             PostProcessService postProcessService,
             ProductService productService,
-            LobService lobService
+            LobService lobService,
+            PrintFormStore printFormStore,
+            SecurityContextHelper securityContextHelper
     ) {
         this.policyIndexRepository = policyIndexRepository;
         this.productRepository = productRepository;
@@ -67,23 +81,109 @@ public class FileProcessServiceImpl implements FileProcessService {
         this.postProcessService = postProcessService;
         this.productService = productService;
         this.lobService = lobService;
+        this.printFormStore = printFormStore;
+        this.securityContextHelper = securityContextHelper;
     }
 
-   @Override
+    @Override
     public byte[] generatePrintForm(String policyNumber, String printFormType) {
-        logger.info("Generating print form. policyNumber={}, printFormType={}", policyNumber, printFormType);
-        var policyIndex = policyIndexRepository
+        return printForm(findPolicyIndex(policyNumber), printFormType);
+    }
+
+    @Override
+    public byte[] renderPrintForm(String policyNumber, String printFormType) {
+        var policyIndex = policyIndexRepository.findByPolicyNumber(policyNumber)
+                .orElseThrow(() -> policyNotFound(policyNumber));
+        return printForm(policyIndex, printFormType);
+    }
+
+    @Override
+    public Long storePrintForm(String policyNumber, String printFormType) {
+        var policyIndex = findPolicyIndex(policyNumber);
+        if (isIssued(policyIndex)) {
+            return storedPrintForm(policyIndex, printFormType);
+        }
+        return fileService.storeGeneratedFile(policyIndex.getTid(), fileName(policyIndex, printFormType),
+                PDF, render(policyIndex, printFormType));
+    }
+
+    /**
+     * Печатная форма договора; тенант — тенант договора, пользователь не нужен.
+     */
+    private byte[] printForm(PolicyIndexEntity policyIndex, String printFormType) {
+        if (!isIssued(policyIndex)) {
+            return render(policyIndex, printFormType);
+        }
+        Long fileId = storedPrintForm(policyIndex, printFormType);
+        try (InputStream in = fileService.openGeneratedFile(policyIndex.getTid(), fileId).inputStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new InternalServerErrorException("Failed to read stored print form", e);
+        }
+    }
+
+    /**
+     * Форма выпущенного договора: из реестра {@link PrintFormStore}, при отсутствии — печать и регистрация.
+     */
+    private Long storedPrintForm(PolicyIndexEntity policyIndex, String printFormType) {
+        Long tid = policyIndex.getTid();
+        String policyNumber = policyIndex.getPolicyNumber();
+        long versionNo = policyIndex.getVersionNo() != null ? policyIndex.getVersionNo() : 0L;
+        String status = policyIndex.getPolicyStatus().name();
+        Optional<Long> stored = printFormStore.find(tid, policyNumber, versionNo, status, printFormType);
+        if (stored.isPresent()) {
+            logger.debug("Serving stored print form. policyNumber={}, printFormType={}, fileId={}",
+                    policyNumber, printFormType, stored.get());
+            return stored.get();
+        }
+        Long fileId = fileService.storeGeneratedFile(tid, fileName(policyIndex, printFormType),
+                PDF, render(policyIndex, printFormType));
+        Long registered = printFormStore.register(tid, policyNumber, versionNo, status, printFormType, fileId);
+        if (!registered.equals(fileId)) {
+            // параллельная печать того же ключа успела раньше: своя копия не нужна
+            logger.debug("Print form registered concurrently, dropping duplicate. policyNumber={}, fileId={}",
+                    policyNumber, fileId);
+            fileService.deleteGeneratedFile(tid, fileId);
+        }
+        return registered;
+    }
+
+    private static boolean isIssued(PolicyIndexEntity policyIndex) {
+        return policyIndex.getTid() != null
+                && (policyIndex.getPolicyStatus() == PolicyStatus.ISSUED || policyIndex.getPolicyStatus() == PolicyStatus.PAID);
+    }
+
+    private static String fileName(PolicyIndexEntity policyIndex, String printFormType) {
+        return policyIndex.getPolicyNumber() + "_" + printFormType + ".pdf";
+    }
+
+    /**
+     * Договор тенанта текущего пользователя; договор другого тенанта не находится (404).
+     */
+    private PolicyIndexEntity findPolicyIndex(String policyNumber) {
+        Long tid = securityContextHelper.getAuthenticatedUser()
+                .orElseThrow(() -> new UnauthorizedException("Unable to get current user from context"))
+                .getTenantId();
+        return policyIndexRepository
                 .findByPolicyNumber(policyNumber)
-                .orElseThrow(() -> {
-                    ErrorModel errorModel = ErrorConstants.createErrorModel(
-                        404,
-                        ErrorConstants.policyNotFound(policyNumber),
-                        ErrorConstants.DOMAIN_POLICY,
-                        ErrorConstants.REASON_NOT_FOUND,
-                        "policyNumber"
-                    );
-                    return new NotFoundException(errorModel);
-                });
+                .filter(policyIndex -> tid != null && tid.equals(policyIndex.getTid()))
+                .orElseThrow(() -> policyNotFound(policyNumber));
+    }
+
+    private static NotFoundException policyNotFound(String policyNumber) {
+        ErrorModel errorModel = ErrorConstants.createErrorModel(
+            404,
+            ErrorConstants.policyNotFound(policyNumber),
+            ErrorConstants.DOMAIN_POLICY,
+            ErrorConstants.REASON_NOT_FOUND,
+            "policyNumber"
+        );
+        return new NotFoundException(errorModel);
+    }
+
+    private byte[] render(PolicyIndexEntity policyIndex, String printFormType) {
+        String policyNumber = policyIndex.getPolicyNumber();
+        logger.info("Generating print form. policyNumber={}, printFormType={}", policyNumber, printFormType);
         var policy = policyRepository.findById(policyIndex.getId())
                 .orElseThrow(() -> {
                     ErrorModel errorModel = ErrorConstants.createErrorModel(
@@ -177,7 +277,7 @@ public class FileProcessServiceImpl implements FileProcessService {
         }
 
         logger.info("Print form resolved. policyNumber={}, fileId={}", policyNumber, fileId);
-        return fileService.getFile(fileId, varCtx);
+        return fileService.getFile(policyTid, fileId, varCtx);
     
     }
 
@@ -0,0 +1,49 @@
+package ru.pt.process.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Реестр сохранённых печатных форм выпущенных договоров ({@code print_form_renders}).
+ * Ключ — тенант, номер и версия договора, статус и тип формы; значение — файл в хранилище тенанта.
+ */
+@Repository
+public class PrintFormStore {
+
+    private static final String SELECT_SQL = """
+            select file_id from print_form_renders
+            where tid = ? and policy_nr = ? and version_no = ? and policy_status = ? and pf_type = ?
+            """;
+
+    private static final String INSERT_SQL = """
+            insert into print_form_renders (tid, policy_nr, version_no, policy_status, pf_type, file_id)
+            values (?, ?, ?, ?, ?, ?)
+            on conflict do nothing
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PrintFormStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Optional<Long> find(Long tid, String policyNr, long versionNo, String status, String pfType) {
+        List<Long> ids = jdbcTemplate.queryForList(SELECT_SQL, Long.class, tid, policyNr, versionNo, status, pfType);
+        return ids.stream().findFirst();
+    }
+
+    /**
+     * Зарегистрировать форму. При параллельной печати того же ключа остаётся первая запись.
+     *
+     * @return идентификатор зарегистрированного файла
+     */
+    public Long register(Long tid, String policyNr, long versionNo, String status, String pfType, Long fileId) {
+        if (jdbcTemplate.update(INSERT_SQL, tid, policyNr, versionNo, status, pfType, fileId) > 0) {
+            return fileId;
+        }
+        return find(tid, policyNr, versionNo, status, pfType).orElse(fileId);
+    }
+}
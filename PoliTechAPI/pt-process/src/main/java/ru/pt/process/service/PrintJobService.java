@@ -0,0 +1,284 @@
+package ru.pt.process.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import ru.pt.api.dto.errors.ErrorConstants;
+import ru.pt.api.dto.errors.ErrorModel;
+import ru.pt.api.dto.exception.BadRequestException;
+import ru.pt.api.dto.exception.NotFoundException;
+import ru.pt.api.dto.exception.ServiceUnavailableException;
+import ru.pt.api.dto.exception.UnauthorizedException;
+import ru.pt.api.dto.file.FileDownload;
+import ru.pt.api.dto.file.PrintFormRequest;
+import ru.pt.api.dto.file.PrintJob;
+import ru.pt.api.dto.file.PrintJobItem;
+import ru.pt.api.security.AuthenticatedUser;
+import ru.pt.api.service.file.FileService;
+import ru.pt.api.service.process.FileProcessService;
+import ru.pt.auth.security.SecurityContextHelper;
+import ru.pt.auth.security.context.RequestContext;
+import ru.pt.process.utils.RequestThreadContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Фоновая печать: задание на набор (договор, тип формы) печатается на общем пуле ограниченного размера
+ * ({@code pt.print.jobs.parallelism}, по умолчанию — число ядер), результат каждой позиции сохраняется
+ * в хранилище файлов тенанта ({@link FileProcessService#storePrintForm}). Формы выпущенных договоров
+ * берутся из хранилища без повторной печати. Ошибка позиции не прерывает задание.
+ * <p>
+ * Задание и результаты доступны только создавшему его пользователю. Позиций в очереди пула не больше
+ * {@code pt.print.jobs.max-pending}: задание, которое не помещается целиком, отклоняется с 503.
+ * Очередь живёт в памяти узла: позиции, оставшиеся в NEW дольше {@code pt.print.jobs.stale-minutes}
+ * (узел остановлен), при старте и затем периодически отмечаются FAILED, и задание завершается.
+ */
+@Service
+public class PrintJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrintJobService.class);
+
+    private static final long STALE_SWEEP_MINUTES = 5;
+
+    private final FileProcessService fileProcessService;
+    private final FileService fileService;
+    private final PrintJobStore printJobStore;
+    private final SecurityContextHelper securityContextHelper;
+    private final RequestContext requestContext;
+    private final int maxItems;
+    private final long staleMinutes;
+    private final ExecutorService executor;
+    /** Свободные места в очереди пула, в позициях. */
+    private final Semaphore pending;
+    private final ScheduledExecutorService staleSweeper;
+
+    public PrintJobService(FileProcessService fileProcessService,
+                           FileService fileService,
+                           PrintJobStore printJobStore,
+                           SecurityContextHelper securityContextHelper,
+                           RequestContext requestContext,
+                           @Value("${pt.print.jobs.max-items:500}") int maxItems,
+                           @Value("${pt.print.jobs.parallelism:0}") int parallelism,
+                           @Value("${pt.print.jobs.max-pending:2000}") int maxPending,
+                           @Value("${pt.print.jobs.stale-minutes:60}") long staleMinutes) {
+        this.fileProcessService = fileProcessService;
+        this.fileService = fileService;
+        this.printJobStore = printJobStore;
+        this.securityContextHelper = securityContextHelper;
+        this.requestContext = requestContext;
+        this.maxItems = maxItems;
+        this.staleMinutes = staleMinutes;
+        this.pending = new Semaphore(Math.max(maxPending, maxItems));
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactory("print-job-"));
+        this.staleSweeper = Executors.newSingleThreadScheduledExecutor(threadFactory("print-job-sweeper-"));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        staleSweeper.scheduleWithFixedDelay(this::failStale, 0L, STALE_SWEEP_MINUTES, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        staleSweeper.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Создать задание и поставить позиции в очередь печати.
+     * @return задание в статусе RUNNING
+     */
+    public PrintJob submit(List<PrintFormRequest> items) {
+        validate(items);
+        AuthenticatedUser user = getCurrentUser();
+        if (!pending.tryAcquire(items.size())) {
+            logger.warn("Print job rejected, queue is full. items={}", items.size());
+            throw new ServiceUnavailableException(ErrorConstants.createErrorModel(
+                    503,
+                    "Too many print forms in progress, retry later",
+                    ErrorConstants.DOMAIN_FILE,
+                    ErrorConstants.REASON_SERVICE_UNAVAILABLE,
+                    "items"
+            ));
+        }
+        Long jobId;
+        try {
+            jobId = printJobStore.create(user.getTenantId(), user.getUsername(), items);
+        } catch (RuntimeException e) {
+            pending.release(items.size());
+            throw e;
+        }
+        logger.info("Print job created. jobId={}, items={}", jobId, items.size());
+
+        RequestThreadContext context = RequestThreadContext.capture(requestContext);
+        for (int i = 0; i < items.size(); i++) {
+            int index = i;
+            PrintFormRequest item = items.get(i);
+            executor.execute(() -> {
+                try {
+                    context.call(requestContext, () -> {
+                        printOne(jobId, index, item);
+                        return null;
+                    });
+                } finally {
+                    pending.release();
+                }
+            });
+        }
+        return get(jobId);
+    }
+
+    public PrintJob get(Long jobId) {
+        AuthenticatedUser user = getCurrentUser();
+        return printJobStore.find(jobId, user.getTenantId(), user.getUsername())
+                .orElseThrow(() -> new NotFoundException(ErrorConstants.createErrorModel(
+                        404,
+                        "Print job not found: " + jobId,
+                        ErrorConstants.DOMAIN_FILE,
+                        ErrorConstants.REASON_NOT_FOUND,
+                        "jobId"
+                )));
+    }
+
+    /**
+     * Результат позиции задания. Поток закрывает вызывающий код.
+     */
+    public FileDownload download(Long jobId, int index) {
+        PrintJob job = get(jobId);
+        PrintJobItem item = job.items().stream()
+                .filter(i -> i.index() == index && i.fileId() != null)
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException(ErrorConstants.createErrorModel(
+                        404,
+                        "Print job item is not ready: " + jobId + "/" + index,
+                        ErrorConstants.DOMAIN_FILE,
+                        ErrorConstants.REASON_NOT_FOUND,
+                        "index"
+                )));
+        return fileService.openGeneratedFile(getCurrentUser().getTenantId(), item.fileId());
+    }
+
+    /**
+     * Записать готовые формы задания в ZIP по одной: в памяти не больше одного файла.
+     */
+    public void writeZip(Long jobId, OutputStream out) throws IOException {
+        PrintJob job = get(jobId);
+        Long tid = getCurrentUser().getTenantId();
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // PDF уже сжат внутри, повторное сжатие почти ничего не даёт
+        zip.setLevel(Deflater.BEST_SPEED);
+        int entries = 0;
+        for (PrintJobItem item : job.items()) {
+            if (item.fileId() == null) {
+                continue;
+            }
+            zip.putNextEntry(new ZipEntry(entryName(item)));
+            try (InputStream in = fileService.openGeneratedFile(tid, item.fileId()).inputStream()) {
+                in.transferTo(zip);
+            }
+            zip.closeEntry();
+            entries++;
+        }
+        zip.finish();
+        logger.debug("Print job archive written. jobId={}, entries={}", jobId, entries);
+    }
+
+    private void printOne(Long jobId, int index, PrintFormRequest item) {
+        try {
+            Long fileId = fileProcessService.storePrintForm(item.policyNumber(), item.printFormType());
+            printJobStore.itemDone(jobId, index, fileId);
+        } catch (RuntimeException e) {
+            ErrorModel error = QuoteBatchService.toErrorModel(e);
+            if (error.getCode() >= 500) {
+                logger.error("Print job item failed. jobId={}, index={}", jobId, index, e);
+            } else {
+                logger.warn("Print job item rejected. jobId={}, index={}, code={}, message={}",
+                        jobId, index, error.getCode(), e.getMessage());
+            }
+            printJobStore.itemFailed(jobId, index, error.getMessage());
+        }
+    }
+
+    void failStale() {
+        try {
+            int jobs = printJobStore.failStale(staleMinutes, "Print job was interrupted by application restart");
+            if (jobs > 0) {
+                logger.warn("Stale print job items marked failed. jobs={}", jobs);
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Stale print job sweep failed: {}", e.getMessage());
+        }
+    }
+
+    static String entryName(PrintJobItem item) {
+        String name = (item.index() + 1) + "_" + item.policyNumber() + "_" + item.printFormType();
+        return name.replaceAll("[^\\p{L}\\p{N}._-]", "_") + ".pdf";
+    }
+
+    private void validate(List<PrintFormRequest> items) {
+        if (items == null || items.isEmpty()) {
+            throw new BadRequestException(ErrorConstants.createErrorModel(
+                    400,
+                    ErrorConstants.missingRequiredField("items"),
+                    ErrorConstants.DOMAIN_FILE,
+                    ErrorConstants.REASON_MISSING_REQUIRED,
+                    "items"
+            ));
+        }
+        if (items.size() > maxItems) {
+            throw invalidFormat("Too many print forms in job: " + items.size() + ", max " + maxItems);
+        }
+        for (PrintFormRequest item : items) {
+            if (item == null || item.policyNumber() == null || item.policyNumber().isBlank()
+                    || item.printFormType() == null || item.printFormType().isBlank()) {
+                throw invalidFormat("Each item requires policyNumber and printFormType");
+            }
+        }
+    }
+
+    private static BadRequestException invalidFormat(String message) {
+        return new BadRequestException(ErrorConstants.createErrorModel(
+                400,
+                message,
+                ErrorConstants.DOMAIN_FILE,
+                ErrorConstants.REASON_INVALID_FORMAT,
+                "items"
+        ));
+    }
+
+    private AuthenticatedUser getCurrentUser() {
+        return securityContextHelper.getAuthenticatedUser()
+                .orElseThrow(() -> new UnauthorizedException("Unable to get current user from context"));
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,173 @@
+package ru.pt.process.service;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.pt.api.dto.file.PrintFormRequest;
+import ru.pt.api.dto.file.PrintJob;
+import ru.pt.api.dto.file.PrintJobItem;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Задания фоновой печати ({@code print_jobs}) и их позиции ({@code print_job_items}).
+ * Счётчики задания обновляются одним UPDATE на позицию; последняя позиция переводит задание в DONE.
+ * Позиция меняет статус только из NEW, поэтому повторная отметка (например, после {@link #failStale}) счётчики не сбивает.
+ */
+@Repository
+public class PrintJobStore {
+
+    private static final String INSERT_JOB_SQL = """
+            insert into print_jobs (tid, user_login, total) values (?, ?, ?) returning id
+            """;
+
+    private static final String INSERT_ITEM_SQL = """
+            insert into print_job_items (job_id, item_nr, policy_nr, pf_type) values (?, ?, ?, ?)
+            """;
+
+    private static final String ITEM_DONE_SQL = """
+            update print_job_items set status = 'DONE', file_id = ? where job_id = ? and item_nr = ? and status = 'NEW'
+            """;
+
+    private static final String ITEM_FAILED_SQL = """
+            update print_job_items set status = 'FAILED', error = ? where job_id = ? and item_nr = ? and status = 'NEW'
+            """;
+
+    private static final String JOB_PROGRESS_SQL = """
+            update print_jobs
+            set done_count = done_count + ?,
+                failed_count = failed_count + ?,
+                status = case when done_count + failed_count + 1 >= total then 'DONE' else status end,
+                finished_at = case when done_count + failed_count + 1 >= total then now() else finished_at end
+            where id = ?
+            """;
+
+    private static final String FAIL_STALE_SQL = """
+            with stale as (
+                update print_job_items i
+                   set status = 'FAILED', error = ?
+                  from print_jobs j
+                 where j.id = i.job_id
+                   and j.status = 'RUNNING'
+                   and j.created_at < now() - ? * interval '1 minute'
+                   and i.status = 'NEW'
+                returning i.job_id
+            ), counts as (
+                select job_id, count(*) as failed from stale group by job_id
+            )
+            update print_jobs j
+               set failed_count = j.failed_count + c.failed,
+                   status = case when j.done_count + j.failed_count + c.failed >= j.total then 'DONE' else j.status end,
+                   finished_at = case when j.done_count + j.failed_count + c.failed >= j.total then now() else j.finished_at end
+              from counts c
+             where j.id = c.job_id
+            """;
+
+    private static final String SELECT_JOB_SQL = """
+            select id, status, total, done_count, failed_count, created_at, finished_at
+            from print_jobs
+            where id = ? and tid = ? and user_login = ?
+            """;
+
+    private static final String SELECT_ITEMS_SQL = """
+            select item_nr, policy_nr, pf_type, status, file_id, error
+            from print_job_items
+            where job_id = ?
+            order by item_nr
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public PrintJobStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * @return идентификатор задания
+     */
+    public Long create(Long tid, String login, List<PrintFormRequest> items) {
+        return transactionTemplate.execute(status -> {
+            Long jobId = jdbcTemplate.queryForObject(INSERT_JOB_SQL, Long.class, tid, login, items.size());
+            jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setLong(1, jobId);
+                    ps.setInt(2, i);
+                    ps.setString(3, items.get(i).policyNumber());
+                    ps.setString(4, items.get(i).printFormType());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return items.size();
+                }
+            });
+            return jobId;
+        });
+    }
+
+    public void itemDone(Long jobId, int index, Long fileId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (jdbcTemplate.update(ITEM_DONE_SQL, fileId, jobId, index) > 0) {
+                jdbcTemplate.update(JOB_PROGRESS_SQL, 1, 0, jobId);
+            }
+        });
+    }
+
+    public void itemFailed(Long jobId, int index, String error) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (jdbcTemplate.update(ITEM_FAILED_SQL, error, jobId, index) > 0) {
+                jdbcTemplate.update(JOB_PROGRESS_SQL, 0, 1, jobId);
+            }
+        });
+    }
+
+    /**
+     * Отметить FAILED позиции NEW заданий старше {@code staleMinutes}: их очередь осталась в остановленном узле.
+     * @return число заданий, в которых были такие позиции
+     */
+    public int failStale(long staleMinutes, String error) {
+        return jdbcTemplate.update(FAIL_STALE_SQL, error, staleMinutes);
+    }
+
+    /**
+     * Задание с позициями; чужие задания (другой тенант или пользователь) не находятся.
+     */
+    public Optional<PrintJob> find(Long jobId, Long tid, String login) {
+        List<PrintJob> jobs = jdbcTemplate.query(SELECT_JOB_SQL, (rs, n) -> new PrintJob(
+                rs.getLong("id"),
+                rs.getString("status"),
+                rs.getInt("total"),
+                rs.getInt("done_count"),
+                rs.getInt("failed_count"),
+                rs.getObject("created_at", OffsetDateTime.class),
+                rs.getObject("finished_at", OffsetDateTime.class),
+                null), jobId, tid, login);
+        if (jobs.isEmpty()) {
+            return Optional.empty();
+        }
+        PrintJob job = jobs.get(0);
+        List<PrintJobItem> items = jdbcTemplate.query(SELECT_ITEMS_SQL, PrintJobStore::item, jobId);
+        return Optional.of(new PrintJob(job.id(), job.status(), job.total(), job.done(), job.failed(),
+                job.createdAt(), job.finishedAt(), items));
+    }
+
+    private static PrintJobItem item(ResultSet rs, int rowNum) throws SQLException {
+        return new PrintJobItem(
+                rs.getInt("item_nr"),
+                rs.getString("policy_nr"),
+                rs.getString("pf_type"),
+                rs.getString("status"),
+                rs.getObject("file_id", Long.class),
+                rs.getString("error"));
+    }
+}
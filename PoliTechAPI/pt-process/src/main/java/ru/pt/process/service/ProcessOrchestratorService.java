@@ -10,9 +10,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import ru.pt.api.dto.auth.Client;
 import ru.pt.api.dto.auth.ClientConfiguration;
-import ru.pt.api.dto.calculator.CalculatorModel;
 import ru.pt.api.dto.policy.Cover;
 import ru.pt.api.dto.policy.Installment;
 import ru.pt.api.dto.policy.InsuredObject;
@@ -62,8 +60,10 @@ import ru.pt.domain.model.TextDocumentView;
 import ru.pt.domain.model.VariableContext;
 import ru.pt.domain.process.document.ProcessList;
 import ru.pt.domain.process.document.ValidatorType;
-import ru.pt.files.service.email.EmailGateService;
 import ru.pt.payments.service.PaymentClientSwitch;
+import ru.pt.process.outbox.OutboxService;
+import ru.pt.process.outbox.PaymentCallbackHandler;
+import ru.pt.process.outbox.PolicyPaidEmailHandler;
 import ru.pt.process.utils.MdcWrapper;
 
 import java.util.ArrayList;
@@ -71,8 +71,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import ru.pt.api.dto.product.InsuranceCompanyDto;
@@ -90,7 +88,6 @@ public class ProcessOrchestratorService implements ProcessOrchestrator {
     private final Logger logger = LoggerFactory.getLogger(ProcessOrchestratorService.class);
 
     private final ObjectWriter objectWriter = new ObjectMapper().writerWithDefaultPrettyPrinter();
-    private final ExecutorService executorService = Executors.newCachedThreadPool();
 
     private final StorageService storageService;
     private final SecurityContextHelper securityContextHelper;
@@ -100,13 +97,13 @@ public class ProcessOrchestratorService implements ProcessOrchestrator {
     private final PostProcessService postProcessService;
     private final PaymentClientSwitch paymentClient;
     private final ClientService clientService;
-    private final EmailGateService emailGateService;
     private final AuthorizationService authorizationService;
     private final PaymentService paymentService;
     private final PolicyAddOnService policyAddOnService;
     private final RuleValidationService ruleValidationService;
     private final RequestContext requestContext;
     private final PolicyProcessSupport policyProcessSupport;
+    private final OutboxService outboxService;
     /**
      * Get current authenticated user from security context.
      * @return AuthenticatedUser representing the current user
@@ -134,22 +131,16 @@ public class ProcessOrchestratorService implements ProcessOrchestrator {
 
         addMandatoryVars(stdPolicy, varCtx);
 
-        CalculatorModel calculatorModel = calculatorService.getCalculator(
+        logger.debug("Running calculator for product {} version {} package {}", 
+            product.getId(), product.getVersionNo(), stdPolicy.getInsuredObjects().get(0).getPackageCode());
+        boolean calculated = calculatorService.runCalculator(
             tenantId,
             product.getId(), 
             product.getVersionNo(), 
-            stdPolicy.getInsuredObjects().get(0).getPackageCode());
-
-        if (calculatorModel != null) {
-            logger.debug("Running calculator for product {} version {} package {}", 
-                product.getId(), product.getVersionNo(), stdPolicy.getInsuredObjects().get(0).getPackageCode());
-            calculatorService.runCalculator(
-                tenantId,
-                product.getId(), 
-                product.getVersionNo(), 
-                stdPolicy.getInsuredObjects().get(0).getPackageCode(), 
-                varCtx );
+            stdPolicy.getInsuredObjects().get(0).getPackageCode(), 
+            varCtx );
 
+        if (calculated) {
                 postProcessService.setCovers(stdPolicy.getInsuredObjects().get(0), varCtx);
 
         } else {
@@ -260,7 +251,7 @@ public class ProcessOrchestratorService implements ProcessOrchestrator {
     }
 
     @Override
-    public StdPolicy save(StdPolicy stdPolicy) {
+    public PolicyData save(StdPolicy stdPolicy) {
         logger.info("Starting save process");
 
         AuthenticatedUser user = getCurrentUser();
@@ -340,14 +331,15 @@ public class ProcessOrchestratorService implements ProcessOrchestrator {
 
         /* Сохранить договор в хранилище */
         logger.debug("Saving policy to storage. policyNumber={}", nextNumber);
-        storageService.save(stdPolicy, getCurrentUser());
+        PolicyData saved = storageService.save(stdPolicy, getCurrentUser());
 
         stdPolicy.setProcessList(null);
 
         paymentService.save(user.getTenantId(), stdPolicy.getId(), installmentsDto);
 
         logger.info("Save process completed. policyNumber={}, premium={}", nextNumber, stdPolicy.getPremium());
-        return stdPolicy;
+        // JSON хранилища записан без processList — тот же, что вернул бы stdPolicy.toJson()
+        return saved;
     }
 
     @Override
@@ -370,7 +362,7 @@ public class ProcessOrchestratorService implements ProcessOrchestrator {
         PaymentData response = paymentClient.getCurrentPaymentClient().createPayment(paymentData);
         if (paymentData.getPaymentType().equals(PaymentType.CASH)) {
             logger.info("Received CASH request, no need to wait for payment confirmation");
-            executorService.submit(() -> paymentCallback(paymentData.getPolicyNumber()));
+            outboxService.enqueue(PaymentCallbackHandler.TYPE, paymentData.getPolicyNumber(), null);
         }
         return response;
     }
@@ -421,11 +413,12 @@ public class ProcessOrchestratorService implements ProcessOrchestrator {
         policyData.setPolicyStatus(PolicyStatus.PAID);
         storageService.update(policyData);
 
-        Client clientById = clientService.getClientById(policyData.getPolicyIndex().getClientAccountId());
-        ClientConfiguration clientConfiguration = clientById.getClientConfiguration();
+        // вызывается и из outbox (оплата наличными), где пользователя в потоке нет
+        ClientConfiguration clientConfiguration =
+                clientService.getClientConfiguration(policyData.getPolicyIndex().getClientAccountId());
         if (clientConfiguration.isSendEmailAfterBuy()) {
-            emailGateService.resolveForCurrentUser(clientById.getId())
-                    .sendEmail(emailGateService.buildEmailMessage(policyData), clientConfiguration);
+            // печатная форма и SMTP — в outbox, ответ платёжному шлюзу не ждёт отправки
+            outboxService.enqueue(PolicyPaidEmailHandler.TYPE, policyUuid.toString(), null);
         } else {
             logger.info("For client sending email is disabled, skipping");
         }
@@ -0,0 +1,253 @@
+package ru.pt.process.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authorization.AuthorizationDeniedException;
+import org.springframework.stereotype.Service;
+import ru.pt.api.dto.errors.ErrorConstants;
+import ru.pt.api.dto.errors.ErrorModel;
+import ru.pt.api.dto.exception.BadRequestException;
+import ru.pt.api.dto.exception.ForbiddenException;
+import ru.pt.api.dto.exception.InternalServerErrorException;
+import ru.pt.api.dto.exception.NotFoundException;
+import ru.pt.api.dto.exception.ServiceUnavailableException;
+import ru.pt.api.dto.exception.UnauthorizedException;
+import ru.pt.api.dto.exception.UnprocessableEntityException;
+import ru.pt.api.dto.policy.StdPolicy;
+import ru.pt.api.dto.policy.StdPolicyFormat;
+import ru.pt.api.dto.sales.QuoteBatchItem;
+import ru.pt.api.service.policy.StdPolicyFactory;
+import ru.pt.api.service.process.ProcessOrchestrator;
+import ru.pt.auth.security.context.RequestContext;
+import ru.pt.process.utils.RequestThreadContext;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Пакетная котировка: N договоров за один HTTP-запрос.
+ * <p>
+ * Каждый договор считается обычным {@link ProcessOrchestrator#quote(StdPolicy)} на общем пуле
+ * ограниченного размера. Версия продукта, план калькулятора и CEL-программы берутся из общих кэшей,
+ * поэтому повторно загружаются только при первом обращении. Ошибка одного договора не прерывает пакет:
+ * результат возвращается по каждой позиции в исходном порядке.
+ * <p>
+ * Число договоров, ожидающих расчёта или считающихся, ограничено {@code pt.sales.quote-batch.max-pending}:
+ * пакет, который не помещается целиком, сразу отклоняется с 503, а не копится в очереди пула.
+ */
+@Service
+public class QuoteBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuoteBatchService.class);
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ProcessOrchestrator processOrchestrator;
+    private final StdPolicyFactory stdPolicyFactory;
+    private final RequestContext requestContext;
+    private final int maxItems;
+    private final ExecutorService executor;
+    /** Свободные места в очереди пула, в договорах. */
+    private final Semaphore pending;
+
+    public QuoteBatchService(ProcessOrchestrator processOrchestrator,
+                             StdPolicyFactory stdPolicyFactory,
+                             RequestContext requestContext,
+                             @Value("${pt.sales.quote-batch.max-items:50}") int maxItems,
+                             @Value("${pt.sales.quote-batch.parallelism:8}") int parallelism,
+                             @Value("${pt.sales.quote-batch.max-pending:400}") int maxPending) {
+        this.processOrchestrator = processOrchestrator;
+        this.stdPolicyFactory = stdPolicyFactory;
+        this.requestContext = requestContext;
+        this.maxItems = maxItems;
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactory());
+        this.pending = new Semaphore(Math.max(maxPending, maxItems));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Рассчитать пакет договоров.
+     * @param requestBody JSON-массив договоров либо {@code {"base": {...}, "variants": [{...}, ...]}} —
+     *                    каждый вариант накладывается на base по правилам JSON Merge Patch (RFC 7386)
+     * @return результаты по позициям входного списка
+     */
+    public List<QuoteBatchItem> quote(String requestBody) {
+        List<String> policies = parseItems(requestBody);
+        logger.info("Starting batch quote. items={}", policies.size());
+
+        if (!pending.tryAcquire(policies.size())) {
+            logger.warn("Batch quote rejected, pool is busy. items={}", policies.size());
+            throw unavailable("Too many batch quotes in progress, retry later");
+        }
+        RequestThreadContext context = RequestThreadContext.capture(requestContext);
+        List<Future<QuoteBatchItem>> futures = new ArrayList<>(policies.size());
+        List<QuoteBatchItem> results = new ArrayList<>(policies.size());
+        try {
+            for (int i = 0; i < policies.size(); i++) {
+                int index = i;
+                String policyJson = policies.get(i);
+                futures.add(executor.submit(() -> context.call(requestContext, () -> quoteOne(index, policyJson))));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                results.add(await(i, futures.get(i)));
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw unavailable("Batch quote interrupted");
+        } finally {
+            pending.release(policies.size());
+        }
+        logger.info("Batch quote completed. items={}, failed={}",
+                results.size(), results.stream().filter(r -> r.error() != null).count());
+        return results;
+    }
+
+    private QuoteBatchItem quoteOne(int index, String policyJson) {
+        try {
+            StdPolicy policy = stdPolicyFactory.build(StdPolicyFormat.INSURANCE_CONTRACT, policyJson);
+            return QuoteBatchItem.ok(index, processOrchestrator.quote(policy).toJson());
+        } catch (RuntimeException e) {
+            ErrorModel error = toErrorModel(e);
+            if (error.getCode() >= 500) {
+                logger.error("Batch quote item failed. index={}", index, e);
+            } else {
+                logger.warn("Batch quote item rejected. index={}, code={}, message={}", index, error.getCode(), e.getMessage());
+            }
+            return QuoteBatchItem.failed(index, error);
+        }
+    }
+
+    private static ServiceUnavailableException unavailable(String message) {
+        return new ServiceUnavailableException(ErrorConstants.createErrorModel(
+                503,
+                message,
+                ErrorConstants.DOMAIN_POLICY,
+                ErrorConstants.REASON_SERVICE_UNAVAILABLE,
+                "policies"
+        ));
+    }
+
+    private static QuoteBatchItem await(int index, Future<QuoteBatchItem> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            logger.error("Batch quote item failed. index={}", index, e.getCause());
+            return QuoteBatchItem.failed(index, new ErrorModel(500, "Internal Server Error"));
+        }
+    }
+
+    /** Тот же статус и тело ошибки, что ApiExceptionHandler вернул бы для одиночного расчёта. */
+    static ErrorModel toErrorModel(RuntimeException e) {
+        if (e instanceof BadRequestException ex) return ex.getErrorModel();
+        if (e instanceof UnauthorizedException ex) return ex.getErrorModel();
+        if (e instanceof ForbiddenException ex) return ex.getErrorModel();
+        if (e instanceof NotFoundException ex) return ex.getErrorModel();
+        if (e instanceof UnprocessableEntityException ex) return ex.getErrorModel();
+        if (e instanceof InternalServerErrorException ex) return ex.getErrorModel();
+        if (e instanceof ServiceUnavailableException ex) return ex.getErrorModel();
+        if (e instanceof AuthorizationDeniedException) return new ErrorModel(403, e.getMessage());
+        if (e instanceof IllegalArgumentException) return new ErrorModel(400, e.getMessage());
+        return new ErrorModel(500, "Internal Server Error");
+    }
+
+    private List<String> parseItems(String requestBody) {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(requestBody);
+        } catch (JsonProcessingException e) {
+            throw invalidFormat(ErrorConstants.invalidJsonFormat("policies"));
+        }
+
+        List<String> items = new ArrayList<>();
+        if (root != null && root.isArray()) {
+            root.forEach(node -> items.add(node.toString()));
+        } else if (root != null && root.isObject() && root.has("base")) {
+            JsonNode base = root.get("base");
+            JsonNode variants = root.get("variants");
+            if (!base.isObject() || (variants != null && !variants.isArray())) {
+                throw invalidFormat(ErrorConstants.invalidJsonFormat("policies"));
+            }
+            if (variants == null || variants.isEmpty()) {
+                items.add(base.toString());
+            } else {
+                variants.forEach(variant -> items.add(mergePatch(base.deepCopy(), variant).toString()));
+            }
+        } else {
+            throw invalidFormat(ErrorConstants.invalidJsonFormat("policies"));
+        }
+
+        if (items.isEmpty()) {
+            throw new BadRequestException(ErrorConstants.createErrorModel(
+                    400,
+                    ErrorConstants.missingRequiredField("policies"),
+                    ErrorConstants.DOMAIN_POLICY,
+                    ErrorConstants.REASON_MISSING_REQUIRED,
+                    "policies"
+            ));
+        }
+        if (items.size() > maxItems) {
+            throw invalidFormat("Too many policies in batch: " + items.size() + ", max " + maxItems);
+        }
+        return items;
+    }
+
+    /** RFC 7386: объекты сливаются рекурсивно, null удаляет поле, остальное заменяется. */
+    static JsonNode mergePatch(JsonNode target, JsonNode patch) {
+        if (!patch.isObject()) {
+            return patch;
+        }
+        ObjectNode result = target != null && target.isObject() ? (ObjectNode) target : objectMapper.createObjectNode();
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getValue().isNull()) {
+                result.remove(field.getKey());
+            } else {
+                result.set(field.getKey(), mergePatch(result.get(field.getKey()), field.getValue()));
+            }
+        }
+        return result;
+    }
+
+    private static BadRequestException invalidFormat(String message) {
+        return new BadRequestException(ErrorConstants.createErrorModel(
+                400,
+                message,
+                ErrorConstants.DOMAIN_POLICY,
+                ErrorConstants.REASON_INVALID_FORMAT,
+                "policies"
+        ));
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "quote-batch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
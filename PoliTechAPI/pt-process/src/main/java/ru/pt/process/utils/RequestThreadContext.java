@@ -0,0 +1,42 @@
+package ru.pt.process.utils;
+
+import org.slf4j.MDC;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import ru.pt.auth.security.context.RequestContext;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Контекст запроса, который сервисы читают из ThreadLocal: пользователь, тенант/клиент, MDC.
+ * Снимается в потоке запроса и восстанавливается в рабочем потоке пула на время задачи.
+ */
+public record RequestThreadContext(SecurityContext security, String tenant, String client, String login,
+                                   Long account, Map<String, String> mdc) {
+
+    public static RequestThreadContext capture(RequestContext requestContext) {
+        return new RequestThreadContext(SecurityContextHolder.getContext(),
+                requestContext.getTenant(), requestContext.getClient(),
+                requestContext.getLogin(), requestContext.getAccount(),
+                MDC.getCopyOfContextMap());
+    }
+
+    public <T> T call(RequestContext requestContext, Supplier<T> task) {
+        SecurityContextHolder.setContext(security);
+        requestContext.setTenant(tenant);
+        requestContext.setClient(client);
+        requestContext.setLogin(login);
+        requestContext.setAccount(account);
+        if (mdc != null) {
+            MDC.setContextMap(mdc);
+        }
+        try {
+            return task.get();
+        } finally {
+            SecurityContextHolder.clearContext();
+            requestContext.clear();
+            MDC.clear();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package ru.pt.process.outbox;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboxWorkerTest {
+
+    private final FakeJdbcTemplate jdbc = new FakeJdbcTemplate();
+    private OutboxWorker worker;
+
+    @AfterEach
+    void stop() {
+        if (worker != null) {
+            worker.shutdown();
+        }
+    }
+
+    @Test
+    void runsHandlerOnWorkerThreadWithoutSecurityContext() throws Exception {
+        AtomicReference<Object> authentication = new AtomicReference<>("not called");
+        AtomicReference<String> thread = new AtomicReference<>();
+        start(handler("MAIL", event -> {
+            authentication.set(SecurityContextHolder.getContext().getAuthentication());
+            thread.set(Thread.currentThread().getName());
+        }));
+        jdbc.claimable.add(new OutboxEvent(1L, "MAIL", "p-1", null, 1));
+        worker.wake();
+
+        Update done = jdbc.next();
+        assertEquals("DONE", done.status());
+        assertArrayEquals(new Object[]{1L}, done.args());
+        assertNull(authentication.get());
+        assertTrue(thread.get().startsWith("outbox-worker-"));
+        // аренда и лимит выборки: не больше свободных воркеров
+        assertArrayEquals(new Object[]{300L, 2}, jdbc.claims.peek());
+    }
+
+    @Test
+    void retriesWithBackoffAndFailsAfterMaxAttempts() throws Exception {
+        start(handler("MAIL", event -> {
+            throw new IllegalStateException("smtp down");
+        }));
+        jdbc.claimable.add(new OutboxEvent(7L, "MAIL", "p-7", null, 3));
+        worker.wake();
+
+        Update retry = jdbc.next();
+        assertEquals("NEW", retry.status());
+        assertEquals(40L, retry.args()[0]);
+        assertEquals("IllegalStateException: smtp down", retry.args()[1]);
+        assertEquals(7L, retry.args()[2]);
+
+        jdbc.claimable.add(new OutboxEvent(7L, "MAIL", "p-7", null, 8));
+        worker.wake();
+
+        Update failed = jdbc.next();
+        assertEquals("FAILED", failed.status());
+        assertArrayEquals(new Object[]{"IllegalStateException: smtp down", 7L}, failed.args());
+    }
+
+    @Test
+    void eventWithoutHandlerIsRetried() throws Exception {
+        start(handler("MAIL", event -> {
+        }));
+        jdbc.claimable.add(new OutboxEvent(9L, "SMS", "p-9", null, 1));
+        worker.wake();
+
+        Update retry = jdbc.next();
+        assertEquals("NEW", retry.status());
+        assertEquals(10L, retry.args()[0]);
+        assertTrue(((String) retry.args()[1]).contains("No outbox handler for type SMS"));
+    }
+
+    @Test
+    void retryDelayDoublesUpToMax() {
+        assertEquals(10L, OutboxWorker.retryDelaySeconds(1, 10, 3600));
+        assertEquals(20L, OutboxWorker.retryDelaySeconds(2, 10, 3600));
+        assertEquals(80L, OutboxWorker.retryDelaySeconds(4, 10, 3600));
+        assertEquals(3600L, OutboxWorker.retryDelaySeconds(12, 10, 3600));
+        assertEquals(3600L, OutboxWorker.retryDelaySeconds(100, 10, 3600));
+    }
+
+    private void start(OutboxHandler handler) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("handler", handler);
+        // опрос по расписанию редкий: события забираются по wake()
+        worker = new OutboxWorker(jdbc, beanFactory.getBeanProvider(OutboxHandler.class),
+                true, 2, 20, 60_000L, 300L, 8, 10L, 3600L);
+        worker.start();
+    }
+
+    private static OutboxHandler handler(String type, ThrowingConsumer action) {
+        return new OutboxHandler() {
+            @Override
+            public String getType() {
+                return type;
+            }
+
+            @Override
+            public void handle(OutboxEvent event) throws Exception {
+                action.accept(event);
+            }
+        };
+    }
+
+    private interface ThrowingConsumer {
+        void accept(OutboxEvent event) throws Exception;
+    }
+
+    private record Update(String status, Object[] args) {
+    }
+
+    /**
+     * Таблица {@code pt_outbox} в памяти: claim отдаёт подготовленные события, статусы пишутся в очередь.
+     */
+    private static final class FakeJdbcTemplate extends JdbcTemplate {
+
+        private final ConcurrentLinkedQueue<OutboxEvent> claimable = new ConcurrentLinkedQueue<>();
+        private final ConcurrentLinkedQueue<Object[]> claims = new ConcurrentLinkedQueue<>();
+        private final BlockingQueue<Update> updates = new LinkedBlockingQueue<>();
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            claims.add(args);
+            List<T> events = new ArrayList<>();
+            OutboxEvent event;
+            while ((event = claimable.poll()) != null) {
+                events.add((T) event);
+            }
+            return events;
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            String status = sql.contains("'DONE'") ? "DONE" : sql.contains("'FAILED'") ? "FAILED" : "NEW";
+            updates.add(new Update(status, args));
+            return 1;
+        }
+
+        Update next() throws InterruptedException {
+            Update update = updates.poll(5, TimeUnit.SECONDS);
+            assertNotNull(update, "outbox status was not written");
+            return update;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package ru.pt.process.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PrintFormStoreTest {
+
+    @Test
+    void registerReturnsOwnFileWhenInserted() {
+        PrintFormStore store = new PrintFormStore(new FakeJdbcTemplate(1, List.of()));
+
+        assertEquals(42L, store.register(10L, "P-1", 1L, "PAID", "POLICY", 42L));
+    }
+
+    @Test
+    void registerReturnsWinnerWhenConcurrentPrintInsertedFirst() {
+        PrintFormStore store = new PrintFormStore(new FakeJdbcTemplate(0, List.of(7L)));
+
+        // вызывающий код удаляет свою копию, если вернулся чужой файл
+        assertEquals(7L, store.register(10L, "P-1", 1L, "PAID", "POLICY", 42L));
+    }
+
+    private static final class FakeJdbcTemplate extends JdbcTemplate {
+
+        private final int inserted;
+        private final List<Long> stored;
+
+        FakeJdbcTemplate(int inserted, List<Long> stored) {
+            this.inserted = inserted;
+            this.stored = stored;
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            return inserted;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+            return (List<T>) stored;
+        }
+    }
+}
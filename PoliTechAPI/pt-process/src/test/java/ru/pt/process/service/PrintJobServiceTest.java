@@ -0,0 +1,211 @@
+package ru.pt.process.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import ru.pt.api.dto.errors.ErrorModel;
+import ru.pt.api.dto.exception.NotFoundException;
+import ru.pt.api.dto.exception.ServiceUnavailableException;
+import ru.pt.api.dto.file.PrintFormRequest;
+import ru.pt.api.dto.file.PrintJob;
+import ru.pt.api.dto.file.PrintJobItem;
+import ru.pt.api.service.process.FileProcessService;
+import ru.pt.auth.security.SecurityContextHelper;
+import ru.pt.auth.security.UserDetailsImpl;
+import ru.pt.auth.security.context.ThreadLocalContext;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrintJobServiceTest {
+
+    private final FakePrintJobStore store = new FakePrintJobStore();
+    private PrintJobService service;
+
+    @BeforeEach
+    void login() {
+        UserDetailsImpl user = new UserDetailsImpl(1L, "agent", "demo", 10L, 1L, "agent", 12L, "sys",
+                "TNT_ADMIN", new HashSet<>(), true, 1L, "1");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, "N/A", user.getAuthorities()));
+    }
+
+    @AfterEach
+    void logout() {
+        SecurityContextHolder.clearContext();
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void printsItemsUnderSubmittingUserAndRecordsFailures() throws Exception {
+        AtomicReference<Object> printedBy = new AtomicReference<>();
+        service = service(item -> {
+            printedBy.set(SecurityContextHolder.getContext().getAuthentication().getName());
+            if (item.policyNumber().equals("P-2")) {
+                throw new NotFoundException(new ErrorModel(404, "Policy not found: P-2"));
+            }
+            return 100L;
+        }, 10, 10);
+
+        PrintJob job = service.submit(List.of(new PrintFormRequest("P-1", "POLICY"), new PrintFormRequest("P-2", "POLICY")));
+        assertEquals("RUNNING", job.status());
+        assertTrue(store.finished.await(5, TimeUnit.SECONDS));
+
+        assertEquals("agent", printedBy.get());
+        assertEquals(10L, store.tid);
+        assertEquals("agent", store.login);
+        assertEquals("DONE:100", store.results.get(0));
+        assertEquals("FAILED:Policy not found: P-2", store.results.get(1));
+    }
+
+    @Test
+    void rejectsJobThatDoesNotFitQueueAndReleasesPlacesAfterPrinting() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        service = service(item -> {
+            release.await();
+            return 1L;
+        }, 2, 2);
+
+        service.submit(List.of(new PrintFormRequest("P-1", "POLICY"), new PrintFormRequest("P-2", "POLICY")));
+        assertThrows(ServiceUnavailableException.class,
+                () -> service.submit(List.of(new PrintFormRequest("P-3", "POLICY"))));
+        assertEquals(1, store.created);
+
+        release.countDown();
+        assertTrue(store.finished.await(5, TimeUnit.SECONDS));
+        // место освобождается после записи результата позиции
+        for (int i = 0; i < 50 && store.created < 2; i++) {
+            try {
+                service.submit(List.of(new PrintFormRequest("P-3", "POLICY")));
+            } catch (ServiceUnavailableException e) {
+                Thread.sleep(20);
+            }
+        }
+        assertEquals(2, store.created);
+    }
+
+    @Test
+    void staleSweepFailsOrphanedItemsAndSurvivesDatabaseErrors() {
+        service = service(item -> 1L, 10, 10);
+
+        service.failStale();
+        assertEquals(60L, store.staleMinutes);
+        assertEquals("Print job was interrupted by application restart", store.staleError);
+
+        store.staleFailure = new QueryTimeoutException("timeout");
+        service.failStale();
+    }
+
+    @Test
+    void entryNameKeepsOrderAndReplacesUnsafeCharacters() {
+        assertEquals("3_П-1_2024_POLICY.pdf",
+                PrintJobService.entryName(new PrintJobItem(2, "П-1/2024", "POLICY", "DONE", 1L, null)));
+    }
+
+    private PrintJobService service(Printer printer, int maxItems, int maxPending) {
+        FileProcessService fileProcessService = new FileProcessService() {
+            @Override
+            public byte[] generatePrintForm(String policyNumber, String printFormType) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Long storePrintForm(String policyNumber, String printFormType) {
+                try {
+                    return printer.print(new PrintFormRequest(policyNumber, printFormType));
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            @Override
+            public byte[] renderPrintForm(String policyNumber, String printFormType) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        return new PrintJobService(fileProcessService, null, store, new SecurityContextHelper(),
+                new ThreadLocalContext(), maxItems, 2, maxPending, 60L);
+    }
+
+    private interface Printer {
+        Long print(PrintFormRequest item) throws Exception;
+    }
+
+    /**
+     * Задания в памяти; {@link #finished} отпускается, когда обработаны все позиции первого задания.
+     */
+    private static final class FakePrintJobStore extends PrintJobStore {
+
+        private final Map<Integer, String> results = new ConcurrentHashMap<>();
+        private volatile CountDownLatch finished;
+        private volatile int created;
+        private volatile Long tid;
+        private volatile String login;
+        private volatile Long staleMinutes;
+        private volatile String staleError;
+        private volatile RuntimeException staleFailure;
+
+        FakePrintJobStore() {
+            super(null, null);
+        }
+
+        @Override
+        public synchronized Long create(Long tid, String login, List<PrintFormRequest> items) {
+            this.tid = tid;
+            this.login = login;
+            if (finished == null) {
+                finished = new CountDownLatch(items.size());
+            }
+            return (long) ++created;
+        }
+
+        @Override
+        public void itemDone(Long jobId, int index, Long fileId) {
+            record(jobId, index, "DONE:" + fileId);
+        }
+
+        @Override
+        public void itemFailed(Long jobId, int index, String error) {
+            record(jobId, index, "FAILED:" + error);
+        }
+
+        private void record(Long jobId, int index, String result) {
+            if (jobId == 1L) {
+                results.put(index, result);
+                finished.countDown();
+            }
+        }
+
+        @Override
+        public int failStale(long staleMinutes, String error) {
+            this.staleMinutes = staleMinutes;
+            this.staleError = error;
+            if (staleFailure != null) {
+                throw staleFailure;
+            }
+            return 1;
+        }
+
+        @Override
+        public Optional<PrintJob> find(Long jobId, Long tid, String login) {
+            return Optional.of(new PrintJob(jobId, "RUNNING", 0, 0, 0, null, null, List.of()));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package ru.pt.process.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrintJobStoreTest {
+
+    private final FakeJdbcTemplate jdbc = new FakeJdbcTemplate();
+    private final PrintJobStore store = new PrintJobStore(jdbc, new NoopTransactionManager());
+
+    @Test
+    void itemResultAdvancesJobCountersOnce() {
+        store.itemDone(5L, 0, 100L);
+        store.itemFailed(5L, 1, "Policy not found");
+
+        assertEquals(4, jdbc.updates.size());
+        assertTrue(jdbc.updates.get(0).sql().contains("status = 'DONE', file_id = ?"));
+        assertArrayEquals(new Object[]{100L, 5L, 0}, jdbc.updates.get(0).args());
+        assertArrayEquals(new Object[]{1, 0, 5L}, jdbc.updates.get(1).args());
+        assertTrue(jdbc.updates.get(2).sql().contains("status = 'FAILED', error = ?"));
+        assertArrayEquals(new Object[]{"Policy not found", 5L, 1}, jdbc.updates.get(2).args());
+        assertArrayEquals(new Object[]{0, 1, 5L}, jdbc.updates.get(3).args());
+    }
+
+    @Test
+    void itemAlreadyFailedByStaleSweepDoesNotCountAgain() {
+        // позиция уже не NEW: обновление позиции ничего не меняет, счётчики задания не трогаются
+        jdbc.affectedRows = 0;
+        store.itemDone(5L, 0, 100L);
+        store.itemFailed(5L, 1, "late");
+
+        assertEquals(2, jdbc.updates.size());
+        assertTrue(jdbc.updates.stream().noneMatch(update -> update.sql().contains("done_count = done_count + ?")));
+    }
+
+    @Test
+    void staleSweepFailsNewItemsOfOldRunningJobs() {
+        jdbc.affectedRows = 3;
+
+        assertEquals(3, store.failStale(60L, "Print job was interrupted by application restart"));
+
+        Update sweep = jdbc.updates.get(0);
+        assertTrue(sweep.sql().contains("j.status = 'RUNNING'"));
+        assertTrue(sweep.sql().contains("j.created_at < now() - ? * interval '1 minute'"));
+        assertTrue(sweep.sql().contains("i.status = 'NEW'"));
+        assertArrayEquals(new Object[]{"Print job was interrupted by application restart", 60L}, sweep.args());
+    }
+
+    private record Update(String sql, Object[] args) {
+    }
+
+    private static final class FakeJdbcTemplate extends JdbcTemplate {
+
+        private final List<Update> updates = new ArrayList<>();
+        private int affectedRows = 1;
+
+        @Override
+        public int update(String sql, Object... args) {
+            updates.add(new Update(sql, args));
+            return affectedRows;
+        }
+    }
+
+    private static final class NoopTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
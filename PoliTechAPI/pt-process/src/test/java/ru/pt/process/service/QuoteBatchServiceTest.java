@@ -0,0 +1,35 @@
+package ru.pt.process.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QuoteBatchServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void mergePatch_overlaysVariantOnBase() throws Exception {
+        JsonNode base = objectMapper.readTree("""
+                {"productCode":"NS","policyTerm":"P1Y","promo":"X",
+                 "insuredObjects":[{"packageCode":"1","sumInsured":100000}],
+                 "policyHolder":{"person":{"firstName":"Ivan","lastName":"Petrov"}}}
+                """);
+        JsonNode variant = objectMapper.readTree("""
+                {"policyTerm":"P6M","promo":null,
+                 "insuredObjects":[{"packageCode":"2"}],
+                 "policyHolder":{"person":{"lastName":"Sidorov"}}}
+                """);
+
+        JsonNode merged = QuoteBatchService.mergePatch(base.deepCopy(), variant);
+
+        assertEquals(objectMapper.readTree("""
+                {"productCode":"NS","policyTerm":"P6M",
+                 "insuredObjects":[{"packageCode":"2"}],
+                 "policyHolder":{"person":{"firstName":"Ivan","lastName":"Sidorov"}}}
+                """), merged);
+        assertEquals("X", base.get("promo").asText());
+    }
+}
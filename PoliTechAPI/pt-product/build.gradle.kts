@@ -30,6 +30,7 @@ dependencies {
     implementation("org.springframework:spring-web")
     implementation("org.springframework.boot:spring-boot-starter-data-jpa")
     implementation("org.springframework.boot:spring-boot-starter")
+    implementation("io.micrometer:micrometer-core")
     implementation("com.fasterxml.jackson.datatype:jackson-datatype-jsr310")
 
     // Lombok for annotations like @Data, @Getter, @Setter
@@ -0,0 +1,146 @@
+package ru.pt.product.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.pt.api.dto.product.ProductVersionModel;
+import ru.pt.product.entity.ProductEntity;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш разобранных версий продукта по (tid, productId, versionNo) и указателей
+ * (tid, code) → productId + DEV/PROD версии.
+ * <p>
+ * Модели из кэша общие для всех потоков: вызывающий код не должен их изменять,
+ * для изменения нужно сделать копию.
+ */
+@Component
+public class ProductVersionCache {
+
+    private final Map<VersionKey, ProductVersionModel> versions = new ConcurrentHashMap<>();
+    private final Map<CodeKey, ProductRef> refs = new ConcurrentHashMap<>();
+    /** Увеличивается при каждом сбросе: значение, прочитанное до сброса, в кэш не кладётся. */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong versionHits = new AtomicLong();
+    private final AtomicLong versionMisses = new AtomicLong();
+    private final AtomicLong refHits = new AtomicLong();
+    private final AtomicLong refMisses = new AtomicLong();
+
+    public ProductVersionCache(ObjectProvider<MeterRegistry> meterRegistry) {
+        meterRegistry.ifAvailable(this::bindMetrics);
+    }
+
+    /**
+     * Версия продукта; при промахе читается через {@code loader}.
+     * Исключение из loader не кэшируется.
+     */
+    public ProductVersionModel getVersion(Long tenantId, Long productId, Long versionNo,
+                                          Supplier<ProductVersionModel> loader) {
+        VersionKey key = new VersionKey(tenantId, productId, versionNo);
+        ProductVersionModel cached = versions.get(key);
+        if (cached != null) {
+            versionHits.incrementAndGet();
+            return cached;
+        }
+        versionMisses.incrementAndGet();
+        long startGeneration = generation.get();
+        ProductVersionModel model = loader.get();
+        if (model != null && generation.get() == startGeneration) {
+            versions.putIfAbsent(key, model);
+        }
+        return model;
+    }
+
+    /**
+     * Указатель на активный продукт по коду; при промахе читается через {@code loader}.
+     */
+    public ProductRef getRef(Long tenantId, String code, Supplier<ProductRef> loader) {
+        CodeKey key = new CodeKey(tenantId, code);
+        ProductRef cached = refs.get(key);
+        if (cached != null) {
+            refHits.incrementAndGet();
+            return cached;
+        }
+        refMisses.incrementAndGet();
+        long startGeneration = generation.get();
+        ProductRef ref = loader.get();
+        if (ref != null && generation.get() == startGeneration) {
+            refs.putIfAbsent(key, ref);
+        }
+        return ref;
+    }
+
+    /**
+     * Сбросить все версии и указатели продукта; внутри транзакции сброс повторяется после commit.
+     */
+    public void evictProduct(Long tenantId, Long productId) {
+        Runnable eviction = () -> {
+            generation.incrementAndGet();
+            versions.keySet().removeIf(key -> Objects.equals(key.tenantId(), tenantId)
+                    && Objects.equals(key.productId(), productId));
+            refs.values().removeIf(ref -> Objects.equals(ref.tenantId(), tenantId)
+                    && Objects.equals(ref.productId(), productId));
+        };
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    private void bindMetrics(MeterRegistry registry) {
+        counter(registry, "version", "hit", versionHits);
+        counter(registry, "version", "miss", versionMisses);
+        counter(registry, "ref", "hit", refHits);
+        counter(registry, "ref", "miss", refMisses);
+        Gauge.builder("pt.product.cache.size", versions, Map::size)
+                .tag("cache", "version")
+                .register(registry);
+        Gauge.builder("pt.product.cache.size", refs, Map::size)
+                .tag("cache", "ref")
+                .register(registry);
+    }
+
+    private static void counter(MeterRegistry registry, String cache, String result, AtomicLong value) {
+        FunctionCounter.builder("pt.product.cache.requests", value, AtomicLong::get)
+                .tag("cache", cache)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * Активный продукт по коду: id, страховая компания и номера DEV/PROD версий.
+     */
+    public record ProductRef(Long tenantId, Long productId, Long insCompanyId,
+                             Long devVersionNo, Long prodVersionNo) {
+
+        public static ProductRef of(ProductEntity entity) {
+            return new ProductRef(entity.getTId(), entity.getId(), entity.getInsCompanyId(),
+                    entity.getDevVersionNo(), entity.getProdVersionNo());
+        }
+
+        public Long versionNo(boolean forDev) {
+            return forDev ? devVersionNo : prodVersionNo;
+        }
+    }
+
+    private record VersionKey(Long tenantId, Long productId, Long versionNo) {
+    }
+
+    private record CodeKey(Long tenantId, String code) {
+    }
+}
@@ -11,6 +11,7 @@ import ru.pt.api.dto.exception.NotFoundException;
 import ru.pt.api.dto.exception.UnprocessableEntityException;
 import ru.pt.api.dto.product.ProductVersionModel;
 import ru.pt.api.service.product.ProductServiceCRUD;
+import ru.pt.product.cache.ProductVersionCache;
 import ru.pt.product.entity.ProductEntity;
 import ru.pt.product.entity.ProductVersionEntity;
 import ru.pt.product.repository.ProductRepository;
@@ -23,10 +24,18 @@ public class ProductCRUDServiceImpl implements ProductServiceCRUD {
     private final ProductRepository productRepository;
     private final ProductVersionRepository productVersionRepository;
     private final ObjectMapper objectMapper;
+    private final ProductVersionCache productVersionCache;
 
+    /**
+     * Версия продукта из кэша; возвращаемую модель изменять нельзя.
+     */
     @Override
     public ProductVersionModel getVersion(Long tenantId, Long productId, Long versionNo) {
+        return productVersionCache.getVersion(tenantId, productId, versionNo,
+                () -> loadVersion(tenantId, productId, versionNo));
+    }
 
+    private ProductVersionModel loadVersion(Long tenantId, Long productId, Long versionNo) {
         try {
             ProductEntity productEntity = productRepository.findById(tenantId, productId)
                     .orElseThrow(() -> new NotFoundException("Product not found"));
@@ -36,7 +45,8 @@ public class ProductCRUDServiceImpl implements ProductServiceCRUD {
                 throw new NotFoundException("Version not found");
             }
             ProductVersionModel model = objectMapper.readValue(pv.getProduct(), ProductVersionModel.class);
-            //model.setInsCompanyId(productEntity.getInsCompanyId());
+            model.setInsCompanyId(productEntity.getInsCompanyId());
+            model.setVersionNo(versionNo);
             return model;
         } catch (NotFoundException e) {
             throw e;
@@ -45,6 +55,9 @@ public class ProductCRUDServiceImpl implements ProductServiceCRUD {
         }
     }
 
+    /**
+     * DEV или PROD версия продукта из кэша; возвращаемую модель изменять нельзя.
+     */
     @Override
     public ProductVersionModel getProduct(Long tenantId, Long id, boolean forDev) {
         var entity = productRepository.findById(tenantId, id)
@@ -54,15 +67,17 @@ public class ProductCRUDServiceImpl implements ProductServiceCRUD {
         if (versionNo == null) {
             throw new UnprocessableEntityException("No suitable " + (forDev ? "dev" : "prod") + " version for product");
         }
-        var pv = productVersionRepository.findByProductIdAndVersionNo(tenantId, entity.getId(), versionNo)
-                .orElseThrow(() -> new UnprocessableEntityException("Product version not found"));
-        try {
-            ProductVersionModel model = objectMapper.readValue(pv.getProduct(), ProductVersionModel.class);
-            //model.setInsCompanyId(entity.getInsCompanyId());
-            model.setVersionNo(versionNo);
-            return model;
-        } catch (JsonProcessingException e) {
-            throw new UnprocessableEntityException("Error reading product version model from JSON", e);
-        }
+        return productVersionCache.getVersion(tenantId, entity.getId(), versionNo, () -> {
+            var pv = productVersionRepository.findByProductIdAndVersionNo(tenantId, entity.getId(), versionNo)
+                    .orElseThrow(() -> new UnprocessableEntityException("Product version not found"));
+            try {
+                ProductVersionModel model = objectMapper.readValue(pv.getProduct(), ProductVersionModel.class);
+                model.setInsCompanyId(entity.getInsCompanyId());
+                model.setVersionNo(versionNo);
+                return model;
+            } catch (JsonProcessingException e) {
+                throw new UnprocessableEntityException("Error reading product version model from JSON", e);
+            }
+        });
     }
 }
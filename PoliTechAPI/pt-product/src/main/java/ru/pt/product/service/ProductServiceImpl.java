@@ -24,6 +24,7 @@ import ru.pt.api.service.product.ProductService;
 import ru.pt.api.service.product.ProductServiceCRUD;
 import ru.pt.api.security.AuthenticatedUser;
 import ru.pt.auth.security.SecurityContextHelper;
+import ru.pt.product.cache.ProductVersionCache;
 import ru.pt.product.entity.AttributeDefEntity;
 import ru.pt.product.entity.ProductEntity;
 import ru.pt.product.entity.ProductVersionEntity;
@@ -33,6 +34,7 @@ import ru.pt.product.repository.ProductVersionRepository;
 
 import ru.pt.product.utils.ProductMapper;
 
+import java.io.IOException;
 import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -86,6 +88,7 @@ public class ProductServiceImpl implements ProductService {
     private final AccountService accountService;
     private final RuleManagementService ruleManagementService;
     private final ProductDocumentationGenerator productDocumentationGenerator;
+    private final ProductVersionCache productVersionCache;
     /**
      * Get current authenticated user from security context
      * @return AuthenticatedUser representing the current user
@@ -349,6 +352,7 @@ public class ProductServiceImpl implements ProductService {
         product.setProdVersionNo(product.getDevVersionNo());
         product.setDevVersionNo(null);
         productRepository.save(product);
+        productVersionCache.evictProduct(tenantId, productId);
 
         Long prodVer = product.getProdVersionNo();
         return getVersion(tenantId, productId, prodVer != null ? prodVer : null);
@@ -363,7 +367,7 @@ public class ProductServiceImpl implements ProductService {
             tenantId,
             Action.VIEW);
 
-        ProductVersionModel model = productServiceCRUD.getVersion(tenantId, productId, versionNo);
+        ProductVersionModel model = copyOf(productServiceCRUD.getVersion(tenantId, productId, versionNo));
         attachCelRules(model, tenantId);
         return model;
     }
@@ -443,6 +447,7 @@ public class ProductServiceImpl implements ProductService {
 
         product.setDevVersionNo(newVersion);
         productRepository.save(product);
+        productVersionCache.evictProduct(tenantId, productId);
 
         // Copy calculators for each package from old version to new version
         productVersionModel.getPackages().forEach(pkg ->
@@ -498,6 +503,7 @@ public class ProductServiceImpl implements ProductService {
 
         pv.setProduct(newProductVersionJson);
         productVersionRepository.save(pv);
+        evictVersionCaches(tenantId, productId, versionNo);
 /* 
         newProductVersionModel.getPackages().forEach(pkg ->
             calculatorService.createCalculatorIfMissing(tenantId, productId, newProductVersionModel.getCode(), versionNo, pkg.getCode())
@@ -542,10 +548,19 @@ public class ProductServiceImpl implements ProductService {
             throw new InternalServerErrorException("Error writing product version model to JSON", e);
         }
         productVersionRepository.save(pv);
+        evictVersionCaches(tenantId, productId, versionNo);
         
         return productVersionModel;
     }
 
+    /**
+     * Сбросить кэш версий продукта и планы калькуляторов версии после изменения её JSON.
+     */
+    private void evictVersionCaches(Long tenantId, Long productId, Long versionNo) {
+        productVersionCache.evictProduct(tenantId, productId);
+        calculatorService.evictCalculatorPlans(tenantId, productId, versionNo);
+    }
+
 
     @Transactional
     public ProductVersionModel addPackage( Long tenantId, Long productId, Long versionNo, PvPackage pkg ) {
@@ -812,6 +827,7 @@ public class ProductServiceImpl implements ProductService {
                 .orElseThrow(() -> new NotFoundException("Product not found"));
         product.setRecordStatus(RecordStatus.DELETED.getValue());
         productRepository.save(product);
+        productVersionCache.evictProduct(tenantId, id);
     }
 
     @Override
@@ -858,6 +874,7 @@ public class ProductServiceImpl implements ProductService {
 //        product.setProdVersionNo(pv == null ? null : Math.max(0, pv));
             productRepository.save(product);
         }
+        productVersionCache.evictProduct(tenantId, id);
     }
 
 
@@ -993,11 +1010,25 @@ public class ProductServiceImpl implements ProductService {
             tenantId,
             Action.VIEW);
 
-        ProductVersionModel model = productServiceCRUD.getProduct(tenantId, id, forDev);
+        ProductVersionModel model = copyOf(productServiceCRUD.getProduct(tenantId, id, forDev));
         attachCelRules(model, tenantId);
         return model;
     }
 
+    /**
+     * Копия модели из кэша версий — кэшированный экземпляр общий и не должен изменяться.
+     */
+    private ProductVersionModel copyOf(ProductVersionModel model) {
+        if (model == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(objectMapper.writeValueAsBytes(model), ProductVersionModel.class);
+        } catch (IOException e) {
+            throw new InternalServerErrorException("Error copying product version model", e);
+        }
+    }
+
     private void attachCelRules(ProductVersionModel model, Long tenantId) {
         if (model == null) {
             return;
@@ -1026,30 +1057,28 @@ authService.check(
             tenantId,   // resourceAccountId - list all
             Action.VIEW);
 */
-        log.info("Finging product by code {}, forDev - {}", code, forDev);
+        log.debug("Finging product by code {}, forDev - {}", code, forDev);
 
-        var entity = productRepository.findByCode(tenantId, code)
-                .orElseThrow(() -> new NotFoundException("Product not found"));
+        var ref = findProductRef(tenantId, code);
 
         authService.checkProductAction(
             getCurrentUser(),                    
-            entity.getId(),
+            ref.productId(),
             Action.VIEW);
         
-        var versionNo = forDev ? entity.getDevVersionNo() : entity.getProdVersionNo();
+        var versionNo = ref.versionNo(forDev);
 
         if (versionNo == null) {
             throw new UnprocessableEntityException("Нет подходящей версии продукта для расчета");
         }
-        var pv = productVersionRepository.findByProductIdAndVersionNo(tenantId, entity.getId(), versionNo)
-                .orElseThrow();
-        try {
-            ProductVersionModel model = objectMapper.readValue(pv.getProduct(), ProductVersionModel.class);
-            model.setInsCompanyId(entity.getInsCompanyId());
-            return model;
-        } catch (JsonProcessingException e) {
-            throw new InternalServerErrorException("Error reading product version model from JSON", e);
-        }
+        // модель из кэша: вызывающий код только читает её
+        return productServiceCRUD.getVersion(tenantId, ref.productId(), versionNo);
+    }
+
+    private ProductVersionCache.ProductRef findProductRef(Long tenantId, String code) {
+        return productVersionCache.getRef(tenantId, code, () -> productRepository.findByCode(tenantId, code)
+                .map(ProductVersionCache.ProductRef::of)
+                .orElseThrow(() -> new NotFoundException("Product not found")));
     }
 
     @Override
@@ -1062,20 +1091,11 @@ authService.check(
             tenantId,   // resourceAccountId - list all
             Action.VIEW);
 
-        log.info("Finging product by code {}, versionNo - {}", code, versionNo);
+        log.debug("Finging product by code {}, versionNo - {}", code, versionNo);
 
-        var entity = productRepository.findByCode(tenantId, code)
-                .orElseThrow(() -> new NotFoundException("Product not found"));
+        var ref = findProductRef(tenantId, code);
 
-        var pv = productVersionRepository.findByProductIdAndVersionNo(tenantId, entity.getId(), versionNo)
-                .orElseThrow();
-        try {
-            ProductVersionModel model = objectMapper.readValue(pv.getProduct(), ProductVersionModel.class);
-            model.setInsCompanyId(entity.getInsCompanyId());
-            return model;
-        } catch (JsonProcessingException e) {
-            throw new InternalServerErrorException("Error reading product version model from JSON", e);
-        }
+        return productServiceCRUD.getVersion(tenantId, ref.productId(), versionNo);
     }
 
     @Override
@@ -1186,6 +1206,7 @@ authService.check(
             throw new InternalServerErrorException("Error writing product version model to JSON", e);
         }
         productVersionRepository.save(pv);
+        evictVersionCaches(tenantId, productId, versionNo);
 
         return productVersionModel;
     }
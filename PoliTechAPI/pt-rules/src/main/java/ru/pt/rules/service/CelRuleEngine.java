@@ -7,14 +7,15 @@ import dev.cel.common.CelFunctionDecl;
 import dev.cel.common.CelOptions;
 import dev.cel.common.CelOverloadDecl;
 import dev.cel.common.CelValidationException;
+import dev.cel.common.ast.CelReference;
 import dev.cel.common.types.SimpleType;
 import dev.cel.compiler.CelCompiler;
 import dev.cel.compiler.CelCompilerFactory;
 import dev.cel.parser.CelStandardMacro;
 import dev.cel.runtime.CelEvaluationException;
 import dev.cel.runtime.CelRuntime;
+import dev.cel.runtime.CelLateFunctionBindings;
 import dev.cel.runtime.CelRuntime.CelFunctionBinding;
-import dev.cel.runtime.CelRuntimeBuilder;
 import dev.cel.runtime.CelRuntimeFactory;
 import org.springframework.stereotype.Component;
 
@@ -24,6 +25,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -41,6 +43,17 @@ public class CelRuleEngine {
     private static final Set<String> CEL_KEYWORDS = Set.of(
             "true", "false", "null", "in", "has", "num", "str");
 
+    /**
+     * Runtime без привязок функций: {@code num()} / {@code str()} передаются при eval
+     * через {@link CelLateFunctionBindings}, поэтому один runtime и одна Program на правило.
+     */
+    private final CelRuntime runtime = CelRuntimeFactory.standardCelRuntimeBuilder()
+            .setOptions(CelOptions.current().build())
+            .build();
+
+    /** Скомпилированные правила: ключ — id правила + hash выражения. Заполняется из {@link RuleCache}. */
+    private final Map<ProgramKey, CompiledProgram> programs = new ConcurrentHashMap<>();
+
     /**
      * Проверка синтаксиса при сохранении правила в админке (контекста полиса ещё нет).
      */
@@ -62,18 +75,77 @@ public class CelRuleEngine {
 
     /**
      * Runtime: контекст полиса в {@code variables}; в выражении — {@code num("varCode")}, {@code str("varCode")}.
+     * Выражение компилируется на каждый вызов — для правил из БД используйте
+     * {@link #evaluate(Long, String, Map)}.
      */
     public boolean evaluate(String expression, Map<String, Object> variables)
             throws CelValidationException, CelEvaluationException {
         Map<String, Object> ctx = variables != null ? variables : Map.of();
-        Set<String> keys = ctx.keySet();
-        CelAbstractSyntaxTree ast = compile(expression, keys);
-        CelRuntime runtime = newRuntimeBuilder(ctx).build();
-        CelRuntime.Program program = runtime.createProgram(ast);
-        Object result = program.eval(toActivation(keys, ctx));
+        return run(compileProgram(expression, ctx.keySet()), ctx);
+    }
+
+    /**
+     * Runtime для правила из {@link RuleCache}: программа берётся из кэша, компиляция — только при промахе.
+     */
+    public boolean evaluate(Long ruleId, String expression, Map<String, Object> variables)
+            throws CelValidationException, CelEvaluationException {
+        Map<String, Object> ctx = variables != null ? variables : Map.of();
+        ProgramKey key = ProgramKey.of(ruleId, expression);
+        CompiledProgram compiled = programs.get(key);
+        if (compiled == null || !compiled.expression().equals(expression)) {
+            compiled = compileProgram(expression, extractVariableNames(expression));
+            programs.put(key, compiled);
+        }
+        if (!ctx.keySet().containsAll(compiled.variables())) {
+            // Прежняя семантика: переменной нет в контексте → ошибка компиляции (undeclared reference)
+            return run(compileProgram(expression, ctx.keySet()), ctx);
+        }
+        return run(compiled, ctx);
+    }
+
+    /**
+     * Компиляция правила в кэш программ. Вызывается при перезагрузке {@link RuleCache}.
+     */
+    public void precompile(Long ruleId, String expression) throws CelValidationException {
+        programs.put(
+                ProgramKey.of(ruleId, expression),
+                compileProgram(expression, extractVariableNames(expression)));
+    }
+
+    public void evict(Long ruleId, String expression) {
+        programs.remove(ProgramKey.of(ruleId, expression));
+    }
+
+    public void evictAll() {
+        programs.clear();
+    }
+
+    int cachedProgramCount() {
+        return programs.size();
+    }
+
+    private boolean run(CompiledProgram compiled, Map<String, Object> ctx) throws CelEvaluationException {
+        Object result = compiled.program().eval(toActivation(compiled.variables(), ctx), helperBindings(ctx));
         return toBoolean(result);
     }
 
+    private CompiledProgram compileProgram(String expression, Set<String> variableNames)
+            throws CelValidationException {
+        CelAbstractSyntaxTree ast = compile(expression, variableNames);
+        Set<String> referenced = new HashSet<>();
+        for (CelReference reference : ast.getReferenceMap().values()) {
+            if (reference.overloadIds().isEmpty() && reference.value().isEmpty()) {
+                referenced.add(reference.name());
+            }
+        }
+        referenced.retainAll(variableNames);
+        try {
+            return new CompiledProgram(expression, runtime.createProgram(ast), Set.copyOf(referenced));
+        } catch (CelEvaluationException ex) {
+            throw new IllegalStateException("CEL: не удалось создать программу для выражения: " + expression, ex);
+        }
+    }
+
     private CelAbstractSyntaxTree compile(String expression, Set<String> variableNames)
             throws CelValidationException {
         var builder = newCompilerBuilder();
@@ -92,19 +164,16 @@ public class CelRuleEngine {
                 .addFunctionDeclarations(helperFunctionDecls());
     }
 
-    private static CelRuntimeBuilder newRuntimeBuilder(Map<String, Object> ctx) {
-        Map<String, Object> context = ctx != null ? ctx : Map.of();
-        return CelRuntimeFactory.standardCelRuntimeBuilder()
-                .setOptions(CelOptions.current().build())
-                .addFunctionBindings(
-                        CelFunctionBinding.from(
-                                NUM_OVERLOAD,
-                                ImmutableList.of(String.class),
-                                args -> CelVariableHelpers.numForCel(context, (String) args[0])),
-                        CelFunctionBinding.from(
-                                STR_OVERLOAD,
-                                ImmutableList.of(String.class),
-                                args -> CelVariableHelpers.strForCel(context, (String) args[0])));
+    private static CelLateFunctionBindings helperBindings(Map<String, Object> context) {
+        return CelLateFunctionBindings.from(
+                CelFunctionBinding.from(
+                        NUM_OVERLOAD,
+                        ImmutableList.of(String.class),
+                        args -> CelVariableHelpers.numForCel(context, (String) args[0])),
+                CelFunctionBinding.from(
+                        STR_OVERLOAD,
+                        ImmutableList.of(String.class),
+                        args -> CelVariableHelpers.strForCel(context, (String) args[0])));
     }
 
     private static List<CelFunctionDecl> helperFunctionDecls() {
@@ -206,4 +275,13 @@ public class CelRuleEngine {
         }
         return names;
     }
+
+    private record ProgramKey(Long ruleId, int expressionHash) {
+        static ProgramKey of(Long ruleId, String expression) {
+            return new ProgramKey(ruleId, expression != null ? expression.hashCode() : 0);
+        }
+    }
+
+    private record CompiledProgram(String expression, CelRuntime.Program program, Set<String> variables) {
+    }
 }
@@ -1,5 +1,8 @@
 package ru.pt.rules.service;
 
+import dev.cel.common.CelValidationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import ru.pt.rules.entity.RuleEntity;
 import ru.pt.rules.repository.RuleRepository;
@@ -14,23 +17,33 @@ import java.util.stream.Collectors;
 @Component
 public class RuleCache {
 
+    private static final Logger logger = LoggerFactory.getLogger(RuleCache.class);
+
     private final RuleRepository ruleRepository;
+    private final CelRuleEngine celRuleEngine;
     private volatile Map<Long, List<RuleEntity>> byTenant = new ConcurrentHashMap<>();
 
-    public RuleCache(RuleRepository ruleRepository) {
+    public RuleCache(RuleRepository ruleRepository, CelRuleEngine celRuleEngine) {
         this.ruleRepository = ruleRepository;
+        this.celRuleEngine = celRuleEngine;
     }
 
     public void reloadAll() {
         Map<Long, List<RuleEntity>> grouped = ruleRepository.findAll().stream()
                 .filter(r -> "ACTIVE".equals(r.getRecordStatus()))
                 .collect(Collectors.groupingBy(RuleEntity::getTid));
+        celRuleEngine.evictAll();
+        grouped.values().forEach(this::precompile);
         byTenant = new ConcurrentHashMap<>(grouped);
     }
 
     public void reloadTenant(Long tid) {
         List<RuleEntity> rules = ruleRepository.findByTidAndRecordStatusOrderByPriorityAsc(tid, "ACTIVE");
-        byTenant.put(tid, List.copyOf(rules));
+        precompile(rules);
+        List<RuleEntity> previous = byTenant.put(tid, List.copyOf(rules));
+        if (previous != null) {
+            evictStale(previous, rules);
+        }
     }
 
     public List<RuleEntity> findActive(Long tid, String ruleType, String scopeType, String scopeCode) {
@@ -50,4 +63,28 @@ public class RuleCache {
         }
         return result;
     }
+
+    /**
+     * Компиляция CEL-выражений при загрузке правил, чтобы расчёт полиса выполнял только готовые программы.
+     * Невалидное выражение не кэшируется — ошибка вернётся в сообщении правила при его выполнении.
+     */
+    private void precompile(List<RuleEntity> rules) {
+        for (RuleEntity rule : rules) {
+            try {
+                celRuleEngine.precompile(rule.getId(), rule.getExpression());
+            } catch (CelValidationException | RuntimeException ex) {
+                logger.warn("CEL precompile failed for rule {}: {}", rule.getCode(), ex.getMessage());
+            }
+        }
+    }
+
+    private void evictStale(List<RuleEntity> previous, List<RuleEntity> current) {
+        for (RuleEntity old : previous) {
+            boolean stillActive = current.stream().anyMatch(rule ->
+                    rule.getId().equals(old.getId()) && rule.getExpression().equals(old.getExpression()));
+            if (!stillActive) {
+                celRuleEngine.evict(old.getId(), old.getExpression());
+            }
+        }
+    }
 }
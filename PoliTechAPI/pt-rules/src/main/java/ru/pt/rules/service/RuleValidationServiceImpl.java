@@ -130,7 +130,7 @@ public class RuleValidationServiceImpl implements RuleValidationService {
     private void evaluateRule(RuleEntity rule, Map<String, Object> variables, List<String> messages) {
         logger.debug("Evaluating rule. code={}, priority={}", rule.getCode(), rule.getPriority());
         try {
-            boolean ok = celRuleEngine.evaluate(rule.getExpression(), variables);
+            boolean ok = celRuleEngine.evaluate(rule.getId(), rule.getExpression(), variables);
             if (!ok) {
                 logger.warn(
                         "Rule violated. code={}, message={}",
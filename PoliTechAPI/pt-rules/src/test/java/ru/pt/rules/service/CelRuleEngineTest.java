@@ -1,11 +1,15 @@
 package ru.pt.rules.service;
 
+import dev.cel.common.CelValidationException;
 import org.junit.jupiter.api.Test;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class CelRuleEngineTest {
@@ -113,4 +117,46 @@ class CelRuleEngineTest {
                 "ph_age_issue < 40 && ph_gender in [\"M\"]",
                 Map.of("ph_age_issue", "25", "ph_gender", "M")));
     }
+
+    @Test
+    void evaluate_precompiledRule_usesCachedProgram() throws Exception {
+        engine.precompile(1L, "num(\"io_age_issue\") < 40 && ph_gender in [\"M\"]");
+        assertEquals(1, engine.cachedProgramCount());
+        assertTrue(engine.evaluate(
+                1L, "num(\"io_age_issue\") < 40 && ph_gender in [\"M\"]",
+                Map.of("io_age_issue", "25", "ph_gender", "M")));
+        assertFalse(engine.evaluate(
+                1L, "num(\"io_age_issue\") < 40 && ph_gender in [\"M\"]",
+                Map.of("io_age_issue", "45", "ph_gender", "M")));
+        assertEquals(1, engine.cachedProgramCount());
+    }
+
+    @Test
+    void evaluate_cachedRule_changedExpressionRecompiles() throws Exception {
+        engine.precompile(1L, "io_age <= 75");
+        assertTrue(engine.evaluate(1L, "io_age <= 75", Map.of("io_age", 70)));
+        assertFalse(engine.evaluate(1L, "io_age <= 65", Map.of("io_age", 70)));
+    }
+
+    @Test
+    void evaluate_cachedRule_missingVariableFailsCompile() throws Exception {
+        engine.precompile(1L, "io_age <= 40");
+        assertThrows(
+                CelValidationException.class,
+                () -> engine.evaluate(1L, "io_age <= 40", Map.of()));
+    }
+
+    @Test
+    void evaluate_cachedRule_comprehensionVariable() throws Exception {
+        assertTrue(engine.evaluate(
+                2L, "codes.exists(c, c == \"A\")",
+                Map.of("codes", List.of("B", "A"))));
+    }
+
+    @Test
+    void evict_removesProgram() throws Exception {
+        engine.precompile(1L, "io_age <= 75");
+        engine.evict(1L, "io_age <= 75");
+        assertEquals(0, engine.cachedProgramCount());
+    }
 }